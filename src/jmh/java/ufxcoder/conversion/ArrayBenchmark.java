@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.conversion;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ufxcoder.formats.SyntheticImages;
+
+/**
+ * Benchmarks for conversion of bytes to integers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArrayBenchmark
+{
+  @Param({ "4096", "1048576" })
+  public int size;
+  @Param({ "BigEndian", "LittleEndian" })
+  public ByteOrder byteOrder;
+  private byte[] data;
+
+  @Setup
+  public void prepare()
+  {
+    data = SyntheticImages.createGraySamples(size, 1);
+  }
+
+  @Benchmark
+  public long from32()
+  {
+    long sum = 0;
+    for (int offset = 0; offset + 4 <= data.length; offset += 4)
+    {
+      sum += Array.from32(data, offset, byteOrder);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long from64()
+  {
+    long sum = 0;
+    for (int offset = 0; offset + 8 <= data.length; offset += 8)
+    {
+      sum += Array.from64(data, offset, byteOrder);
+    }
+    return sum;
+  }
+}
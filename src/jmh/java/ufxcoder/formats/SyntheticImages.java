@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Random;
+import java.util.ResourceBundle;
+import javax.imageio.ImageIO;
+import ufxcoder.app.AppConfig;
+import ufxcoder.app.ProcessMode;
+
+/**
+ * Create image files in memory as input for benchmarks, so that benchmark results do not depend on test files.
+ */
+public final class SyntheticImages
+{
+  private static final int TIFF_MAGIC = 42;
+  private static final int TIFF_ENTRY_SIZE = 12;
+  private static final int TYPE_SHORT = 3;
+  private static final int TYPE_LONG = 4;
+  private static final int TYPE_RATIONAL = 5;
+  private static final int NUM_TIFF_ENTRIES = 12;
+  private static final int NOISE = 32;
+
+  private SyntheticImages()
+  {
+    // to avoid instantiation
+  }
+
+  /**
+   * Create a configuration to check files with English messages.
+   *
+   * @return new configuration
+   */
+  public static AppConfig createConfig()
+  {
+    final AppConfig config = new AppConfig();
+    config.setBundle(ResourceBundle.getBundle("Messages", Locale.ENGLISH));
+    config.setMode(ProcessMode.Check);
+    return config;
+  }
+
+  /**
+   * Create gray samples with a gradient and some noise, which compresses like a photograph rather than a flat area.
+   *
+   * @param width
+   *          number of columns
+   * @param height
+   *          number of rows
+   * @return samples, row by row
+   */
+  public static byte[] createGraySamples(final int width, final int height)
+  {
+    final Random random = new Random((long) width * height);
+    final byte[] result = new byte[width * height];
+    int index = 0;
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        result[index++] = (byte) ((x + y) * 255 / (width + height) + random.nextInt(NOISE));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Create a baseline JPEG file with a single gray component, encoded with the JDK's image I/O.
+   *
+   * @param width
+   *          number of columns
+   * @param height
+   *          number of rows
+   * @return file content
+   * @throws IOException
+   *           if encoding fails
+   */
+  public static byte[] createJpeg(final int width, final int height) throws IOException
+  {
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+    image.getRaster().setDataElements(0, 0, width, height, createGraySamples(width, height));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (!ImageIO.write(image, "jpeg", out))
+    {
+      throw new IOException("No JPEG writer available.");
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Find the first byte of entropy-coded data after the first start-of-scan marker of a JPEG file.
+   *
+   * @param jpeg
+   *          file content
+   * @return offset or -1 if there is no start-of-scan marker
+   */
+  public static int findScanData(final byte[] jpeg)
+  {
+    int result = -1;
+    int index = 2;
+    while (result < 0 && index + 4 <= jpeg.length)
+    {
+      final int marker = jpeg[index + 1] & 0xff;
+      final int length = (jpeg[index + 2] & 0xff) << 8 | jpeg[index + 3] & 0xff;
+      if (marker == 0xda)
+      {
+        result = index + 2 + length;
+      }
+      index += 2 + length;
+    }
+    return result;
+  }
+
+  /**
+   * Create an uncompressed little-endian TIFF file with 8 bit gray samples, stored in strips.
+   *
+   * @param width
+   *          number of columns
+   * @param height
+   *          number of rows
+   * @param rowsPerStrip
+   *          number of rows in each strip, the last strip may have fewer
+   * @return file content
+   */
+  public static byte[] createTiff(final int width, final int height, final int rowsPerStrip)
+  {
+    final int numStrips = (height + rowsPerStrip - 1) / rowsPerStrip;
+    final int ifdOffset = 8;
+    final int ifdSize = 2 + NUM_TIFF_ENTRIES * TIFF_ENTRY_SIZE + 4;
+    final int stripOffsetsOffset = ifdOffset + ifdSize;
+    final int stripByteCountsOffset = stripOffsetsOffset + numStrips * 4;
+    final int resolutionOffset = stripByteCountsOffset + numStrips * 4;
+    final int dataOffset = resolutionOffset + 8;
+    final ByteBuffer buffer = ByteBuffer.allocate(dataOffset + width * height);
+    buffer.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+    buffer.put((byte) 'I').put((byte) 'I').putShort((short) TIFF_MAGIC).putInt(ifdOffset);
+    buffer.putShort((short) NUM_TIFF_ENTRIES);
+    putEntry(buffer, 256, TYPE_LONG, 1, width);
+    putEntry(buffer, 257, TYPE_LONG, 1, height);
+    putEntry(buffer, 258, TYPE_SHORT, 1, 8);
+    putEntry(buffer, 259, TYPE_SHORT, 1, 1);
+    putEntry(buffer, 262, TYPE_SHORT, 1, 1);
+    putEntry(buffer, 273, TYPE_LONG, numStrips, numStrips == 1 ? dataOffset : stripOffsetsOffset);
+    putEntry(buffer, 277, TYPE_SHORT, 1, 1);
+    putEntry(buffer, 278, TYPE_LONG, 1, rowsPerStrip);
+    putEntry(buffer, 279, TYPE_LONG, numStrips, numStrips == 1 ? width * height : stripByteCountsOffset);
+    putEntry(buffer, 282, TYPE_RATIONAL, 1, resolutionOffset);
+    putEntry(buffer, 283, TYPE_RATIONAL, 1, resolutionOffset);
+    putEntry(buffer, 296, TYPE_SHORT, 1, 2);
+    buffer.putInt(0);
+    for (int strip = 0; strip < numStrips; strip++)
+    {
+      buffer.putInt(stripOffsetsOffset + strip * 4, dataOffset + strip * rowsPerStrip * width);
+      final int numRows = Math.min(rowsPerStrip, height - strip * rowsPerStrip);
+      buffer.putInt(stripByteCountsOffset + strip * 4, numRows * width);
+    }
+    buffer.putInt(resolutionOffset, 72).putInt(resolutionOffset + 4, 1);
+    buffer.position(dataOffset);
+    buffer.put(createGraySamples(width, height));
+    return buffer.array();
+  }
+
+  private static void putEntry(final ByteBuffer buffer, final int tag, final int type, final int count,
+      final int value)
+  {
+    buffer.putShort((short) tag).putShort((short) type).putInt(count);
+    if (type == TYPE_SHORT && count == 1)
+    {
+      buffer.putShort((short) value).putShort((short) 0);
+    }
+    else
+    {
+      buffer.putInt(value);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ufxcoder.formats.SyntheticImages;
+import ufxcoder.io.MemorySource;
+
+/**
+ * Benchmarks for JPEG parsing and entropy decoding over gray images of different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JpegBenchmark
+{
+  @Param({ "64", "512", "2048" })
+  public int size;
+  private MemorySource source;
+  private JpegProcessor processor;
+  private int scanOffset;
+  private int numBlocks;
+  private JpegHuffmanTable dcTable;
+  private JpegHuffmanTable acTable;
+  private final int[] zz = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+
+  @Setup
+  public void prepare() throws IOException
+  {
+    final byte[] jpeg = SyntheticImages.createJpeg(size, size);
+    source = new MemorySource(jpeg);
+    scanOffset = SyntheticImages.findScanData(jpeg);
+    final int blocksPerLine = (size + 7) / 8;
+    numBlocks = blocksPerLine * blocksPerLine;
+    processor = new JpegProcessor();
+    processor.setConfig(SyntheticImages.createConfig());
+    processor.process(source);
+    if (!processor.isSuccess())
+    {
+      throw new IllegalStateException("Synthetic JPEG not valid.");
+    }
+    final JpegFileDescription desc = processor.getJpegFileDescription();
+    dcTable = desc.findHuffmanTable(0, Constants.TABLE_CLASS_DC);
+    acTable = desc.findHuffmanTable(0, Constants.TABLE_CLASS_AC);
+    processor.reset();
+  }
+
+  @Benchmark
+  public boolean process() throws IOException
+  {
+    source.seek(0);
+    processor.process(source);
+    final boolean result = processor.isSuccess();
+    processor.reset();
+    return result;
+  }
+
+  @Benchmark
+  public long readScanData() throws IOException
+  {
+    source.seek(scanOffset);
+    processor.setSource(source);
+    final JpegScanReader reader = new JpegScanReader(processor);
+    reader.readScanData();
+    return source.getPosition();
+  }
+
+  @Benchmark
+  public long decodeDcAc() throws IOException
+  {
+    source.seek(scanOffset);
+    processor.setSource(source);
+    final JpegScanReader reader = new JpegScanReader(processor);
+    final JpegHuffmanDecoder dcDecoder = new JpegHuffmanDecoder(dcTable, reader);
+    final JpegHuffmanDecoder acDecoder = new JpegHuffmanDecoder(acTable, reader);
+    long sum = 0;
+    for (int block = 0; block < numBlocks; block++)
+    {
+      sum += dcDecoder.decodeDc();
+      acDecoder.decodeAc(zz);
+      sum += zz[1];
+    }
+    return sum;
+  }
+}
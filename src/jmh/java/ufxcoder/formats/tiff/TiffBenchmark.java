@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ufxcoder.formats.SyntheticImages;
+import ufxcoder.io.MemorySource;
+
+/**
+ * Benchmark for TIFF parsing over uncompressed gray images of different sizes, with one strip per eight rows so that
+ * strip offsets and byte counts grow with the image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TiffBenchmark
+{
+  private static final int ROWS_PER_STRIP = 8;
+  @Param({ "64", "512", "2048" })
+  public int size;
+  private MemorySource source;
+  private TiffProcessor processor;
+
+  @Setup
+  public void prepare() throws IOException
+  {
+    source = new MemorySource(SyntheticImages.createTiff(size, size, ROWS_PER_STRIP));
+    processor = new TiffProcessor();
+    processor.setConfig(SyntheticImages.createConfig());
+    processor.process(source);
+    if (!processor.isSuccess())
+    {
+      throw new IllegalStateException("Synthetic TIFF not valid.");
+    }
+    processor.reset();
+  }
+
+  @Benchmark
+  public boolean process() throws IOException
+  {
+    source.seek(0);
+    processor.process(source);
+    final boolean result = processor.isSuccess();
+    processor.reset();
+    return result;
+  }
+}
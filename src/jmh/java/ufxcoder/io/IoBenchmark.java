@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ufxcoder.conversion.ByteOrder;
+import ufxcoder.formats.SyntheticImages;
+
+/**
+ * Benchmarks for byte-wise buffered reading and integer extraction from segments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IoBenchmark
+{
+  private static final int BUFFER_SIZE = 4096;
+  @Param({ "4096", "1048576" })
+  public int size;
+  @Param({ "BigEndian", "LittleEndian" })
+  public ByteOrder byteOrder;
+  private MemorySource source;
+  private Segment segment;
+
+  @Setup
+  public void prepare()
+  {
+    final byte[] data = SyntheticImages.createGraySamples(size, 1);
+    source = new MemorySource(data);
+    segment = new Segment();
+    segment.setData(data);
+    segment.setLength(data.length);
+    segment.setByteOrder(byteOrder);
+  }
+
+  @Benchmark
+  public long bufferedSourceNext() throws IOException
+  {
+    source.seek(0);
+    final BufferedSource input = new BufferedSource(source, BUFFER_SIZE);
+    long sum = 0;
+    int value = input.next();
+    while (value >= 0)
+    {
+      sum += value;
+      value = input.next();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long segmentInt16()
+  {
+    segment.setIndex(0);
+    long sum = 0;
+    for (int index = size / 2; index > 0; index--)
+    {
+      sum += segment.int16();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long segmentInt32()
+  {
+    segment.setIndex(0);
+    long sum = 0;
+    for (int index = size / 4; index > 0; index--)
+    {
+      sum += segment.int32();
+    }
+    return sum;
+  }
+}
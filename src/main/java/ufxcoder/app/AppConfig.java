@@ -22,6 +22,7 @@ import java.util.Locale;
 import java.util.ResourceBundle;
 import ufxcoder.conversion.StrUtil;
 import ufxcoder.formats.AbstractFormatProcessor;
+import ufxcoder.results.ResultConfig;
 
 /**
  * Configuration for {@link UniversalFileTranscoder} application.
@@ -43,6 +44,16 @@ public class AppConfig
    * If no argument is specified, use this many threads per CPU as returned by {@link Runtime#availableProcessors()}.
    */
   public static final int DEFAULT_NUMBER_OF_THREADS_PER_CPU = 4;
+
+  /**
+   * Number of jobs per thread that may be waiting to be processed before the producer of jobs is blocked.
+   */
+  public static final int DEFAULT_QUEUED_JOBS_PER_THREAD = 16;
+
+  /**
+   * Maximum number of files processed at the same time in {@link ExecutionMode#Virtual}.
+   */
+  public static final int MAX_VIRTUAL_THREADS = 1024;
   private boolean showEnvironment;
   private ResourceBundle bundle;
   private final List<String> fileNames;
@@ -51,10 +62,13 @@ public class AppConfig
   private List<AbstractFormatProcessor> processors;
   private SystemInfo systemInfo;
   private Integer numberOfThreads;
+  private Integer numberOfScanThreads;
   private Locale locale;
   private boolean quiet;
   private boolean knownFileExtensionsOnly;
   private boolean tiffBaseline;
+  private ExecutionMode executionMode = ExecutionMode.Threads;
+  private final ResultConfig resultConfig = new ResultConfig();
 
   public AppConfig()
   {
@@ -194,6 +208,16 @@ public class AppConfig
     this.numberOfThreads = numberOfThreads;
   }
 
+  public Integer getNumberOfScanThreads()
+  {
+    return numberOfScanThreads;
+  }
+
+  public void setNumberOfScanThreads(final Integer numberOfScanThreads)
+  {
+    this.numberOfScanThreads = numberOfScanThreads;
+  }
+
   public Locale getLocale()
   {
     return locale;
@@ -233,4 +257,19 @@ public class AppConfig
   {
     this.tiffBaseline = tiffBaseline;
   }
+
+  public ExecutionMode getExecutionMode()
+  {
+    return executionMode;
+  }
+
+  public void setExecutionMode(final ExecutionMode executionMode)
+  {
+    this.executionMode = executionMode;
+  }
+
+  public ResultConfig getResultConfig()
+  {
+    return resultConfig;
+  }
 }
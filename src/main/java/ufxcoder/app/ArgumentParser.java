@@ -26,12 +26,19 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ch.qos.logback.classic.Level;
+import ufxcoder.checksums.ChecksumAlgorithm;
+import ufxcoder.results.ResultFormat;
 
 /**
  * Parse arguments from command line and configuration files.
  */
 public class ArgumentParser
 {
+  /**
+   * Argument to switch --threads selecting {@link ExecutionMode#Virtual}.
+   */
+  public static final String VIRTUAL_THREADS = "virtual";
+
   /**
    * Program parameters.
    */
@@ -73,30 +80,48 @@ public class ArgumentParser
         };
       },
 
-      new AbstractParameter("args.num_threads", "threads", "j", ParameterType.Integer)
+      new AbstractParameter("args.num_threads", "threads", "j", ParameterType.String)
       {
         @Override
         public void process(final AppConfig config, final String nextArg)
         {
-          try
+          if (VIRTUAL_THREADS.equals(nextArg))
           {
-            final Integer numThreads = Integer.valueOf(nextArg);
-            if (numThreads > 0)
+            config.setExecutionMode(ExecutionMode.Virtual);
+          }
+          else
+          {
+            final Integer numThreads = parseNumberOfThreads(config, nextArg);
+            if (numThreads != null)
             {
               config.setNumberOfThreads(numThreads);
             }
-            else
-            {
-              config.msg("args.error.invalid_number_of_threads", nextArg);
-            }
           }
-          catch (NumberFormatException nfe)
+        };
+      },
+
+      new AbstractParameter("args.num_scan_threads", "scan-threads", null, ParameterType.Integer)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          final Integer numThreads = parseNumberOfThreads(config, nextArg);
+          if (numThreads != null)
           {
-            config.msg("args.error.invalid_number_of_threads_exception", nextArg, nfe.getMessage());
+            config.setNumberOfScanThreads(numThreads);
           }
         };
       },
 
+      new AbstractParameter("args.work_stealing", "work-stealing", "w", null)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          config.setExecutionMode(ExecutionMode.WorkStealing);
+        };
+      },
+
       new AbstractParameter("args.known_extensions_only", "knownext", "k", null)
       {
         @Override
@@ -128,6 +153,64 @@ public class ArgumentParser
         };
       },
 
+      new AbstractParameter("args.result_format", "result-format", null, ParameterType.String)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          final ResultFormat format = parseResultFormat(config, nextArg);
+          if (format != null)
+          {
+            config.getResultConfig().setFormat(format);
+          }
+        };
+      },
+
+      new AbstractParameter("args.result_file", "result-file", null, ParameterType.String)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          config.getResultConfig().setFileName(nextArg);
+        };
+      },
+
+      new AbstractParameter("args.checksum", "checksum", null, ParameterType.String)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          parseChecksumAlgorithms(config, nextArg);
+        };
+      },
+
+      new AbstractParameter("args.pixel_hash", "pixel-hash", null, null)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          config.getResultConfig().setPixelHashing(true);
+        };
+      },
+
+      new AbstractParameter("args.cache", "cache", null, ParameterType.String)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          config.getResultConfig().setCacheFileName(nextArg);
+        };
+      },
+
+      new AbstractParameter("args.cache_hash", "cache-hash", null, null)
+      {
+        @Override
+        public void process(final AppConfig config, final String nextArg)
+        {
+          config.getResultConfig().setCacheHashing(true);
+        };
+      },
+
       new AbstractParameter("args.print_environment", "print-env", null, null)
       {
         @Override
@@ -217,32 +300,108 @@ public class ArgumentParser
     return success;
   }
 
-  public void removeFilesWithUnknownExtensions(final List<String> fileNames, final Set<String> lowerExtensions)
+  /**
+   * Parse a number of threads, which must be larger than zero.
+   *
+   * @param config
+   *          configuration used to look up error messages
+   * @param value
+   *          argument to be parsed
+   * @return number of threads or null if the argument is invalid, which is logged
+   */
+  public static Integer parseNumberOfThreads(final AppConfig config, final String value)
   {
-    final Iterator<String> iter = fileNames.iterator();
-    while (iter.hasNext())
+    Integer result = null;
+    try
     {
-      final File file = new File(iter.next());
-      final String name = file.getName();
-      final int lastDot = name.lastIndexOf('.');
-      boolean doRemove = false;
-      if (lastDot >= 0)
-      {
-        final String ext = name.substring(lastDot + 1).toLowerCase(Locale.ENGLISH);
-        if (!lowerExtensions.contains(ext))
-        {
-          doRemove = true;
-        }
+      final Integer numThreads = Integer.valueOf(value);
+      if (numThreads > 0)
+      {
+        result = numThreads;
       }
       else
       {
-        doRemove = true;
+        LOGGER.error(config.msg("args.error.invalid_number_of_threads", value));
       }
-      if (doRemove)
+    }
+    catch (NumberFormatException nfe)
+    {
+      LOGGER.error(config.msg("args.error.invalid_number_of_threads_exception", value, nfe.getMessage()));
+    }
+    return result;
+  }
+
+  /**
+   * Parse the name of a result format.
+   *
+   * @param config
+   *          configuration used to look up error messages
+   * @param value
+   *          argument to be parsed
+   * @return format or null if the argument is invalid, which is logged
+   */
+  public static ResultFormat parseResultFormat(final AppConfig config, final String value)
+  {
+    final ResultFormat result = value == null ? null : ResultFormat.fromName(value);
+    if (result == null)
+    {
+      LOGGER.error(config.msg("args.error.invalid_result_format", value));
+    }
+    return result;
+  }
+
+  /**
+   * Parse a comma-separated list of checksum algorithm names and add the algorithms to the configuration.
+   *
+   * @param config
+   *          configuration to be modified
+   * @param value
+   *          argument to be parsed
+   * @return if all names were valid, invalid names are logged
+   */
+  public static boolean parseChecksumAlgorithms(final AppConfig config, final String value)
+  {
+    boolean result = true;
+    final List<ChecksumAlgorithm> algorithms = config.getResultConfig().getChecksumAlgorithms();
+    for (final String name : value.split(","))
+    {
+      final ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromName(name.trim());
+      if (algorithm == null)
       {
-        iter.remove();
+        LOGGER.error(config.msg("args.error.invalid_checksum", name));
+        result = false;
       }
+      else
+      {
+        if (!algorithms.contains(algorithm))
+        {
+          algorithms.add(algorithm);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Does the name of a file end with one of the known extensions?
+   *
+   * @param fileName
+   *          name of file, possibly including directories
+   * @param lowerExtensions
+   *          lower-case file extensions without dot
+   * @return if the file has an extension and its lower-case version is contained in the argument set
+   */
+  public static boolean hasKnownExtension(final String fileName, final Set<String> lowerExtensions)
+  {
+    final String name = new File(fileName).getName();
+    final int lastDot = name.lastIndexOf('.');
+    boolean result = false;
+    if (lastDot >= 0)
+    {
+      final String ext = name.substring(lastDot + 1).toLowerCase(Locale.ENGLISH);
+      result = lowerExtensions.contains(ext);
     }
+    return result;
   }
 
   private boolean processParameter(final AppConfig config, final String arg, final Iterator<String> iterator)
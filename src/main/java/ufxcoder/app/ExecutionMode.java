@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+/**
+ * How {@link UniversalFileTranscoder} distributes files to threads.
+ */
+public enum ExecutionMode
+{
+  /**
+   * A fixed number of platform threads take files from a shared queue.
+   */
+  Threads,
+
+  /**
+   * Each file becomes a task of a work-stealing {@link java.util.concurrent.ForkJoinPool}.
+   */
+  WorkStealing,
+
+  /**
+   * Each file is processed in its own virtual thread, requires Java 21 or higher.
+   */
+  Virtual
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ufxcoder.checksums.ChecksumAlgorithm;
+import ufxcoder.formats.AbstractFormatProcessor;
+import ufxcoder.formats.EventSeverity;
+import ufxcoder.formats.FileDescription;
+import ufxcoder.formats.FormatProcessorRegistry;
+import ufxcoder.formats.FormatSignatureTable;
+import ufxcoder.io.ChecksumSource;
+import ufxcoder.io.SeekableSource;
+import ufxcoder.results.ProcessorResult;
+import ufxcoder.results.ResultCache;
+import ufxcoder.results.ResultConfig;
+import ufxcoder.results.ResultStatus;
+
+/**
+ * Processes single files with its own set of format processors. An instance is used by one thread only and reused for
+ * all files processed by that thread.
+ */
+public class FileProcessor
+{
+  /**
+   * Hands out the {@link FileProcessor} running the format processors once a file has been opened and takes it back
+   * afterwards. Lets callers share a limited number of processors among a larger number of threads opening files.
+   */
+  public interface Lender
+  {
+    /**
+     * Obtain a processor, waiting if none is available.
+     *
+     * @return processor to be passed to {@link #giveBack(FileProcessor)} when done
+     * @throws InterruptedException
+     *           if interrupted while waiting
+     */
+    FileProcessor borrow() throws InterruptedException;
+
+    /**
+     * Return a processor obtained from {@link #borrow()}.
+     *
+     * @param processor
+     *          processor no longer used by the caller
+     */
+    void giveBack(FileProcessor processor);
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileProcessor.class);
+  private FormatSignatureTable signatureTable;
+  private final byte[] header = new byte[FormatSignatureTable.HEADER_SIZE];
+  private final AppConfig config;
+  /**
+   * Lends this object itself, for files processed by the thread owning it.
+   */
+  private final Lender self = new Lender()
+  {
+    @Override
+    public FileProcessor borrow()
+    {
+      return FileProcessor.this;
+    }
+
+    @Override
+    public void giveBack(final FileProcessor processor)
+    {
+      // owned by the calling thread
+    }
+  };
+
+  public FileProcessor(final AppConfig appConfig)
+  {
+    this.config = appConfig;
+  }
+
+  private void initialize()
+  {
+    final List<AbstractFormatProcessor> processors = FormatProcessorRegistry.createProcessorInstances();
+    signatureTable = FormatProcessorRegistry.createSignatureTable(processors);
+  }
+
+  /**
+   * Find the processor for a file, process it and hand over the result to the result sink. If the file is unchanged
+   * according to the result cache, the cached result is handed over instead.
+   *
+   * @param fileName
+   *          name of file to be processed
+   */
+  public void process(final String fileName)
+  {
+    try
+    {
+      process(config, fileName, header, self);
+    }
+    catch (InterruptedException e)
+    {
+      // not thrown by this object's own lender
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Process a file with a processor from a lender and hand over the result to the result sink. If the file is unchanged
+   * according to the result cache, the cached result is handed over instead. The file is opened and its header read
+   * before a processor is borrowed, checksums are completed after it has been given back. A content hash for the cache
+   * is computed along with the checksums.
+   *
+   * @param config
+   *          configuration with result sink, optional cache and checksum algorithms
+   * @param fileName
+   *          name of file to be processed
+   * @param fileHeader
+   *          buffer receiving the first bytes of the file, {@link FormatSignatureTable#HEADER_SIZE} bytes large
+   * @param lender
+   *          hands out the processor for the file
+   * @throws InterruptedException
+   *           if interrupted while waiting for a processor
+   */
+  public static void process(final AppConfig config, final String fileName, final byte[] fileHeader,
+      final Lender lender) throws InterruptedException
+  {
+    ResultCache.Key key = createCacheKey(config, fileName);
+    if (!reuseCachedResult(config, key))
+    {
+      ProcessorResult result = null;
+      try (SeekableSource source = openSource(config, fileName))
+      {
+        final int headerLength = readHeader(source, fileHeader);
+        final FileProcessor processor = lender.borrow();
+        try
+        {
+          result = processor.process(source, fileHeader, headerLength);
+        }
+        finally
+        {
+          lender.giveBack(processor);
+        }
+        final Map<String, String> checksums = completeChecksums(source);
+        key = addCacheHash(config, key, checksums);
+        result = addChecksums(fileName, result, checksums);
+      }
+      catch (IOException e)
+      {
+        reportOpenError(fileName, e);
+        key = null;
+      }
+      complete(config, fileName, key, result);
+    }
+  }
+
+  /**
+   * Let the processors claiming a file header process a source until one of them identifies the file. The source was
+   * opened and its header read by the caller.
+   *
+   * @param source
+   *          open source
+   * @param fileHeader
+   *          first bytes of source as returned by {@link #readHeader(SeekableSource, byte[])}
+   * @param headerLength
+   *          number of valid bytes in fileHeader
+   * @return result of the identifying processor or null if the file was not identified, to be handed over to
+   *         {@link #complete(AppConfig, String, ResultCache.Key, ProcessorResult)}
+   * @throws IOException
+   *           if seeking in the source fails
+   */
+  public ProcessorResult process(final SeekableSource source, final byte[] fileHeader, final int headerLength)
+      throws IOException
+  {
+    if (signatureTable == null)
+    {
+      initialize();
+    }
+    ProcessorResult result = null;
+    final List<AbstractFormatProcessor> candidates = signatureTable.findCandidates(fileHeader, headerLength);
+    reorder(candidates, source.getName());
+    for (final AbstractFormatProcessor proc : candidates)
+    {
+      source.seek(0);
+      proc.setConfig(config);
+      proc.process(source);
+      if (proc.isFormatIdentified())
+      {
+        result = createResult(proc, proc.getSource(), proc.getFileDescription());
+        proc.reset();
+        break;
+      }
+      else
+      {
+        proc.reset();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Open a file for processing, wrapped in a {@link ChecksumSource} if checksums or a content hash for the result cache
+   * are to be computed.
+   *
+   * @param config
+   *          configuration with checksum algorithms and optional cache
+   * @param fileName
+   *          name of file to be opened
+   * @return new source
+   * @throws IOException
+   *           if the file cannot be opened
+   */
+  private static SeekableSource openSource(final AppConfig config, final String fileName) throws IOException
+  {
+    final SeekableSource source = AbstractFormatProcessor.createSource(new File(fileName));
+    final ResultConfig resultConfig = config.getResultConfig();
+    final List<ChecksumAlgorithm> algorithms = new ArrayList<>(resultConfig.getChecksumAlgorithms());
+    final ResultCache cache = resultConfig.getCache();
+    if (cache != null && cache.isHashing() && !algorithms.contains(ResultCache.HASH_ALGORITHM))
+    {
+      algorithms.add(ResultCache.HASH_ALGORITHM);
+    }
+    return algorithms.isEmpty() ? source : new ChecksumSource(source, algorithms);
+  }
+
+  /**
+   * Complete checksum computation of a processed source, reading all bytes skipped by the format processor.
+   *
+   * @param source
+   *          source returned by {@link #openSource(AppConfig, String)}
+   * @return map from algorithm name to hexadecimal checksum, empty if no checksums are computed
+   * @throws IOException
+   *           on read errors
+   */
+  private static Map<String, String> completeChecksums(final SeekableSource source) throws IOException
+  {
+    Map<String, String> result;
+    if (source instanceof ChecksumSource)
+    {
+      result = ((ChecksumSource) source).complete();
+    }
+    else
+    {
+      result = new LinkedHashMap<>();
+    }
+    return result;
+  }
+
+  /**
+   * Take the content hash of a cache key from the checksums of the processed file, so that the file does not have to
+   * be read again for it. The hash is removed from the checksums unless it was requested for the results.
+   *
+   * @param config
+   *          configuration with checksum algorithms and optional cache
+   * @param key
+   *          key of the file, null if no cache is used
+   * @param checksums
+   *          checksums of the file as returned by {@link #completeChecksums(SeekableSource)}
+   * @return key with content hash if the cache uses hashing, otherwise the argument key
+   */
+  private static ResultCache.Key addCacheHash(final AppConfig config, final ResultCache.Key key,
+      final Map<String, String> checksums)
+  {
+    final ResultConfig resultConfig = config.getResultConfig();
+    ResultCache.Key result = key;
+    if (key != null && resultConfig.getCache().isHashing())
+    {
+      result = key.withHash(ResultCache.getHash(checksums));
+    }
+    if (!resultConfig.getChecksumAlgorithms().contains(ResultCache.HASH_ALGORITHM))
+    {
+      checksums.remove(ResultCache.HASH_ALGORITHM.getName());
+    }
+    return result;
+  }
+
+  /**
+   * Add checksums to the result of a file.
+   *
+   * @param fileName
+   *          name of file
+   * @param processorResult
+   *          result of processing or null if the file was not identified
+   * @param checksums
+   *          checksums of the file content, may be empty
+   * @return argument result with checksums, or null if argument result is null and there are no checksums
+   */
+  private static ProcessorResult addChecksums(final String fileName, final ProcessorResult processorResult,
+      final Map<String, String> checksums)
+  {
+    ProcessorResult result = processorResult;
+    if (!checksums.isEmpty())
+    {
+      result = result == null ? createUnknownResult(fileName) : result;
+      // content checksums first, followed by those computed by the format processor
+      checksums.putAll(result.getChecksums());
+      result = result.with(result.getPath(), checksums);
+    }
+    return result;
+  }
+
+  private static ProcessorResult createUnknownResult(final String fileName)
+  {
+    return new ProcessorResult(fileName, null, ResultStatus.Unknown, null, null);
+  }
+
+  /**
+   * Determine the key of a file in the result cache.
+   *
+   * @param config
+   *          configuration with the optional cache
+   * @param fileName
+   *          name of file to be processed
+   * @return key or null if no cache is used or the file cannot be examined
+   */
+  private static ResultCache.Key createCacheKey(final AppConfig config, final String fileName)
+  {
+    final ResultCache cache = config.getResultConfig().getCache();
+    ResultCache.Key result = null;
+    if (cache != null)
+    {
+      try
+      {
+        result = cache.createKey(fileName);
+      }
+      catch (IOException e)
+      {
+        reportOpenError(fileName, e);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Hand over the cached result of a file if the file has not changed.
+   *
+   * @param config
+   *          configuration with the optional cache
+   * @param key
+   *          key of the file, null if no cache is used
+   * @return if a cached result was handed over, otherwise the file must be processed
+   */
+  private static boolean reuseCachedResult(final AppConfig config, final ResultCache.Key key)
+  {
+    final ProcessorResult cached = key == null ? null : config.getResultConfig().getCache().lookup(key);
+    if (cached != null)
+    {
+      emit(config, cached);
+    }
+    return cached != null;
+  }
+
+  /**
+   * Store the result of a processed file in the cache and hand it over to the result sink.
+   *
+   * @param config
+   *          configuration with result sink and optional cache
+   * @param fileName
+   *          name of processed file
+   * @param key
+   *          cache key determined before processing, null if the result is not to be cached
+   * @param processorResult
+   *          result of processing or null if the file was not identified
+   */
+  private static void complete(final AppConfig config, final String fileName, final ResultCache.Key key,
+      final ProcessorResult processorResult)
+  {
+    final ProcessorResult result = processorResult == null ? createUnknownResult(fileName) : processorResult;
+    if (key != null)
+    {
+      config.getResultConfig().getCache().store(key, result);
+    }
+    emit(config, result);
+  }
+
+  /**
+   * Read the first bytes of a source, up to the size of the buffer.
+   *
+   * @param source
+   *          source positioned at its beginning
+   * @param buffer
+   *          receives the header, typically {@link FormatSignatureTable#HEADER_SIZE} bytes large
+   * @return number of bytes read, smaller than the buffer size only for small sources
+   * @throws IOException
+   *           on read errors
+   */
+  private static int readHeader(final SeekableSource source, final byte[] buffer) throws IOException
+  {
+    final int headerLength = (int) Math.min(buffer.length, source.getLength());
+    source.readFully(buffer, 0, headerLength);
+    return headerLength;
+  }
+
+  private static void reportOpenError(final String fileName, final IOException exception)
+  {
+    LOGGER.error(String.format("Could not open file '%s'.", fileName), exception);
+  }
+
+  private void reorder(final List<AbstractFormatProcessor> processors, final String fileName)
+  {
+    final String ext = AbstractFormatProcessor.extractFileExtension(fileName);
+    int index = 1;
+    final int size = processors.size();
+    while (index < size)
+    {
+      final AbstractFormatProcessor proc = processors.get(index);
+      if (proc.isFileNameWithTypicalExtension(ext))
+      {
+        processors.remove(index);
+        processors.add(0, proc);
+      }
+      index++;
+    }
+  }
+
+  private static ProcessorResult createResult(final AbstractFormatProcessor proc, final SeekableSource source,
+      final FileDescription desc)
+  {
+    ResultStatus status;
+    final EventSeverity highestSeverity = desc.findHighestSeverity();
+    if (highestSeverity == EventSeverity.Error)
+    {
+      status = ResultStatus.Error;
+    }
+    else
+    {
+      if (highestSeverity == EventSeverity.Warning)
+      {
+        status = ResultStatus.Warning;
+      }
+      else
+      {
+        status = ResultStatus.Ok;
+      }
+    }
+    return new ProcessorResult(source.getName(), proc.getShortName(), status, desc.getSortedErrorWarningKeys(),
+        desc.formatEvents(), desc.getChecksums());
+  }
+
+  private static void emit(final AppConfig config, final ProcessorResult result)
+  {
+    if (!(result.getStatus() == ResultStatus.Ok && config.isQuiet()))
+    {
+      config.getResultConfig().getSink().accept(result);
+    }
+  }
+}
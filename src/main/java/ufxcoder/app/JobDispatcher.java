@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+/**
+ * Distributes {@link ProcessorJob} objects to worker threads.
+ */
+public interface JobDispatcher
+{
+  /**
+   * Hand over a job to be processed by one of the workers.
+   *
+   * @param job
+   *          job to be processed
+   * @throws InterruptedException
+   *           if the calling thread was interrupted while waiting to submit the job
+   * @throws IllegalStateException
+   *           if no workers are left to process jobs
+   */
+  void submit(ProcessorJob job) throws InterruptedException;
+
+  /**
+   * Signal that no more jobs will be submitted and wait until all submitted jobs are processed.
+   *
+   * @throws InterruptedException
+   *           if the calling thread was interrupted while waiting
+   * @throws IllegalStateException
+   *           if no workers are left to process jobs
+   */
+  void finish() throws InterruptedException;
+
+  /**
+   * Stop processing as soon as possible, jobs not yet started are dropped.
+   */
+  void cancel();
+}
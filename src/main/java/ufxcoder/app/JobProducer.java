@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ufxcoder.formats.FormatProcessorRegistry;
+import ufxcoder.io.CollectAllFilesVisitor;
+import ufxcoder.io.FileNameConsumer;
+import ufxcoder.io.ParallelDirectoryWalker;
+
+/**
+ * Create a {@link ProcessorJob} for each file given on the command line or found in directories and submit it to a
+ * {@link JobDispatcher} right away, so that files get processed while directories are still being scanned.
+ */
+public class JobProducer implements FileNameConsumer
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(JobProducer.class);
+  private final AppConfig config;
+  private final JobDispatcher dispatcher;
+  private final Set<String> knownExtensions;
+  private final AtomicLong numFiles = new AtomicLong();
+
+  public JobProducer(final AppConfig config, final JobDispatcher dispatcher)
+  {
+    this.config = config;
+    this.dispatcher = dispatcher;
+    if (config.isKnownFileExtensionsOnly())
+    {
+      knownExtensions = FormatProcessorRegistry.createKnownExtensionsSet(true);
+    }
+    else
+    {
+      knownExtensions = null;
+    }
+  }
+
+  /**
+   * Submit all files from {@link AppConfig#getFileNames()}, then scan all directories from
+   * {@link AppConfig#getDirectoryNames()} and submit the files found. Directories are scanned one at a time unless
+   * {@link AppConfig#getNumberOfScanThreads()} is set, then a {@link ParallelDirectoryWalker} is used.
+   *
+   * @throws InterruptedException
+   *           if the calling thread was interrupted
+   */
+  public void produce() throws InterruptedException
+  {
+    for (final String fileName : config.getFileNames())
+    {
+      accept(fileName);
+    }
+    final Integer numScanThreads = config.getNumberOfScanThreads();
+    if (numScanThreads == null)
+    {
+      walk();
+    }
+    else
+    {
+      new ParallelDirectoryWalker(config, this, numScanThreads.intValue()).walk(config.getDirectoryNames());
+    }
+  }
+
+  private void walk() throws InterruptedException
+  {
+    for (final String dirName : config.getDirectoryNames())
+    {
+      try
+      {
+        LOGGER.debug(config.msg("args.debug.scanning_directory", dirName));
+        Files.walkFileTree(Paths.get(dirName), new CollectAllFilesVisitor(this));
+      }
+      catch (IOException e)
+      {
+        LOGGER.error(config.msg("args.error.scanning_directory", dirName), e);
+      }
+      if (Thread.interrupted())
+      {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  @Override
+  public void accept(final String fileName) throws InterruptedException
+  {
+    if (knownExtensions == null || ArgumentParser.hasKnownExtension(fileName, knownExtensions))
+    {
+      final ProcessorJob job = new ProcessorJob();
+      job.setFileName(fileName);
+      dispatcher.submit(job);
+      numFiles.incrementAndGet();
+    }
+  }
+
+  /**
+   * Get the number of files submitted so far.
+   *
+   * @return number of submitted files
+   */
+  public long getNumFiles()
+  {
+    return numFiles.get();
+  }
+}
@@ -20,6 +20,10 @@ package ufxcoder.app;
  */
 public class ProcessorJob
 {
+  /**
+   * Marker job telling a worker that no more jobs will follow.
+   */
+  public static final ProcessorJob END_OF_STREAM = new ProcessorJob();
   private String fileName;
 
   public String getFileName()
@@ -15,131 +15,56 @@
  */
 package ufxcoder.app;
 
-import java.util.List;
 import java.util.concurrent.BlockingQueue;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import ufxcoder.formats.AbstractFormatProcessor;
-import ufxcoder.formats.EventSeverity;
-import ufxcoder.formats.FileDescription;
-import ufxcoder.formats.FormatProcessorRegistry;
-import ufxcoder.io.SeekableSource;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Thread processing jobs from a queue.
+ * Worker processing jobs from a queue until it takes {@link ProcessorJob#END_OF_STREAM} or the thread gets
+ * interrupted. Each worker owns a {@link FileProcessor} which is reused for all its jobs.
  */
 public class ProcessorThread implements Runnable
 {
-  private static final Logger LOGGER = LoggerFactory.getLogger(ProcessorThread.class);
-  private boolean initialized;
-  private List<AbstractFormatProcessor> processors;
+  private final FileProcessor fileProcessor;
   private final BlockingQueue<ProcessorJob> queue;
-  private final AppConfig config;
+  private final AtomicInteger activeWorkers;
 
-  public ProcessorThread(final AppConfig appConfig, final BlockingQueue<ProcessorJob> queue)
+  /**
+   * Create new worker.
+   *
+   * @param appConfig
+   *          configuration
+   * @param queue
+   *          source of jobs
+   * @param activeWorkers
+   *          counter of workers still taking jobs from the queue, is decremented when this worker stops
+   */
+  public ProcessorThread(final AppConfig appConfig, final BlockingQueue<ProcessorJob> queue,
+      final AtomicInteger activeWorkers)
   {
-    this.config = appConfig;
+    this.fileProcessor = new FileProcessor(appConfig);
     this.queue = queue;
+    this.activeWorkers = activeWorkers;
   }
 
-  private void initialize()
-  {
-    processors = FormatProcessorRegistry.createProcessorInstances();
-    initialized = true;
-  }
-
-  private void process(final String fileName)
-  {
-    boolean identified = false;
-    reorder(fileName);
-    for (final AbstractFormatProcessor proc : processors)
-    {
-      proc.setConfig(config);
-      proc.process(fileName);
-      handleResult(proc, proc.getSource(), proc.getFileDescription());
-      if (proc.isFormatIdentified())
-      {
-        identified = true;
-        proc.reset();
-        break;
-      }
-      else
-      {
-        proc.reset();
-      }
-    }
-    if (!identified)
-    {
-      LOGGER.info(fileName + "\t" + config.msg("processor.result.unknown") + "\t");
-    }
-  }
-
-  private void reorder(final String fileName)
+  @Override
+  public void run()
   {
-    final String ext = AbstractFormatProcessor.extractFileExtension(fileName);
-    int index = 1;
-    final int size = processors.size();
-    while (index < size)
+    try
     {
-      final AbstractFormatProcessor proc = processors.get(index);
-      if (proc.isFileNameWithTypicalExtension(ext))
+      ProcessorJob job = queue.take();
+      while (job != ProcessorJob.END_OF_STREAM)
       {
-        processors.remove(index);
-        processors.add(0, proc);
+        fileProcessor.process(job.getFileName());
+        job = queue.take();
       }
-      index++;
     }
-  }
-
-  private void handleResult(final AbstractFormatProcessor proc, final SeekableSource source, final FileDescription desc)
-  {
-    if (proc.isFormatIdentified())
+    catch (InterruptedException e)
     {
-      final String eventText = desc.formatEvents();
-      String key;
-      final EventSeverity highestSeverity = desc.findHighestSeverity();
-      boolean ok = false;
-      if (highestSeverity == EventSeverity.Error)
-      {
-        key = "processor.result.error";
-      }
-      else
-      {
-        if (highestSeverity == EventSeverity.Warning)
-        {
-          key = "processor.result.warning";
-        }
-        else
-        {
-          key = "processor.result.ok";
-          ok = true;
-        }
-      }
-      if (!(ok && config.isQuiet()))
-      {
-        LOGGER.info(source.getName() + "\t" + proc.getShortName() + "\t" + proc.msg(key) + "\t" + eventText);
-      }
+      Thread.currentThread().interrupt();
     }
-  }
-
-  @Override
-  public void run()
-  {
-    while (!queue.isEmpty())
+    finally
     {
-      if (!initialized)
-      {
-        initialize();
-      }
-      try
-      {
-        final ProcessorJob job = queue.take();
-        process(job.getFileName());
-      }
-      catch (InterruptedException e)
-      {
-        LOGGER.error(e.getMessage());
-      }
+      activeWorkers.decrementAndGet();
     }
   }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Create worker threads named T001, T002 and so on. The names show up in the log output.
+ */
+public class ProcessorThreadFactory implements ThreadFactory, ForkJoinPool.ForkJoinWorkerThreadFactory
+{
+  private final AtomicInteger counter = new AtomicInteger();
+  private final AppConfig config;
+
+  public ProcessorThreadFactory(final AppConfig config)
+  {
+    this.config = config;
+  }
+
+  private String createName()
+  {
+    return String.format("T%03d", counter.incrementAndGet());
+  }
+
+  @Override
+  public Thread newThread(final Runnable runnable)
+  {
+    return new Thread(runnable, createName());
+  }
+
+  @Override
+  public ForkJoinWorkerThread newThread(final ForkJoinPool pool)
+  {
+    final ForkJoinWorkerThread thread = new ProcessorWorkerThread(pool, new FileProcessor(config));
+    thread.setName(createName());
+    return thread;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Worker thread of a {@link ForkJoinPool} owning a {@link FileProcessor} for all the tasks it runs.
+ */
+public class ProcessorWorkerThread extends ForkJoinWorkerThread
+{
+  private final FileProcessor fileProcessor;
+
+  public ProcessorWorkerThread(final ForkJoinPool pool, final FileProcessor fileProcessor)
+  {
+    super(pool);
+    this.fileProcessor = fileProcessor;
+  }
+
+  public FileProcessor getFileProcessor()
+  {
+    return fileProcessor;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ufxcoder.results.ResultCache;
+import ufxcoder.results.ResultConfig;
+
+/**
+ * Load the result cache named in the configuration before processing and save it afterwards.
+ */
+public final class ResultCacheFile
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResultCacheFile.class);
+  private static final String UNKNOWN_VERSION = "unknown";
+
+  /**
+   * Sums up a hash of path, size and modification time of each file visited, independent of the order of visits.
+   */
+  private static final class CodeVisitor extends SimpleFileVisitor<Path>
+  {
+    private long sum;
+
+    @Override
+    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs)
+    {
+      sum += 31L * (31L * file.toString().hashCode() + attrs.size()) + attrs.lastModifiedTime().toMillis();
+      return FileVisitResult.CONTINUE;
+    }
+
+    public long getSum()
+    {
+      return sum;
+    }
+  }
+
+  private ResultCacheFile()
+  {
+    // to avoid instantiation
+  }
+
+  /**
+   * Describe everything besides the file content that influences results: program version and build, enabled checks,
+   * language of messages, whether the cache compares checksums and which checksums are part of the results.
+   *
+   * @param config
+   *          configuration with enabled checks
+   * @return fingerprint stored with the cache
+   */
+  public static String createFingerprint(final AppConfig config)
+  {
+    final String version = ResultCacheFile.class.getPackage().getImplementationVersion();
+    final Locale locale = config.getLocale();
+    return "version=" + (version == null ? UNKNOWN_VERSION : version) + ";code=" + describeCode()
+        + ";tiffBaseline=" + config.isTiffBaseline() + ";mode=" + config.getMode() + ";locale="
+        + (locale == null ? "" : locale)
+        + ";hash=" + config.getResultConfig().isCacheHashing() + ";checksums="
+        + config.getResultConfig().getChecksumAlgorithms() + ";pixelHash=" + config.getResultConfig().isPixelHashing();
+  }
+
+  /**
+   * Summarize the program code: path, size and modification time of the jar file or of all files below the class
+   * directory the program runs from. Rebuilding the program changes the summary even if its version stays the same,
+   * e.g. for snapshot builds or when running from an IDE without a jar manifest.
+   *
+   * @return hexadecimal summary or {@link #UNKNOWN_VERSION} if the code location cannot be examined
+   */
+  private static String describeCode()
+  {
+    String result = UNKNOWN_VERSION;
+    final CodeSource codeSource = ResultCacheFile.class.getProtectionDomain().getCodeSource();
+    if (codeSource != null && codeSource.getLocation() != null)
+    {
+      try
+      {
+        final CodeVisitor visitor = new CodeVisitor();
+        Files.walkFileTree(Paths.get(codeSource.getLocation().toURI()), visitor);
+        result = Long.toHexString(visitor.getSum());
+      }
+      catch (IOException | URISyntaxException | IllegalArgumentException | FileSystemNotFoundException
+          | SecurityException e)
+      {
+        LOGGER.debug("Could not examine program code: " + e.getMessage());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Create a cache if the configuration names a cache file, and load its entries if they were created with the same
+   * fingerprint. Read errors are logged and lead to an empty cache.
+   *
+   * @param config
+   *          configuration receiving the cache
+   */
+  public static void open(final AppConfig config)
+  {
+    final ResultConfig resultConfig = config.getResultConfig();
+    final String fileName = resultConfig.getCacheFileName();
+    if (fileName != null)
+    {
+      final File file = new File(fileName);
+      final ResultCache cache = new ResultCache(createFingerprint(config), resultConfig.isCacheHashing());
+      try
+      {
+        if (cache.load(file))
+        {
+          LOGGER.debug(config.msg("processor.cache.loaded", cache.size(), fileName));
+        }
+        else
+        {
+          if (file.exists())
+          {
+            LOGGER.info(config.msg("processor.cache.invalidated", fileName));
+          }
+        }
+        resultConfig.setCache(cache);
+      }
+      catch (IOException e)
+      {
+        LOGGER.warn(config.msg("processor.cache.error.load", fileName, e.getMessage()));
+        resultConfig.setCache(new ResultCache(cache.getFingerprint(), cache.isHashing()));
+      }
+    }
+  }
+
+  /**
+   * Write the cache of the configuration to its file, if there is one.
+   *
+   * @param config
+   *          configuration with cache
+   */
+  public static void save(final AppConfig config)
+  {
+    final ResultConfig resultConfig = config.getResultConfig();
+    final ResultCache cache = resultConfig.getCache();
+    if (cache != null)
+    {
+      LOGGER.debug(config.msg("processor.cache.hits", cache.getNumHits()));
+      final String fileName = resultConfig.getCacheFileName();
+      try
+      {
+        cache.save(new File(fileName));
+      }
+      catch (IOException e)
+      {
+        LOGGER.error(config.msg("processor.cache.error.save", fileName, e.getMessage()));
+      }
+      resultConfig.setCache(null);
+    }
+  }
+}
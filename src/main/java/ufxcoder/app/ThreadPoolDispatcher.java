@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatcher putting jobs into a bounded queue shared by a fixed number of {@link ProcessorThread} workers. Submitting
+ * blocks while the queue is full, so memory use does not depend on the number of files.
+ */
+public class ThreadPoolDispatcher implements JobDispatcher
+{
+  private static final long OFFER_TIMEOUT_MILLIS = 500L;
+  private final BlockingQueue<ProcessorJob> queue;
+  private final int numThreads;
+  private final ExecutorService executor;
+  private final AtomicInteger activeWorkers;
+
+  public ThreadPoolDispatcher(final AppConfig config, final int numThreads)
+  {
+    this.numThreads = numThreads;
+    queue = new ArrayBlockingQueue<>(numThreads * AppConfig.DEFAULT_QUEUED_JOBS_PER_THREAD);
+    activeWorkers = new AtomicInteger(numThreads);
+    executor = Executors.newFixedThreadPool(numThreads, new ProcessorThreadFactory(config));
+    for (int i = 0; i < numThreads; i++)
+    {
+      executor.execute(new ProcessorThread(config, queue, activeWorkers));
+    }
+  }
+
+  @Override
+  public void submit(final ProcessorJob job) throws InterruptedException
+  {
+    // do not block forever in case all workers have died
+    while (!queue.offer(job, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+    {
+      if (activeWorkers.get() == 0)
+      {
+        throw new IllegalStateException("No worker threads left to process jobs.");
+      }
+    }
+  }
+
+  @Override
+  public void finish() throws InterruptedException
+  {
+    // one end-of-stream marker for each worker
+    for (int i = 0; i < numThreads; i++)
+    {
+      submit(ProcessorJob.END_OF_STREAM);
+    }
+    executor.shutdown();
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void cancel()
+  {
+    queue.clear();
+    executor.shutdownNow();
+  }
+}
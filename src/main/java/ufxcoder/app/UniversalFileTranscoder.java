@@ -15,20 +15,14 @@
  */
 package ufxcoder.app;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.TimeZone;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -40,7 +34,9 @@ import ch.qos.logback.core.ConsoleAppender;
 import ufxcoder.formats.FormatProcessorRegistry;
 import ufxcoder.formats.jpeg.JpegProcessor;
 import ufxcoder.formats.tiff.TiffProcessor;
-import ufxcoder.io.CollectAllFilesVisitor;
+import ufxcoder.results.AbstractResultEncoder;
+import ufxcoder.results.AsyncResultWriter;
+import ufxcoder.results.ResultSink;
 
 /**
  * Command line application to offer access to library features.
@@ -58,24 +54,6 @@ public class UniversalFileTranscoder
     final ArgumentParser parser = new ArgumentParser();
     if (parser.parse(config, args))
     {
-      for (final String dirName : config.getDirectoryNames())
-      {
-        try
-        {
-          LOGGER.debug(config.msg("args.debug.scanning_directory", dirName));
-          Files.walkFileTree(Paths.get(dirName), new CollectAllFilesVisitor(config));
-        }
-        catch (IOException e)
-        {
-          LOGGER.error(config.msg("args.error.scanning_directory", dirName), e);
-        }
-      }
-      if (config.isKnownFileExtensionsOnly())
-      {
-        parser.removeFilesWithUnknownExtensions(config.getFileNames(),
-            FormatProcessorRegistry.createKnownExtensionsSet(true));
-      }
-
       setDefaults(config, args);
       final SystemInfo info = new SystemInfo();
       config.setSystemInfo(info);
@@ -172,7 +150,7 @@ public class UniversalFileTranscoder
     }
     default:
     {
-      if (!config.getFileNames().isEmpty())
+      if (!config.getFileNames().isEmpty() || !config.getDirectoryNames().isEmpty())
       {
         processFiles(config);
       }
@@ -185,61 +163,129 @@ public class UniversalFileTranscoder
   {
     long millis = System.currentTimeMillis();
 
-    // create a job object for each file name
-    final List<String> fileNames = config.getFileNames();
-    final int numFileNames = fileNames.size();
-    LOGGER.debug(config.msg("processor.number_of_files", numFileNames));
-    final BlockingQueue<ProcessorJob> queue = new ArrayBlockingQueue<ProcessorJob>(numFileNames);
-    for (final String fileName : fileNames)
-    {
-      final ProcessorJob job = new ProcessorJob();
-      job.setFileName(fileName);
-      queue.add(job);
-    }
-
     // determine number of threads to be used
     // 1) prefer argument 2) otherwise number of CPUs times AppConfig.DEFAULT_NUMBER_OF_THREADS_PER_CPU 3) limit if
-    // there are fewer files than threads
+    // there are no directories to be scanned and fewer files than threads
     final Integer numberOfThreadsConfig = config.getNumberOfThreads();
-    final int numThreads = Math.min(numFileNames,
-        numberOfThreadsConfig == null
-            ? Runtime.getRuntime().availableProcessors() * AppConfig.DEFAULT_NUMBER_OF_THREADS_PER_CPU
-            : numberOfThreadsConfig.intValue());
+    int numThreads = numberOfThreadsConfig == null
+        ? Runtime.getRuntime().availableProcessors() * AppConfig.DEFAULT_NUMBER_OF_THREADS_PER_CPU
+        : numberOfThreadsConfig.intValue();
+    if (config.getDirectoryNames().isEmpty())
+    {
+      numThreads = Math.min(numThreads, config.getFileNames().size());
+    }
 
-    // create and start threads
+    // hand over a job object for each file name while scanning directories, then wait for all jobs to be finished
     LOGGER.debug(config.msg("processor.number_of_threads", numThreads));
-    final List<Thread> threads = new ArrayList<Thread>(numThreads);
-    for (int i = 1; i <= numThreads; i++)
+    final ResultSink sink = createResultSink(config);
+    if (sink != null)
     {
-      final Thread thread = new Thread(new ProcessorThread(config, queue), "T" + String.format("%03d", i));
-      threads.add(thread);
-      thread.start();
+      config.getResultConfig().setSink(sink);
+      ResultCacheFile.open(config);
+      final JobDispatcher dispatcher = createDispatcher(config, numThreads);
+      final JobProducer producer = new JobProducer(config, dispatcher);
+      try
+      {
+        producer.produce();
+        dispatcher.finish();
+      }
+      catch (InterruptedException e)
+      {
+        dispatcher.cancel();
+        LOGGER.error(config.msg("processor.error.interrupted", e.getMessage()));
+        Thread.currentThread().interrupt();
+      }
+      catch (IllegalStateException e)
+      {
+        // all workers have died, JobDispatcher.submit cannot hand over jobs any more
+        dispatcher.cancel();
+        LOGGER.error(config.msg("processor.error.no_workers", e.getMessage()));
+      }
+      finally
+      {
+        closeResultSink(config, sink);
+        ResultCacheFile.save(config);
+      }
+      millis = System.currentTimeMillis() - millis;
+      LOGGER.info(config.msg("processor.files_time", producer.getNumFiles(), millis / 1000L));
     }
+  }
 
-    // wait and check once in a while if there are any active threads left
-    do
+  /**
+   * Create and start the writer that receives the results of all processed files, either writing to the result file
+   * from the configuration or to standard output.
+   *
+   * @param config
+   *          configuration with result format and file name
+   * @return started sink or null if the result file could not be opened, which is logged
+   */
+  private ResultSink createResultSink(final AppConfig config)
+  {
+    AsyncResultWriter result = null;
+    final AbstractResultEncoder encoder = config.getResultConfig().getFormat().createEncoder(config);
+    final String fileName = config.getResultConfig().getFileName();
+    if (fileName == null)
+    {
+      result = new AsyncResultWriter(encoder, System.out, false);
+    }
+    else
     {
       try
       {
-        Thread.sleep(100);
+        result = new AsyncResultWriter(encoder, new FileOutputStream(fileName), true);
       }
-      catch (InterruptedException e)
+      catch (final IOException e)
+      {
+        LOGGER.error(config.msg("args.error.cannot_open_result_file", fileName), e);
+      }
+    }
+    if (result != null)
+    {
+      result.start();
+    }
+    return result;
+  }
+
+  private void closeResultSink(final AppConfig config, final ResultSink sink)
+  {
+    try
+    {
+      sink.close();
+    }
+    catch (final IOException e)
+    {
+      LOGGER.error(config.msg("processor.error.writing_results", e.getMessage()));
+    }
+    finally
+    {
+      config.getResultConfig().setSink(null);
+    }
+  }
+
+  private JobDispatcher createDispatcher(final AppConfig config, final int numThreads)
+  {
+    JobDispatcher result;
+    final ExecutionMode executionMode = config.getExecutionMode();
+    if (executionMode == ExecutionMode.WorkStealing)
+    {
+      result = new WorkStealingDispatcher(config, numThreads);
+    }
+    else
+    {
+      if (executionMode == ExecutionMode.Virtual && VirtualThreadDispatcher.isSupported())
       {
-        LOGGER.error(config.msg("processor.error.sleep", e.getMessage()));
+        result = new VirtualThreadDispatcher(config);
       }
-      final Iterator<Thread> iter = threads.iterator();
-      while (iter.hasNext())
+      else
       {
-        final Thread thread = iter.next();
-        if (!thread.isAlive())
+        if (executionMode == ExecutionMode.Virtual)
         {
-          iter.remove();
+          LOGGER.warn(config.msg("processor.warn.virtual_threads_unsupported"));
         }
+        result = new ThreadPoolDispatcher(config, numThreads);
       }
     }
-    while (!threads.isEmpty());
-    millis = System.currentTimeMillis() - millis;
-    LOGGER.info(config.msg("processor.files_time", config.getFileNames().size(), millis / 1000L));
+    return result;
   }
 
   private void printVersion(final AppConfig config)
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+/**
+ * Dispatcher running each job in its own virtual thread.
+ *
+ * Virtual threads require Java 21. This version of the class is used on older Java versions, it falls back to a
+ * {@link ThreadPoolDispatcher} with one platform thread per CPU, {@link #isSupported()} tells whether that is the case.
+ * The multi-release JAR contains the actual implementation under META-INF/versions/21, its source code is in directory
+ * src/main/java21.
+ */
+public class VirtualThreadDispatcher implements JobDispatcher
+{
+  private final ThreadPoolDispatcher fallback;
+
+  public VirtualThreadDispatcher(final AppConfig config)
+  {
+    fallback = new ThreadPoolDispatcher(config, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Can virtual threads be used with the current Java version?
+   *
+   * @return false for this version of the class
+   */
+  public static boolean isSupported()
+  {
+    return false;
+  }
+
+  @Override
+  public void submit(final ProcessorJob job) throws InterruptedException
+  {
+    fallback.submit(job);
+  }
+
+  @Override
+  public void finish() throws InterruptedException
+  {
+    fallback.finish();
+  }
+
+  @Override
+  public void cancel()
+  {
+    fallback.cancel();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatcher turning each job into a task of a work-stealing {@link ForkJoinPool}. Idle workers steal tasks from busy
+ * ones, so a few very large files do not hold up the files queued behind them. The number of submitted but unfinished
+ * tasks is limited by a semaphore, so memory use does not depend on the number of files.
+ */
+public class WorkStealingDispatcher implements JobDispatcher
+{
+  private final ForkJoinPool pool;
+  private final Semaphore pending;
+
+  public WorkStealingDispatcher(final AppConfig config, final int numThreads)
+  {
+    pending = new Semaphore(numThreads * AppConfig.DEFAULT_QUEUED_JOBS_PER_THREAD);
+    pool = new ForkJoinPool(numThreads, new ProcessorThreadFactory(config), null, true);
+  }
+
+  @Override
+  public void submit(final ProcessorJob job) throws InterruptedException
+  {
+    pending.acquire();
+    pool.execute(new ProcessorTask(job, pending));
+  }
+
+  @Override
+  public void finish() throws InterruptedException
+  {
+    pool.shutdown();
+    pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void cancel()
+  {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Task processing a single job with the {@link FileProcessor} of the worker thread running it.
+   */
+  private static final class ProcessorTask extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+    private final transient ProcessorJob job;
+    private final transient Semaphore pending;
+
+    ProcessorTask(final ProcessorJob job, final Semaphore pending)
+    {
+      super();
+      this.job = job;
+      this.pending = pending;
+    }
+
+    @Override
+    protected void compute()
+    {
+      try
+      {
+        final ProcessorWorkerThread worker = (ProcessorWorkerThread) Thread.currentThread();
+        worker.getFileProcessor().process(job.getFileName());
+      }
+      finally
+      {
+        pending.release();
+      }
+    }
+  }
+}
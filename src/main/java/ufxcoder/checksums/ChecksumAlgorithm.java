@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.checksums;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checksum algorithms that can be computed for each file.
+ */
+public enum ChecksumAlgorithm
+{
+  /**
+   * CRC-32C, 4 bytes.
+   */
+  Crc32c("crc32c"),
+
+  /**
+   * SHA-256, 32 bytes.
+   */
+  Sha256("sha256"),
+
+  /**
+   * xxHash XXH64, 8 bytes.
+   */
+  XxHash64("xxh64");
+
+  private final String name;
+
+  ChecksumAlgorithm(final String name)
+  {
+    this.name = name;
+  }
+
+  /**
+   * Name as used on the command line and in results.
+   *
+   * @return lower-case name
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Find algorithm by its name.
+   *
+   * @param name
+   *          name, case is ignored
+   * @return algorithm or null if there is none with that name
+   */
+  public static ChecksumAlgorithm fromName(final String name)
+  {
+    ChecksumAlgorithm result = null;
+    final String lowerCase = name.toLowerCase(Locale.ENGLISH);
+    for (final ChecksumAlgorithm algorithm : values())
+    {
+      if (algorithm.getName().equals(lowerCase))
+      {
+        result = algorithm;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Create a new object to compute a hash with this algorithm.
+   *
+   * @return new hash object
+   */
+  public ContentHash createHash()
+  {
+    ContentHash result;
+    switch (this)
+    {
+    case Crc32c:
+    {
+      result = new Crc32cHash();
+      break;
+    }
+    case Sha256:
+    {
+      result = new Sha256Hash();
+      break;
+    }
+    default:
+    {
+      result = new XxHash64();
+      break;
+    }
+    }
+    return result;
+  }
+
+  /**
+   * Create hash objects for a list of algorithms.
+   *
+   * @param algorithms
+   *          list of algorithms
+   * @return list of new hash objects in the same order
+   */
+  public static List<ContentHash> createHashes(final List<ChecksumAlgorithm> algorithms)
+  {
+    final List<ContentHash> result = new ArrayList<>(algorithms.size());
+    for (final ChecksumAlgorithm algorithm : algorithms)
+    {
+      result.add(algorithm.createHash());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.checksums;
+
+/**
+ * Hash function or checksum computed incrementally over a sequence of bytes.
+ */
+public interface ContentHash
+{
+  /**
+   * Add bytes to the hash.
+   *
+   * @param data
+   *          array with bytes
+   * @param offset
+   *          index of first byte in data
+   * @param length
+   *          number of bytes
+   */
+  void update(byte[] data, int offset, int length);
+
+  /**
+   * Complete the computation. No more updates are allowed afterwards.
+   *
+   * @return hash value, most significant byte first
+   */
+  byte[] digest();
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.checksums;
+
+import ufxcoder.conversion.Array;
+
+/**
+ * CRC-32C (Castagnoli polynomial, as used by iSCSI, ext4 and many storage systems). The JDK offers CRC-32C only since
+ * Java 9, so this is a table-driven implementation processing eight bytes per step (slicing-by-8).
+ */
+public class Crc32cHash implements ContentHash
+{
+  private static final int POLYNOMIAL = 0x82f63b78;
+  private static final int NUM_TABLES = 8;
+  private static final int TABLE_SIZE = 256;
+  private static final int BYTE_MASK = 0xff;
+  private static final int[][] TABLES = createTables();
+  private int crc = 0xffffffff;
+
+  private static int[][] createTables()
+  {
+    final int[][] tables = new int[NUM_TABLES][TABLE_SIZE];
+    for (int index = 0; index < TABLE_SIZE; index++)
+    {
+      int value = index;
+      for (int bit = 0; bit < 8; bit++)
+      {
+        value = (value & 1) == 0 ? value >>> 1 : (value >>> 1) ^ POLYNOMIAL;
+      }
+      tables[0][index] = value;
+    }
+    for (int table = 1; table < NUM_TABLES; table++)
+    {
+      for (int index = 0; index < TABLE_SIZE; index++)
+      {
+        final int previous = tables[table - 1][index];
+        tables[table][index] = (previous >>> 8) ^ tables[0][previous & BYTE_MASK];
+      }
+    }
+    return tables;
+  }
+
+  @Override
+  public void update(final byte[] data, final int offset, final int length)
+  {
+    final int[] t0 = TABLES[0];
+    final int[] t1 = TABLES[1];
+    final int[] t2 = TABLES[2];
+    final int[] t3 = TABLES[3];
+    final int[] t4 = TABLES[4];
+    final int[] t5 = TABLES[5];
+    final int[] t6 = TABLES[6];
+    final int[] t7 = TABLES[7];
+    int value = crc;
+    int index = offset;
+    final int end = offset + length;
+    while (end - index >= NUM_TABLES)
+    {
+      value ^= Array.from32Little(data, index);
+      value = t7[value & BYTE_MASK] ^ t6[(value >>> 8) & BYTE_MASK] ^ t5[(value >>> 16) & BYTE_MASK] ^ t4[value >>> 24]
+          ^ t3[data[index + 4] & BYTE_MASK] ^ t2[data[index + 5] & BYTE_MASK] ^ t1[data[index + 6] & BYTE_MASK]
+          ^ t0[data[index + 7] & BYTE_MASK];
+      index += NUM_TABLES;
+    }
+    while (index < end)
+    {
+      value = (value >>> 8) ^ t0[(value ^ data[index]) & BYTE_MASK];
+      index++;
+    }
+    crc = value;
+  }
+
+  @Override
+  public byte[] digest()
+  {
+    final int value = ~crc;
+    return new byte[]
+    {
+        (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value
+    };
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.checksums;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 as provided by the JDK, which every Java platform is required to support.
+ */
+public class Sha256Hash implements ContentHash
+{
+  private final MessageDigest messageDigest;
+
+  public Sha256Hash()
+  {
+    try
+    {
+      messageDigest = MessageDigest.getInstance("SHA-256");
+    }
+    catch (final NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException("SHA-256 not available.", e);
+    }
+  }
+
+  @Override
+  public void update(final byte[] data, final int offset, final int length)
+  {
+    messageDigest.update(data, offset, length);
+  }
+
+  @Override
+  public byte[] digest()
+  {
+    return messageDigest.digest();
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.checksums;
+
+import ufxcoder.conversion.Array;
+
+/**
+ * Streaming implementation of the 64 bit variant of xxHash (XXH64) with seed 0, a fast non-cryptographic hash. Input is
+ * processed in stripes of 32 bytes with four independent accumulators, an incomplete stripe is kept until more input
+ * arrives or the digest is computed.
+ */
+public class XxHash64 implements ContentHash
+{
+  private static final long PRIME1 = 0x9e3779b185ebca87L;
+  private static final long PRIME2 = 0xc2b2ae3d27d4eb4fL;
+  private static final long PRIME3 = 0x165667b19e3779f9L;
+  private static final long PRIME4 = 0x85ebca77c2b2ae63L;
+  private static final long PRIME5 = 0x27d4eb2f165667c5L;
+  private static final int STRIPE_SIZE = 32;
+  private static final int LANE_SIZE = 8;
+  private static final long UNSIGNED_INT_MASK = 0xffffffffL;
+  private long acc1 = PRIME1 + PRIME2;
+  private long acc2 = PRIME2;
+  private long acc3;
+  private long acc4 = -PRIME1;
+  private long totalLength;
+  private final byte[] stripe = new byte[STRIPE_SIZE];
+  private int stripeLength;
+
+  private static long round(final long acc, final long input)
+  {
+    return Long.rotateLeft(acc + input * PRIME2, 31) * PRIME1;
+  }
+
+  private static long mergeRound(final long acc, final long value)
+  {
+    return (acc ^ round(0, value)) * PRIME1 + PRIME4;
+  }
+
+  private void consumeStripe(final byte[] data, final int offset)
+  {
+    acc1 = round(acc1, Array.from64Little(data, offset));
+    acc2 = round(acc2, Array.from64Little(data, offset + LANE_SIZE));
+    acc3 = round(acc3, Array.from64Little(data, offset + 2 * LANE_SIZE));
+    acc4 = round(acc4, Array.from64Little(data, offset + 3 * LANE_SIZE));
+  }
+
+  @Override
+  public void update(final byte[] data, final int offset, final int length)
+  {
+    totalLength += length;
+    int index = offset;
+    final int end = offset + length;
+    if (stripeLength > 0)
+    {
+      final int num = Math.min(STRIPE_SIZE - stripeLength, length);
+      System.arraycopy(data, index, stripe, stripeLength, num);
+      stripeLength += num;
+      index += num;
+      if (stripeLength == STRIPE_SIZE)
+      {
+        consumeStripe(stripe, 0);
+        stripeLength = 0;
+      }
+    }
+    while (end - index >= STRIPE_SIZE)
+    {
+      consumeStripe(data, index);
+      index += STRIPE_SIZE;
+    }
+    if (index < end)
+    {
+      System.arraycopy(data, index, stripe, stripeLength, end - index);
+      stripeLength += end - index;
+    }
+  }
+
+  @Override
+  public byte[] digest()
+  {
+    long hash;
+    if (totalLength >= STRIPE_SIZE)
+    {
+      hash = Long.rotateLeft(acc1, 1) + Long.rotateLeft(acc2, 7) + Long.rotateLeft(acc3, 12)
+          + Long.rotateLeft(acc4, 18);
+      hash = mergeRound(hash, acc1);
+      hash = mergeRound(hash, acc2);
+      hash = mergeRound(hash, acc3);
+      hash = mergeRound(hash, acc4);
+    }
+    else
+    {
+      hash = PRIME5;
+    }
+    hash += totalLength;
+    int index = 0;
+    while (stripeLength - index >= LANE_SIZE)
+    {
+      hash ^= round(0, Array.from64Little(stripe, index));
+      hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+      index += LANE_SIZE;
+    }
+    if (stripeLength - index >= 4)
+    {
+      hash ^= (Array.from32Little(stripe, index) & UNSIGNED_INT_MASK) * PRIME1;
+      hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+      index += 4;
+    }
+    while (index < stripeLength)
+    {
+      hash ^= (stripe[index] & 0xff) * PRIME5;
+      hash = Long.rotateLeft(hash, 11) * PRIME1;
+      index++;
+    }
+    hash ^= hash >>> 33;
+    hash *= PRIME2;
+    hash ^= hash >>> 29;
+    hash *= PRIME3;
+    hash ^= hash >>> 32;
+    final byte[] result = new byte[LANE_SIZE];
+    for (int shift = 0; shift < LANE_SIZE; shift++)
+    {
+      result[shift] = (byte) (hash >>> (56 - shift * 8));
+    }
+    return result;
+  }
+}
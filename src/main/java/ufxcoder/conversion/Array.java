@@ -148,7 +148,7 @@ public final class Array
     final long value2 = buffer[offset + 1] & 0xff;
     final long value3 = buffer[offset + 2] & 0xff;
     final long value4 = buffer[offset + 3] & 0xff;
-    final int value5 = buffer[offset + 4] & 0xff;
+    final long value5 = buffer[offset + 4] & 0xff;
     final int value6 = buffer[offset + 5] & 0xff;
     final int value7 = buffer[offset + 6] & 0xff;
     final int value8 = buffer[offset + 7] & 0xff;
@@ -161,7 +161,7 @@ public final class Array
     final int value1 = buffer[offset] & 0xff;
     final int value2 = buffer[offset + 1] & 0xff;
     final int value3 = buffer[offset + 2] & 0xff;
-    final int value4 = buffer[offset + 3] & 0xff;
+    final long value4 = buffer[offset + 3] & 0xff;
     final long value5 = buffer[offset + 4] & 0xff;
     final long value6 = buffer[offset + 5] & 0xff;
     final long value7 = buffer[offset + 6] & 0xff;
@@ -225,6 +225,23 @@ public final class Array
     return result;
   }
 
+  /**
+   * Do the first bytes of some data equal a pattern?
+   *
+   * @param data
+   *          data to examine
+   * @param length
+   *          number of valid bytes in data
+   * @param pattern
+   *          bytes to compare with
+   * @return if data holds at least as many valid bytes as pattern and these bytes are equal to pattern
+   */
+  public static boolean startsWith(final byte[] data, final int length, final byte[] pattern)
+  {
+    return data != null && pattern != null && pattern.length <= length && length <= data.length
+        && equals(data, 0, pattern, 0, pattern.length);
+  }
+
   public static int indexOf(final byte[] data, final int initialIndex, final byte[] pattern)
   {
     int result = -2;
@@ -20,6 +20,8 @@ package ufxcoder.conversion;
  */
 public final class StrUtil
 {
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
   private StrUtil()
   {
   }
@@ -56,4 +58,21 @@ public final class StrUtil
     }
     return result;
   }
+
+  /**
+   * Convert bytes to a string of lower-case hexadecimal digits, two per byte.
+   *
+   * @param data
+   *          bytes to convert
+   * @return hexadecimal string
+   */
+  public static String toHex(final byte[] data)
+  {
+    final StringBuilder sb = new StringBuilder(data.length * 2);
+    for (final byte value : data)
+    {
+      sb.append(HEX_DIGITS[(value >> 4) & 0x0f]).append(HEX_DIGITS[value & 0x0f]);
+    }
+    return sb.toString();
+  }
 }
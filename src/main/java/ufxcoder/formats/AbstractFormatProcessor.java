@@ -26,21 +26,63 @@ import ufxcoder.app.AppConfig;
 import ufxcoder.app.ProcessMode;
 import ufxcoder.conversion.Array;
 import ufxcoder.io.FileSource;
+import ufxcoder.io.MappedFileSource;
 import ufxcoder.io.MemorySource;
 import ufxcoder.io.SeekableSource;
 import ufxcoder.io.Segment;
+import ufxcoder.io.SliceSource;
 
 /**
  * Base class for all processors examining and transcoding specific file formats.
  */
 public abstract class AbstractFormatProcessor
 {
+  /**
+   * Files of at least this size are accessed via a {@link MappedFileSource}, smaller files via a {@link FileSource}.
+   */
+  public static final long MAPPED_SOURCE_MIN_FILE_SIZE = 8 * 1024 * 1024;
+  /**
+   * Maximum number of containers around a stream processed via {@link #processEmbedded}, e.g. 2 for a thumbnail in a
+   * TIFF structure inside a JPEG file.
+   */
+  public static final int MAX_EMBEDDING_DEPTH = 4;
+  /**
+   * The sections processed via {@link #processEmbedded} for a file may add up to at most this many times its size, so
+   * that structures referencing the same data repeatedly cannot multiply the work.
+   */
+  public static final int MAX_EMBEDDED_SIZE_FACTOR = 4;
+  /**
+   * Message key: embedded stream nested too deeply.
+   */
+  public static final String MSG_EMBEDDING_TOO_DEEP = "processor.error.embedding_too_deep";
+  /**
+   * Message key: embedded stream does not lie within its container.
+   */
+  public static final String MSG_EMBEDDED_SECTION_INVALID = "processor.error.embedded_section_invalid";
+  /**
+   * Message key: embedded streams of a file exceed the size limit.
+   */
+  public static final String MSG_EMBEDDED_SIZE_LIMIT = "processor.error.embedded_size_limit";
   private static final Logger LOGGER = LoggerFactory.getLogger(AbstractFormatProcessor.class);
   private SeekableSource source;
   private FileDescription fileDescription;
   private AppConfig config;
   private boolean formatIdentified;
+  private boolean sourceOwner;
+  private byte[][] signatures;
   private final Set<String> typicalExtensions = new HashSet<>();
+  /**
+   * Processor of the containing file while this one runs via {@link #processEmbedded}, null otherwise.
+   */
+  private AbstractFormatProcessor container;
+  /**
+   * Position of the current embedded stream in the outermost file.
+   */
+  private long embeddedOffset;
+  /**
+   * Number of bytes of all sections processed via {@link #processEmbedded} for the current outermost file.
+   */
+  private long embeddedBytes;
 
   public AbstractFormatProcessor()
   {
@@ -79,9 +121,21 @@ public abstract class AbstractFormatProcessor
     return fileDescription;
   }
 
+  /**
+   * Set the description to be filled. While processing an embedded stream it is marked as such, with the stream's
+   * offset in the outermost file.
+   *
+   * @param fileDescription
+   *          new description
+   */
   public void setFileDescription(final FileDescription fileDescription)
   {
     this.fileDescription = fileDescription;
+    if (fileDescription != null && container != null)
+    {
+      fileDescription.setEmbedded(true);
+      fileDescription.setInitialOffset(BigInteger.valueOf(embeddedOffset));
+    }
   }
 
   /**
@@ -101,7 +155,32 @@ public abstract class AbstractFormatProcessor
    */
   public void open(final File file) throws IOException
   {
-    setSource(new FileSource(file));
+    setSource(createSource(file));
+    sourceOwner = true;
+  }
+
+  /**
+   * Create a {@link SeekableSource} for a file, memory-mapped if the file is at least
+   * {@link #MAPPED_SOURCE_MIN_FILE_SIZE} bytes large.
+   *
+   * @param file
+   *          file to be opened
+   * @return new source
+   * @throws IOException
+   *           on error
+   */
+  public static SeekableSource createSource(final File file) throws IOException
+  {
+    SeekableSource result;
+    if (file.length() >= MAPPED_SOURCE_MIN_FILE_SIZE)
+    {
+      result = new MappedFileSource(file);
+    }
+    else
+    {
+      result = new FileSource(file);
+    }
+    return result;
   }
 
   /**
@@ -113,6 +192,7 @@ public abstract class AbstractFormatProcessor
   public void open(final byte[] data)
   {
     setSource(new MemorySource(data));
+    sourceOwner = true;
   }
 
   /**
@@ -120,6 +200,118 @@ public abstract class AbstractFormatProcessor
    */
   public abstract void process();
 
+  /**
+   * Process a source opened by the caller. The source is not closed by this processor so that it can be passed on to
+   * other processors.
+   *
+   * @param src
+   *          source positioned at its beginning
+   */
+  public void process(final SeekableSource src)
+  {
+    setSource(src);
+    sourceOwner = false;
+    process();
+  }
+
+  /**
+   * Process a stream stored in a section of this processor's source with another processor, for example a JPEG stream
+   * in a TIFF file. The other processor reads a {@link SliceSource} of the section, no data is copied. It fills its
+   * own description, which is added to this processor's description via {@link FileDescription#addEmbedded}. The
+   * position of this processor's source is restored afterwards. Sections not within the source, nesting deeper than
+   * {@link #MAX_EMBEDDING_DEPTH} and sections adding up to more than {@link #MAX_EMBEDDED_SIZE_FACTOR} times the
+   * size of the outermost file are reported as errors of this processor and not processed.
+   *
+   * @param child
+   *          processor for the embedded stream, gets this processor's configuration if it has none
+   * @param offset
+   *          position of the section in this processor's source
+   * @param length
+   *          number of bytes in the section
+   * @return description filled by child or null if the section was not processed
+   * @throws IOException
+   *           if the source position cannot be determined or restored
+   */
+  public FileDescription processEmbedded(final AbstractFormatProcessor child, final long offset, final long length)
+      throws IOException
+  {
+    FileDescription result = null;
+    final AbstractFormatProcessor outermost = getOutermost();
+    final long sourceLength = source.getLength();
+    if (getDepth() >= MAX_EMBEDDING_DEPTH)
+    {
+      error(MSG_EMBEDDING_TOO_DEEP, offset, MAX_EMBEDDING_DEPTH);
+    }
+    else if (offset < 0 || length < 0 || offset > sourceLength - length)
+    {
+      error(MSG_EMBEDDED_SECTION_INVALID, offset, length, sourceLength);
+    }
+    else if (length > outermost.source.getLength() * MAX_EMBEDDED_SIZE_FACTOR - outermost.embeddedBytes)
+    {
+      error(MSG_EMBEDDED_SIZE_LIMIT, offset, length, MAX_EMBEDDED_SIZE_FACTOR);
+    }
+    else
+    {
+      outermost.embeddedBytes += length;
+      result = runEmbedded(child, offset, length);
+    }
+    return result;
+  }
+
+  private FileDescription runEmbedded(final AbstractFormatProcessor child, final long offset, final long length)
+      throws IOException
+  {
+    final long position = source.getPosition();
+    if (child.getConfig() == null)
+    {
+      child.setConfig(config);
+    }
+    child.container = this;
+    child.embeddedOffset = embeddedOffset + offset;
+    try
+    {
+      child.process(new SliceSource(source, offset, length));
+    }
+    finally
+    {
+      child.container = null;
+      source.seek(position);
+    }
+    final FileDescription result = child.getFileDescription();
+    if (result != null)
+    {
+      fileDescription.addEmbedded(result);
+    }
+    return result;
+  }
+
+  private AbstractFormatProcessor getOutermost()
+  {
+    AbstractFormatProcessor result = this;
+    while (result.container != null)
+    {
+      result = result.container;
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of containers around the stream being processed.
+   *
+   * @return 0 for a file, 1 for a stream embedded in a file and so on
+   */
+  public int getDepth()
+  {
+    int result = 0;
+    AbstractFormatProcessor proc = container;
+    while (proc != null)
+    {
+      result++;
+      proc = proc.container;
+    }
+    return result;
+  }
+
   public void process(final String fileName)
   {
     try
@@ -133,6 +325,43 @@ public abstract class AbstractFormatProcessor
     }
   }
 
+  /**
+   * Byte sequences found at the beginning of every file in the format supported by this processor. Used by
+   * {@link FormatSignatureTable} to select the processors to be tried on a file.
+   *
+   * @return signatures or an empty array if the format has no fixed signature and must be tried on all files
+   */
+  public byte[][] getSignatures()
+  {
+    return new byte[0][];
+  }
+
+  /**
+   * Does this processor recognize the first bytes of a file as its format? The default implementation compares the
+   * header to {@link #getSignatures()}. Processors may override this to perform a more specific check.
+   *
+   * @param header
+   *          first bytes of the file
+   * @param length
+   *          number of valid bytes in header
+   * @return if this processor should try to process the file
+   */
+  public boolean claims(final byte[] header, final int length)
+  {
+    if (signatures == null)
+    {
+      signatures = getSignatures();
+    }
+    boolean result = signatures.length == 0;
+    int index = 0;
+    while (!result && index < signatures.length)
+    {
+      final byte[] signature = signatures[index++];
+      result = Array.startsWith(header, length, signature);
+    }
+    return result;
+  }
+
   /**
    * List of lower-case file name extensions typical for the format supported by this processor.
    *
@@ -162,15 +391,16 @@ public abstract class AbstractFormatProcessor
   public void setSource(final SeekableSource source)
   {
     this.source = source;
+    embeddedBytes = 0;
   }
 
   /**
-   * Close underlying input {@link SeekableSource}.
+   * Close underlying input {@link SeekableSource} unless it was passed to {@link #process(SeekableSource)}.
    */
   public void closeSource()
   {
     final SeekableSource src = getSource();
-    if (src != null)
+    if (src != null && sourceOwner)
     {
       try
       {
@@ -195,19 +425,15 @@ public abstract class AbstractFormatProcessor
    */
   public void append(final Segment segment, final int numBytes) throws IOException
   {
-    final int offset = segment.getLength();
-    final byte[] data = Array.clone(segment.getData(), numBytes);
-    source.readFully(data, offset, numBytes);
-    segment.setData(data);
-    segment.setLength(data.length);
+    segment.append(source, numBytes);
   }
 
-  public boolean isValidSourceOffset(final BigInteger offset)
+  public boolean isValidSourceOffset(final long offset)
   {
     boolean valid;
     try
     {
-      valid = offset.signum() != -1 && offset.compareTo(BigInteger.valueOf(source.getLength())) <= 0;
+      valid = offset >= 0 && offset <= source.getLength();
     }
     catch (IOException e)
     {
@@ -219,15 +445,27 @@ public abstract class AbstractFormatProcessor
   public Segment read(final int numBytes) throws IOException
   {
     final Segment result = new Segment();
-    assignByteOrder(getFileDescription(), result);
-    result.setOffset(source.getPosition());
-    final byte[] data = new byte[numBytes];
-    source.readFully(data, 0, numBytes);
-    result.setData(data);
-    result.setLength(data.length);
+    read(result, numBytes);
     return result;
   }
 
+  /**
+   * Read data from source into an existing {@link Segment}, replacing its content but reusing its buffer.
+   *
+   * @param segment
+   *          segment to be reused
+   * @param numBytes
+   *          number of bytes to read
+   * @throws IOException
+   *           when there were problems
+   */
+  public void read(final Segment segment, final int numBytes) throws IOException
+  {
+    assignByteOrder(getFileDescription(), segment);
+    segment.reset(source.getPosition());
+    segment.append(source, numBytes);
+  }
+
   private void assignByteOrder(final FileDescription desc, final Segment result)
   {
     result.setByteOrder(desc.getByteOrder());
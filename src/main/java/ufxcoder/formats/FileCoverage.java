@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Record the byte ranges of a file referenced by its structures and find overlapping ranges and gaps between them.
+ * Ranges are collected in any order. {@link #analyze(long)} sorts them once by start offset and finds overlaps and gaps
+ * in a single pass, so the cost is O(n log n) for n ranges. Ranges directly following the previously added one are
+ * merged with it, so strips or tiles stored one after another take up a single range. Container ranges, added with
+ * {@link #addContainer(String, long, long, long, long)}, may hold other ranges; only ranges sticking out of them count
+ * as overlapping.
+ */
+public class FileCoverage
+{
+  private final List<FileRange> ranges = new ArrayList<>();
+  private final List<FileRange> overlaps = new ArrayList<>();
+  private final List<FileRange> gaps = new ArrayList<>();
+  private final int maxReported;
+  private final long minGapSize;
+  private FileRange last;
+  private long numOverlaps;
+  private long numGaps;
+  private long numGapBytes;
+  /**
+   * Regular range reaching furthest among those visited by {@link #analyze(long)} so far.
+   */
+  private FileRange regular;
+  /**
+   * Container range reaching furthest among those visited by {@link #analyze(long)} so far.
+   */
+  private FileRange container;
+
+  /**
+   * Create an empty coverage.
+   *
+   * @param maxReported
+   *          maximum number of overlaps and of gaps kept by {@link #analyze(long)}
+   * @param minGapSize
+   *          smaller gaps, e.g. padding for alignment, are ignored
+   */
+  public FileCoverage(final int maxReported, final long minGapSize)
+  {
+    this.maxReported = maxReported;
+    this.minGapSize = minGapSize;
+  }
+
+  /**
+   * Record a referenced range, empty ranges are ignored.
+   *
+   * @param kind
+   *          message key describing the structure
+   * @param start
+   *          offset of first byte
+   * @param length
+   *          number of bytes
+   * @param owner
+   *          offset or identifier of the structure containing the reference
+   * @param index
+   *          index of structure within its owner
+   */
+  public void add(final String kind, final long start, final long length, final long owner, final long index)
+  {
+    if (length > 0 && (last == null || !last.extend(kind, start, start + length, owner, index)))
+    {
+      last = new FileRange(kind, start, start + length, owner, index);
+      ranges.add(last);
+    }
+  }
+
+  /**
+   * Record a range holding other structures, like a JPEG stream containing strip data. Ranges lying completely inside a
+   * container are not reported as overlapping it, empty ranges are ignored.
+   *
+   * @param kind
+   *          message key describing the structure
+   * @param start
+   *          offset of first byte
+   * @param length
+   *          number of bytes
+   * @param owner
+   *          offset or identifier of the structure containing the reference
+   * @param index
+   *          index of structure within its owner
+   */
+  public void addContainer(final String kind, final long start, final long length, final long owner, final long index)
+  {
+    if (length > 0)
+    {
+      ranges.add(new FileRange(kind, start, start + length, owner, index, true));
+    }
+  }
+
+  /**
+   * Find overlapping ranges and gaps between ranges. A range is reported as overlapping the range reaching furthest
+   * among those starting before it, ranges with identical start and end are considered shared data and not reported.
+   * Regular and container ranges are tracked separately, so a range inside a container may still overlap another
+   * regular range.
+   *
+   * @param fileLength
+   *          number of bytes of the file, bytes following the last range up to this length form a gap
+   */
+  public void analyze(final long fileLength)
+  {
+    overlaps.clear();
+    gaps.clear();
+    numOverlaps = 0;
+    numGaps = 0;
+    numGapBytes = 0;
+    Collections.sort(ranges);
+    regular = null;
+    container = null;
+    long covered = 0;
+    for (final FileRange range : ranges)
+    {
+      if (range.getStart() > covered)
+      {
+        addGap(covered, range.getStart());
+      }
+      final FileRange other = range.isContainer() ? findContainerOverlap(range) : findRegularOverlap(range);
+      if (other != null)
+      {
+        numOverlaps++;
+        if (overlaps.size() < maxReported * 2)
+        {
+          overlaps.add(other);
+          overlaps.add(range);
+        }
+      }
+      covered = Math.max(covered, range.getEnd());
+      if (range.isContainer())
+      {
+        container = furthest(container, range);
+      }
+      else
+      {
+        regular = furthest(regular, range);
+      }
+    }
+    if (fileLength > covered)
+    {
+      addGap(covered, fileLength);
+    }
+    regular = null;
+    container = null;
+  }
+
+  private static FileRange furthest(final FileRange current, final FileRange range)
+  {
+    return current == null || range.getEnd() > current.getEnd() ? range : current;
+  }
+
+  private static boolean overlaps(final FileRange earlier, final FileRange range)
+  {
+    return earlier != null && range.getStart() < earlier.getEnd() && !range.equals(earlier);
+  }
+
+  /**
+   * Find a range overlapping a regular range: a regular range, or a container the range is not completely inside of.
+   */
+  private FileRange findRegularOverlap(final FileRange range)
+  {
+    FileRange result = null;
+    if (overlaps(regular, range))
+    {
+      result = regular;
+    }
+    else if (overlaps(container, range) && range.getEnd() > container.getEnd())
+    {
+      result = container;
+    }
+    return result;
+  }
+
+  /**
+   * Find a range overlapping a container: another container, or a regular range not completely inside of it.
+   */
+  private FileRange findContainerOverlap(final FileRange range)
+  {
+    FileRange result = null;
+    if (overlaps(container, range))
+    {
+      result = container;
+    }
+    else if (overlaps(regular, range)
+        && (regular.getStart() < range.getStart() || regular.getEnd() > range.getEnd()))
+    {
+      result = regular;
+    }
+    return result;
+  }
+
+  private void addGap(final long start, final long end)
+  {
+    if (end - start >= minGapSize)
+    {
+      numGaps++;
+      numGapBytes += end - start;
+      if (gaps.size() < maxReported)
+      {
+        gaps.add(new FileRange(null, start, end, 0, 0));
+      }
+    }
+  }
+
+  public int getNumRanges()
+  {
+    return ranges.size();
+  }
+
+  /**
+   * Return pairs of overlapping ranges found by {@link #analyze(long)}, the earlier starting range of each pair first.
+   *
+   * @return list with an even number of ranges
+   */
+  public List<FileRange> getOverlaps()
+  {
+    return Collections.unmodifiableList(overlaps);
+  }
+
+  public long getNumOverlaps()
+  {
+    return numOverlaps;
+  }
+
+  public List<FileRange> getGaps()
+  {
+    return Collections.unmodifiableList(gaps);
+  }
+
+  public long getNumGaps()
+  {
+    return numGaps;
+  }
+
+  public long getNumGapBytes()
+  {
+    return numGapBytes;
+  }
+
+  public void clear()
+  {
+    ranges.clear();
+    overlaps.clear();
+    gaps.clear();
+    last = null;
+    numOverlaps = 0;
+    numGaps = 0;
+    numGapBytes = 0;
+  }
+}
@@ -16,9 +16,12 @@
 package ufxcoder.formats;
 
 import java.io.File;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import ufxcoder.conversion.ByteOrder;
 
 /**
@@ -30,6 +33,10 @@ public class FileDescription
   private ByteOrder byteOrder;
   private final List<String> errorMessages = new ArrayList<String>();
   private final List<ProcessorEvent> events = new ArrayList<ProcessorEvent>();
+  private final Map<String, String> checksums = new LinkedHashMap<>();
+  private BigInteger initialOffset = BigInteger.ZERO;
+  private boolean embedded;
+  private final List<FileDescription> embeddedDescriptions = new ArrayList<>();
 
   private List<ProcessorEvent> errorsAndWarnings()
   {
@@ -183,5 +190,83 @@ public class FileDescription
     setByteOrder(null);
     errorMessages.clear();
     events.clear();
+    checksums.clear();
+    initialOffset = BigInteger.ZERO;
+    embedded = false;
+    embeddedDescriptions.clear();
+  }
+
+  /**
+   * Return the position of the described stream in the file containing it.
+   *
+   * @return offset in the outermost file, zero unless {@link #isEmbedded()}
+   */
+  public BigInteger getInitialOffset()
+  {
+    return initialOffset;
+  }
+
+  public void setInitialOffset(final BigInteger initialOffset)
+  {
+    this.initialOffset = initialOffset;
+  }
+
+  /**
+   * Return whether the described stream is stored inside another file, e.g. a JPEG stream in a TIFF file.
+   *
+   * @return true if the stream was processed by {@link AbstractFormatProcessor#processEmbedded}
+   */
+  public boolean isEmbedded()
+  {
+    return embedded;
+  }
+
+  public void setEmbedded(final boolean embedded)
+  {
+    this.embedded = embedded;
+  }
+
+  /**
+   * Add the description of a stream embedded in the described file.
+   *
+   * @param desc
+   *          description filled by the processor of the embedded stream
+   */
+  public void addEmbedded(final FileDescription desc)
+  {
+    embeddedDescriptions.add(desc);
+  }
+
+  /**
+   * Descriptions of streams embedded in the described file, in the order they were processed.
+   *
+   * @return possibly empty list
+   */
+  public List<FileDescription> getEmbedded()
+  {
+    return embeddedDescriptions;
+  }
+
+  /**
+   * Add a checksum computed by a format processor, for example over decoded pixels.
+   *
+   * @param name
+   *          name of checksum
+   * @param value
+   *          hexadecimal checksum
+   */
+  public void addChecksum(final String name, final String value)
+  {
+    checksums.put(name, value);
+  }
+
+  /**
+   * Checksums computed by the format processor.
+   *
+   * @return map from name to hexadecimal checksum, empty if there are none
+   */
+  public Map<String, String> getChecksums()
+  {
+    return checksums;
   }
 }
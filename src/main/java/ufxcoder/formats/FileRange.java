@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats;
+
+/**
+ * Range of bytes of a file referenced by a structure of its format, or a gap between such ranges. Consecutive
+ * structures of the same kind and owner, like adjacent strips of an image, are represented by a single range.
+ */
+public class FileRange implements Comparable<FileRange>
+{
+  private final String kind;
+  private final long start;
+  private long end;
+  private final long owner;
+  private final long firstIndex;
+  private long lastIndex;
+  /**
+   * Does this range hold other structures, like a JPEG stream embedding strip data?
+   */
+  private final boolean container;
+
+  /**
+   * Create a range.
+   *
+   * @param kind
+   *          message key describing the structure, null for gaps
+   * @param start
+   *          offset of first byte
+   * @param end
+   *          offset following the last byte
+   * @param owner
+   *          offset or identifier of the structure containing the reference
+   * @param index
+   *          index of structure within its owner
+   */
+  public FileRange(final String kind, final long start, final long end, final long owner, final long index)
+  {
+    this(kind, start, end, owner, index, false);
+  }
+
+  /**
+   * Create a range which may be a container.
+   *
+   * @param kind
+   *          message key describing the structure
+   * @param start
+   *          offset of first byte
+   * @param end
+   *          offset following the last byte
+   * @param owner
+   *          offset or identifier of the structure containing the reference
+   * @param index
+   *          index of structure within its owner
+   * @param container
+   *          whether other ranges lying completely inside this one are part of it rather than overlapping it
+   */
+  public FileRange(final String kind, final long start, final long end, final long owner, final long index,
+      final boolean container)
+  {
+    this.container = container;
+    this.kind = kind;
+    this.start = start;
+    this.end = end;
+    this.owner = owner;
+    firstIndex = index;
+    lastIndex = index;
+  }
+
+  /**
+   * Try to append a range directly following this one.
+   *
+   * @return true if the range was appended, false if it is of another kind or owner or not adjacent
+   */
+  boolean extend(final String otherKind, final long otherStart, final long otherEnd, final long otherOwner,
+      final long index)
+  {
+    final boolean result = otherStart == end && otherOwner == owner && kind.equals(otherKind);
+    if (result)
+    {
+      end = otherEnd;
+      lastIndex = index;
+    }
+    return result;
+  }
+
+  @Override
+  public int compareTo(final FileRange other)
+  {
+    final int result = Long.compare(start, other.start);
+    return result == 0 ? Long.compare(end, other.end) : result;
+  }
+
+  @Override
+  public boolean equals(final Object obj)
+  {
+    return obj instanceof FileRange && compareTo((FileRange) obj) == 0;
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return Long.hashCode(start) * 31 + Long.hashCode(end);
+  }
+
+  public String getKind()
+  {
+    return kind;
+  }
+
+  public long getStart()
+  {
+    return start;
+  }
+
+  /**
+   * Return the offset following the last byte of the range.
+   *
+   * @return exclusive end offset
+   */
+  public long getEnd()
+  {
+    return end;
+  }
+
+  public long getLength()
+  {
+    return end - start;
+  }
+
+  public long getOwner()
+  {
+    return owner;
+  }
+
+  public long getFirstIndex()
+  {
+    return firstIndex;
+  }
+
+  public long getLastIndex()
+  {
+    return lastIndex;
+  }
+
+  public boolean isContainer()
+  {
+    return container;
+  }
+}
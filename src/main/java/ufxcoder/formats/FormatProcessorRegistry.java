@@ -67,6 +67,18 @@ public final class FormatProcessorRegistry
     return result;
   }
 
+  /**
+   * Create a table to find the processors claiming a file from its first bytes.
+   *
+   * @param processors
+   *          processor instances, typically from {@link #createProcessorInstances()}
+   * @return new table
+   */
+  public static FormatSignatureTable createSignatureTable(final List<AbstractFormatProcessor> processors)
+  {
+    return new FormatSignatureTable(processors);
+  }
+
   public static Set<String> createKnownExtensionsSet(final boolean lower)
   {
     final List<AbstractFormatProcessor> processors = createProcessorInstances();
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table mapping the first byte of a file to the processors whose signatures start with that byte.
+ *
+ * A file header is read only once, then {@link #findCandidates(byte[], int)} returns the processors claiming it. The
+ * cost of identifying a file therefore does not grow with the number of registered formats. Processors without
+ * signatures ({@link AbstractFormatProcessor#getSignatures()} returns an empty array) are candidates for every file.
+ */
+public class FormatSignatureTable
+{
+  /**
+   * Number of bytes from the beginning of a file passed to {@link AbstractFormatProcessor#claims(byte[], int)}.
+   */
+  public static final int HEADER_SIZE = 4096;
+  private static final int NUM_BYTE_VALUES = 256;
+  private final List<List<AbstractFormatProcessor>> byFirstByte = new ArrayList<>(NUM_BYTE_VALUES);
+  private final List<AbstractFormatProcessor> unconditional = new ArrayList<>();
+
+  public FormatSignatureTable(final List<AbstractFormatProcessor> processors)
+  {
+    for (int value = 0; value < NUM_BYTE_VALUES; value++)
+    {
+      byFirstByte.add(new ArrayList<AbstractFormatProcessor>());
+    }
+    for (final AbstractFormatProcessor proc : processors)
+    {
+      final byte[][] signatures = proc.getSignatures();
+      if (signatures.length == 0)
+      {
+        unconditional.add(proc);
+        for (final List<AbstractFormatProcessor> list : byFirstByte)
+        {
+          list.add(proc);
+        }
+      }
+      else
+      {
+        for (final byte[] signature : signatures)
+        {
+          final List<AbstractFormatProcessor> list = byFirstByte.get(signature[0] & 0xff);
+          if (!list.contains(proc))
+          {
+            list.add(proc);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Find all processors claiming a file with the argument header, in registration order.
+   *
+   * @param header
+   *          first bytes of a file
+   * @param length
+   *          number of valid bytes in header, can be smaller than {@link #HEADER_SIZE} for small files
+   * @return new, possibly empty list of processors
+   */
+  public List<AbstractFormatProcessor> findCandidates(final byte[] header, final int length)
+  {
+    List<AbstractFormatProcessor> list;
+    if (length > 0)
+    {
+      list = byFirstByte.get(header[0] & 0xff);
+    }
+    else
+    {
+      list = unconditional;
+    }
+    final List<AbstractFormatProcessor> result = new ArrayList<>(list.size());
+    for (final AbstractFormatProcessor proc : list)
+    {
+      if (proc.claims(header, length))
+      {
+        result.add(proc);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats;
+
+/**
+ * Work on a sequence of items, like strips or restart intervals, that can be split into ranges processed concurrently.
+ * Used with {@link SplittableRangeTask}.
+ */
+public interface SplittableRange
+{
+  /**
+   * Return the number of bytes of input data of a range of items.
+   *
+   * @param from
+   *          index of first item
+   * @param to
+   *          index of item following the last one
+   * @return number of bytes
+   */
+  long getNumBytes(int from, int to);
+
+  /**
+   * Process a range of items, may be called concurrently for disjoint ranges.
+   *
+   * @param from
+   *          index of first item
+   * @param to
+   *          index of item following the last one
+   */
+  void processRange(int from, int to);
+}
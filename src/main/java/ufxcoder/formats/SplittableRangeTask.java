@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task processing a range of items of a {@link SplittableRange}, split in halves as long as the range holds
+ * enough input data to make that worthwhile.
+ */
+public class SplittableRangeTask extends RecursiveAction
+{
+  /**
+   * Ranges with less input data are processed by a single task.
+   */
+  public static final int MIN_TASK_BYTES = 256 * 1024;
+  private static final long serialVersionUID = 1L;
+  private final transient SplittableRange work;
+  private final int from;
+  private final int to;
+
+  public SplittableRangeTask(final SplittableRange work, final int from, final int to)
+  {
+    super();
+    this.work = work;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  protected void compute()
+  {
+    if (to - from > 1 && work.getNumBytes(from, to) > MIN_TASK_BYTES)
+    {
+      final int middle = (from + to) >>> 1;
+      invokeAll(new SplittableRangeTask(work, from, middle), new SplittableRangeTask(work, middle, to));
+    }
+    else
+    {
+      work.processRange(from, to);
+    }
+  }
+}
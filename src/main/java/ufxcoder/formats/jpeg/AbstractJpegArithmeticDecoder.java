@@ -0,0 +1,350 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.util.Arrays;
+
+/**
+ * Base class for decoders of arithmetic-coded DCT scans (ITU-T81.pdf F.2.4, p. 101ff. and G.1.3, p. 127ff.). Keeps the
+ * statistics bins of all tables referenced by a scan in byte arrays, the DC context and predictor of each scan
+ * component in int arrays. All of them are reset at the beginning of a scan and of each restart interval, decoding a
+ * block does not allocate.
+ */
+public abstract class AbstractJpegArithmeticDecoder extends AbstractJpegScanDecoder
+{
+  /**
+   * Number of statistics bins of a DC table, Table F.4, p. 97.
+   */
+  private static final int DC_BINS = 64;
+  /**
+   * Number of statistics bins of an AC table, Table F.5, p. 98.
+   */
+  private static final int AC_BINS = 256;
+  /**
+   * First bin of the DC magnitude categories (X1).
+   */
+  private static final int DC_MAGNITUDE_BIN = 20;
+  /**
+   * First bin of the AC magnitude categories for coefficients up to Kx.
+   */
+  private static final int AC_LOW_MAGNITUDE_BIN = 189;
+  /**
+   * First bin of the AC magnitude categories for coefficients above Kx.
+   */
+  private static final int AC_HIGH_MAGNITUDE_BIN = 217;
+  /**
+   * Distance between the bins of a magnitude category and the bin of its magnitude bits (Xn and Mn).
+   */
+  private static final int MAGNITUDE_BITS_OFFSET = 14;
+  /**
+   * Number of statistics bins for each AC coefficient index: end of block, zero, first magnitude decision.
+   */
+  protected static final int BINS_PER_AC_INDEX = 3;
+  /**
+   * DC contexts for small and large differences, positive sign; negative signs add {@link #DC_SIGN_CONTEXT}.
+   */
+  private static final int DC_SMALL_CONTEXT = 4;
+  private static final int DC_LARGE_CONTEXT = 12;
+  private static final int DC_SIGN_CONTEXT = 4;
+  /**
+   * Magnitude categories end before this value (category 16 in Huffman terms).
+   */
+  private static final int MAX_MAGNITUDE = 0x8000;
+  private final JpegArithmeticDecoder decoder;
+  private final JpegArithmeticConditioning conditioning;
+  /**
+   * Bin with fixed probability 0.5, used for AC signs and refinement bits.
+   */
+  private final byte[] fixedBin =
+  {
+      JpegArithmeticDecoder.FIXED_STATE
+  };
+  /**
+   * Per scan component: statistics bins of its DC and AC table, null if the scan does not use the table class.
+   */
+  private byte[][] dcStats;
+  private byte[][] acStats;
+  /**
+   * Per scan component: differences below and above these magnitudes select the zero and large DC contexts.
+   */
+  private int[] dcSmall;
+  private int[] dcLarge;
+  private int[] acKx;
+  private int[] dcContexts;
+  private int[] predictors;
+
+  protected AbstractJpegArithmeticDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    super(proc, reader);
+    decoder = new JpegArithmeticDecoder(reader);
+    conditioning = proc.getJpegFileDescription().getConditioning();
+  }
+
+  /**
+   * Assign statistics bins and conditioning values to the components of a scan.
+   *
+   * @param scan
+   *          scan to be decoded
+   * @param useDc
+   *          whether the scan codes DC coefficients
+   * @param useAc
+   *          whether the scan codes AC coefficients
+   * @return true on success, false if a table identifier is invalid (an error has been reported)
+   */
+  protected boolean prepareTables(final JpegScan scan, final boolean useDc, final boolean useAc)
+  {
+    final int numComponents = scan.getNumComponents();
+    dcStats = new byte[numComponents][];
+    acStats = new byte[numComponents][];
+    dcSmall = new int[numComponents];
+    dcLarge = new int[numComponents];
+    acKx = new int[numComponents];
+    dcContexts = new int[numComponents];
+    predictors = new int[numComponents];
+    // components referencing the same table share its bins
+    final byte[][] dcTables = new byte[Constants.MAX_CONDITIONING_TABLE_DEST_IDENTIFIER + 1][];
+    final byte[][] acTables = new byte[Constants.MAX_CONDITIONING_TABLE_DEST_IDENTIFIER + 1][];
+    boolean result = true;
+    int index = 0;
+    for (final JpegScanComponent scanComp : scan.getComponents())
+    {
+      if (useDc && isValidTable(Constants.TABLE_CLASS_DC, scanComp.getDc()))
+      {
+        final int id = scanComp.getDc();
+        if (dcTables[id] == null)
+        {
+          dcTables[id] = new byte[DC_BINS];
+        }
+        dcStats[index] = dcTables[id];
+        dcSmall[index] = (1 << conditioning.getDcLower(id)) >> 1;
+        dcLarge[index] = (1 << conditioning.getDcUpper(id)) >> 1;
+      }
+      if (useAc && isValidTable(Constants.TABLE_CLASS_AC, scanComp.getAc()))
+      {
+        final int id = scanComp.getAc();
+        if (acTables[id] == null)
+        {
+          acTables[id] = new byte[AC_BINS];
+        }
+        acStats[index] = acTables[id];
+        acKx[index] = conditioning.getAcKx(id);
+      }
+      result = result && !getReader().isFailed();
+      index++;
+    }
+    return result;
+  }
+
+  private boolean isValidTable(final int tableClass, final int id)
+  {
+    final boolean result = id <= Constants.MAX_CONDITIONING_TABLE_DEST_IDENTIFIER;
+    if (!result)
+    {
+      getReader().error(Msg.INVALID_CONDITIONING_TABLE, tableClass, id);
+    }
+    return result;
+  }
+
+  @Override
+  protected void restart()
+  {
+    decoder.reset();
+    for (int comp = 0; comp < dcStats.length; comp++)
+    {
+      clear(dcStats[comp]);
+      clear(acStats[comp]);
+    }
+    Arrays.fill(dcContexts, 0);
+    Arrays.fill(predictors, 0);
+  }
+
+  private static void clear(final byte[] stats)
+  {
+    if (stats != null)
+    {
+      Arrays.fill(stats, (byte) 0);
+    }
+  }
+
+  /**
+   * Decode a DC difference and add it to the component's predictor. F.1.4.1, p. 90ff. and F.1.4.4.1, p. 95f.
+   *
+   * @param comp
+   *          index of scan component
+   * @return DC value
+   */
+  protected int decodeDc(final int comp)
+  {
+    final byte[] stats = dcStats[comp];
+    final int context = dcContexts[comp];
+    if (decoder.decode(stats, context) == 0)
+    {
+      dcContexts[comp] = 0;
+    }
+    else
+    {
+      final int sign = decoder.decode(stats, context + 1);
+      final int bin = context + 2 + sign;
+      int magnitude = decoder.decode(stats, bin);
+      int lastBin = bin;
+      if (magnitude != 0)
+      {
+        lastBin = findCategory(stats, DC_MAGNITUDE_BIN, 1);
+        magnitude = 1 << (lastBin - DC_MAGNITUDE_BIN);
+      }
+      if (magnitude < dcSmall[comp])
+      {
+        dcContexts[comp] = 0;
+      }
+      else
+      {
+        dcContexts[comp] = (magnitude > dcLarge[comp] ? DC_LARGE_CONTEXT : DC_SMALL_CONTEXT) + sign * DC_SIGN_CONTEXT;
+      }
+      final int value = decodeMagnitudeBits(stats, lastBin + MAGNITUDE_BITS_OFFSET, magnitude) + 1;
+      predictors[comp] += sign == 0 ? value : -value;
+    }
+    return predictors[comp];
+  }
+
+  /**
+   * Decode the magnitude category of a value (F.1.4.3.1, p. 94), each further category doubles the smallest magnitude.
+   *
+   * @return bin of the last category decision, the category follows from its distance to the first bin
+   */
+  private int findCategory(final byte[] stats, final int firstBin, final int smallest)
+  {
+    int bin = firstBin;
+    while (decoder.decode(stats, bin) != 0)
+    {
+      bin++;
+      if (smallest << (bin - firstBin) == MAX_MAGNITUDE)
+      {
+        getReader().error(Msg.INVALID_ARITHMETIC_MAGNITUDE);
+        break;
+      }
+    }
+    return bin;
+  }
+
+  /**
+   * Decode the bits of a magnitude below its leading one bit (F.1.4.3.1, p. 94), all in the same bin.
+   */
+  private int decodeMagnitudeBits(final byte[] stats, final int bin, final int magnitude)
+  {
+    int result = magnitude;
+    int bit = magnitude >> 1;
+    while (bit != 0)
+    {
+      if (decoder.decode(stats, bin) != 0)
+      {
+        result |= bit;
+      }
+      bit >>= 1;
+    }
+    return result;
+  }
+
+  /**
+   * Decode the AC coefficients of a band whose previously decoded bits were all zero. F.1.4.2, p. 92ff.
+   *
+   * @param comp
+   *          index of scan component
+   * @param start
+   *          index of first coefficient of band in zig-zag order, at least 1
+   * @param end
+   *          index of last coefficient of band
+   * @param zz
+   *          coefficients in zig-zag order, those of the band are overwritten
+   */
+  protected void decodeAc(final int comp, final int start, final int end, final int... zz)
+  {
+    final byte[] stats = acStats[comp];
+    Arrays.fill(zz, start, end + 1, 0);
+    int index = start;
+    // the first decision for each index is the end-of-block flag
+    while (index <= end && decoder.decode(stats, BINS_PER_AC_INDEX * (index - 1)) == 0)
+    {
+      index = skipZeros(stats, index, end);
+      if (index <= end)
+      {
+        zz[index] = decodeAcValue(stats, index, acKx[comp]);
+        index++;
+      }
+    }
+  }
+
+  /**
+   * Skip coefficients coded as zero, return the index of the next nonzero coefficient or a value larger than the end of
+   * the band after an error.
+   */
+  private int skipZeros(final byte[] stats, final int start, final int end)
+  {
+    int index = start;
+    while (decoder.decode(stats, BINS_PER_AC_INDEX * (index - 1) + 1) == 0)
+    {
+      index++;
+      if (index > end)
+      {
+        getReader().error(Msg.INVALID_COEFFICIENT_RUN, index);
+        break;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Decode sign and magnitude of a nonzero AC coefficient.
+   */
+  private int decodeAcValue(final byte[] stats, final int index, final int kx)
+  {
+    final int sign = decoder.decode(fixedBin, 0);
+    final int bin = BINS_PER_AC_INDEX * (index - 1) + 2;
+    int magnitude = decoder.decode(stats, bin);
+    int lastBin = bin;
+    if (magnitude != 0 && decoder.decode(stats, bin) != 0)
+    {
+      final int firstBin = index <= kx ? AC_LOW_MAGNITUDE_BIN : AC_HIGH_MAGNITUDE_BIN;
+      lastBin = findCategory(stats, firstBin, 2);
+      magnitude = 2 << (lastBin - firstBin);
+    }
+    final int value = decodeMagnitudeBits(stats, lastBin + MAGNITUDE_BITS_OFFSET, magnitude) + 1;
+    return sign == 0 ? value : -value;
+  }
+
+  /**
+   * Decode a decision with fixed probability 0.5: the sign of a newly nonzero coefficient or a refinement bit.
+   *
+   * @return decoded bit
+   */
+  protected int decodeFixed()
+  {
+    return decoder.decode(fixedBin, 0);
+  }
+
+  /**
+   * Decode a single decision with a bin of a component's AC table, for refinement scans.
+   *
+   * @param comp
+   *          index of scan component
+   * @param bin
+   *          index of bin
+   * @return decoded bit
+   */
+  protected int decodeAcBin(final int comp, final int bin)
+  {
+    return decoder.decode(acStats[comp], bin);
+  }
+}
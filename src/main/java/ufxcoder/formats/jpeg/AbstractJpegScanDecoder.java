@@ -0,0 +1,301 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for decoders of scan data: iterates over the MCUs of a scan, handles restart intervals and
+ * reports the position of the MCU where decoding failed. Subclasses decode the blocks of a single MCU.
+ */
+public abstract class AbstractJpegScanDecoder
+{
+  /**
+   * Largest value allowed for Ah and Al in a progressive scan.
+   */
+  public static final int MAX_SUCCESSIVE_APPROXIMATION = 13;
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractJpegScanDecoder.class);
+  private final JpegFileDescription desc;
+  private final JpegScanReader reader;
+  private final JpegMcuLayout layout = new JpegMcuLayout();
+
+  protected AbstractJpegScanDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    desc = proc.getJpegFileDescription();
+    this.reader = reader;
+  }
+
+  /**
+   * Decode all MCUs of a scan and skip to the marker following it. Scans with an unknown number of lines (height
+   * defined by a DNL marker) are only skipped.
+   *
+   * @param frame
+   *          frame with image size and component sampling factors
+   * @param scan
+   *          scan whose header was just read
+   */
+  public void decode(final JpegFrame frame, final JpegScan scan)
+  {
+    if (init(frame, scan))
+    {
+      decodeMcus(0, getNumMcus());
+    }
+    reader.finishScan();
+  }
+
+  /**
+   * Initialize MCU layout and tables for a scan without reading scan data.
+   *
+   * @param frame
+   *          frame with image size and component sampling factors
+   * @param scan
+   *          scan whose header was just read
+   * @return true if MCUs can be decoded, false if the number of lines is unknown or an error has been reported
+   */
+  public boolean init(final JpegFrame frame, final JpegScan scan)
+  {
+    boolean result = false;
+    if (frame.getHeight() > 0)
+    {
+      layout.init(frame, scan);
+      if (layout.getBlocksPerMcu() > Constants.MAX_BLOCKS_PER_MCU)
+      {
+        reader.error(Msg.TOO_MANY_BLOCKS_IN_MCU, layout.getBlocksPerMcu(), Constants.MAX_BLOCKS_PER_MCU);
+      }
+      else
+      {
+        result = prepare(frame, scan);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Set up tables for a scan before its MCUs are decoded, {@link #getLayout()} is already initialized.
+   *
+   * @param frame
+   *          frame the scan belongs to
+   * @param scan
+   *          scan to be decoded
+   * @return true on success, false if the scan cannot be decoded (an error has been reported)
+   */
+  protected abstract boolean prepare(JpegFrame frame, JpegScan scan);
+
+  /**
+   * Reset decoding state at the beginning of a restart interval.
+   */
+  protected abstract void restart();
+
+  /**
+   * Decode all blocks of one MCU.
+   *
+   * @param mcuX
+   *          horizontal position of MCU
+   * @param mcuY
+   *          vertical position of MCU
+   */
+  protected abstract void decodeMcu(int mcuX, int mcuY);
+
+  /**
+   * Create a decoder for a Huffman table referenced by a scan component.
+   *
+   * @param scanComp
+   *          component referencing the table
+   * @param id
+   *          table destination identifier
+   * @param tableClass
+   *          {@link Constants#TABLE_CLASS_DC} or {@link Constants#TABLE_CLASS_AC}
+   * @return new decoder or null if the table is undefined (an error has been reported)
+   */
+  protected JpegHuffmanDecoder createDecoder(final JpegScanComponent scanComp, final int id, final int tableClass)
+  {
+    final JpegHuffmanTable table = desc.findHuffmanTable(id, tableClass);
+    JpegHuffmanDecoder result;
+    if (table == null)
+    {
+      reader.error(Msg.MISSING_HUFFMAN_TABLE, scanComp.getId(), tableClass == Constants.TABLE_CLASS_DC ? "DC" : "AC",
+          id);
+      result = null;
+    }
+    else
+    {
+      result = new JpegHuffmanDecoder(table, reader);
+    }
+    return result;
+  }
+
+  /**
+   * Create the coefficient storage of a frame unless an earlier scan has already done so.
+   *
+   * @param frame
+   *          frame whose coefficients are stored
+   * @return storage or null if it could not be created (an error has been reported)
+   */
+  protected JpegCoefficients createCoefficients(final JpegFrame frame)
+  {
+    if (frame.getCoefficients() == null)
+    {
+      try
+      {
+        frame.setCoefficients(JpegCoefficients.create(frame));
+      }
+      catch (final IOException ioe)
+      {
+        reader.error(Msg.COEFFICIENT_STORAGE_FAILED, ioe.getMessage());
+      }
+    }
+    return frame.getCoefficients();
+  }
+
+  /**
+   * Check spectral selection and successive approximation of a progressive scan, create the frame's coefficient storage
+   * with its first scan and record which coefficient bits the scan codes. ITU-T81.pdf B.2.3, p. 37f.
+   *
+   * @param frame
+   *          progressive frame
+   * @param scan
+   *          scan whose header was just read
+   * @return coefficient plane of each scan component or null if the scan cannot be decoded (an error has been reported)
+   */
+  protected JpegCoefficientPlane[] prepareProgressive(final JpegFrame frame, final JpegScan scan)
+  {
+    final int startSpectral = scan.getStartSpectral();
+    final int endSpectral = scan.getEndSpectral();
+    final int approxHigh = scan.getApproxHigh();
+    final int approxLow = scan.getApproxLow();
+    final boolean dcScan = startSpectral == 0;
+    final boolean valid = (dcScan ? endSpectral == 0
+        : endSpectral >= startSpectral && endSpectral < Constants.MINIMUM_CODED_UNIT_ELEMENTS
+            && scan.getNumComponents() == 1)
+        && approxHigh <= MAX_SUCCESSIVE_APPROXIMATION && approxLow <= MAX_SUCCESSIVE_APPROXIMATION;
+    JpegCoefficientPlane[] result = null;
+    if (valid)
+    {
+      result = markCoded(createCoefficients(frame), scan);
+    }
+    else
+    {
+      reader.error(Msg.INVALID_PROGRESSIVE_SCAN, startSpectral, endSpectral, approxHigh, approxLow,
+          scan.getNumComponents());
+    }
+    return reader.isFailed() ? null : result;
+  }
+
+  private JpegCoefficientPlane[] markCoded(final JpegCoefficients storage, final JpegScan scan)
+  {
+    JpegCoefficientPlane[] result = null;
+    if (storage != null)
+    {
+      result = new JpegCoefficientPlane[scan.getNumComponents()];
+      int index = 0;
+      for (final JpegScanComponent scanComp : scan.getComponents())
+      {
+        result[index] = storage.find(scanComp.getId());
+        if (!result[index].markCoded(scan.getStartSpectral(), scan.getEndSpectral(), scan.getApproxHigh(),
+            scan.getApproxLow()))
+        {
+          reader.error(Msg.INVALID_PROGRESSION, scanComp.getId(), scan.getStartSpectral(), scan.getEndSpectral(),
+              scan.getApproxHigh(), scan.getApproxLow());
+        }
+        index++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of MCUs in the scan, {@link #init(JpegFrame, JpegScan)} must have been called.
+   *
+   * @return number of MCUs
+   */
+  public int getNumMcus()
+  {
+    return layout.getMcusPerLine() * layout.getMcuLines();
+  }
+
+  /**
+   * Decode a range of MCUs. If restart intervals are used the range must begin with an interval, the reader is expected
+   * to be positioned at its first byte.
+   *
+   * @param firstMcu
+   *          index of first MCU to be decoded
+   * @param endMcu
+   *          index of MCU following the last one to be decoded
+   */
+  public void decodeMcus(final int firstMcu, final int endMcu)
+  {
+    final int mcusPerLine = layout.getMcusPerLine();
+    final int restartInterval = desc.getNumRestartIntervalMcus();
+    if (restartInterval > 0)
+    {
+      reader.enableRestarts();
+    }
+    LOGGER.debug("MCUs per line=" + mcusPerLine + " lines=" + layout.getMcuLines() + " blocks per MCU="
+        + layout.getBlocksPerMcu());
+    int mcu = firstMcu;
+    // position of MCU, advanced without division
+    int mcuX = firstMcu % mcusPerLine;
+    int mcuY = firstMcu / mcusPerLine;
+    int intervalLeft = restartInterval;
+    while (mcu < endMcu && !reader.isFailed())
+    {
+      if (restartInterval > 0)
+      {
+        if (intervalLeft == 0)
+        {
+          reader.restart();
+          restart();
+          intervalLeft = restartInterval;
+        }
+        intervalLeft--;
+      }
+      if (!reader.isFailed())
+      {
+        decodeMcu(mcuX, mcuY);
+        if (reader.isExhausted())
+        {
+          reader.error(Msg.SCAN_DATA_TOO_SHORT);
+        }
+      }
+      if (!reader.isFailed())
+      {
+        mcu++;
+        mcuX++;
+        if (mcuX == mcusPerLine)
+        {
+          mcuX = 0;
+          mcuY++;
+        }
+      }
+    }
+    if (reader.isFailed())
+    {
+      reader.error(Msg.SCAN_DECODING_FAILED, mcu, getNumMcus(), mcu % mcusPerLine, mcu / mcusPerLine);
+    }
+  }
+
+  public JpegScanReader getReader()
+  {
+    return reader;
+  }
+
+  public JpegMcuLayout getLayout()
+  {
+    return layout;
+  }
+}
@@ -120,6 +120,11 @@ public final class Constants
    */
   public static final int MARKER_DEFINE_RESTART_INTERVAL = 0xffdd;
 
+  /**
+   * Marker with conditioning values for arithmetic coding (DAC).
+   */
+  public static final int MARKER_DEFINE_ARITHMETIC_CONDITIONING = 0xffcc;
+
   /**
    * Marker with first restart interval.
    */
@@ -170,6 +175,16 @@ public final class Constants
    */
   public static final int MINIMUM_CODED_UNIT_ELEMENTS = 64;
 
+  /**
+   * Width and height of a block of samples in pixels.
+   */
+  public static final int BLOCK_SIZE = 8;
+
+  /**
+   * Maximum number of blocks in an MCU of an interleaved scan. ITU-T81.pdf B.2.3, p. 38.
+   */
+  public static final int MAX_BLOCKS_PER_MCU = 10;
+
   /**
    * Precision of a quantization table element is eight bits.
    */
@@ -200,6 +215,11 @@ public final class Constants
    */
   public static final int LENGTH_RESTART_INTERVAL_DEFINITION = 4;
 
+  /**
+   * Maximum arithmetic coding conditioning table destination identifier.
+   */
+  public static final int MAX_CONDITIONING_TABLE_DEST_IDENTIFIER = 3;
+
   private Constants()
   {
     // avoid instantiation of this helper class
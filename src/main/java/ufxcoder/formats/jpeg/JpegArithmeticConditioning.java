@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.util.Arrays;
+
+/**
+ * Conditioning values of the arithmetic coding tables, as defined by DAC markers or by default. ITU-T81.pdf B.2.4.3,
+ * p. 41 and F.1.4.4, p. 95ff.
+ */
+public class JpegArithmeticConditioning
+{
+  /**
+   * Default lower bound L for DC conditioning.
+   */
+  public static final int DEFAULT_DC_LOWER = 0;
+  /**
+   * Default upper bound U for DC conditioning.
+   */
+  public static final int DEFAULT_DC_UPPER = 1;
+  /**
+   * Default AC conditioning value Kx.
+   */
+  public static final int DEFAULT_AC_KX = 5;
+  private static final int NUM_TABLES = Constants.MAX_CONDITIONING_TABLE_DEST_IDENTIFIER + 1;
+  private final int[] dcLower = new int[NUM_TABLES];
+  private final int[] dcUpper = new int[NUM_TABLES];
+  private final int[] acKx = new int[NUM_TABLES];
+
+  public JpegArithmeticConditioning()
+  {
+    Arrays.fill(dcLower, DEFAULT_DC_LOWER);
+    Arrays.fill(dcUpper, DEFAULT_DC_UPPER);
+    Arrays.fill(acKx, DEFAULT_AC_KX);
+  }
+
+  public int getDcLower(final int id)
+  {
+    return dcLower[id];
+  }
+
+  public int getDcUpper(final int id)
+  {
+    return dcUpper[id];
+  }
+
+  public void setDc(final int id, final int lower, final int upper)
+  {
+    dcLower[id] = lower;
+    dcUpper[id] = upper;
+  }
+
+  public int getAcKx(final int id)
+  {
+    return acKx[id];
+  }
+
+  public void setAcKx(final int id, final int kx)
+  {
+    acKx[id] = kx;
+  }
+}
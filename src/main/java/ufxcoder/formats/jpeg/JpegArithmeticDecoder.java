@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+/**
+ * Decode binary decisions from arithmetic-coded scan data with the adaptive QM coder. ITU-T81.pdf Annex D.2, p. 65ff.
+ * The probability estimate of each decision is kept in a statistics bin, a byte holding the more probable symbol in bit
+ * 7 and the index into the Qe table {@link #STATES} in bits 0 to 6. Bins are all zero at the beginning of a scan and of
+ * each restart interval.
+ */
+public class JpegArithmeticDecoder
+{
+  /**
+   * Index of a state whose estimate stays at 0.5, for decisions coded with fixed probability.
+   */
+  public static final int FIXED_STATE = 113;
+  /**
+   * Table D.2, p. 68f.: Qe_Value in bits 16 to 31, Next_Index_MPS in bits 8 to 15, Switch_MPS in bit 7,
+   * Next_Index_LPS in bits 0 to 6. The last entry is {@link #FIXED_STATE}.
+   */
+  private static final int[] STATES =
+  {
+      0x5a1d0181, 0x2586020e, 0x11140310, 0x080b0412, 0x03d80514, 0x01da0617, 0x00e50719, 0x006f081c, 0x0036091e,
+      0x001a0a21, 0x000d0b23, 0x00060c09, 0x00030d0a, 0x00010d0c, 0x5a7f0f8f, 0x3f251024, 0x2cf21126, 0x207c1227,
+      0x17b91328, 0x1182142a, 0x0cef152b, 0x09a1162d, 0x072f172e, 0x055c1830, 0x04061931, 0x03031a33, 0x02401b34,
+      0x01b11c36, 0x01441d38, 0x00f51e39, 0x00b71f3b, 0x008a203c, 0x0068213e, 0x004e223f, 0x003b2320, 0x002c0921,
+      0x5ae125a5, 0x484c2640, 0x3a0d2741, 0x2ef12843, 0x261f2944, 0x1f332a45, 0x19a82b46, 0x15182c48, 0x11772d49,
+      0x0e742e4a, 0x0bfb2f4b, 0x09f8304d, 0x0861314e, 0x0706324f, 0x05cd3330, 0x04de3432, 0x040f3532, 0x03633633,
+      0x02d43734, 0x025c3835, 0x01f83936, 0x01a43a37, 0x01603b38, 0x01253c39, 0x00f63d3a, 0x00cb3e3b, 0x00ab3f3d,
+      0x008f203d, 0x5b1241c1, 0x4d044250, 0x412c4351, 0x37d84452, 0x2fe84553, 0x293c4654, 0x23794756, 0x1edf4857,
+      0x1aa94957, 0x174e4a48, 0x14244b48, 0x119c4c4a, 0x0f6b4d4a, 0x0d514e4b, 0x0bb64f4d, 0x0a40304d, 0x583251d0,
+      0x4d1c5258, 0x438e5359, 0x3bdd545a, 0x34ee555b, 0x2eae565c, 0x299a575d, 0x25164756, 0x557059d8, 0x4ca95a5f,
+      0x44d95b60, 0x3e225c61, 0x38245d63, 0x32b45e63, 0x2e17565d, 0x56a860df, 0x4f466165, 0x47e56266, 0x41cf6367,
+      0x3c3d6468, 0x375e5d63, 0x52316669, 0x4c0f676a, 0x4639686b, 0x415e6367, 0x56276ae9, 0x50e76b6c, 0x4b85676d,
+      0x55976d6e, 0x504f6b6f, 0x5a106fee, 0x55226d70, 0x59eb6ff0, 0x5a1d7171
+  };
+  private static final int STATE_MASK = 0x7f;
+  private static final int MPS_BIT = 0x80;
+  private static final int BYTE_BITS = 8;
+  private static final int BYTE_MASK = 0xff;
+  private static final int QE_SHIFT = 16;
+  /**
+   * Smallest value of the interval register A after renormalization.
+   */
+  private static final int MIN_INTERVAL = 0x8000;
+  /**
+   * Initial value of {@link #bitsLeft}: two bytes must be read to fill the code register.
+   */
+  private static final int INITIAL_BITS_LEFT = -16;
+  private final JpegScanReader reader;
+  /**
+   * Probability interval register A.
+   */
+  private int interval;
+  /**
+   * Code register C, only the bits above {@link #bitsLeft} are compared with the interval.
+   */
+  private int code;
+  /**
+   * Number of bits in C not yet shifted into the comparison with A (CT).
+   */
+  private int bitsLeft;
+
+  public JpegArithmeticDecoder(final JpegScanReader reader)
+  {
+    this.reader = reader;
+    reset();
+  }
+
+  /**
+   * Start decoding at the beginning of a scan or a restart interval (INITDEC, D.2.7, p. 74).
+   */
+  public final void reset()
+  {
+    interval = 0;
+    code = 0;
+    bitsLeft = INITIAL_BITS_LEFT;
+  }
+
+  /**
+   * Decode one binary decision and update its statistics bin (DECODE, D.2.4 and D.2.5, p. 71ff.).
+   *
+   * @param stats
+   *          statistics bins
+   * @param index
+   *          index of the bin for this decision
+   * @return decision, 0 or 1
+   */
+  public int decode(final byte[] stats, final int index)
+  {
+    if (interval < MIN_INTERVAL)
+    {
+      renormalize();
+    }
+    final int bin = stats[index] & BYTE_MASK;
+    final int state = STATES[bin & STATE_MASK];
+    final int qe = state >>> QE_SHIFT;
+    interval -= qe;
+    final int scaledInterval = interval << bitsLeft;
+    int result = bin >> 7;
+    if (code >= scaledInterval)
+    {
+      // LPS sub-interval, possibly exchanged with the MPS one
+      code -= scaledInterval;
+      if (interval < qe)
+      {
+        stats[index] = (byte) ((bin & MPS_BIT) ^ (state >> BYTE_BITS & BYTE_MASK));
+      }
+      else
+      {
+        stats[index] = (byte) ((bin & MPS_BIT) ^ (state & BYTE_MASK));
+        result ^= 1;
+      }
+      interval = qe;
+    }
+    else if (interval < MIN_INTERVAL)
+    {
+      // MPS sub-interval, possibly exchanged with the LPS one
+      if (interval < qe)
+      {
+        stats[index] = (byte) ((bin & MPS_BIT) ^ (state & BYTE_MASK));
+        result ^= 1;
+      }
+      else
+      {
+        stats[index] = (byte) ((bin & MPS_BIT) ^ (state >> BYTE_BITS & BYTE_MASK));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Double the interval until it is at least {@link #MIN_INTERVAL}, reading bytes into the code register as needed
+   * (RENORM_D and BYTE_IN, D.2.6, p. 73f.). After the end of the scan data zero bytes are used.
+   */
+  private void renormalize()
+  {
+    do
+    {
+      bitsLeft--;
+      if (bitsLeft < 0)
+      {
+        final int data = reader.nextDataByte();
+        code = (code << BYTE_BITS) | (data < 0 ? 0 : data);
+        bitsLeft += BYTE_BITS;
+        if (bitsLeft < 0)
+        {
+          bitsLeft++;
+          if (bitsLeft == 0)
+          {
+            // two initial bytes read, the interval becomes 0x10000 below
+            interval = MIN_INTERVAL;
+          }
+        }
+      }
+      interval <<= 1;
+    }
+    while (interval < MIN_INTERVAL);
+  }
+}
@@ -15,51 +15,95 @@
  */
 package ufxcoder.formats.jpeg;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.Arrays;
 
 /**
- * Decode baseline Huffman input.
+ * Decode the Huffman-coded data of a baseline scan MCU by MCU, interleaved or not, to verify that it is complete and
+ * consistent with the frame. All tables are set up once per scan, decoding the individual blocks does not allocate.
  */
-public class JpegBaselineHuffmanDecoder
+public class JpegBaselineHuffmanDecoder extends AbstractJpegScanDecoder
 {
-  private static final Logger LOGGER = LoggerFactory.getLogger(JpegBaselineHuffmanDecoder.class);
-  private final JpegFileDescription desc;
-  private final JpegScanReader reader;
+  /**
+   * Coefficients of the block decoded last, in zig-zag order.
+   */
+  private final int[] zz = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+  private JpegHuffmanDecoder[] dcDecoders;
+  private JpegHuffmanDecoder[] acDecoders;
+  /**
+   * DC predictor for each scan component.
+   */
+  private int[] predictors;
 
   public JpegBaselineHuffmanDecoder(final JpegProcessor proc, final JpegScanReader reader)
   {
-    desc = proc.getJpegFileDescription();
-    this.reader = reader;
+    super(proc, reader);
   }
 
-  public void decode()
+  @Override
+  protected boolean prepare(final JpegFrame frame, final JpegScan scan)
   {
-    final JpegFrame frame = desc.getFrame();
-    if (frame != null && frame.isBaseline())
+    final int numComponents = scan.getNumComponents();
+    dcDecoders = new JpegHuffmanDecoder[numComponents];
+    acDecoders = new JpegHuffmanDecoder[numComponents];
+    predictors = new int[numComponents];
+    boolean result = true;
+    int index = 0;
+    for (final JpegScanComponent scanComp : scan.getComponents())
     {
-      final JpegScan scan = frame.getLastScan();
-      if (scan != null && scan.getNumComponents() == 1)
-      {
-        final JpegScanComponent scanComp = scan.getFirstScan();
-        final int dc = scanComp.getDc();
-        final int ac = scanComp.getAc();
-        final JpegHuffmanTable dcTable = desc.findHuffmanTable(dc, Constants.TABLE_CLASS_DC);
-        final JpegHuffmanDecoder dcDec = new JpegHuffmanDecoder(dcTable, reader);
-        final JpegHuffmanTable acTable = desc.findHuffmanTable(ac, Constants.TABLE_CLASS_AC);
-        final JpegHuffmanDecoder acDec = new JpegHuffmanDecoder(acTable, reader);
-        final int hBlocks = (frame.getWidth() + 7) / 8;
-        final int vBlocks = (frame.getHeight() + 7) / 8;
-        int totalBlocks = hBlocks * vBlocks;
-        LOGGER.debug("H=" + hBlocks + " V=" + vBlocks + " TOTAL=" + totalBlocks);
-        final int[] zz = new int[64];
-        while (totalBlocks > 0)
-        {
-          zz[0] = dcDec.decodeDc();
-          acDec.decodeAc(zz);
-          totalBlocks--;
-        }
-      }
+      dcDecoders[index] = createDecoder(scanComp, scanComp.getDc(), Constants.TABLE_CLASS_DC);
+      acDecoders[index] = createDecoder(scanComp, scanComp.getAc(), Constants.TABLE_CLASS_AC);
+      result = result && dcDecoders[index] != null && acDecoders[index] != null;
+      index++;
     }
+    return result;
+  }
+
+  @Override
+  protected void restart()
+  {
+    Arrays.fill(predictors, 0);
+  }
+
+  @Override
+  protected void decodeMcu(final int mcuX, final int mcuY)
+  {
+    final JpegMcuLayout layout = getLayout();
+    for (int block = 0; block < layout.getBlocksPerMcu(); block++)
+    {
+      final int comp = layout.getBlockComponent(block);
+      final int dc = predictors[comp] + dcDecoders[comp].decodeDc();
+      predictors[comp] = dc;
+      zz[0] = dc;
+      acDecoders[comp].decodeAc(zz);
+      blockDecoded(layout.getComponent(comp), layout.getBlockX(block, mcuX), layout.getBlockY(block, mcuY), zz);
+    }
+  }
+
+  /**
+   * Called after each block has been decoded.
+   *
+   * @param comp
+   *          frame component of the block
+   * @param blockX
+   *          block column within component
+   * @param blockY
+   *          block line within component
+   * @param coefficients
+   *          coefficients in zig-zag order, only valid until the next block is decoded and not to be modified
+   */
+  protected void blockDecoded(final JpegFrameComponent comp, final int blockX, final int blockY,
+      final int... coefficients)
+  {
+    // validation does not need the coefficients
+  }
+
+  /**
+   * Return the coefficients of the block decoded last.
+   *
+   * @return copy of coefficients in zig-zag order
+   */
+  public int[] getLastBlock()
+  {
+    return zz.clone();
   }
 }
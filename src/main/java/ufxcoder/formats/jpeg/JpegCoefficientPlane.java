@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * DCT coefficients of all blocks of one frame component, 64 values of 16 bits per block in zig-zag order, plus the
+ * successive approximation state of each of the 64 coefficient positions. Block lines are grouped into chunks so that
+ * no single buffer exceeds {@link #MAX_CHUNK_BYTES}.
+ */
+public class JpegCoefficientPlane
+{
+  /**
+   * Maximum size of a buffer holding a chunk of block lines.
+   */
+  public static final int MAX_CHUNK_BYTES = 1 << 30;
+
+  /**
+   * Number of bytes per coefficient.
+   */
+  public static final int BYTES_PER_COEFFICIENT = 2;
+
+  /**
+   * Value in {@link #lowestBits} for coefficient positions not coded by any scan so far.
+   */
+  public static final int NOT_CODED = -1;
+
+  private static final int BYTES_PER_BLOCK = Constants.MINIMUM_CODED_UNIT_ELEMENTS * BYTES_PER_COEFFICIENT;
+  private final int componentId;
+  private final int blocksPerLine;
+  private final int blockLines;
+  private final int linesPerChunk;
+  private final ShortBuffer[] chunks;
+  /**
+   * For each coefficient position the lowest bit coded so far or {@link #NOT_CODED}.
+   */
+  private final int[] lowestBits = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+
+  public JpegCoefficientPlane(final int componentId, final int blocksPerLine, final int blockLines)
+  {
+    this.componentId = componentId;
+    this.blocksPerLine = blocksPerLine;
+    this.blockLines = blockLines;
+    linesPerChunk = Math.max(1, Math.min(blockLines, MAX_CHUNK_BYTES / (blocksPerLine * BYTES_PER_BLOCK)));
+    chunks = new ShortBuffer[(blockLines + linesPerChunk - 1) / linesPerChunk];
+    Arrays.fill(lowestBits, NOT_CODED);
+  }
+
+  public int getComponentId()
+  {
+    return componentId;
+  }
+
+  public int getBlocksPerLine()
+  {
+    return blocksPerLine;
+  }
+
+  public int getBlockLines()
+  {
+    return blockLines;
+  }
+
+  public int getNumChunks()
+  {
+    return chunks.length;
+  }
+
+  /**
+   * Return the number of bytes needed for a chunk.
+   *
+   * @param index
+   *          chunk index
+   * @return size in bytes
+   */
+  public int getChunkBytes(final int index)
+  {
+    final int lines = Math.min(linesPerChunk, blockLines - index * linesPerChunk);
+    return lines * blocksPerLine * BYTES_PER_BLOCK;
+  }
+
+  public void setChunk(final int index, final ShortBuffer buffer)
+  {
+    chunks[index] = buffer;
+  }
+
+  /**
+   * Return the buffer holding a block line.
+   *
+   * @param blockY
+   *          block line
+   * @return buffer with coefficients of that line, to be accessed at {@link #getOffset(int, int)}
+   */
+  public ShortBuffer getChunk(final int blockY)
+  {
+    return chunks[blockY / linesPerChunk];
+  }
+
+  /**
+   * Return the position of the first coefficient of a block within its chunk.
+   *
+   * @param blockX
+   *          block column
+   * @param blockY
+   *          block line
+   * @return index into buffer returned by {@link #getChunk(int)}
+   */
+  public int getOffset(final int blockX, final int blockY)
+  {
+    return ((blockY % linesPerChunk) * blocksPerLine + blockX) * Constants.MINIMUM_CODED_UNIT_ELEMENTS;
+  }
+
+  /**
+   * Record that a scan codes a range of coefficient positions down to a bit position. ITU-T81.pdf G.1.1.1, p. 119f.:
+   * the first scan of a position has Ah = 0, each later scan refines by exactly one bit, so Ah is the previous Al and
+   * Al = Ah - 1. AC coefficients may only be coded after the first DC scan.
+   *
+   * @param startSpectral
+   *          first coefficient position (Ss)
+   * @param endSpectral
+   *          last coefficient position (Se)
+   * @param approxHigh
+   *          bit position of previous scan (Ah)
+   * @param approxLow
+   *          bit position of this scan (Al)
+   * @return true if the scan continues the coefficients as required, false otherwise (state remains unchanged)
+   */
+  public boolean markCoded(final int startSpectral, final int endSpectral, final int approxHigh, final int approxLow)
+  {
+    final int expected = approxHigh == 0 ? NOT_CODED : approxHigh;
+    boolean result = (startSpectral == 0 || lowestBits[0] != NOT_CODED)
+        && (approxHigh == 0 || approxLow == approxHigh - 1);
+    for (int index = startSpectral; index <= endSpectral; index++)
+    {
+      result = result && lowestBits[index] == expected;
+    }
+    if (result)
+    {
+      Arrays.fill(lowestBits, startSpectral, endSpectral + 1, approxLow);
+    }
+    return result;
+  }
+
+  /**
+   * Find the first coefficient position whose bits have not all been coded.
+   *
+   * @return position or -1 if all coefficients are complete
+   */
+  public int findIncomplete()
+  {
+    int result = -1;
+    for (int index = 0; index < lowestBits.length; index++)
+    {
+      if (lowestBits[index] != 0)
+      {
+        result = index;
+        break;
+      }
+    }
+    return result;
+  }
+
+  public int getLowestBit(final int index)
+  {
+    return lowestBits[index];
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ufxcoder.io.BufferUnmapper;
+
+/**
+ * Coefficient planes of all components of a progressive frame, kept from one scan to the next. Frames are stored on the
+ * heap as long as all frames on the heap together need at most {@link #MAX_HEAP_BYTES}, so that heap use does not grow
+ * with the number of worker threads; other frames are stored off-heap in a memory-mapped temporary file. Storage must
+ * be closed to give back its share of the heap limit and to release the mapped file.
+ */
+public class JpegCoefficients implements Closeable
+{
+  /**
+   * Largest coefficient storage kept on the heap, for all frames processed at the same time.
+   */
+  public static final long MAX_HEAP_BYTES = 64L * 1024 * 1024;
+  private static final Logger LOGGER = LoggerFactory.getLogger(JpegCoefficients.class);
+  /**
+   * Number of bytes currently stored on the heap by all instances.
+   */
+  private static final AtomicLong HEAP_BYTES = new AtomicLong();
+  private final List<JpegCoefficientPlane> planes = new ArrayList<>();
+  private final List<MappedByteBuffer> mappings = new ArrayList<>();
+  private boolean offHeap;
+  /**
+   * Number of bytes this instance has reserved of {@link #HEAP_BYTES}.
+   */
+  private long heapBytes;
+  /**
+   * Temporary file that could not be deleted while mapped, deleted on {@link #close()}.
+   */
+  private File tempFile;
+
+  /**
+   * Create storage for a frame, off-heap if it does not fit into what is left of {@link #MAX_HEAP_BYTES}.
+   *
+   * @param frame
+   *          frame with size and components
+   * @return new storage
+   * @throws IOException
+   *           if the temporary file for off-heap storage cannot be created
+   */
+  public static JpegCoefficients create(final JpegFrame frame) throws IOException
+  {
+    final long numBytes = getNumBytes(frame);
+    final boolean heap = reserveHeap(numBytes);
+    return create(frame, !heap, heap ? numBytes : 0);
+  }
+
+  /**
+   * Create storage for a frame.
+   *
+   * @param frame
+   *          frame with size and components
+   * @param offHeap
+   *          if true, store coefficients in a memory-mapped temporary file, otherwise on the heap
+   * @return new storage
+   * @throws IOException
+   *           if the temporary file for off-heap storage cannot be created
+   */
+  public static JpegCoefficients create(final JpegFrame frame, final boolean offHeap) throws IOException
+  {
+    return create(frame, offHeap, 0);
+  }
+
+  private static JpegCoefficients create(final JpegFrame frame, final boolean offHeap, final long heapBytes)
+      throws IOException
+  {
+    final JpegCoefficients result = new JpegCoefficients();
+    result.offHeap = offHeap;
+    result.heapBytes = heapBytes;
+    boolean created = false;
+    try
+    {
+      for (final JpegFrameComponent comp : frame.getComponents())
+      {
+        result.planes.add(new JpegCoefficientPlane(comp.getId(), JpegMcuLayout.getPaddedBlocksPerLine(frame, comp),
+            JpegMcuLayout.getPaddedBlockLines(frame, comp)));
+      }
+      if (offHeap)
+      {
+        result.mapChunks();
+      }
+      else
+      {
+        result.allocateChunks();
+      }
+      created = true;
+    }
+    finally
+    {
+      if (!created)
+      {
+        // give back heap bytes and mappings of a partially created storage
+        result.close();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reserve part of {@link #MAX_HEAP_BYTES} for a frame.
+   *
+   * @param numBytes
+   *          number of bytes needed by the frame
+   * @return whether the bytes were reserved, false if they would exceed the limit
+   */
+  private static boolean reserveHeap(final long numBytes)
+  {
+    boolean result = false;
+    long used = HEAP_BYTES.get();
+    while (!result && used + numBytes <= MAX_HEAP_BYTES)
+    {
+      result = HEAP_BYTES.compareAndSet(used, used + numBytes);
+      used = HEAP_BYTES.get();
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of bytes currently stored on the heap by all frames.
+   *
+   * @return number of bytes counted against {@link #MAX_HEAP_BYTES}
+   */
+  public static long getHeapBytes()
+  {
+    return HEAP_BYTES.get();
+  }
+
+  /**
+   * Compute the number of bytes needed to store all coefficients of a frame.
+   *
+   * @param frame
+   *          frame with size and components
+   * @return number of bytes
+   */
+  public static long getNumBytes(final JpegFrame frame)
+  {
+    long result = 0;
+    for (final JpegFrameComponent comp : frame.getComponents())
+    {
+      final long numBlocks = (long) JpegMcuLayout.getPaddedBlocksPerLine(frame, comp)
+          * JpegMcuLayout.getPaddedBlockLines(frame, comp);
+      result += numBlocks * Constants.MINIMUM_CODED_UNIT_ELEMENTS * JpegCoefficientPlane.BYTES_PER_COEFFICIENT;
+    }
+    return result;
+  }
+
+  private void allocateChunks()
+  {
+    for (final JpegCoefficientPlane plane : planes)
+    {
+      for (int index = 0; index < plane.getNumChunks(); index++)
+      {
+        final int numCoefficients = plane.getChunkBytes(index) / JpegCoefficientPlane.BYTES_PER_COEFFICIENT;
+        plane.setChunk(index, ShortBuffer.allocate(numCoefficients));
+      }
+    }
+  }
+
+  /**
+   * Map all chunks from a temporary file. The file is deleted right away where the system allows deleting mapped files,
+   * otherwise on {@link #close()} once the chunks have been unmapped.
+   */
+  private void mapChunks() throws IOException
+  {
+    final File file = File.createTempFile("ufxcoder", ".coefficients");
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel())
+    {
+      long position = 0;
+      for (final JpegCoefficientPlane plane : planes)
+      {
+        for (int index = 0; index < plane.getNumChunks(); index++)
+        {
+          final int size = plane.getChunkBytes(index);
+          final MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+          mappings.add(mapping);
+          plane.setChunk(index, mapping.order(ByteOrder.nativeOrder()).asShortBuffer());
+          position += size;
+        }
+      }
+    }
+    finally
+    {
+      if (!file.delete())
+      {
+        tempFile = file;
+      }
+    }
+  }
+
+  /**
+   * Find the plane of a component.
+   *
+   * @param componentId
+   *          frame component identifier
+   * @return plane or null if there is no such component
+   */
+  public JpegCoefficientPlane find(final int componentId)
+  {
+    JpegCoefficientPlane result = null;
+    for (final JpegCoefficientPlane plane : planes)
+    {
+      if (plane.getComponentId() == componentId)
+      {
+        result = plane;
+        break;
+      }
+    }
+    return result;
+  }
+
+  public boolean isOffHeap()
+  {
+    return offHeap;
+  }
+
+  /**
+   * Check that the scans of the frame have coded all bits of all coefficients, report an error for each component
+   * where that is not the case.
+   *
+   * @param proc
+   *          processor to report errors to
+   */
+  public void verify(final JpegProcessor proc)
+  {
+    for (final JpegCoefficientPlane plane : planes)
+    {
+      final int index = plane.findIncomplete();
+      if (index >= 0)
+      {
+        final int lowestBit = plane.getLowestBit(index);
+        if (lowestBit == JpegCoefficientPlane.NOT_CODED)
+        {
+          proc.error(Msg.COEFFICIENTS_NOT_CODED, index, plane.getComponentId());
+        }
+        else
+        {
+          proc.error(Msg.COEFFICIENTS_INCOMPLETE, index, plane.getComponentId(), lowestBit);
+        }
+      }
+    }
+  }
+
+  /**
+   * Return whether all bits of all coefficients of all planes have been coded.
+   *
+   * @return true if complete
+   */
+  public boolean isComplete()
+  {
+    boolean result = true;
+    for (final JpegCoefficientPlane plane : planes)
+    {
+      result = result && plane.findIncomplete() < 0;
+    }
+    return result;
+  }
+
+  /**
+   * Release all planes: give back the reserved heap bytes, unmap off-heap chunks and delete the temporary file if that
+   * was not possible while it was mapped. The chunks of the planes are removed so that they cannot be accessed after
+   * unmapping. Closing more than once has no effect.
+   */
+  @Override
+  public void close()
+  {
+    for (final JpegCoefficientPlane plane : planes)
+    {
+      for (int index = 0; index < plane.getNumChunks(); index++)
+      {
+        plane.setChunk(index, null);
+      }
+    }
+    planes.clear();
+    HEAP_BYTES.addAndGet(-heapBytes);
+    heapBytes = 0;
+    for (final MappedByteBuffer mapping : mappings)
+    {
+      BufferUnmapper.unmap(mapping);
+    }
+    mappings.clear();
+    if (tempFile != null && !tempFile.delete())
+    {
+      LOGGER.debug("Could not delete temporary file " + tempFile + ", deleting on exit.");
+      tempFile.deleteOnExit();
+    }
+    tempFile = null;
+  }
+}
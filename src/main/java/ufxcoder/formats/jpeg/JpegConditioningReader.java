@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import ufxcoder.io.Segment;
+
+/**
+ * Read arithmetic coding conditioning values from a DAC marker. ITU-T81.pdf B.2.4.3, p. 41.
+ */
+public class JpegConditioningReader
+{
+  private final JpegProcessor proc;
+
+  public JpegConditioningReader(final JpegProcessor proc)
+  {
+    this.proc = proc;
+  }
+
+  public void readTables(final Marker marker)
+  {
+    final Segment segment = marker.getSegment();
+    if ((marker.getLength() & 1) != 0)
+    {
+      proc.error(Msg.INVALID_CONDITIONING_LENGTH, marker.getLength());
+    }
+    final JpegArithmeticConditioning conditioning = proc.getJpegFileDescription().getConditioning();
+    while (proc.isSuccess() && segment.hasBytes(2))
+    {
+      final int classId = segment.int8();
+      final int tableClass = classId >> 4;
+      final int id = classId & 0x0f;
+      final int value = segment.int8();
+      if (id > Constants.MAX_CONDITIONING_TABLE_DEST_IDENTIFIER || tableClass > Constants.TABLE_CLASS_AC)
+      {
+        proc.error(Msg.INVALID_CONDITIONING_TABLE, tableClass, id);
+      }
+      else if (tableClass == Constants.TABLE_CLASS_DC)
+      {
+        // high nibble: upper bound U, low nibble: lower bound L
+        final int lower = value & 0x0f;
+        final int upper = value >> 4;
+        if (lower > upper)
+        {
+          proc.error(Msg.INVALID_CONDITIONING_VALUE, "DC", id, value);
+        }
+        conditioning.setDc(id, lower, upper);
+      }
+      else
+      {
+        if (value < 1 || value >= Constants.MINIMUM_CODED_UNIT_ELEMENTS)
+        {
+          proc.error(Msg.INVALID_CONDITIONING_VALUE, "AC", id, value);
+        }
+        conditioning.setAcKx(id, value);
+      }
+    }
+  }
+}
@@ -15,7 +15,6 @@
  */
 package ufxcoder.formats.jpeg;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import ufxcoder.formats.FileDescription;
@@ -25,33 +24,12 @@ import ufxcoder.formats.FileDescription;
  */
 public class JpegFileDescription extends FileDescription
 {
-  private BigInteger initialOffset = BigInteger.ZERO;
-  private boolean embedded;
   private final List<Marker> markers = new ArrayList<>();
   private JpegFrame frame;
   private final List<JpegHuffmanTable> huffmanTables = new ArrayList<>();
   private final List<JpegQuantizationTable> quantizationTables = new ArrayList<>();
   private int numRestartIntervalMcus;
-
-  public BigInteger getInitialOffset()
-  {
-    return initialOffset;
-  }
-
-  public void setInitialOffset(final BigInteger initialOffset)
-  {
-    this.initialOffset = initialOffset;
-  }
-
-  public boolean isEmbedded()
-  {
-    return embedded;
-  }
-
-  public void setEmbedded(final boolean embedded)
-  {
-    this.embedded = embedded;
-  }
+  private final JpegArithmeticConditioning conditioning = new JpegArithmeticConditioning();
 
   public void add(final Marker marker)
   {
@@ -63,6 +41,11 @@ public class JpegFileDescription extends FileDescription
     return markers;
   }
 
+  public JpegArithmeticConditioning getConditioning()
+  {
+    return conditioning;
+  }
+
   public JpegFrame getFrame()
   {
     return frame;
@@ -73,8 +56,20 @@ public class JpegFileDescription extends FileDescription
     this.frame = frame;
   }
 
+  /**
+   * Add a Huffman table, replacing a table defined earlier with the same identifier and class (tables may be redefined
+   * between scans).
+   *
+   * @param table
+   *          new table
+   */
   public void add(final JpegHuffmanTable table)
   {
+    final JpegHuffmanTable previous = findHuffmanTable(table.getId(), table.getTableClass());
+    if (previous != null)
+    {
+      huffmanTables.remove(previous);
+    }
     huffmanTables.add(table);
   }
 
@@ -83,6 +78,26 @@ public class JpegFileDescription extends FileDescription
     quantizationTables.add(table);
   }
 
+  /**
+   * Find the quantization table defined last with an identifier.
+   *
+   * @param id
+   *          table destination identifier
+   * @return table or null if none was defined
+   */
+  public JpegQuantizationTable findQuantizationTable(final int id)
+  {
+    JpegQuantizationTable result = null;
+    for (final JpegQuantizationTable table : quantizationTables)
+    {
+      if (id == table.getId())
+      {
+        result = table;
+      }
+    }
+    return result;
+  }
+
   public JpegHuffmanTable findHuffmanTable(final int id, final int tableClass)
   {
     JpegHuffmanTable result = null;
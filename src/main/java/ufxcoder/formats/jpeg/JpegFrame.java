@@ -16,7 +16,8 @@
 package ufxcoder.formats.jpeg;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,12 +30,45 @@ public class JpegFrame
   private boolean extended;
   private boolean lossless;
   private boolean progressive;
+  private boolean arithmetic;
+  private boolean differential;
   private int samplePrecision;
   private int numComponents;
   private int width;
   private int height;
-  private final Map<Integer, JpegFrameComponent> components = new HashMap<>();
+  private final Map<Integer, JpegFrameComponent> components = new LinkedHashMap<>();
   private final List<JpegScan> scans = new ArrayList<>();
+  private JpegCoefficients coefficients;
+
+  /**
+   * Return whether scan data is arithmetic-coded (SOF9 to SOF15) instead of Huffman-coded.
+   *
+   * @return true for arithmetic coding
+   */
+  public boolean isArithmetic()
+  {
+    return arithmetic;
+  }
+
+  public void setArithmetic(final boolean arithmetic)
+  {
+    this.arithmetic = arithmetic;
+  }
+
+  /**
+   * Return the coefficients of a progressive frame, accumulated over its scans.
+   *
+   * @return coefficient storage or null if no progressive scan has been decoded yet
+   */
+  public JpegCoefficients getCoefficients()
+  {
+    return coefficients;
+  }
+
+  public void setCoefficients(final JpegCoefficients coefficients)
+  {
+    this.coefficients = coefficients;
+  }
 
   public int getSamplePrecision()
   {
@@ -76,6 +110,21 @@ public class JpegFrame
     this.lossless = lossless;
   }
 
+  /**
+   * Return whether the frame is a differential frame of a hierarchical image (SOF5 to SOF7, SOF13 to SOF15).
+   *
+   * @return true for differential frames
+   */
+  public boolean isDifferential()
+  {
+    return differential;
+  }
+
+  public void setDifferential(final boolean differential)
+  {
+    this.differential = differential;
+  }
+
   public boolean isProgressive()
   {
     return progressive;
@@ -121,6 +170,11 @@ public class JpegFrame
     return components.get(Integer.valueOf(id));
   }
 
+  public Collection<JpegFrameComponent> getComponents()
+  {
+    return components.values();
+  }
+
   public void add(final JpegFrameComponent comp)
   {
     components.put(comp.getId(), comp);
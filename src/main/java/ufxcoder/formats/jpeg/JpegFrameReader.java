@@ -59,6 +59,9 @@ public class JpegFrameReader
         || id == Constants.MARKER_START_OF_FRAME_9 || id == Constants.MARKER_START_OF_FRAME_13);
     frame.setProgressive(id == Constants.MARKER_START_OF_FRAME_2 || id == Constants.MARKER_START_OF_FRAME_6
         || id == Constants.MARKER_START_OF_FRAME_10 || id == Constants.MARKER_START_OF_FRAME_14);
+    frame.setArithmetic(id >= Constants.MARKER_START_OF_FRAME_9);
+    frame.setDifferential(id >= Constants.MARKER_START_OF_FRAME_5 && id <= Constants.MARKER_START_OF_FRAME_7
+        || id >= Constants.MARKER_START_OF_FRAME_13);
     frame.setLossless(id == Constants.MARKER_START_OF_FRAME_3 || id == Constants.MARKER_START_OF_FRAME_7
         || id == Constants.MARKER_START_OF_FRAME_11 || id == Constants.MARKER_START_OF_FRAME_15);
 
@@ -23,6 +23,27 @@ import ufxcoder.conversion.Array;
  */
 public class JpegHuffmanDecoder
 {
+  /**
+   * Codes with up to this many bits are decoded with a single lookup in {@link #lookahead}.
+   */
+  private static final int LOOKAHEAD_BITS = 9;
+  /**
+   * Bit position of the code length in a {@link #lookahead} entry, the decoded value is stored in the lower bits.
+   */
+  private static final int LOOKAHEAD_LENGTH_SHIFT = 8;
+  private static final int LOOKAHEAD_VALUE_MASK = 0xff;
+  /**
+   * Number of bits inspected at once by {@link #decodeDifference()}, the most the scan reader supports.
+   */
+  private static final int DIFFERENCE_PEEK_BITS = 25;
+  /**
+   * Lossless magnitude category without additional bits. ITU-T81.pdf H.1.2.2, p. 136.
+   */
+  private static final int CATEGORY_32768 = 16;
+  /**
+   * Shifting category 16 by this many bits yields 32768, invalid categories become larger values.
+   */
+  public static final int CATEGORY_SHIFT = 11;
   private final JpegHuffmanTable table;
   private final JpegScanReader reader;
   private final int[] huffCode;
@@ -30,20 +51,30 @@ public class JpegHuffmanDecoder
   private final int[] minCode;
   private final int[] maxCode;
   private final int[] valPtr;
+  /**
+   * For each possible combination of the next {@link #LOOKAHEAD_BITS} bits: code length and value of the code starting
+   * with these bits or 0 if that code is longer.
+   */
+  private final int[] lookahead = new int[1 << LOOKAHEAD_BITS];
 
   public JpegHuffmanDecoder(final JpegHuffmanTable table, final JpegScanReader reader)
   {
     this.table = table;
     this.reader = reader;
-    generateTableSize(table);
-    generateCodeTable(table);
-    huffCode = table.getHuffCode();
+    // the derived tables are stored in the shared table object, decoders may be created concurrently
+    synchronized (table)
+    {
+      generateTableSize(table);
+      generateCodeTable(table);
+      huffCode = table.getHuffCode();
+    }
     huffVal = new int[huffCode.length];
     initHuffVal();
     minCode = new int[Constants.MAX_HUFFMAN_CODE_LENGTH];
     maxCode = new int[Constants.MAX_HUFFMAN_CODE_LENGTH];
     valPtr = new int[Constants.MAX_HUFFMAN_CODE_LENGTH];
     initDecoderTables();
+    initLookahead();
   }
 
   /**
@@ -152,6 +183,26 @@ public class JpegHuffmanDecoder
     }
   }
 
+  /**
+   * Initialize {@link #lookahead} so that codes of up to {@link #LOOKAHEAD_BITS} bits can be decoded with a single
+   * lookup. A code of length n occupies all entries that start with its n bits.
+   */
+  private void initLookahead()
+  {
+    final int[] huffSize = table.getHuffSize();
+    for (int codeIndex = 0; codeIndex < huffSize.length; codeIndex++)
+    {
+      final int bitLength = huffSize[codeIndex];
+      if (bitLength <= LOOKAHEAD_BITS)
+      {
+        final int unusedBits = LOOKAHEAD_BITS - bitLength;
+        final int first = huffCode[codeIndex] << unusedBits;
+        final int entry = (bitLength << LOOKAHEAD_LENGTH_SHIFT) | huffVal[codeIndex];
+        Arrays.fill(lookahead, first, first + (1 << unusedBits), entry);
+      }
+    }
+  }
+
   /**
    * Decode AC coefficients and put them into argument array. ITU-T81.pdf F2.2.2, p. 105f.
    *
@@ -160,9 +211,9 @@ public class JpegHuffmanDecoder
    */
   public void decodeAc(final int... zz)
   {
-    Arrays.fill(zz, 1, Constants.MINIMUM_CODED_UNIT_ELEMENTS - 1, 0);
+    Arrays.fill(zz, 1, Constants.MINIMUM_CODED_UNIT_ELEMENTS, 0);
     int index = 1; // "k" in document
-    do
+    while (index < Constants.MINIMUM_CODED_UNIT_ELEMENTS)
     {
       final int rs = decode();
       final int ssss = rs & 0x0f;
@@ -171,29 +222,29 @@ public class JpegHuffmanDecoder
       {
         if (rrrr == 15)
         {
-          index += 15;
+          // ZRL, sixteen zero coefficients
+          index += 16;
         }
         else
         {
+          // EOB, all remaining coefficients are zero
           break;
         }
       }
       else
       {
         index += rrrr;
-        zz[index] = receive(ssss);
-        zz[index] = extend(zz[index], ssss);
-        if (index == Constants.MINIMUM_CODED_UNIT_ELEMENTS - 1)
+        if (index < Constants.MINIMUM_CODED_UNIT_ELEMENTS)
         {
-          break;
+          zz[index] = extend(receive(ssss), ssss);
+          index++;
         }
         else
         {
-          index++;
+          reader.error(Msg.INVALID_COEFFICIENT_RUN, index);
         }
       }
     }
-    while (true);
   }
 
   /**
@@ -209,21 +260,60 @@ public class JpegHuffmanDecoder
     return diff;
   }
 
+  /**
+   * Decode a lossless difference value: magnitude category and additional bits. Categories with codes found in the
+   * lookahead table and their additional bits are taken from a single look at the bit reservoir. ITU-T81.pdf H.1.2.2,
+   * p. 136.
+   *
+   * @return difference, 32768 for category 16 or larger values for invalid categories 17 and up
+   */
+  public int decodeDifference()
+  {
+    final int bits = reader.peekBits(DIFFERENCE_PEEK_BITS);
+    final int entry = lookahead[bits >>> (DIFFERENCE_PEEK_BITS - LOOKAHEAD_BITS)];
+    final int codeLength = entry >> LOOKAHEAD_LENGTH_SHIFT;
+    final int category = entry & LOOKAHEAD_VALUE_MASK;
+    int result;
+    if (entry != 0 && category < CATEGORY_32768)
+    {
+      final int value = (bits >>> (DIFFERENCE_PEEK_BITS - codeLength - category)) & ((1 << category) - 1);
+      reader.skipBits(codeLength + category);
+      // branch-free EXTEND: subtract 2^category - 1 if the leading bit is zero, category 0 yields 0
+      result = value + (((value - (1 << (category - 1))) >> 31) & ((-1 << category) + 1));
+    }
+    else
+    {
+      final int tt = decode();
+      result = tt < CATEGORY_32768 ? receiveExtend(tt) : tt << CATEGORY_SHIFT;
+    }
+    return result;
+  }
+
+  /**
+   * Read a coefficient value of a magnitude category decoded before. F.2.2.1, p. 104.
+   *
+   * @param ssss
+   *          magnitude category, number of additional bits
+   * @return signed coefficient value
+   */
+  public int receiveExtend(final int ssss)
+  {
+    return extend(receive(ssss), ssss);
+  }
+
   /**
    * Figure F.12, p. 105. F.2.2.1, p. 104.
    */
   private int extend(final int value, final int tt)
   {
-    int threshold = 1 << (tt - 1);
     int result;
-    if (value < threshold)
+    if (tt == 0 || value >= 1 << (tt - 1))
     {
       result = value;
     }
     else
     {
-      threshold = (-1 << tt) + 1;
-      result = threshold + value;
+      result = value + (-1 << tt) + 1;
     }
     return result;
   }
@@ -233,30 +323,52 @@ public class JpegHuffmanDecoder
    */
   private int receive(final int numBits)
   {
-    int result = 0;
-    int bitsLeft = numBits;
-    while (bitsLeft != 0)
+    return reader.getBits(numBits);
+  }
+
+  /**
+   * F.2.2.3, p. 107. Figure F.16, p. 110. Codes of up to {@link #LOOKAHEAD_BITS} bits are resolved with a single table
+   * lookup, longer codes by comparing against {@link #maxCode} for each remaining length.
+   *
+   * @return decoded value
+   */
+  public int decode()
+  {
+    int result;
+    final int entry = lookahead[reader.peekBits(LOOKAHEAD_BITS)];
+    if (entry == 0)
+    {
+      result = decodeLongCode();
+    }
+    else
     {
-      result = (result << 1) | reader.nextBit();
-      bitsLeft--;
+      reader.skipBits(entry >> LOOKAHEAD_LENGTH_SHIFT);
+      result = entry & LOOKAHEAD_VALUE_MASK;
     }
     return result;
   }
 
-  /**
-   * F.2.2.3, p. 107. Figure F.16, p. 110.
-   */
-  private int decode()
+  private int decodeLongCode()
   {
-    int bitLength = 1; // "i" in document
-    int code = reader.nextBit();
-    while (code < maxCode[bitLength - 1])
+    int bitLength = LOOKAHEAD_BITS + 1; // "i" in document
+    int code = reader.peekBits(bitLength);
+    while (bitLength < Constants.MAX_HUFFMAN_CODE_LENGTH && code > maxCode[bitLength - 1])
     {
       bitLength++;
-      code = (code << 1) | reader.nextBit();
+      code = reader.peekBits(bitLength);
+    }
+    int result;
+    if (code > maxCode[bitLength - 1])
+    {
+      reader.invalidHuffmanCode();
+      result = 0;
     }
-    int valueIndex = valPtr[bitLength - 1]; // "j" in document
-    valueIndex = valueIndex + code - minCode[bitLength - 1];
-    return huffVal[valueIndex];
+    else
+    {
+      reader.skipBits(bitLength);
+      final int valueIndex = valPtr[bitLength - 1] + code - minCode[bitLength - 1]; // "j" in document
+      result = huffVal[valueIndex];
+    }
+    return result;
   }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.util.Arrays;
+
+/**
+ * Integer inverse DCT after Arai, Agui and Nakajima (AAN) with dequantization folded into the multipliers of the first
+ * pass, following the "ifast" method of the Independent JPEG Group's library. Accuracy is a little lower than that of
+ * a floating-point IDCT, more than enough to fingerprint the decoded image. Coefficients are expected in zig-zag order
+ * as decoded from the scan data; samples are written as unsigned 8-bit values.
+ */
+public class JpegIdct
+{
+  private static final int CONST_BITS = 8;
+  private static final int PASS1_BITS = 2;
+  private static final int FIX_1_082392200 = 277;
+  private static final int FIX_1_414213562 = 362;
+  private static final int FIX_1_847759065 = 473;
+  private static final int FIX_2_613125930 = 669;
+  /**
+   * Bits of precision of {@link #AAN_SCALES}.
+   */
+  private static final int SCALE_BITS = 14;
+  private static final int OUTPUT_SHIFT = PASS1_BITS + 3;
+  private static final int CENTER_SAMPLE = 128;
+  private static final int MAX_SAMPLE = 255;
+  /**
+   * Scale factors of the AAN algorithm in natural order: cos(k*PI/16) * sqrt(2) for k != 0, scaled by 2^14.
+   */
+  private static final int[] AAN_SCALES =
+  {
+      16384, 22725, 21407, 19266, 16384, 12873, 8867, 4520,
+      22725, 31521, 29692, 26722, 22725, 17855, 12299, 6270,
+      21407, 29692, 27969, 25172, 21407, 16819, 11585, 5906,
+      19266, 26722, 25172, 22654, 19266, 15137, 10426, 5315,
+      16384, 22725, 21407, 19266, 16384, 12873, 8867, 4520,
+      12873, 17855, 16819, 15137, 12873, 10114, 6967, 3552,
+      8867, 12299, 11585, 10426, 8867, 6967, 4799, 2446,
+      4520, 6270, 5906, 5315, 4520, 3552, 2446, 1247
+  };
+  /**
+   * Position in natural (row-major) order of each coefficient in zig-zag order.
+   */
+  private static final int[] NATURAL_ORDER =
+  {
+      0, 1, 8, 16, 9, 2, 3, 10,
+      17, 24, 32, 25, 18, 11, 4, 5,
+      12, 19, 26, 33, 40, 48, 41, 34,
+      27, 20, 13, 6, 7, 14, 21, 28,
+      35, 42, 49, 56, 57, 50, 43, 36,
+      29, 22, 15, 23, 30, 37, 44, 51,
+      58, 59, 52, 45, 38, 31, 39, 46,
+      53, 60, 61, 54, 47, 55, 62, 63
+  };
+  /**
+   * Dequantization multipliers in zig-zag order, including the AAN scale factors.
+   */
+  private final int[] multipliers = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+  /**
+   * Dequantized coefficients in natural order, later results of the first pass.
+   */
+  private final int[] workspace = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+
+  /**
+   * Set up the multipliers for a quantization table.
+   *
+   * @param table
+   *          quantization values in zig-zag order
+   */
+  public void setQuantizationTable(final int... table)
+  {
+    for (int index = 0; index < multipliers.length; index++)
+    {
+      final long scaled = (long) table[index] * AAN_SCALES[NATURAL_ORDER[index]];
+      multipliers[index] = (int) ((scaled + (1 << (SCALE_BITS - PASS1_BITS - 1))) >> (SCALE_BITS - PASS1_BITS));
+    }
+  }
+
+  /**
+   * Dequantize and transform one block.
+   *
+   * @param coefficients
+   *          64 quantized coefficients in zig-zag order
+   * @param output
+   *          array receiving samples
+   * @param offset
+   *          index of top left sample of block in output
+   * @param stride
+   *          distance between lines in output
+   */
+  public void transform(final int[] coefficients, final byte[] output, final int offset, final int stride)
+  {
+    Arrays.fill(workspace, 0);
+    for (int index = 0; index < coefficients.length; index++)
+    {
+      final int value = coefficients[index];
+      if (value != 0)
+      {
+        workspace[NATURAL_ORDER[index]] = value * multipliers[index];
+      }
+    }
+    for (int column = 0; column < Constants.BLOCK_SIZE; column++)
+    {
+      transformColumn(column);
+    }
+    for (int row = 0; row < Constants.BLOCK_SIZE; row++)
+    {
+      transformRow(row, output, offset + row * stride);
+    }
+  }
+
+  private static int multiply(final int value, final int constant)
+  {
+    return (value * constant) >> CONST_BITS;
+  }
+
+  private void transformColumn(final int column)
+  {
+    final int[] ws = workspace;
+    final int dc = ws[column];
+    if ((ws[column + 8] | ws[column + 16] | ws[column + 24] | ws[column + 32] | ws[column + 40] | ws[column + 48]
+        | ws[column + 56]) == 0)
+    {
+      // AC terms all zero: column is constant
+      for (int row = 1; row < Constants.BLOCK_SIZE; row++)
+      {
+        ws[column + row * Constants.BLOCK_SIZE] = dc;
+      }
+    }
+    else
+    {
+      // even part
+      final int tmp10 = dc + ws[column + 32];
+      final int tmp11 = dc - ws[column + 32];
+      final int tmp13 = ws[column + 16] + ws[column + 48];
+      final int tmp12 = multiply(ws[column + 16] - ws[column + 48], FIX_1_414213562) - tmp13;
+      final int even0 = tmp10 + tmp13;
+      final int even3 = tmp10 - tmp13;
+      final int even1 = tmp11 + tmp12;
+      final int even2 = tmp11 - tmp12;
+      // odd part
+      final int z13 = ws[column + 40] + ws[column + 24];
+      final int z10 = ws[column + 40] - ws[column + 24];
+      final int z11 = ws[column + 8] + ws[column + 56];
+      final int z12 = ws[column + 8] - ws[column + 56];
+      final int odd7 = z11 + z13;
+      final int z5 = multiply(z10 + z12, FIX_1_847759065);
+      final int odd6 = multiply(z10, -FIX_2_613125930) + z5 - odd7;
+      final int odd5 = multiply(z11 - z13, FIX_1_414213562) - odd6;
+      final int odd4 = multiply(z12, FIX_1_082392200) - z5 + odd5;
+      ws[column] = even0 + odd7;
+      ws[column + 56] = even0 - odd7;
+      ws[column + 8] = even1 + odd6;
+      ws[column + 48] = even1 - odd6;
+      ws[column + 16] = even2 + odd5;
+      ws[column + 40] = even2 - odd5;
+      ws[column + 32] = even3 + odd4;
+      ws[column + 24] = even3 - odd4;
+    }
+  }
+
+  private void transformRow(final int row, final byte[] output, final int offset)
+  {
+    final int[] ws = workspace;
+    final int base = row * Constants.BLOCK_SIZE;
+    // even part
+    final int tmp10 = ws[base] + ws[base + 4];
+    final int tmp11 = ws[base] - ws[base + 4];
+    final int tmp13 = ws[base + 2] + ws[base + 6];
+    final int tmp12 = multiply(ws[base + 2] - ws[base + 6], FIX_1_414213562) - tmp13;
+    final int even0 = tmp10 + tmp13;
+    final int even3 = tmp10 - tmp13;
+    final int even1 = tmp11 + tmp12;
+    final int even2 = tmp11 - tmp12;
+    // odd part
+    final int z13 = ws[base + 5] + ws[base + 3];
+    final int z10 = ws[base + 5] - ws[base + 3];
+    final int z11 = ws[base + 1] + ws[base + 7];
+    final int z12 = ws[base + 1] - ws[base + 7];
+    final int odd7 = z11 + z13;
+    final int z5 = multiply(z10 + z12, FIX_1_847759065);
+    final int odd6 = multiply(z10, -FIX_2_613125930) + z5 - odd7;
+    final int odd5 = multiply(z11 - z13, FIX_1_414213562) - odd6;
+    final int odd4 = multiply(z12, FIX_1_082392200) - z5 + odd5;
+    output[offset] = toSample(even0 + odd7);
+    output[offset + 7] = toSample(even0 - odd7);
+    output[offset + 1] = toSample(even1 + odd6);
+    output[offset + 6] = toSample(even1 - odd6);
+    output[offset + 2] = toSample(even2 + odd5);
+    output[offset + 5] = toSample(even2 - odd5);
+    output[offset + 4] = toSample(even3 + odd4);
+    output[offset + 3] = toSample(even3 - odd4);
+  }
+
+  private static byte toSample(final int value)
+  {
+    final int sample = ((value + (1 << (OUTPUT_SHIFT - 1))) >> OUTPUT_SHIFT) + CENTER_SAMPLE;
+    return (byte) (sample < 0 ? 0 : sample > MAX_SAMPLE ? MAX_SAMPLE : sample);
+  }
+}
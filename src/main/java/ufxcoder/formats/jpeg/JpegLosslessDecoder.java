@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.util.Arrays;
+
+/**
+ * Decode the Huffman-coded data of a lossless scan (ITU-T81.pdf Annex H, p. 132ff.) to verify that it is complete and
+ * that every reconstructed sample fits into the sample precision. Samples are predicted from their neighbours, so
+ * decoding keeps the previous line of each component in a small ring buffer: memory depends on the image width only,
+ * not on its height. Decoding a data unit does not allocate.
+ */
+public class JpegLosslessDecoder extends AbstractJpegScanDecoder
+{
+  private static final int MAX_PREDICTOR = 7;
+  private static final int DIFFERENCE_32768 = 32768;
+  private static final int MODULO_MASK = 0xffff;
+  private JpegHuffmanDecoder[] decoders;
+  /**
+   * Lines of all scan components, each component has a ring of lines starting at {@link #bases}.
+   */
+  private int[] samples;
+  private int[] bases;
+  private int[] widths;
+  private int[] ringLines;
+  /**
+   * Per scan component: first line of the current restart interval, -1 if not yet known.
+   */
+  private int[] intervalLines;
+  /**
+   * Per scan component: whether the next sample is the first of a restart interval.
+   */
+  private boolean[] pending;
+  /**
+   * Per data unit of an MCU: start of its line in {@link #samples}, start of the line above, whether its line is the
+   * first of the restart interval. Computed for {@link #currentRow}.
+   */
+  private final int[] rowStarts = new int[Constants.MAX_BLOCKS_PER_MCU];
+  private final int[] aboveStarts = new int[Constants.MAX_BLOCKS_PER_MCU];
+  private final boolean[] firstLines = new boolean[Constants.MAX_BLOCKS_PER_MCU];
+  private int currentRow;
+  private int predictor;
+  private int initialPrediction;
+  private int maxSample;
+
+  public JpegLosslessDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    super(proc, reader);
+  }
+
+  @Override
+  protected boolean prepare(final JpegFrame frame, final JpegScan scan)
+  {
+    predictor = scan.getStartSpectral();
+    final int precision = frame.getSamplePrecision();
+    final int pointTransform = scan.getApproxLow();
+    boolean result = predictor >= 1 && predictor <= MAX_PREDICTOR && scan.getEndSpectral() == 0
+        && scan.getApproxHigh() == 0 && pointTransform < precision;
+    if (result)
+    {
+      initialPrediction = 1 << (precision - pointTransform - 1);
+      maxSample = (1 << (precision - pointTransform)) - 1;
+      result = createDecoders(scan);
+      createLines();
+    }
+    else
+    {
+      getReader().error(Msg.INVALID_LOSSLESS_SCAN, predictor, scan.getEndSpectral(), scan.getApproxHigh(),
+          pointTransform, precision);
+    }
+    return result;
+  }
+
+  private boolean createDecoders(final JpegScan scan)
+  {
+    decoders = new JpegHuffmanDecoder[scan.getNumComponents()];
+    boolean result = true;
+    int index = 0;
+    for (final JpegScanComponent scanComp : scan.getComponents())
+    {
+      decoders[index] = createDecoder(scanComp, scanComp.getDc(), Constants.TABLE_CLASS_DC);
+      result = result && decoders[index] != null;
+      index++;
+    }
+    return result;
+  }
+
+  /**
+   * Create ring buffers: a component of an interleaved scan contributes Vi lines to each MCU row and needs the line
+   * above them, a non-interleaved component one line and the line above it.
+   */
+  private void createLines()
+  {
+    final JpegMcuLayout layout = getLayout();
+    final int numComponents = layout.getNumComponents();
+    final boolean interleaved = numComponents > 1;
+    bases = new int[numComponents];
+    widths = new int[numComponents];
+    ringLines = new int[numComponents];
+    intervalLines = new int[numComponents];
+    pending = new boolean[numComponents];
+    int size = 0;
+    for (int comp = 0; comp < numComponents; comp++)
+    {
+      final JpegFrameComponent frameComp = layout.getComponent(comp);
+      bases[comp] = size;
+      widths[comp] = layout.getMcusPerLine() * (interleaved ? frameComp.getHorizontalSamplingFactor() : 1);
+      ringLines[comp] = (interleaved ? frameComp.getVerticalSamplingFactor() : 1) + 1;
+      size += widths[comp] * ringLines[comp];
+    }
+    samples = new int[size];
+    restart();
+  }
+
+  @Override
+  protected void restart()
+  {
+    Arrays.fill(intervalLines, -1);
+    Arrays.fill(pending, true);
+    currentRow = -1;
+  }
+
+  /**
+   * Compute line positions of all data units for a row of MCUs.
+   */
+  private void prepareRow(final int mcuY)
+  {
+    final JpegMcuLayout layout = getLayout();
+    for (int unit = 0; unit < layout.getBlocksPerMcu(); unit++)
+    {
+      final int comp = layout.getBlockComponent(unit);
+      final int line = layout.getBlockY(unit, mcuY);
+      if (intervalLines[comp] < 0)
+      {
+        // the first data unit of a component in an MCU is in its first line
+        intervalLines[comp] = line;
+      }
+      final int lines = ringLines[comp];
+      rowStarts[unit] = bases[comp] + line % lines * widths[comp];
+      aboveStarts[unit] = bases[comp] + (line + lines - 1) % lines * widths[comp];
+      firstLines[unit] = line == intervalLines[comp];
+    }
+    currentRow = mcuY;
+  }
+
+  @Override
+  protected void decodeMcu(final int mcuX, final int mcuY)
+  {
+    if (mcuY != currentRow)
+    {
+      prepareRow(mcuY);
+    }
+    final JpegMcuLayout layout = getLayout();
+    for (int unit = 0; unit < layout.getBlocksPerMcu(); unit++)
+    {
+      final int comp = layout.getBlockComponent(unit);
+      final int column = layout.getBlockX(unit, mcuX);
+      final int sample = (predict(unit, comp, column) + decodeDifference(decoders[comp])) & MODULO_MASK;
+      if (sample > maxSample)
+      {
+        reportOutOfRange(sample, unit, column, mcuY);
+      }
+      samples[rowStarts[unit] + column] = sample;
+    }
+  }
+
+  private void reportOutOfRange(final int sample, final int unit, final int column, final int mcuY)
+  {
+    final JpegScanReader reader = getReader();
+    if (!reader.isFailed())
+    {
+      final JpegMcuLayout layout = getLayout();
+      final int componentId = layout.getComponent(layout.getBlockComponent(unit)).getId();
+      reader.error(Msg.LOSSLESS_SAMPLE_OUT_OF_RANGE, sample, componentId, column, layout.getBlockY(unit, mcuY),
+          Integer.bitCount(maxSample));
+    }
+  }
+
+  /**
+   * Return the prediction for a sample. H.1.2.1, p. 133f. and Table H.1, p. 133.
+   */
+  private int predict(final int unit, final int comp, final int column)
+  {
+    final int row = rowStarts[unit];
+    int result;
+    if (pending[comp])
+    {
+      pending[comp] = false;
+      result = initialPrediction;
+    }
+    else if (firstLines[unit])
+    {
+      result = samples[row + column - 1];
+    }
+    else if (column == 0)
+    {
+      result = samples[aboveStarts[unit]];
+    }
+    else
+    {
+      result = combine(samples[row + column - 1], samples[aboveStarts[unit] + column],
+          samples[aboveStarts[unit] + column - 1]);
+    }
+    return result;
+  }
+
+  private int combine(final int left, final int above, final int diagonal)
+  {
+    int result;
+    switch (predictor)
+    {
+    case 1:
+      result = left;
+      break;
+    case 2:
+      result = above;
+      break;
+    case 3:
+      result = diagonal;
+      break;
+    case 4:
+      result = left + above - diagonal;
+      break;
+    case 5:
+      result = left + ((above - diagonal) >> 1);
+      break;
+    case 6:
+      result = above + ((left - diagonal) >> 1);
+      break;
+    default:
+      result = (left + above) >> 1;
+      break;
+    }
+    return result;
+  }
+
+  /**
+   * Decode a difference value. H.1.2.2, p. 136.
+   */
+  private int decodeDifference(final JpegHuffmanDecoder decoder)
+  {
+    final int result = decoder.decodeDifference();
+    if (result > DIFFERENCE_32768)
+    {
+      getReader().error(Msg.INVALID_DIFFERENCE_CATEGORY, result >> JpegHuffmanDecoder.CATEGORY_SHIFT);
+    }
+    return result;
+  }
+}
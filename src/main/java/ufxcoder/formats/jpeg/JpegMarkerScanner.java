@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import ufxcoder.io.SeekableSource;
+
+/**
+ * Skip entropy-coded scan data without decoding it, up to the next marker other than a restart marker. The input is
+ * read into a large buffer which is searched for 0xff eight bytes at a time: a word of eight bytes without any 0xff
+ * byte (the common case) is detected with a few arithmetic operations and skipped as a whole. Only words with a 0xff
+ * byte are examined byte by byte for stuffed zero bytes, fill bytes and restart markers.
+ *
+ * A scanner can be reused for all scans of a file and for subsequent files via {@link #reset(int, boolean)}. Its buffer
+ * starts small and only grows while scan data does not fit into it.
+ */
+public class JpegMarkerScanner
+{
+  /**
+   * Maximum size of the buffer.
+   */
+  public static final int MAX_BUFFER_SIZE = 1024 * 1024;
+  /**
+   * Size of the buffer when the first scan is skipped, inputs with less remaining data get a buffer of their size.
+   */
+  public static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+  private static final int MIN_BUFFER_SIZE = 16;
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private final List<JpegScanError> errors = new ArrayList<>();
+  private int expectedRestart;
+  /**
+   * If true, restart markers are not checked.
+   */
+  private boolean ignoreRestarts;
+  private byte[] data;
+  private ByteBuffer words;
+  private boolean markerFound;
+
+  /**
+   * Create a scanner.
+   *
+   * @param expectedRestart
+   *          restart marker expected next
+   * @param ignoreRestarts
+   *          if true, the sequence of restart markers is not checked (because scan data is already known to be invalid)
+   */
+  public JpegMarkerScanner(final int expectedRestart, final boolean ignoreRestarts)
+  {
+    reset(expectedRestart, ignoreRestarts);
+  }
+
+  /**
+   * Prepare for skipping another scan, keeping the buffer.
+   *
+   * @param newExpectedRestart
+   *          restart marker expected next
+   * @param newIgnoreRestarts
+   *          if true, the sequence of restart markers is not checked (because scan data is already known to be invalid)
+   */
+  public final void reset(final int newExpectedRestart, final boolean newIgnoreRestarts)
+  {
+    expectedRestart = newExpectedRestart;
+    ignoreRestarts = newIgnoreRestarts;
+    errors.clear();
+    markerFound = false;
+  }
+
+  /**
+   * Return a mask of the 0xff bytes in a word: the complemented word has a zero byte exactly where the word has a 0xff
+   * byte. The lowest set bit of the mask is the high bit of the first 0xff byte (in little-endian order), higher bits
+   * may be set for bytes that are not 0xff.
+   *
+   * @param word
+   *          eight bytes
+   * @return 0 if no byte is 0xff
+   */
+  public static long findFf(final long word)
+  {
+    final long inverted = ~word;
+    return (inverted - LOW_BITS) & ~inverted & HIGH_BITS;
+  }
+
+  /**
+   * Return whether any of the eight bytes of a word is 0xff.
+   *
+   * @param word
+   *          eight bytes in any byte order
+   * @return true if at least one byte is 0xff
+   */
+  public static boolean containsFf(final long word)
+  {
+    return findFf(word) != 0;
+  }
+
+  /**
+   * Skip scan data from the current position of the input up to the next marker other than a restart marker.
+   *
+   * @param source
+   *          input positioned in scan data
+   * @return offset of that marker, the input is positioned there; -1 if input ended before a marker was found
+   * @throws IOException
+   *           if reading or seeking fails
+   */
+  public long skip(final SeekableSource source) throws IOException
+  {
+    long offset = source.getPosition();
+    final long remaining = source.getLength() - offset;
+    ensureCapacity((int) Math.max(MIN_BUFFER_SIZE, Math.min(INITIAL_BUFFER_SIZE, remaining)), 0);
+    long result = -1;
+    int length = 0;
+    boolean more = true;
+    while (result < 0 && more)
+    {
+      final int num = source.read(data, length, data.length - length);
+      more = num > 0;
+      length += Math.max(0, num);
+      final int index = find(length);
+      if (markerFound)
+      {
+        result = offset + index;
+      }
+      else
+      {
+        // keep a last byte that could not be examined yet
+        System.arraycopy(data, index, data, 0, length - index);
+        offset += index;
+        length -= index;
+        if (more && data.length < MAX_BUFFER_SIZE)
+        {
+          // scan data does not fit into the buffer, read larger chunks
+          ensureCapacity(Math.min(MAX_BUFFER_SIZE, data.length * 2), length);
+        }
+      }
+    }
+    if (result >= 0)
+    {
+      source.seek(result);
+    }
+    return result;
+  }
+
+  /**
+   * Make sure that the buffer holds at least a number of bytes.
+   *
+   * @param size
+   *          minimum buffer size
+   * @param numKept
+   *          number of bytes at the start of the buffer to be kept
+   */
+  private void ensureCapacity(final int size, final int numKept)
+  {
+    if (data == null || data.length < size)
+    {
+      final byte[] larger = new byte[size];
+      if (data != null)
+      {
+        System.arraycopy(data, 0, larger, 0, numKept);
+      }
+      data = larger;
+      words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  /**
+   * Search the buffer for a marker other than a restart marker.
+   *
+   * @param length
+   *          number of valid bytes in buffer
+   * @return index of the marker if found, otherwise index of first byte not examined
+   */
+  private int find(final int length)
+  {
+    final int lastWord = length - Long.BYTES;
+    int index = 0;
+    while (index < length - 1 && !markerFound)
+    {
+      if (index <= lastWord)
+      {
+        final long mask = findFf(words.getLong(index));
+        if (mask == 0)
+        {
+          index += Long.BYTES;
+        }
+        else
+        {
+          // jump to the first 0xff byte of the word, it can only be examined if the next byte is available
+          index += Long.numberOfTrailingZeros(mask) >>> 3;
+          if (index < length - 1)
+          {
+            index = examineFf(index);
+          }
+        }
+      }
+      else
+      {
+        index = data[index] == (byte) 0xff ? examineFf(index) : index + 1;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Handle the byte following a 0xff byte.
+   *
+   * @param index
+   *          position of 0xff byte, the following byte must be available
+   * @return position of next byte to be examined, unchanged if a marker ending the scan data was found
+   */
+  private int examineFf(final int index)
+  {
+    int result = index;
+    final int second = data[index + 1] & 0xff;
+    if (second == 0 || second == 0xff)
+    {
+      // stuffed zero byte or fill byte
+      result += second == 0 ? 2 : 1;
+    }
+    else
+    {
+      final int id = Constants.MARKER_MASK | second;
+      if (id >= Constants.MARKER_MIN_RESTART_INTERVAL && id <= Constants.MARKER_MAX_RESTART_INTERVAL)
+      {
+        checkRestart(id);
+        result += 2;
+      }
+      else
+      {
+        markerFound = true;
+      }
+    }
+    return result;
+  }
+
+  private void checkRestart(final int id)
+  {
+    if (id != expectedRestart && !ignoreRestarts)
+    {
+      errors.add(new JpegScanError(Msg.UNEXPECTED_RESTART_MARKER, Integer.toHexString(id),
+          Integer.toHexString(expectedRestart)));
+      // one error is enough, the rest of the scan is skipped without further checks
+      ignoreRestarts = true;
+    }
+    expectedRestart = JpegScanReader.nextRestart(id);
+  }
+
+  /**
+   * Return the errors found in the skipped scan data.
+   *
+   * @return list of errors, possibly empty
+   */
+  public List<JpegScanError> getErrors()
+  {
+    return errors;
+  }
+
+  public int getExpectedRestart()
+  {
+    return expectedRestart;
+  }
+}
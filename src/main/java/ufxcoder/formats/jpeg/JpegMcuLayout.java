@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+/**
+ * Arrangement of the blocks of a scan in minimum coded units (MCUs), derived from the frame's sampling factors.
+ * ITU-T81.pdf A.2, p. 25ff. A non-interleaved scan has one block per MCU and covers only the blocks of its component's
+ * own size; an interleaved scan has Hi x Vi blocks of each component per MCU and covers the image padded to whole MCUs.
+ * In lossless frames each block is a single sample (data unit, ITU-T81.pdf H.1.1, p. 132).
+ */
+public class JpegMcuLayout
+{
+  private final int[] blockComponents = new int[Constants.MAX_BLOCKS_PER_MCU];
+  private final int[] blockColumns = new int[Constants.MAX_BLOCKS_PER_MCU];
+  private final int[] blockRows = new int[Constants.MAX_BLOCKS_PER_MCU];
+  private JpegFrameComponent[] components;
+  private boolean interleaved;
+  private int blocksPerMcu;
+  private int mcusPerLine;
+  private int mcuLines;
+
+  /**
+   * Compute the layout of a scan.
+   *
+   * @param frame
+   *          frame with image size and sampling factors
+   * @param scan
+   *          scan whose components are all defined in the frame
+   */
+  public void init(final JpegFrame frame, final JpegScan scan)
+  {
+    final int maxHorizontal = getMaxHorizontalSamplingFactor(frame);
+    final int maxVertical = getMaxVerticalSamplingFactor(frame);
+    // lossless data units are single samples
+    final int unitSize = frame.isLossless() ? 1 : Constants.BLOCK_SIZE;
+    components = new JpegFrameComponent[scan.getNumComponents()];
+    interleaved = components.length > 1;
+    blocksPerMcu = 0;
+    int index = 0;
+    for (final JpegScanComponent scanComp : scan.getComponents())
+    {
+      final JpegFrameComponent comp = frame.findComponent(scanComp.getId());
+      components[index] = comp;
+      if (interleaved)
+      {
+        for (int row = 0; row < comp.getVerticalSamplingFactor(); row++)
+        {
+          for (int column = 0; column < comp.getHorizontalSamplingFactor(); column++)
+          {
+            if (blocksPerMcu < Constants.MAX_BLOCKS_PER_MCU)
+            {
+              blockComponents[blocksPerMcu] = index;
+              blockColumns[blocksPerMcu] = column;
+              blockRows[blocksPerMcu] = row;
+            }
+            blocksPerMcu++;
+          }
+        }
+        mcusPerLine = ceilDiv(frame.getWidth(), unitSize * maxHorizontal);
+        mcuLines = ceilDiv(frame.getHeight(), unitSize * maxVertical);
+      }
+      else
+      {
+        final int width = ceilDiv(frame.getWidth() * comp.getHorizontalSamplingFactor(), maxHorizontal);
+        final int height = ceilDiv(frame.getHeight() * comp.getVerticalSamplingFactor(), maxVertical);
+        blockComponents[0] = 0;
+        blockColumns[0] = 0;
+        blockRows[0] = 0;
+        blocksPerMcu = 1;
+        mcusPerLine = ceilDiv(width, unitSize);
+        mcuLines = ceilDiv(height, unitSize);
+      }
+      index++;
+    }
+  }
+
+  public static int getMaxHorizontalSamplingFactor(final JpegFrame frame)
+  {
+    int result = 1;
+    for (final JpegFrameComponent comp : frame.getComponents())
+    {
+      result = Math.max(result, comp.getHorizontalSamplingFactor());
+    }
+    return result;
+  }
+
+  public static int getMaxVerticalSamplingFactor(final JpegFrame frame)
+  {
+    int result = 1;
+    for (final JpegFrameComponent comp : frame.getComponents())
+    {
+      result = Math.max(result, comp.getVerticalSamplingFactor());
+    }
+    return result;
+  }
+
+  /**
+   * Number of blocks per line of a component when the image is padded to whole MCUs of an interleaved scan, which is
+   * at least the number of blocks covered by a non-interleaved scan of that component.
+   *
+   * @param frame
+   *          frame with image size and sampling factors
+   * @param comp
+   *          component of that frame
+   * @return number of blocks
+   */
+  public static int getPaddedBlocksPerLine(final JpegFrame frame, final JpegFrameComponent comp)
+  {
+    return ceilDiv(frame.getWidth(), Constants.BLOCK_SIZE * getMaxHorizontalSamplingFactor(frame))
+        * comp.getHorizontalSamplingFactor();
+  }
+
+  /**
+   * Number of block lines of a component when the image is padded to whole MCUs of an interleaved scan.
+   *
+   * @param frame
+   *          frame with image size and sampling factors
+   * @param comp
+   *          component of that frame
+   * @return number of block lines
+   */
+  public static int getPaddedBlockLines(final JpegFrame frame, final JpegFrameComponent comp)
+  {
+    return ceilDiv(frame.getHeight(), Constants.BLOCK_SIZE * getMaxVerticalSamplingFactor(frame))
+        * comp.getVerticalSamplingFactor();
+  }
+
+  private static int ceilDiv(final int value, final int divisor)
+  {
+    return (value + divisor - 1) / divisor;
+  }
+
+  public int getBlocksPerMcu()
+  {
+    return blocksPerMcu;
+  }
+
+  public int getMcusPerLine()
+  {
+    return mcusPerLine;
+  }
+
+  public int getMcuLines()
+  {
+    return mcuLines;
+  }
+
+  public int getNumComponents()
+  {
+    return components.length;
+  }
+
+  public JpegFrameComponent getComponent(final int index)
+  {
+    return components[index];
+  }
+
+  /**
+   * Return index of scan component for a block of an MCU.
+   *
+   * @param block
+   *          index of block within MCU
+   * @return index into scan components
+   */
+  public int getBlockComponent(final int block)
+  {
+    return blockComponents[block];
+  }
+
+  /**
+   * Return horizontal position of a block within its component.
+   *
+   * @param block
+   *          index of block within MCU
+   * @param mcuX
+   *          horizontal position of MCU
+   * @return block column
+   */
+  public int getBlockX(final int block, final int mcuX)
+  {
+    return interleaved ? mcuX * components[blockComponents[block]].getHorizontalSamplingFactor() + blockColumns[block]
+        : mcuX;
+  }
+
+  /**
+   * Return vertical position of a block within its component.
+   *
+   * @param block
+   *          index of block within MCU
+   * @param mcuY
+   *          vertical position of MCU
+   * @return block row
+   */
+  public int getBlockY(final int block, final int mcuY)
+  {
+    return interleaved ? mcuY * components[blockComponents[block]].getVerticalSamplingFactor() + blockRows[block]
+        : mcuY;
+  }
+}
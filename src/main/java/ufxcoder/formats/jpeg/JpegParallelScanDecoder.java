@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import ufxcoder.formats.SplittableRange;
+import ufxcoder.formats.SplittableRangeTask;
+import ufxcoder.io.SeekableSource;
+
+/**
+ * Decode a baseline scan with restart intervals in parallel. Scan data is read in batches; a pre-pass over each batch
+ * ({@link JpegRestartIndex}) finds the restart markers and checks their sequence, then the complete intervals of the
+ * batch are decoded on the common fork-join pool. Errors are collected per task and reported in interval order, so the
+ * result is the same as that of sequential decoding with {@link JpegBaselineHuffmanDecoder}.
+ */
+public class JpegParallelScanDecoder implements SplittableRange
+{
+  /**
+   * Images with fewer pixels are decoded sequentially.
+   */
+  public static final long MIN_PARALLEL_PIXELS = 4L * 1024 * 1024;
+  /**
+   * Scans with fewer restart intervals are decoded sequentially.
+   */
+  public static final int MIN_PARALLEL_INTERVALS = 16;
+  private final JpegProcessor proc;
+  private final JpegScanReader mainReader;
+  private final int restartInterval;
+  private JpegFrame frame;
+  private JpegScan scan;
+  private int numMcus;
+  private int mcusPerLine;
+  private int numIntervals;
+  private JpegRestartIndex index;
+  /**
+   * Errors of each task of the current batch, by index of its first interval.
+   */
+  private AtomicReferenceArray<List<JpegScanError>> results;
+  private boolean failed;
+
+  public JpegParallelScanDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    this.proc = proc;
+    mainReader = reader;
+    restartInterval = proc.getJpegFileDescription().getNumRestartIntervalMcus();
+  }
+
+  /**
+   * Return whether a scan is worth decoding in parallel: baseline, restart intervals defined and a large image.
+   *
+   * @param desc
+   *          description of file with restart interval
+   * @param frame
+   *          frame of scan
+   * @return true if {@link JpegParallelScanDecoder} should be used
+   */
+  public static boolean isApplicable(final JpegFileDescription desc, final JpegFrame frame)
+  {
+    final long pixels = (long) frame.getWidth() * frame.getHeight();
+    final int interval = desc.getNumRestartIntervalMcus();
+    final long maxMcuPixels = (long) Constants.BLOCK_SIZE * Constants.BLOCK_SIZE
+        * JpegMcuLayout.getMaxHorizontalSamplingFactor(frame) * JpegMcuLayout.getMaxVerticalSamplingFactor(frame);
+    return frame.isBaseline() && interval > 0 && pixels >= MIN_PARALLEL_PIXELS
+        && pixels / maxMcuPixels / interval >= MIN_PARALLEL_INTERVALS && Runtime.getRuntime().availableProcessors() > 1;
+  }
+
+  /**
+   * Decode all MCUs of a scan and position the input at the marker following it.
+   *
+   * @param frame
+   *          frame with image size and component sampling factors
+   * @param scan
+   *          scan whose header was just read
+   */
+  public void decode(final JpegFrame frame, final JpegScan scan)
+  {
+    this.frame = frame;
+    this.scan = scan;
+    final JpegBaselineHuffmanDecoder decoder = new JpegBaselineHuffmanDecoder(proc, mainReader);
+    if (restartInterval > 0 && decoder.init(frame, scan))
+    {
+      numMcus = decoder.getNumMcus();
+      mcusPerLine = decoder.getLayout().getMcusPerLine();
+      numIntervals = (numMcus + restartInterval - 1) / restartInterval;
+      final SeekableSource source = proc.getSource();
+      try
+      {
+        index = new JpegRestartIndex(source.getPosition());
+        decodeBatches(source);
+        if (failed && index.getEndMarkerOffset() < 0 && !index.isEndOfInput() && !index.skipToEndMarker(source))
+        {
+          proc.error(Msg.UNEXPECTED_END_OF_INPUT);
+        }
+        if (index.getEndMarkerOffset() >= 0)
+        {
+          source.seek(index.getEndMarkerOffset());
+        }
+      }
+      catch (final IOException ioe)
+      {
+        proc.error(Msg.READING_ERROR, ioe.getMessage());
+      }
+    }
+    else
+    {
+      mainReader.finishScan();
+    }
+  }
+
+  private void decodeBatches(final SeekableSource source) throws IOException
+  {
+    while (index.getEndMarkerOffset() < 0 && !failed)
+    {
+      final boolean more = index.fill(source);
+      index.findIntervals();
+      if (!more)
+      {
+        index.addFinalInterval();
+      }
+      decodeBatch();
+      index.compact();
+      if (!more && !failed)
+      {
+        proc.error(Msg.UNEXPECTED_END_OF_INPUT);
+        failed = true;
+      }
+    }
+    final int found = index.getFirstInterval();
+    if (!failed && found < numIntervals)
+    {
+      // scan ended with a marker other than the expected restart marker
+      proc.error(Msg.MISSING_RESTART_MARKER, Integer.toHexString(JpegRestartIndex.getExpectedRestart(found - 1)));
+      reportFailure(found * restartInterval);
+    }
+  }
+
+  /**
+   * Decode the intervals found in the current batch in parallel and report errors of the first failing interval.
+   */
+  private void decodeBatch()
+  {
+    final int firstInterval = index.getFirstInterval();
+    final int numDecoded = Math.max(0, Math.min(index.getNumIntervals(), numIntervals - firstInterval));
+    if (numDecoded > 0)
+    {
+      results = new AtomicReferenceArray<>(numDecoded);
+      ForkJoinPool.commonPool().invoke(new SplittableRangeTask(this, 0, numDecoded));
+      for (int interval = 0; interval < numDecoded && !failed; interval++)
+      {
+        final List<JpegScanError> errors = results.get(interval);
+        if (errors != null && !errors.isEmpty())
+        {
+          for (final JpegScanError error : errors)
+          {
+            error.report(proc);
+          }
+          failed = true;
+        }
+      }
+    }
+    if (!failed && index.getBadRestart() != 0)
+    {
+      final int interval = firstInterval + index.getNumIntervals();
+      proc.error(Msg.UNEXPECTED_RESTART_MARKER, Integer.toHexString(index.getBadRestart()),
+          Integer.toHexString(JpegRestartIndex.getExpectedRestart(interval)));
+      if (interval + 1 < numIntervals)
+      {
+        reportFailure((interval + 1) * restartInterval);
+      }
+      failed = true;
+    }
+  }
+
+  private void reportFailure(final int mcu)
+  {
+    proc.error(Msg.SCAN_DECODING_FAILED, mcu, numMcus, mcu % mcusPerLine, mcu / mcusPerLine);
+    failed = true;
+  }
+
+  /**
+   * Return the number of bytes of scan data of a range of intervals of the current batch.
+   *
+   * @param from
+   *          index of first interval within batch
+   * @param to
+   *          index of interval following the last one within batch
+   * @return number of bytes
+   */
+  @Override
+  public long getNumBytes(final int from, final int to)
+  {
+    return index.getNumBytes(from, to);
+  }
+
+  /**
+   * Decode a range of intervals of the current batch, may be called concurrently for disjoint ranges.
+   *
+   * @param from
+   *          index of first interval within batch
+   * @param to
+   *          index of interval following the last one within batch
+   */
+  @Override
+  public void processRange(final int from, final int to)
+  {
+    final List<JpegScanError> errors = new ArrayList<>();
+    final int interval = index.getFirstInterval() + from;
+    final SeekableSource source = index.createSource(from, to);
+    final JpegScanReader reader = new JpegScanReader(proc, source, JpegRestartIndex.getExpectedRestart(interval),
+        errors);
+    final JpegBaselineHuffmanDecoder decoder = new JpegBaselineHuffmanDecoder(proc, reader);
+    if (decoder.init(frame, scan))
+    {
+      decoder.decodeMcus(interval * restartInterval,
+          Math.min((index.getFirstInterval() + to) * restartInterval, numMcus));
+    }
+    results.set(from, errors);
+  }
+}
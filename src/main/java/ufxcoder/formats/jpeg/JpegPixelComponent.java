@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+/**
+ * Samples of one component for a single MCU row, as used by {@link JpegPixelPipeline}: blocks are transformed into a
+ * buffer of {@link Constants#BLOCK_SIZE} lines per vertical sampling factor, lines of the image are taken from it with
+ * replication of subsampled components. Buffers are reused as long as they are large enough.
+ */
+public class JpegPixelComponent
+{
+  private final JpegIdct idct = new JpegIdct();
+  private int verticalFactor;
+  private int stride;
+  private byte[] samples = new byte[0];
+  /**
+   * For each column of the image: column of this component's samples.
+   */
+  private int[] columns = new int[0];
+
+  /**
+   * Prepare for an image.
+   *
+   * @param horizontalFactor
+   *          horizontal sampling factor of component
+   * @param vertical
+   *          vertical sampling factor of component
+   * @param maxHorizontalFactor
+   *          largest horizontal sampling factor of all components
+   * @param blocksPerLine
+   *          number of blocks per line of component
+   * @param width
+   *          image width in pixels
+   * @param quantization
+   *          quantization table in zig-zag order
+   */
+  public void init(final int horizontalFactor, final int vertical, final int maxHorizontalFactor,
+      final int blocksPerLine, final int width, final int... quantization)
+  {
+    verticalFactor = vertical;
+    stride = blocksPerLine * Constants.BLOCK_SIZE;
+    final int size = stride * vertical * Constants.BLOCK_SIZE;
+    if (samples.length < size)
+    {
+      samples = new byte[size];
+    }
+    if (columns.length < width)
+    {
+      columns = new int[width];
+    }
+    for (int column = 0; column < width; column++)
+    {
+      columns[column] = column * horizontalFactor / maxHorizontalFactor;
+    }
+    idct.setQuantizationTable(quantization);
+  }
+
+  /**
+   * Dequantize and transform a block into the sample buffer.
+   *
+   * @param coefficients
+   *          quantized coefficients in zig-zag order
+   * @param blockX
+   *          block column
+   * @param blockY
+   *          block line, only its position within the MCU row matters
+   */
+  public void addBlock(final int[] coefficients, final int blockX, final int blockY)
+  {
+    final int offset = (blockY % verticalFactor) * Constants.BLOCK_SIZE * stride + blockX * Constants.BLOCK_SIZE;
+    idct.transform(coefficients, samples, offset, stride);
+  }
+
+  /**
+   * Copy the samples of one image line to an interleaved output line.
+   *
+   * @param imageLine
+   *          line within the current MCU row, in image resolution
+   * @param maxVerticalFactor
+   *          largest vertical sampling factor of all components
+   * @param output
+   *          array receiving samples
+   * @param channel
+   *          index of this component in output pixels
+   * @param numChannels
+   *          number of samples per output pixel
+   * @param width
+   *          number of pixels
+   */
+  public void copyLine(final int imageLine, final int maxVerticalFactor, final byte[] output, final int channel,
+      final int numChannels, final int width)
+  {
+    final int base = imageLine * verticalFactor / maxVerticalFactor * stride;
+    int index = channel;
+    for (int column = 0; column < width; column++)
+    {
+      output[index] = samples[base + columns[column]];
+      index += numChannels;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Decode a baseline scan and pass its blocks on for pixel decoding. Scans with all components of the frame feed the
+ * {@link JpegPixelPipeline} directly, one MCU row at a time. The blocks of scans with only some components of the
+ * frame are stored in the frame's {@link JpegCoefficients}, pixels are decoded from there once all scans are complete.
+ */
+public class JpegPixelDecoder extends JpegBaselineHuffmanDecoder
+{
+  private final JpegProcessor proc;
+  private JpegPixelPipeline pipeline;
+  private JpegCoefficients storage;
+
+  public JpegPixelDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    super(proc, reader);
+    this.proc = proc;
+  }
+
+  @Override
+  protected boolean prepare(final JpegFrame frame, final JpegScan scan)
+  {
+    boolean result = super.prepare(frame, scan);
+    pipeline = null;
+    storage = null;
+    if (result && scan.getNumComponents() == frame.getComponents().size())
+    {
+      final JpegPixelPipeline pixels = proc.getPixelPipeline();
+      if (pixels.init(frame, proc.getJpegFileDescription()))
+      {
+        pipeline = pixels;
+      }
+    }
+    else
+    {
+      result = result && createCoefficients(frame, scan);
+    }
+    return result;
+  }
+
+  private boolean createCoefficients(final JpegFrame frame, final JpegScan scan)
+  {
+    storage = createCoefficients(frame);
+    if (storage != null)
+    {
+      for (final JpegScanComponent scanComp : scan.getComponents())
+      {
+        // each component is expected in exactly one scan, otherwise no pixels are decoded from storage
+        storage.find(scanComp.getId()).markCoded(0, Constants.MINIMUM_CODED_UNIT_ELEMENTS - 1, 0, 0);
+      }
+    }
+    return storage != null;
+  }
+
+  @Override
+  protected void decodeMcu(final int mcuX, final int mcuY)
+  {
+    super.decodeMcu(mcuX, mcuY);
+    if (pipeline != null && mcuX == getLayout().getMcusPerLine() - 1 && !getReader().isFailed())
+    {
+      pipeline.finishMcuRow();
+    }
+  }
+
+  @Override
+  protected void blockDecoded(final JpegFrameComponent comp, final int blockX, final int blockY,
+      final int... coefficients)
+  {
+    if (pipeline == null)
+    {
+      store(comp, blockX, blockY, coefficients);
+    }
+    else
+    {
+      pipeline.addBlock(comp.getId(), blockX, blockY, coefficients);
+    }
+  }
+
+  private void store(final JpegFrameComponent comp, final int blockX, final int blockY, final int... block)
+  {
+    if (storage != null)
+    {
+      final JpegCoefficientPlane plane = storage.find(comp.getId());
+      final int offset = plane.getOffset(blockX, blockY);
+      final ShortBuffer chunk = plane.getChunk(blockY);
+      for (int index = 0; index < block.length; index++)
+      {
+        chunk.put(offset + index, (short) block[index]);
+      }
+    }
+  }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.nio.ShortBuffer;
+import ufxcoder.checksums.ContentHash;
+import ufxcoder.checksums.XxHash64;
+import ufxcoder.conversion.StrUtil;
+
+/**
+ * Decode the coefficients of a frame to pixels one MCU row at a time and feed the pixels into a hash: dequantization
+ * and inverse DCT ({@link JpegIdct}), upsampling by replication, conversion from YCbCr to RGB for three-component
+ * images. Other numbers of components are hashed as they are. Memory use depends on the image width only, all buffers
+ * are reused for the next image as long as they are large enough, so steady-state decoding does not allocate.
+ */
+public class JpegPixelPipeline
+{
+  /**
+   * Maximum number of components supported.
+   */
+  public static final int MAX_COMPONENTS = 4;
+  private static final int COLOR_COMPONENTS = 3;
+  private static final int SAMPLE_PRECISION = 8;
+  private static final int SCALE_BITS = 16;
+  private static final int ONE_HALF = 1 << (SCALE_BITS - 1);
+  private static final int NUM_SAMPLES = 256;
+  private static final int MAX_SAMPLE = NUM_SAMPLES - 1;
+  private static final int[] CR_TO_R = new int[NUM_SAMPLES];
+  private static final int[] CB_TO_B = new int[NUM_SAMPLES];
+  private static final int[] CR_TO_G = new int[NUM_SAMPLES];
+  private static final int[] CB_TO_G = new int[NUM_SAMPLES];
+  static
+  {
+    // JFIF conversion with fixed-point factors, chroma centered around 128
+    for (int sample = 0; sample < NUM_SAMPLES; sample++)
+    {
+      final int chroma = sample - 128;
+      CR_TO_R[sample] = (fix(1.40200) * chroma + ONE_HALF) >> SCALE_BITS;
+      CB_TO_B[sample] = (fix(1.77200) * chroma + ONE_HALF) >> SCALE_BITS;
+      CR_TO_G[sample] = -fix(0.71414) * chroma;
+      CB_TO_G[sample] = -fix(0.34414) * chroma + ONE_HALF;
+    }
+  }
+
+  private final JpegPixelComponent[] components = new JpegPixelComponent[MAX_COMPONENTS];
+  /**
+   * Index into {@link #components} for each component identifier.
+   */
+  private final int[] componentIndexes = new int[NUM_SAMPLES];
+  private final int[] block = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+  private int numComponents;
+  private int width;
+  private int height;
+  private int maxVerticalFactor;
+  private byte[] line = new byte[0];
+  private int linesDone;
+  private ContentHash hash;
+
+  public JpegPixelPipeline()
+  {
+    for (int index = 0; index < components.length; index++)
+    {
+      components[index] = new JpegPixelComponent();
+    }
+  }
+
+  private static int fix(final double value)
+  {
+    return (int) (value * (1L << SCALE_BITS) + 0.5);
+  }
+
+  /**
+   * Return whether the pixels of a frame can be decoded: baseline, Huffman-coded progressive or arithmetic-coded
+   * sequential or progressive with 8 bits per sample and one to {@link #MAX_COMPONENTS} components. Lossless and
+   * differential frames are not supported.
+   *
+   * @param frame
+   *          frame to be decoded
+   * @return true if supported
+   */
+  public static boolean isSupported(final JpegFrame frame)
+  {
+    final int num = frame.getComponents().size();
+    return (frame.isBaseline() || frame.isProgressive() || frame.isExtended() && frame.isArithmetic())
+        && !frame.isDifferential()
+        && frame.getSamplePrecision() == SAMPLE_PRECISION && num > 0 && num <= MAX_COMPONENTS
+        && frame.getWidth() > 0 && frame.getHeight() > 0;
+  }
+
+  /**
+   * Prepare for decoding a frame.
+   *
+   * @param frame
+   *          frame with size and components, must be supported according to {@link #isSupported(JpegFrame)}
+   * @param desc
+   *          description with quantization tables
+   * @return true on success, false if a quantization table is missing
+   */
+  public boolean init(final JpegFrame frame, final JpegFileDescription desc)
+  {
+    width = frame.getWidth();
+    height = frame.getHeight();
+    numComponents = frame.getComponents().size();
+    final int maxHorizontalFactor = getHorizontalFactor(frame, null);
+    maxVerticalFactor = getVerticalFactor(frame, null);
+    boolean result = true;
+    int index = 0;
+    for (final JpegFrameComponent comp : frame.getComponents())
+    {
+      final JpegQuantizationTable table = desc.findQuantizationTable(comp.getQuantizationTableId());
+      result = result && table != null;
+      if (result)
+      {
+        // padded like coefficient storage, which is at least as wide as the blocks of a single component
+        components[index].init(getHorizontalFactor(frame, comp), getVerticalFactor(frame, comp), maxHorizontalFactor,
+            JpegMcuLayout.getPaddedBlocksPerLine(frame, comp), width, table.getData());
+        componentIndexes[comp.getId()] = index;
+      }
+      index++;
+    }
+    if (line.length < width * numComponents)
+    {
+      line = new byte[width * numComponents];
+    }
+    linesDone = 0;
+    hash = new XxHash64();
+    return result;
+  }
+
+  /**
+   * Return the horizontal sampling factor of a component or the maximum of the frame if no component is given. A
+   * single component is never interleaved, its sampling factors have no effect.
+   */
+  private static int getHorizontalFactor(final JpegFrame frame, final JpegFrameComponent comp)
+  {
+    int result = 1;
+    if (frame.getComponents().size() > 1)
+    {
+      result = comp == null ? JpegMcuLayout.getMaxHorizontalSamplingFactor(frame) : comp.getHorizontalSamplingFactor();
+    }
+    return result;
+  }
+
+  /**
+   * Return the vertical sampling factor of a component or the maximum of the frame if no component is given.
+   */
+  private static int getVerticalFactor(final JpegFrame frame, final JpegFrameComponent comp)
+  {
+    int result = 1;
+    if (frame.getComponents().size() > 1)
+    {
+      result = comp == null ? JpegMcuLayout.getMaxVerticalSamplingFactor(frame) : comp.getVerticalSamplingFactor();
+    }
+    return result;
+  }
+
+  /**
+   * Add a block of the current MCU row.
+   *
+   * @param componentId
+   *          frame component identifier
+   * @param blockX
+   *          block column within component
+   * @param blockY
+   *          block line within component
+   * @param coefficients
+   *          quantized coefficients in zig-zag order
+   */
+  public void addBlock(final int componentId, final int blockX, final int blockY, final int... coefficients)
+  {
+    components[componentIndexes[componentId]].addBlock(coefficients, blockX, blockY);
+  }
+
+  /**
+   * Add a block of the current MCU row from coefficient storage.
+   *
+   * @param componentId
+   *          frame component identifier
+   * @param blockX
+   *          block column within component
+   * @param blockY
+   *          block line within component
+   * @param chunk
+   *          buffer with coefficients
+   * @param offset
+   *          index of first coefficient of block in chunk
+   */
+  public void addBlock(final int componentId, final int blockX, final int blockY, final ShortBuffer chunk,
+      final int offset)
+  {
+    for (int index = 0; index < block.length; index++)
+    {
+      block[index] = chunk.get(offset + index);
+    }
+    addBlock(componentId, blockX, blockY, block);
+  }
+
+  /**
+   * All blocks of the current MCU row have been added: convert its lines to pixels and hash them.
+   */
+  public void finishMcuRow()
+  {
+    final int lines = Math.min(maxVerticalFactor * Constants.BLOCK_SIZE, height - linesDone);
+    final int lineBytes = width * numComponents;
+    for (int imageLine = 0; imageLine < lines; imageLine++)
+    {
+      for (int index = 0; index < numComponents; index++)
+      {
+        components[index].copyLine(imageLine, maxVerticalFactor, line, index, numComponents, width);
+      }
+      if (numComponents == COLOR_COMPONENTS)
+      {
+        convertYCbCr(lineBytes);
+      }
+      hash.update(line, 0, lineBytes);
+    }
+    linesDone += lines;
+  }
+
+  private void convertYCbCr(final int lineBytes)
+  {
+    for (int index = 0; index < lineBytes; index += COLOR_COMPONENTS)
+    {
+      final int luma = line[index] & MAX_SAMPLE;
+      final int cb = line[index + 1] & MAX_SAMPLE;
+      final int cr = line[index + 2] & MAX_SAMPLE;
+      line[index] = clamp(luma + CR_TO_R[cr]);
+      line[index + 1] = clamp(luma + ((CB_TO_G[cb] + CR_TO_G[cr]) >> SCALE_BITS));
+      line[index + 2] = clamp(luma + CB_TO_B[cb]);
+    }
+  }
+
+  private static byte clamp(final int value)
+  {
+    return (byte) (value < 0 ? 0 : Math.min(value, MAX_SAMPLE));
+  }
+
+  /**
+   * Decode all pixels from coefficient storage, MCU row by MCU row.
+   *
+   * @param frame
+   *          frame whose coefficients are complete
+   * @param coefficients
+   *          storage of that frame
+   */
+  public void decode(final JpegFrame frame, final JpegCoefficients coefficients)
+  {
+    final int rowLines = maxVerticalFactor * Constants.BLOCK_SIZE;
+    final int numRows = (height + rowLines - 1) / rowLines;
+    for (int row = 0; row < numRows; row++)
+    {
+      for (final JpegFrameComponent comp : frame.getComponents())
+      {
+        final JpegCoefficientPlane plane = coefficients.find(comp.getId());
+        final int factor = getVerticalFactor(frame, comp);
+        final int lastLine = Math.min((row + 1) * factor, plane.getBlockLines());
+        for (int blockY = row * factor; blockY < lastLine; blockY++)
+        {
+          final ShortBuffer chunk = plane.getChunk(blockY);
+          for (int blockX = 0; blockX < plane.getBlocksPerLine(); blockX++)
+          {
+            addBlock(comp.getId(), blockX, blockY, chunk, plane.getOffset(blockX, blockY));
+          }
+        }
+      }
+      finishMcuRow();
+    }
+  }
+
+  /**
+   * Return whether all lines of the image have been hashed.
+   *
+   * @return true if complete
+   */
+  public boolean isComplete()
+  {
+    return hash != null && linesDone >= height;
+  }
+
+  /**
+   * Complete the hash.
+   *
+   * @return hexadecimal hash of the pixels
+   */
+  public String finish()
+  {
+    return StrUtil.toHex(hash.digest());
+  }
+
+  /**
+   * Forget the current image.
+   */
+  public void reset()
+  {
+    hash = null;
+  }
+}
@@ -23,6 +23,7 @@ import ufxcoder.formats.AbstractFormatProcessor;
 import ufxcoder.formats.FileDescription;
 import ufxcoder.io.SeekableSource;
 import ufxcoder.io.Segment;
+import ufxcoder.results.ResultConfig;
 
 /**
  * Process JPEG image files.
@@ -30,6 +31,18 @@ import ufxcoder.io.Segment;
 public class JpegProcessor extends AbstractFormatProcessor
 {
   private static final Logger LOGGER = LoggerFactory.getLogger(JpegProcessor.class);
+  /**
+   * Pixel decoding state, kept for the next file so that its buffers can be reused.
+   */
+  private JpegPixelPipeline pixelPipeline;
+  /**
+   * Data of the marker being parsed, its buffer is reused for all markers of all files processed.
+   */
+  private final Segment markerSegment = new Segment();
+  /**
+   * Skips scan data to the next marker, its buffer is reused for all scans of all files processed.
+   */
+  private final JpegMarkerScanner markerScanner = new JpegMarkerScanner(Constants.MARKER_MIN_RESTART_INTERVAL, false);
 
   @Override
   public FileDescription createDescription()
@@ -37,6 +50,16 @@ public class JpegProcessor extends AbstractFormatProcessor
     return new JpegFileDescription();
   }
 
+  /**
+   * Get the scanner for skipping scan data, to be reset before use.
+   *
+   * @return scanner owned by this processor
+   */
+  public JpegMarkerScanner getMarkerScanner()
+  {
+    return markerScanner;
+  }
+
   public JpegFileDescription getJpegFileDescription()
   {
     JpegFileDescription result = null;
@@ -88,10 +111,11 @@ public class JpegProcessor extends AbstractFormatProcessor
    */
   private void readMarker(final Marker marker) throws IOException
   {
-    Segment segm;
-    segm = read(2);
+    final Segment segm = markerSegment;
+    read(segm, 2);
     segm.setByteOrder(ByteOrder.BigEndian);
     marker.setSegment(segm);
+    marker.setOffset(segm.getOffset());
     int markerId = segm.int16();
     if ((markerId & Constants.MARKER_MASK) == Constants.MARKER_MASK)
     {
@@ -164,6 +188,7 @@ public class JpegProcessor extends AbstractFormatProcessor
         {
           handleMarker(marker);
         }
+        marker.setSegment(null);
         desc.add(marker);
       }
       while (isSuccess() && marker.getId() != Constants.MARKER_END_OF_IMAGE);
@@ -173,6 +198,69 @@ public class JpegProcessor extends AbstractFormatProcessor
     {
       error(Msg.IO_ERROR, e.getMessage());
     }
+    finishCoefficients();
+    finishPixels();
+  }
+
+  /**
+   * Verify that the scans of a progressive frame have coded all coefficients and decode their pixels if requested, then
+   * release their storage.
+   */
+  protected void finishCoefficients()
+  {
+    final JpegFrame frame = getJpegFileDescription().getFrame();
+    final JpegCoefficients coefficients = frame == null ? null : frame.getCoefficients();
+    if (coefficients != null)
+    {
+      if (isSuccess() && frame.isProgressive())
+      {
+        coefficients.verify(this);
+      }
+      final JpegPixelPipeline pixels = getPixelPipeline();
+      if (isSuccess() && pixels != null && coefficients.isComplete()
+          && pixels.init(frame, getJpegFileDescription()))
+      {
+        pixels.decode(frame, coefficients);
+      }
+      coefficients.close();
+      frame.setCoefficients(null);
+    }
+  }
+
+  /**
+   * Add the hash of all pixels to the checksums of a successfully processed file.
+   */
+  private void finishPixels()
+  {
+    if (pixelPipeline != null)
+    {
+      if (isSuccess() && pixelPipeline.isComplete())
+      {
+        getJpegFileDescription().addChecksum(ResultConfig.PIXEL_HASH_NAME, pixelPipeline.finish());
+      }
+      pixelPipeline.reset();
+    }
+  }
+
+  /**
+   * Return the pixel decoder for the current frame if pixel hashing was requested and the frame is supported.
+   *
+   * @return pipeline or null
+   */
+  public JpegPixelPipeline getPixelPipeline()
+  {
+    final JpegFrame frame = getJpegFileDescription().getFrame();
+    final boolean hashing = getConfig() != null && getConfig().getResultConfig().isPixelHashing();
+    JpegPixelPipeline result = null;
+    if (hashing && frame != null && JpegPixelPipeline.isSupported(frame))
+    {
+      if (pixelPipeline == null)
+      {
+        pixelPipeline = new JpegPixelPipeline();
+      }
+      result = pixelPipeline;
+    }
+    return result;
   }
 
   private void handleMarker(final Marker marker) throws IOException
@@ -190,8 +278,7 @@ public class JpegProcessor extends AbstractFormatProcessor
     {
       final Segment segment = marker.getSegment();
       append(segment, length);
-      LOGGER.debug(
-          marker.getSegment().getOffset() + " " + Integer.toHexString(marker.getId()) + " " + marker.getLength());
+      LOGGER.debug(marker.getOffset() + " " + Integer.toHexString(marker.getId()) + " " + marker.getLength());
       final JpegReader reader = new JpegReader(this);
       reader.parseMarker(marker);
     }
@@ -220,6 +307,31 @@ public class JpegProcessor extends AbstractFormatProcessor
     };
   }
 
+  @Override
+  public byte[][] getSignatures()
+  {
+    return new byte[][]
+    {
+        {
+            (byte) 0xff
+        }
+    };
+  }
+
+  /**
+   * A JPEG stream starts with the start of image marker, possibly preceded by additional 0xff fill bytes.
+   */
+  @Override
+  public boolean claims(final byte[] header, final int length)
+  {
+    int index = 0;
+    while (index < length && header[index] == (byte) 0xff)
+    {
+      index++;
+    }
+    return index > 0 && (index == length || header[index] == (byte) (Constants.MARKER_START_OF_IMAGE & 0xff));
+  }
+
   @Override
   public String getShortName()
   {
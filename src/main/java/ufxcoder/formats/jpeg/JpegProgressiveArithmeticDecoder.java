@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Decode the arithmetic-coded data of a progressive DCT scan (SOF10) into the frame's {@link JpegCoefficients}.
+ * ITU-T81.pdf G.1.3, p. 127ff. Coefficients are stored in zig-zag order like those of progressive Huffman scans.
+ */
+public class JpegProgressiveArithmeticDecoder extends AbstractJpegArithmeticDecoder
+{
+  /**
+   * Band of the block decoded last, in zig-zag order.
+   */
+  private final int[] zz = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+  private JpegCoefficientPlane[] planes;
+  private int startSpectral;
+  private int endSpectral;
+  private int approxHigh;
+  private int approxLow;
+
+  public JpegProgressiveArithmeticDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    super(proc, reader);
+  }
+
+  @Override
+  protected boolean prepare(final JpegFrame frame, final JpegScan scan)
+  {
+    startSpectral = scan.getStartSpectral();
+    endSpectral = scan.getEndSpectral();
+    approxHigh = scan.getApproxHigh();
+    approxLow = scan.getApproxLow();
+    planes = prepareProgressive(frame, scan);
+    return planes != null && prepareTables(scan, startSpectral == 0 && approxHigh == 0, startSpectral > 0);
+  }
+
+  @Override
+  protected void decodeMcu(final int mcuX, final int mcuY)
+  {
+    final JpegMcuLayout layout = getLayout();
+    for (int block = 0; block < layout.getBlocksPerMcu(); block++)
+    {
+      final int comp = layout.getBlockComponent(block);
+      final JpegCoefficientPlane plane = planes[comp];
+      final int blockY = layout.getBlockY(block, mcuY);
+      final ShortBuffer buffer = plane.getChunk(blockY);
+      final int offset = plane.getOffset(layout.getBlockX(block, mcuX), blockY);
+      if (startSpectral == 0)
+      {
+        if (approxHigh == 0)
+        {
+          buffer.put(offset, (short) (decodeDc(comp) << approxLow));
+        }
+        else if (decodeFixed() != 0)
+        {
+          // G.1.3.1, p. 127: one more bit of the DC coefficient
+          buffer.put(offset, (short) (buffer.get(offset) | (1 << approxLow)));
+        }
+      }
+      else
+      {
+        if (approxHigh == 0)
+        {
+          decodeAcFirst(comp, buffer, offset);
+        }
+        else
+        {
+          decodeAcRefine(comp, buffer, offset);
+        }
+      }
+    }
+  }
+
+  /**
+   * G.1.3.2, p. 127: AC coefficients of a band, coded like those of a sequential scan.
+   */
+  private void decodeAcFirst(final int comp, final ShortBuffer buffer, final int offset)
+  {
+    decodeAc(comp, startSpectral, endSpectral, zz);
+    for (int index = startSpectral; index <= endSpectral; index++)
+    {
+      buffer.put(offset + index, (short) (zz[index] << approxLow));
+    }
+  }
+
+  /**
+   * G.1.3.3, p. 127ff.: one more bit for each coefficient of a band that is already nonzero, plus newly nonzero
+   * coefficients of magnitude 1. The end-of-block decision is only coded after the last coefficient that was nonzero
+   * before this scan.
+   */
+  private void decodeAcRefine(final int comp, final ShortBuffer buffer, final int offset)
+  {
+    int lastNonzero = endSpectral;
+    while (lastNonzero > 0 && buffer.get(offset + lastNonzero) == 0)
+    {
+      lastNonzero--;
+    }
+    int index = startSpectral;
+    while (index <= endSpectral)
+    {
+      final int bin = BINS_PER_AC_INDEX * (index - 1);
+      if (index > lastNonzero && decodeAcBin(comp, bin) != 0)
+      {
+        break;
+      }
+      index = refineUpToNewlyNonzero(comp, buffer, offset, index) + 1;
+    }
+  }
+
+  /**
+   * Refine coefficients starting at an index until one that was nonzero before or becomes nonzero now.
+   *
+   * @return index of that coefficient or a value larger than the end of the band after an error
+   */
+  private int refineUpToNewlyNonzero(final int comp, final ShortBuffer buffer, final int offset, final int start)
+  {
+    int index = start;
+    int bin = BINS_PER_AC_INDEX * (index - 1);
+    while (true)
+    {
+      final int position = offset + index;
+      final int value = buffer.get(position);
+      if (value != 0)
+      {
+        if (decodeAcBin(comp, bin + 2) != 0)
+        {
+          buffer.put(position, (short) (value < 0 ? value - (1 << approxLow) : value + (1 << approxLow)));
+        }
+        break;
+      }
+      if (decodeAcBin(comp, bin + 1) != 0)
+      {
+        buffer.put(position, (short) (decodeFixed() == 0 ? 1 << approxLow : -1 << approxLow));
+        break;
+      }
+      bin += BINS_PER_AC_INDEX;
+      index++;
+      if (index > endSpectral)
+      {
+        getReader().error(Msg.INVALID_COEFFICIENT_RUN, index);
+        break;
+      }
+    }
+    return index;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Decode the Huffman-coded data of a progressive scan: DC first and refinement scans (possibly interleaved) and AC
+ * first and refinement scans with end-of-band runs (always non-interleaved). ITU-T81.pdf G.1.2, p. 121ff. The
+ * coefficients are accumulated in the {@link JpegCoefficients} of the frame so that refinement scans can be checked and
+ * applied; which coefficient bits were coded is tracked per component and position.
+ */
+public class JpegProgressiveHuffmanDecoder extends AbstractJpegScanDecoder
+{
+  private JpegCoefficientPlane[] planes;
+  private JpegHuffmanDecoder[] decoders;
+  private int[] predictors;
+  private int startSpectral;
+  private int endSpectral;
+  private int approxHigh;
+  private int approxLow;
+  private int eobRun;
+
+  public JpegProgressiveHuffmanDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    super(proc, reader);
+  }
+
+  @Override
+  protected boolean prepare(final JpegFrame frame, final JpegScan scan)
+  {
+    startSpectral = scan.getStartSpectral();
+    endSpectral = scan.getEndSpectral();
+    approxHigh = scan.getApproxHigh();
+    approxLow = scan.getApproxLow();
+    eobRun = 0;
+    planes = prepareProgressive(frame, scan);
+    boolean result = planes != null;
+    if (result)
+    {
+      final int numComponents = scan.getNumComponents();
+      decoders = new JpegHuffmanDecoder[numComponents];
+      predictors = new int[numComponents];
+      int index = 0;
+      for (final JpegScanComponent scanComp : scan.getComponents())
+      {
+        if (startSpectral > 0)
+        {
+          decoders[index] = createDecoder(scanComp, scanComp.getAc(), Constants.TABLE_CLASS_AC);
+          result = result && decoders[index] != null;
+        }
+        else
+        {
+          if (approxHigh == 0)
+          {
+            decoders[index] = createDecoder(scanComp, scanComp.getDc(), Constants.TABLE_CLASS_DC);
+            result = result && decoders[index] != null;
+          }
+        }
+        index++;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  protected void restart()
+  {
+    Arrays.fill(predictors, 0);
+    eobRun = 0;
+  }
+
+  @Override
+  protected void decodeMcu(final int mcuX, final int mcuY)
+  {
+    final JpegMcuLayout layout = getLayout();
+    for (int block = 0; block < layout.getBlocksPerMcu(); block++)
+    {
+      final int comp = layout.getBlockComponent(block);
+      final JpegCoefficientPlane plane = planes[comp];
+      final int blockY = layout.getBlockY(block, mcuY);
+      final ShortBuffer buffer = plane.getChunk(blockY);
+      final int offset = plane.getOffset(layout.getBlockX(block, mcuX), blockY);
+      if (startSpectral == 0)
+      {
+        if (approxHigh == 0)
+        {
+          decodeDcFirst(comp, buffer, offset);
+        }
+        else
+        {
+          decodeDcRefine(buffer, offset);
+        }
+      }
+      else
+      {
+        if (approxHigh == 0)
+        {
+          decodeAcFirst(decoders[comp], buffer, offset);
+        }
+        else
+        {
+          decodeAcRefine(decoders[comp], buffer, offset);
+        }
+      }
+    }
+  }
+
+  /**
+   * G.1.2.1, p. 122.
+   */
+  private void decodeDcFirst(final int comp, final ShortBuffer buffer, final int offset)
+  {
+    final int dc = predictors[comp] + decoders[comp].decodeDc();
+    predictors[comp] = dc;
+    buffer.put(offset, (short) (dc << approxLow));
+  }
+
+  /**
+   * G.1.2.1, p. 122: one more bit of the DC coefficient, not Huffman-coded.
+   */
+  private void decodeDcRefine(final ShortBuffer buffer, final int offset)
+  {
+    if (getReader().getBits(1) != 0)
+    {
+      buffer.put(offset, (short) (buffer.get(offset) | (1 << approxLow)));
+    }
+  }
+
+  /**
+   * G.1.2.2, p. 123ff.: AC coefficients of a band, with runs of blocks whose band is empty (EOBRUN).
+   */
+  private void decodeAcFirst(final JpegHuffmanDecoder decoder, final ShortBuffer buffer, final int offset)
+  {
+    if (eobRun > 0)
+    {
+      eobRun--;
+    }
+    else
+    {
+      int index = startSpectral;
+      while (index <= endSpectral)
+      {
+        final int rs = decoder.decode();
+        final int ssss = rs & 0x0f;
+        final int rrrr = rs >> 4;
+        if (ssss == 0)
+        {
+          if (rrrr == 15)
+          {
+            index += 16;
+          }
+          else
+          {
+            eobRun = (1 << rrrr) - 1 + getReader().getBits(rrrr);
+            break;
+          }
+        }
+        else
+        {
+          index += rrrr;
+          if (index <= endSpectral)
+          {
+            buffer.put(offset + index, (short) (decoder.receiveExtend(ssss) << approxLow));
+            index++;
+          }
+          else
+          {
+            getReader().error(Msg.INVALID_COEFFICIENT_RUN, index);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * G.1.2.3, p. 125ff.: one more bit for each coefficient of a band that is already nonzero, plus newly nonzero
+   * coefficients of magnitude 1.
+   */
+  private void decodeAcRefine(final JpegHuffmanDecoder decoder, final ShortBuffer buffer, final int offset)
+  {
+    int index = startSpectral;
+    if (eobRun == 0)
+    {
+      index = decodeAcRefineSymbols(decoder, buffer, offset);
+    }
+    if (eobRun > 0)
+    {
+      // block is part of an end-of-band run: only refine nonzero coefficients of the rest of the band
+      refineNonzero(buffer, offset, index, Integer.MAX_VALUE);
+      eobRun--;
+    }
+  }
+
+  /**
+   * Decode run/size symbols of a refinement scan until the band is complete or an end-of-band run starts.
+   *
+   * @return position where the end-of-band run starts in this block
+   */
+  private int decodeAcRefineSymbols(final JpegHuffmanDecoder decoder, final ShortBuffer buffer, final int offset)
+  {
+    final JpegScanReader reader = getReader();
+    int index = startSpectral;
+    while (index <= endSpectral)
+    {
+      final int rs = decoder.decode();
+      final int ssss = rs & 0x0f;
+      final int rrrr = rs >> 4;
+      if (ssss == 0 && rrrr != 15)
+      {
+        eobRun = (1 << rrrr) + reader.getBits(rrrr);
+        break;
+      }
+      int value = 0;
+      if (ssss != 0)
+      {
+        if (ssss != 1)
+        {
+          reader.error(Msg.INVALID_REFINEMENT_MAGNITUDE, ssss);
+        }
+        value = reader.getBits(1) == 0 ? -1 << approxLow : 1 << approxLow;
+      }
+      // refine nonzero coefficients until rrrr zero coefficients have been skipped and the next zero one is reached
+      index = refineNonzero(buffer, offset, index, rrrr);
+      if (value != 0 && index <= endSpectral)
+      {
+        buffer.put(offset + index, (short) value);
+      }
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Refine nonzero coefficients starting at a position, stopping at a zero coefficient after a number of zero
+   * coefficients have been skipped or at the end of the band.
+   *
+   * @return position of the zero coefficient where refining stopped or a position after the band
+   */
+  private int refineNonzero(final ShortBuffer buffer, final int offset, final int start, final int numZeros)
+  {
+    int index = start;
+    int zerosLeft = numZeros;
+    while (index <= endSpectral)
+    {
+      final int coefficient = buffer.get(offset + index);
+      if (coefficient == 0)
+      {
+        if (zerosLeft == 0)
+        {
+          break;
+        }
+        zerosLeft--;
+      }
+      else
+      {
+        refine(buffer, offset + index, coefficient);
+      }
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Read a correction bit for a nonzero coefficient and add it to its magnitude.
+   */
+  private void refine(final ShortBuffer buffer, final int position, final int coefficient)
+  {
+    final int bit = 1 << approxLow;
+    if (getReader().getBits(1) != 0 && (coefficient & bit) == 0)
+    {
+      buffer.put(position, (short) (coefficient >= 0 ? coefficient + bit : coefficient - bit));
+    }
+  }
+}
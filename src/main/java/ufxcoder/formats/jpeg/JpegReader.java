@@ -58,6 +58,9 @@ public class JpegReader
     case Constants.MARKER_DEFINE_QUANTIZATION_TABLES:
       new JpegQuantizationReader(proc).readTables(marker);
       break;
+    case Constants.MARKER_DEFINE_ARITHMETIC_CONDITIONING:
+      new JpegConditioningReader(proc).readTables(marker);
+      break;
     case Constants.MARKER_DEFINE_RESTART_INTERVAL:
       readRestartIntervalDefinition(marker);
       break;
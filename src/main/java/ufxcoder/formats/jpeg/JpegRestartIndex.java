@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import ufxcoder.conversion.Array;
+import ufxcoder.io.MemorySource;
+import ufxcoder.io.SeekableSource;
+
+/**
+ * Pre-pass over the scan data of a baseline scan with restart intervals: scan data is read in batches into a buffer
+ * and the positions of the markers terminating the intervals are recorded, checking their sequence along the way.
+ * Intervals of a batch can then be decoded independently of each other.
+ */
+public class JpegRestartIndex
+{
+  /**
+   * Initial size of the buffer, it only grows if a single interval is larger.
+   */
+  public static final int BATCH_SIZE = 16 * 1024 * 1024;
+  private static final int INITIAL_INTERVALS = 1024;
+  /**
+   * Scan data not yet decoded.
+   */
+  private byte[] buffer = new byte[BATCH_SIZE];
+  /**
+   * Number of valid bytes in {@link #buffer}.
+   */
+  private int bufferLength;
+  /**
+   * Offset in the file of the first byte of {@link #buffer}.
+   */
+  private long bufferOffset;
+  /**
+   * Index into {@link #buffer} of the next byte to be examined.
+   */
+  private int scanIndex;
+  /**
+   * For each interval found in the current batch: index into {@link #buffer} of its first byte.
+   */
+  private int[] starts = new int[INITIAL_INTERVALS];
+  /**
+   * For each interval found in the current batch: index into {@link #buffer} of the marker terminating it.
+   */
+  private int[] ends = new int[INITIAL_INTERVALS];
+  /**
+   * Number of intervals found in the current batch.
+   */
+  private int numIntervals;
+  /**
+   * Index of the first interval of the current batch within the scan.
+   */
+  private int firstInterval;
+  /**
+   * Restart marker with an unexpected number, or 0.
+   */
+  private int badRestart;
+  /**
+   * Offset in the file of the marker following the scan, or -1 if not yet found.
+   */
+  private long endMarkerOffset = -1;
+  private boolean endOfInput;
+
+  public JpegRestartIndex(final long scanDataOffset)
+  {
+    bufferOffset = scanDataOffset;
+  }
+
+  /**
+   * Return the restart marker expected at the end of an interval.
+   *
+   * @param interval
+   *          index of interval within scan
+   * @return marker from {@link Constants#MARKER_MIN_RESTART_INTERVAL} to {@link Constants#MARKER_MAX_RESTART_INTERVAL}
+   */
+  public static int getExpectedRestart(final int interval)
+  {
+    return Constants.MARKER_MIN_RESTART_INTERVAL
+        + interval % (Constants.MARKER_MAX_RESTART_INTERVAL - Constants.MARKER_MIN_RESTART_INTERVAL + 1);
+  }
+
+  private static boolean isRestart(final int id)
+  {
+    return id >= Constants.MARKER_MIN_RESTART_INTERVAL && id <= Constants.MARKER_MAX_RESTART_INTERVAL;
+  }
+
+  /**
+   * Append data from input to the buffer. The input must be positioned after the data already in the buffer.
+   *
+   * @param source
+   *          input with scan data
+   * @return false if the input has ended
+   * @throws IOException
+   *           if reading fails
+   */
+  public boolean fill(final SeekableSource source) throws IOException
+  {
+    final int num = source.read(buffer, bufferLength, buffer.length - bufferLength);
+    bufferLength += Math.max(0, num);
+    endOfInput = num <= 0;
+    return !endOfInput;
+  }
+
+  /**
+   * Find the markers terminating restart intervals in the part of the buffer not examined so far. Stops at the marker
+   * following the scan and at a restart marker out of sequence.
+   */
+  public void findIntervals()
+  {
+    numIntervals = 0;
+    int start = 0;
+    int index = scanIndex;
+    while (index + 1 < bufferLength && endMarkerOffset < 0 && badRestart == 0)
+    {
+      if (buffer[index] == (byte) 0xff)
+      {
+        final int second = buffer[index + 1] & 0xff;
+        if (second == 0 || second == 0xff)
+        {
+          // stuffed zero byte or fill byte
+          index += second == 0 ? 2 : 1;
+        }
+        else
+        {
+          addInterval(start, index, Constants.MARKER_MASK | second);
+          index += 2;
+          start = index;
+        }
+      }
+      else
+      {
+        index++;
+      }
+    }
+    scanIndex = index;
+  }
+
+  private void addInterval(final int start, final int end, final int id)
+  {
+    if (isRestart(id) && id != getExpectedRestart(firstInterval + numIntervals))
+    {
+      badRestart = id;
+    }
+    else
+    {
+      if (numIntervals == starts.length)
+      {
+        starts = Array.clone(starts, starts.length);
+        ends = Array.clone(ends, ends.length);
+      }
+      starts[numIntervals] = start;
+      ends[numIntervals] = end;
+      numIntervals++;
+      if (!isRestart(id))
+      {
+        endMarkerOffset = bufferOffset + end;
+      }
+    }
+  }
+
+  /**
+   * Let the data following the last marker found form one more interval, for input ending before the scan is complete.
+   */
+  public void addFinalInterval()
+  {
+    final int start = numIntervals == 0 ? 0 : ends[numIntervals - 1] + 2;
+    if (badRestart == 0 && start < bufferLength)
+    {
+      addInterval(start, bufferLength, getExpectedRestart(firstInterval + numIntervals));
+    }
+  }
+
+  /**
+   * Move the data of the interval not yet terminated to the beginning of the buffer and continue with the next batch.
+   * The buffer grows if that interval fills it completely.
+   */
+  public void compact()
+  {
+    final int keep = numIntervals == 0 ? 0 : Math.min(ends[numIntervals - 1] + 2, bufferLength);
+    System.arraycopy(buffer, keep, buffer, 0, bufferLength - keep);
+    bufferLength -= keep;
+    scanIndex = Math.max(0, scanIndex - keep);
+    bufferOffset += keep;
+    firstInterval += numIntervals;
+    numIntervals = 0;
+    if (bufferLength == buffer.length)
+    {
+      buffer = Array.clone(buffer, buffer.length);
+    }
+  }
+
+  /**
+   * After a failure, find the marker following the scan without checking the remaining scan data.
+   *
+   * @param source
+   *          input positioned after the data in the buffer
+   * @return false if the input ended before a marker was found
+   * @throws IOException
+   *           if reading fails
+   */
+  public boolean skipToEndMarker(final SeekableSource source) throws IOException
+  {
+    boolean endOfInput = false;
+    while (endMarkerOffset < 0 && !endOfInput)
+    {
+      int index = scanIndex;
+      while (index + 1 < bufferLength && endMarkerOffset < 0)
+      {
+        final int id = Constants.MARKER_MASK | buffer[index + 1] & 0xff;
+        if (buffer[index] == (byte) 0xff && id != Constants.MARKER_MASK && id != (Constants.MARKER_MASK | 0xff)
+            && !isRestart(id))
+        {
+          endMarkerOffset = bufferOffset + index;
+        }
+        index++;
+      }
+      if (endMarkerOffset < 0)
+      {
+        // keep the last byte, it may be the first of a marker
+        final int keep = Math.min(1, bufferLength);
+        System.arraycopy(buffer, bufferLength - keep, buffer, 0, keep);
+        bufferOffset += bufferLength - keep;
+        bufferLength = keep;
+        scanIndex = 0;
+        endOfInput = !fill(source);
+      }
+    }
+    return !endOfInput;
+  }
+
+  /**
+   * Return the number of bytes of scan data of a range of intervals of the current batch.
+   *
+   * @param from
+   *          index of first interval within batch
+   * @param to
+   *          index of interval following the last one within batch
+   * @return number of bytes
+   */
+  public int getNumBytes(final int from, final int to)
+  {
+    return ends[to - 1] - starts[from];
+  }
+
+  /**
+   * Create an input with the scan data of a range of intervals of the current batch, including the marker terminating
+   * the last interval (if any).
+   *
+   * @param from
+   *          index of first interval within batch
+   * @param to
+   *          index of interval following the last one within batch
+   * @return new input
+   */
+  public SeekableSource createSource(final int from, final int to)
+  {
+    return new MemorySource(buffer, starts[from], Math.min(ends[to - 1] + 2, bufferLength) - starts[from]);
+  }
+
+  public int getNumIntervals()
+  {
+    return numIntervals;
+  }
+
+  public int getFirstInterval()
+  {
+    return firstInterval;
+  }
+
+  public int getBadRestart()
+  {
+    return badRestart;
+  }
+
+  public boolean isEndOfInput()
+  {
+    return endOfInput;
+  }
+
+  public long getEndMarkerOffset()
+  {
+    return endMarkerOffset;
+  }
+}
@@ -16,7 +16,7 @@
 package ufxcoder.formats.jpeg;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -29,7 +29,7 @@ public class JpegScan
   private int endSpectral;
   private int approxHigh;
   private int approxLow;
-  private final Map<Integer, JpegScanComponent> components = new HashMap<>();
+  private final Map<Integer, JpegScanComponent> components = new LinkedHashMap<>();
 
   public int getNumComponents()
   {
@@ -51,6 +51,17 @@ public class JpegScan
     return components.get(id);
   }
 
+  /**
+   * Return the components of this scan in the order of the start-of-scan marker, which is the order of the blocks
+   * within an MCU.
+   *
+   * @return scan components
+   */
+  public Collection<JpegScanComponent> getComponents()
+  {
+    return components.values();
+  }
+
   public JpegScanComponent getFirstScan()
   {
     final Collection<JpegScanComponent> coll = components.values();
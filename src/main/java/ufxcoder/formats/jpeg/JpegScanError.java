@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+/**
+ * Error found while decoding part of a scan in a worker thread, kept until it can be reported in the order a sequential
+ * decoder would have found it.
+ */
+public class JpegScanError
+{
+  private final String messageKey;
+  private final Object[] arguments;
+
+  public JpegScanError(final String messageKey, final Object... arguments)
+  {
+    this.messageKey = messageKey;
+    this.arguments = arguments.clone();
+  }
+
+  /**
+   * Pass this error on to a processor.
+   *
+   * @param proc
+   *          processor collecting errors of the file
+   */
+  public void report(final JpegProcessor proc)
+  {
+    proc.error(messageKey, arguments);
+  }
+
+  public String getMessageKey()
+  {
+    return messageKey;
+  }
+}
@@ -17,6 +17,7 @@ package ufxcoder.formats.jpeg;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import ufxcoder.io.BufferedSource;
 import ufxcoder.io.SeekableSource;
@@ -27,12 +28,47 @@ import ufxcoder.io.Segment;
  */
 public class JpegScanReader
 {
+  /**
+   * Number of bits in the bit reservoir {@link #bitBuffer}.
+   */
+  private static final int RESERVOIR_BITS = 64;
+  /**
+   * Another byte is added to the reservoir as long as it holds no more than this many bits.
+   */
+  private static final int MAX_FILL_LEVEL = RESERVOIR_BITS - 8;
   private final JpegProcessor proc;
   private final BufferedSource input;
   private int expectedRestart;
-  private int bitMask;
-  private int byteValue;
-  private int dcPredictor;
+  /**
+   * Bits not yet consumed, left-aligned: the next bit to be returned is the most significant bit.
+   */
+  private long bitBuffer;
+  /**
+   * Number of valid bits in {@link #bitBuffer}.
+   */
+  private int numBits;
+  /**
+   * Set once {@link #nextByte()} has signaled the end of the scan data, no further bytes are read from then on.
+   */
+  private boolean endOfData;
+  /**
+   * Set once more bits were consumed than the scan data provided.
+   */
+  private boolean exhausted;
+  /**
+   * If true, a restart marker ends the data returned by {@link #nextByte()} until {@link #restart()} is called;
+   * otherwise restart markers are skipped.
+   */
+  private boolean stopAtRestart;
+  /**
+   * Restart marker encountered while {@link #stopAtRestart} is set, or 0.
+   */
+  private int pendingRestart;
+  private boolean failed;
+  /**
+   * If non-null, errors are collected here instead of being reported to {@link #proc}.
+   */
+  private final List<JpegScanError> deferredErrors;
 
   public JpegScanReader(final JpegProcessor processor)
   {
@@ -40,6 +76,29 @@ public class JpegScanReader
     final SeekableSource source = proc.getSource();
     input = new BufferedSource(source, 4096);
     expectedRestart = Constants.MARKER_MIN_RESTART_INTERVAL;
+    deferredErrors = null;
+  }
+
+  /**
+   * Create a reader for part of the scan data, starting at the beginning of a restart interval. Errors are not reported
+   * to the processor but collected in a list, so that a reader can be used in a worker thread.
+   *
+   * @param processor
+   *          processor of the file
+   * @param source
+   *          scan data of one or more restart intervals followed by a marker
+   * @param firstRestart
+   *          restart marker expected at the end of the first interval
+   * @param errors
+   *          list receiving errors
+   */
+  public JpegScanReader(final JpegProcessor processor, final SeekableSource source, final int firstRestart,
+      final List<JpegScanError> errors)
+  {
+    proc = processor;
+    input = new BufferedSource(source, 4096);
+    expectedRestart = firstRestart;
+    deferredErrors = errors;
   }
 
   public void readScan(final Marker marker)
@@ -71,9 +130,14 @@ public class JpegScanReader
         readScanHeader(segment, frame, scan);
         if (proc.isSuccess())
         {
-          readScanData();
-          // final JpegBaselineHuffmanDecoder dec = new JpegBaselineHuffmanDecoder(proc, this);
-          // dec.decode();
+          if (frame.isBaseline())
+          {
+            decodeBaseline(frame, scan);
+          }
+          else
+          {
+            decodeOther(frame, scan);
+          }
         }
       }
       else
@@ -83,6 +147,65 @@ public class JpegScanReader
     }
   }
 
+  private void decodeOther(final JpegFrame frame, final JpegScan scan)
+  {
+    if (frame.isArithmetic() && !frame.isDifferential() && (frame.isProgressive() || frame.isExtended()))
+    {
+      decodeArithmetic(frame, scan);
+    }
+    else if (frame.isProgressive() && !frame.isArithmetic())
+    {
+      final JpegProgressiveHuffmanDecoder dec = new JpegProgressiveHuffmanDecoder(proc, this);
+      dec.decode(frame, scan);
+    }
+    else if (frame.isLossless() && !frame.isArithmetic() && !frame.isDifferential())
+    {
+      final JpegLosslessDecoder dec = new JpegLosslessDecoder(proc, this);
+      dec.decode(frame, scan);
+    }
+    else
+    {
+      readScanData();
+    }
+  }
+
+  private void decodeArithmetic(final JpegFrame frame, final JpegScan scan)
+  {
+    if (frame.isProgressive())
+    {
+      final JpegProgressiveArithmeticDecoder dec = new JpegProgressiveArithmeticDecoder(proc, this);
+      dec.decode(frame, scan);
+    }
+    else
+    {
+      final JpegSequentialArithmeticDecoder dec = new JpegSequentialArithmeticDecoder(proc, this);
+      dec.decode(frame, scan);
+    }
+  }
+
+  private void decodeBaseline(final JpegFrame frame, final JpegScan scan)
+  {
+    if (proc.getPixelPipeline() == null)
+    {
+      if (JpegParallelScanDecoder.isApplicable(proc.getJpegFileDescription(), frame))
+      {
+        final JpegParallelScanDecoder dec = new JpegParallelScanDecoder(proc, this);
+        dec.decode(frame, scan);
+      }
+      else
+      {
+        final JpegBaselineHuffmanDecoder dec = new JpegBaselineHuffmanDecoder(proc, this);
+        dec.decode(frame, scan);
+      }
+    }
+    else
+    {
+      // pixels are decoded in image order
+      final JpegPixelDecoder dec = new JpegPixelDecoder(proc, this);
+      dec.decode(frame, scan);
+    }
+  }
+
   /**
    * Return a single bit from input. ITU-T81.pdf F2.2.5, p. 110. Figure F.18, p. 111.
    *
@@ -90,13 +213,253 @@ public class JpegScanReader
    */
   public int nextBit()
   {
-    if (bitMask == 0)
+    return getBits(1);
+  }
+
+  /**
+   * Return the next bits from input without consuming them. If the scan data has ended fewer bits may be available, the
+   * missing bits are returned as zero.
+   *
+   * @param num
+   *          number of bits, from 1 to 25
+   * @return bits as unsigned value, first bit from input in the most significant position
+   */
+  public int peekBits(final int num)
+  {
+    if (numBits < num)
+    {
+      fillBits();
+    }
+    return (int) (bitBuffer >>> (RESERVOIR_BITS - num));
+  }
+
+  /**
+   * Consume bits previously inspected with {@link #peekBits(int)}.
+   *
+   * @param num
+   *          number of bits, from 0 to 25
+   */
+  public void skipBits(final int num)
+  {
+    bitBuffer <<= num;
+    numBits -= num;
+    if (numBits < 0)
+    {
+      exhausted = endOfData;
+      numBits = 0;
+    }
+  }
+
+  /**
+   * Return and consume the next bits from input. ITU-T81.pdf F.2.2.4, p. 110 ("RECEIVE").
+   *
+   * @param num
+   *          number of bits, from 0 to 25
+   * @return bits as unsigned value, first bit from input in the most significant position
+   */
+  public int getBits(final int num)
+  {
+    int result;
+    if (num == 0)
+    {
+      result = 0;
+    }
+    else
+    {
+      result = peekBits(num);
+      skipBits(num);
+    }
+    return result;
+  }
+
+  /**
+   * Report an error found while decoding scan data.
+   *
+   * @param messageKey
+   *          key of message in resource bundle
+   * @param arguments
+   *          values to be inserted into message
+   */
+  public void error(final String messageKey, final Object... arguments)
+  {
+    failed = true;
+    if (deferredErrors == null)
+    {
+      proc.error(messageKey, arguments);
+    }
+    else
+    {
+      deferredErrors.add(new JpegScanError(messageKey, arguments));
+    }
+  }
+
+  /**
+   * Return whether an error was found in the scan data, either by this reader or reported via
+   * {@link #error(String, Object...)}.
+   *
+   * @return true if an error has occurred
+   */
+  public boolean isFailed()
+  {
+    return failed;
+  }
+
+  /**
+   * Return whether more bits were consumed than the scan data contained, the missing bits having been read as zero.
+   *
+   * @return true if the scan data was too short
+   */
+  public boolean isExhausted()
+  {
+    return exhausted;
+  }
+
+  /**
+   * Let restart markers end the scan data until {@link #restart()} is called instead of skipping them, so that a
+   * decoder can discard the bits remaining at the end of a restart interval.
+   */
+  public void enableRestarts()
+  {
+    stopAtRestart = true;
+  }
+
+  /**
+   * Continue with the next restart interval: discard the remaining bits of the current interval and check that it was
+   * terminated by the expected restart marker.
+   */
+  public void restart()
+  {
+    bitBuffer = 0;
+    numBits = 0;
+    while (!endOfData)
+    {
+      endOfData = nextByte() == -1;
+    }
+    if (pendingRestart == 0)
+    {
+      if (!failed)
+      {
+        error(Msg.MISSING_RESTART_MARKER, Integer.toHexString(expectedRestart));
+      }
+    }
+    else
+    {
+      if (pendingRestart == expectedRestart)
+      {
+        expectedRestart = nextRestart(expectedRestart);
+        pendingRestart = 0;
+        endOfData = false;
+        exhausted = false;
+      }
+      else
+      {
+        error(Msg.UNEXPECTED_RESTART_MARKER, Integer.toHexString(pendingRestart), Integer.toHexString(expectedRestart));
+      }
+    }
+  }
+
+  /**
+   * Skip all scan data not yet consumed by a decoder, up to the marker following the scan.
+   */
+  public void finishScan()
+  {
+    bitBuffer = 0;
+    numBits = 0;
+    stopAtRestart = false;
+    if (pendingRestart != 0)
+    {
+      // restart marker after the last MCU, more data follows
+      pendingRestart = 0;
+      endOfData = false;
+    }
+    if (!endOfData)
+    {
+      readScanData();
+      endOfData = true;
+    }
+  }
+
+  /**
+   * Return the restart marker following another one.
+   *
+   * @param id
+   *          restart marker from {@link Constants#MARKER_MIN_RESTART_INTERVAL} to
+   *          {@link Constants#MARKER_MAX_RESTART_INTERVAL}
+   * @return next restart marker, wrapping around after the last
+   */
+  public static int nextRestart(final int id)
+  {
+    return id == Constants.MARKER_MAX_RESTART_INTERVAL ? Constants.MARKER_MIN_RESTART_INTERVAL : id + 1;
+  }
+
+  /**
+   * Report that the next {@link Constants#MAX_HUFFMAN_CODE_LENGTH} bits do not start with a valid Huffman code. These
+   * bits are consumed so that decoding does not get stuck.
+   */
+  public void invalidHuffmanCode()
+  {
+    final int code = peekBits(Constants.MAX_HUFFMAN_CODE_LENGTH);
+    skipBits(Constants.MAX_HUFFMAN_CODE_LENGTH);
+    error(Msg.INVALID_HUFFMAN_CODE, Integer.toBinaryString(code));
+  }
+
+  /**
+   * Add whole bytes to the bit reservoir until it is (almost) full or the scan data has ended.
+   */
+  private void fillBits()
+  {
+    // common case first: eight buffered bytes without 0xff, no marker or stuffed byte to be handled
+    if (numBits <= MAX_FILL_LEVEL && !endOfData && input.getNumBuffered() >= Long.BYTES)
+    {
+      final long word = input.peekLong();
+      if (!JpegMarkerScanner.containsFf(word))
+      {
+        final int numBytes = (RESERVOIR_BITS - numBits) >> 3;
+        input.skip(numBytes);
+        bitBuffer |= word >>> (RESERVOIR_BITS - numBytes * 8) << (RESERVOIR_BITS - numBits - numBytes * 8);
+        numBits += numBytes * 8;
+      }
+    }
+    if (numBits <= MAX_FILL_LEVEL)
+    {
+      fillBitsSlowly();
+    }
+  }
+
+  /**
+   * Add bytes one at a time, handling markers and stuffed bytes.
+   */
+  private void fillBitsSlowly()
+  {
+    while (numBits <= MAX_FILL_LEVEL && !endOfData)
     {
-      byteValue = nextByte();
-      bitMask = 128;
+      final int value = nextByte();
+      if (value == -1)
+      {
+        endOfData = true;
+      }
+      else
+      {
+        bitBuffer |= ((long) value) << (MAX_FILL_LEVEL - numBits);
+        numBits += 8;
+      }
+    }
+  }
+
+  /**
+   * Return the next byte of scan data for a decoder that does not use the bit reservoir (arithmetic decoding). Once the
+   * data of the scan or of the current restart interval has ended, -1 is returned without reading further.
+   *
+   * @return payload byte or -1
+   */
+  public int nextDataByte()
+  {
+    int result = -1;
+    if (!endOfData)
+    {
+      result = nextByte();
+      endOfData = result == -1;
     }
-    final int result = (byteValue & bitMask) == 0 ? 0 : 1;
-    bitMask >>= 1;
     return result;
   }
 
@@ -119,13 +482,13 @@ public class JpegScanReader
       {
         if (result == -1)
         {
-          proc.error(Msg.UNEXPECTED_END_OF_INPUT);
+          error(Msg.UNEXPECTED_END_OF_INPUT);
         }
       }
     }
     catch (IOException e)
     {
-      proc.error(Msg.READING_ERROR, e.getMessage());
+      error(Msg.READING_ERROR, e.getMessage());
       result = -1;
     }
     return result;
@@ -145,7 +508,7 @@ public class JpegScanReader
       // nothing after 0xff => truncated input
       if (second == -1)
       {
-        proc.error(Msg.UNEXPECTED_END_OF_INPUT);
+        error(Msg.UNEXPECTED_END_OF_INPUT);
         result = -1;
       }
       else
@@ -155,16 +518,24 @@ public class JpegScanReader
         if (id >= Constants.MARKER_MIN_RESTART_INTERVAL && id <= Constants.MARKER_MAX_RESTART_INTERVAL)
         {
           // restart interval
-          if (id == expectedRestart)
+          if (stopAtRestart)
           {
-            expectedRestart = id == Constants.MARKER_MAX_RESTART_INTERVAL ? Constants.MARKER_MIN_RESTART_INTERVAL
-                : id + 1;
-            result = nextByte();
+            pendingRestart = id;
+            result = -1;
           }
           else
           {
-            proc.error(Msg.UNEXPECTED_RESTART_MARKER, expectedRestart, id);
-            result = -1;
+            if (id == expectedRestart || failed)
+            {
+              // after an error the remaining scan data is skipped without further checks
+              expectedRestart = nextRestart(id);
+              result = nextByte();
+            }
+            else
+            {
+              error(Msg.UNEXPECTED_RESTART_MARKER, Integer.toHexString(id), Integer.toHexString(expectedRestart));
+              result = -1;
+            }
           }
         }
         else
@@ -179,69 +550,33 @@ public class JpegScanReader
     return result;
   }
 
+  /**
+   * Skip scan data without decoding it, up to the next marker other than a restart marker, using a
+   * {@link JpegMarkerScanner}. Restart markers are checked unless an error has already occurred.
+   */
   public void readScanData()
   {
-    int result;
-    do
-    {
-      result = nextByte();
-    }
-    while (result != -1);
-  }
-
-  public void readScanDataLegacy()
-  {
-    while (true)
+    try
     {
-      try
+      input.release();
+      final JpegMarkerScanner scanner = proc.getMarkerScanner();
+      scanner.reset(expectedRestart, failed);
+      final long marker = scanner.skip(proc.getSource());
+      for (final JpegScanError scanError : scanner.getErrors())
       {
-        final int value = input.next();
-        if (value == 0xff)
-        {
-          final int second = input.next();
-          if (second != 0)
-          {
-            if (second == -1)
-            {
-              proc.error(Msg.UNEXPECTED_END_OF_INPUT);
-              break;
-            }
-            final int id = Constants.MARKER_MASK | second;
-            if (id >= Constants.MARKER_MIN_RESTART_INTERVAL && id <= Constants.MARKER_MAX_RESTART_INTERVAL)
-            {
-              // restart interval
-              if (id == expectedRestart)
-              {
-                expectedRestart = id == Constants.MARKER_MAX_RESTART_INTERVAL ? Constants.MARKER_MIN_RESTART_INTERVAL
-                    : id + 1;
-              }
-              else
-              {
-                proc.error(Msg.UNEXPECTED_RESTART_MARKER, expectedRestart, id);
-              }
-            }
-            else
-            {
-              // scan is over, position underlying input two bytes back
-              input.seekBack(2);
-              break;
-            }
-          }
-        }
-        else
-        {
-          if (value == -1)
-          {
-            proc.error(Msg.UNEXPECTED_END_OF_INPUT);
-            break;
-          }
-        }
+        scanError.report(proc);
+        failed = true;
       }
-      catch (IOException e)
+      expectedRestart = scanner.getExpectedRestart();
+      if (marker < 0)
       {
-        proc.error(Msg.READING_ERROR, e.getMessage());
+        error(Msg.UNEXPECTED_END_OF_INPUT);
       }
     }
+    catch (IOException e)
+    {
+      error(Msg.READING_ERROR, e.getMessage());
+    }
   }
 
   private void readScanHeader(final Segment segment, final JpegFrame frame, final JpegScan scan)
@@ -265,8 +600,9 @@ public class JpegScanReader
       final int acdc = segment.int8();
 
       final JpegScanComponent comp = new JpegScanComponent();
-      comp.setAc(acdc >> 4);
-      comp.setDc(acdc & 0x0f);
+      // high nibble: DC table selector (Td), low nibble: AC table selector (Ta)
+      comp.setDc(acdc >> 4);
+      comp.setAc(acdc & 0x0f);
       comp.setId(compId);
 
       if (proc.isSuccess())
@@ -280,14 +616,4 @@ public class JpegScanReader
     scan.setApproxHigh(approx >> 4);
     scan.setApproxLow(approx & 0x0f);
   }
-
-  public int getDcPredictor()
-  {
-    return dcPredictor;
-  }
-
-  public void setDcPredictor(final int dcPredictor)
-  {
-    this.dcPredictor = dcPredictor;
-  }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Decode the arithmetic-coded data of a sequential DCT scan (SOF9) MCU by MCU. ITU-T81.pdf F.2.4, p. 101ff. If pixels
+ * are requested, the blocks are stored in the frame's {@link JpegCoefficients} and decoded to pixels once all scans are
+ * complete.
+ */
+public class JpegSequentialArithmeticDecoder extends AbstractJpegArithmeticDecoder
+{
+  private final JpegProcessor proc;
+  /**
+   * Coefficients of the block decoded last, in zig-zag order.
+   */
+  private final int[] zz = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+  private JpegCoefficientPlane[] planes;
+
+  public JpegSequentialArithmeticDecoder(final JpegProcessor proc, final JpegScanReader reader)
+  {
+    super(proc, reader);
+    this.proc = proc;
+  }
+
+  @Override
+  protected boolean prepare(final JpegFrame frame, final JpegScan scan)
+  {
+    boolean result = prepareTables(scan, true, true);
+    planes = null;
+    if (result && proc.getPixelPipeline() != null)
+    {
+      final JpegCoefficients storage = createCoefficients(frame);
+      result = storage != null;
+      if (result)
+      {
+        planes = new JpegCoefficientPlane[scan.getNumComponents()];
+        int index = 0;
+        for (final JpegScanComponent scanComp : scan.getComponents())
+        {
+          planes[index] = storage.find(scanComp.getId());
+          planes[index].markCoded(0, Constants.MINIMUM_CODED_UNIT_ELEMENTS - 1, 0, 0);
+          index++;
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  protected void decodeMcu(final int mcuX, final int mcuY)
+  {
+    final JpegMcuLayout layout = getLayout();
+    for (int block = 0; block < layout.getBlocksPerMcu(); block++)
+    {
+      final int comp = layout.getBlockComponent(block);
+      zz[0] = decodeDc(comp);
+      decodeAc(comp, 1, Constants.MINIMUM_CODED_UNIT_ELEMENTS - 1, zz);
+      if (planes != null)
+      {
+        store(planes[comp], layout.getBlockX(block, mcuX), layout.getBlockY(block, mcuY));
+      }
+    }
+  }
+
+  private void store(final JpegCoefficientPlane plane, final int blockX, final int blockY)
+  {
+    final int offset = plane.getOffset(blockX, blockY);
+    final ShortBuffer chunk = plane.getChunk(blockY);
+    for (int index = 0; index < zz.length; index++)
+    {
+      chunk.put(offset + index, (short) zz[index]);
+    }
+  }
+}
@@ -18,13 +18,15 @@ package ufxcoder.formats.jpeg;
 import ufxcoder.io.Segment;
 
 /**
- * Data class for a JPEG marker and its data.
+ * Data class for a JPEG marker and its data. The data is only available while the marker is parsed, its
+ * {@link Segment} is reused for the next marker.
  */
 public class Marker
 {
   private int id;
   private int length;
   private int number;
+  private long offset;
   private Segment segment;
 
   public int getId()
@@ -47,6 +49,26 @@ public class Marker
     this.length = length;
   }
 
+  /**
+   * Return the position of the marker in the source.
+   *
+   * @return offset of the marker's first 0xff byte
+   */
+  public long getOffset()
+  {
+    return offset;
+  }
+
+  public void setOffset(final long offset)
+  {
+    this.offset = offset;
+  }
+
+  /**
+   * Return the marker's data, only valid while the marker is being parsed.
+   *
+   * @return segment with marker, length and payload or null once parsing has finished
+   */
   public Segment getSegment()
   {
     return segment;
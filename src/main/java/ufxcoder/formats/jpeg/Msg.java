@@ -155,6 +155,16 @@ public final class Msg
    */
   public static final String UNKNOWN_MARKER_IN_SCAN_DATA = "jpeg.error.unknown_marker_in_scan";
 
+  /**
+   * Run length of an AC coefficient points past the last coefficient of a block.
+   */
+  public static final String INVALID_COEFFICIENT_RUN = "jpeg.error.invalid_coefficient_run";
+
+  /**
+   * Scan data contains a bit sequence that is not a code of the Huffman table in use.
+   */
+  public static final String INVALID_HUFFMAN_CODE = "jpeg.error.invalid_huffman_code";
+
   /**
    * Input's end was reached prematurely.
    */
@@ -216,6 +226,96 @@ public final class Msg
    */
   public static final String INVALID_NUMBER_OF_HUFFMAN_CODES = "jpeg.error.invalid_number_of_huffman_codes";
 
+  /**
+   * Scan component refers to a Huffman table that was not defined.
+   */
+  public static final String MISSING_HUFFMAN_TABLE = "jpeg.error.missing_huffman_table";
+
+  /**
+   * Restart interval with the number of MCUs given in the DRI marker not followed by a restart marker.
+   */
+  public static final String MISSING_RESTART_MARKER = "jpeg.error.missing_restart_marker";
+
+  /**
+   * More bits needed to decode all MCUs of a scan than its data contains.
+   */
+  public static final String SCAN_DATA_TOO_SHORT = "jpeg.error.scan_data_too_short";
+
+  /**
+   * Position of the MCU where decoding a scan stopped because of an error.
+   */
+  public static final String SCAN_DECODING_FAILED = "jpeg.error.scan_decoding_failed";
+
+  /**
+   * Sum of the products of sampling factors of the components of an interleaved scan is too large.
+   */
+  public static final String TOO_MANY_BLOCKS_IN_MCU = "jpeg.error.too_many_blocks_in_mcu";
+
+  /**
+   * Coefficient storage for a progressive frame could not be created.
+   */
+  public static final String COEFFICIENT_STORAGE_FAILED = "jpeg.error.coefficient_storage_failed";
+
+  /**
+   * Not all bits of a coefficient were coded by the scans of a progressive frame.
+   */
+  public static final String COEFFICIENTS_INCOMPLETE = "jpeg.error.coefficients_incomplete";
+
+  /**
+   * A coefficient was not coded by any scan of a progressive frame.
+   */
+  public static final String COEFFICIENTS_NOT_CODED = "jpeg.error.coefficients_not_coded";
+
+  /**
+   * Progressive scan codes coefficients out of the required order.
+   */
+  public static final String INVALID_PROGRESSION = "jpeg.error.invalid_progression";
+
+  /**
+   * Spectral selection or successive approximation values of a progressive scan are invalid.
+   */
+  public static final String INVALID_PROGRESSIVE_SCAN = "jpeg.error.invalid_progressive_scan";
+
+  /**
+   * Newly nonzero coefficient in an AC refinement scan has a magnitude category other than 1.
+   */
+  public static final String INVALID_REFINEMENT_MAGNITUDE = "jpeg.error.invalid_refinement_magnitude";
+
+  /**
+   * Predictor selection, point transform or other parameters of a lossless scan are invalid.
+   */
+  public static final String INVALID_LOSSLESS_SCAN = "jpeg.error.invalid_lossless_scan";
+
+  /**
+   * Lossless scan data contains a difference magnitude category larger than 16.
+   */
+  public static final String INVALID_DIFFERENCE_CATEGORY = "jpeg.error.invalid_difference_category";
+
+  /**
+   * Lossless sample reconstructed from prediction and difference does not fit into the sample precision.
+   */
+  public static final String LOSSLESS_SAMPLE_OUT_OF_RANGE = "jpeg.error.lossless_sample_out_of_range";
+
+  /**
+   * Length of an arithmetic conditioning marker (DAC) is not two bytes per table.
+   */
+  public static final String INVALID_CONDITIONING_LENGTH = "jpeg.error.invalid_conditioning_length";
+
+  /**
+   * Table class or destination identifier in an arithmetic conditioning marker is invalid.
+   */
+  public static final String INVALID_CONDITIONING_TABLE = "jpeg.error.invalid_conditioning_table";
+
+  /**
+   * Conditioning value in an arithmetic conditioning marker is invalid.
+   */
+  public static final String INVALID_CONDITIONING_VALUE = "jpeg.error.invalid_conditioning_value";
+
+  /**
+   * Magnitude category decoded from arithmetic-coded data is larger than 15.
+   */
+  public static final String INVALID_ARITHMETIC_MAGNITUDE = "jpeg.error.invalid_arithmetic_magnitude";
+
   private Msg()
   {
   }
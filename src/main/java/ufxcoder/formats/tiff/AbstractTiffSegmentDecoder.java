@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+/**
+ * Base class for decompressors of strip and tile data. Verification only needs the size of the decompressed data, so
+ * decoders are free to discard decoded bytes once they have been counted. An instance is used by one thread at a time
+ * and reused for many segments.
+ */
+public abstract class AbstractTiffSegmentDecoder
+{
+  /**
+   * Returned by {@link #decode(TiffSegmentLayout, TiffSegment, byte[])} if the data uses a feature which cannot be
+   * verified.
+   */
+  public static final long UNSUPPORTED = -1;
+  private TiffSegmentError error;
+
+  /**
+   * Decompress the data of a segment. Decoding stops at the end of the data, when the data signals its end, on the
+   * first error or as soon as more than {@link TiffSegment#getExpectedSize()} bytes were decoded.
+   *
+   * @param layout
+   *          layout of the image the segment belongs to
+   * @param segment
+   *          segment with data starting at {@link TiffSegment#getDataIndex()} and {@link TiffSegment#getByteCount()}
+   *          bytes large
+   * @param input
+   *          buffer holding the compressed data
+   * @return number of decoded bytes or {@link #UNSUPPORTED}
+   */
+  public abstract long decode(TiffSegmentLayout layout, TiffSegment segment, byte[] input);
+
+  /**
+   * Remember an error found by {@link #decode(TiffSegmentLayout, TiffSegment, byte[])}.
+   *
+   * @param messageKey
+   *          message key
+   * @param arguments
+   *          arguments to be formatted into the message
+   */
+  protected void fail(final String messageKey, final Object... arguments)
+  {
+    error = new TiffSegmentError(messageKey, arguments);
+  }
+
+  protected boolean hasFailed()
+  {
+    return error != null;
+  }
+
+  /**
+   * Return the error of the last call to {@link #decode(TiffSegmentLayout, TiffSegment, byte[])} and forget it.
+   *
+   * @return error or null if decoding succeeded
+   */
+  public TiffSegmentError takeError()
+  {
+    final TiffSegmentError result = error;
+    error = null;
+    return result;
+  }
+
+  /**
+   * Release resources held by this decoder, it must not be used afterwards.
+   */
+  public void close()
+  {
+    // nothing to release by default
+  }
+}
@@ -172,11 +172,69 @@ public final class Constants
    */
   public static final int COMPRESSION_MODIFIED_HUFFMAN_RLE = 2;
 
+  /**
+   * Compression type CCITT Group 3 fax (T.4), one- or two-dimensional depending on
+   * {@link FieldDescriptionFactory#T4_OPTIONS}.
+   */
+  public static final int COMPRESSION_CCITT_T4 = 3;
+
+  /**
+   * Compression type CCITT Group 4 fax (T.6), two-dimensional.
+   */
+  public static final int COMPRESSION_CCITT_T6 = 4;
+
+  /**
+   * Compression type Lempel-Ziv-Welch.
+   */
+  public static final int COMPRESSION_LZW = 5;
+
+  /**
+   * Compression type Deflate (zlib stream) as registered in TIFF specification supplement 2.
+   */
+  public static final int COMPRESSION_DEFLATE = 8;
+
   /**
    * Compression type Packbits.
    */
   public static final int COMPRESSION_PACKBITS = 32773;
 
+  /**
+   * Compression type Deflate (zlib stream) as used by Adobe before registration of {@link #COMPRESSION_DEFLATE}.
+   */
+  public static final int COMPRESSION_ADOBE_DEFLATE = 32946;
+
+  /**
+   * Predictor value for horizontal differencing of integer samples.
+   *
+   * @see FieldDescriptionFactory#PREDICTOR
+   */
+  public static final int PREDICTOR_HORIZONTAL = 2;
+
+  /**
+   * Predictor value for differencing of floating point samples.
+   *
+   * @see FieldDescriptionFactory#PREDICTOR
+   */
+  public static final int PREDICTOR_FLOATING_POINT = 3;
+
+  /**
+   * Fill order value for pixels stored in the lowest bits of a byte first.
+   *
+   * @see FieldDescriptionFactory#FILL_ORDER
+   */
+  public static final int FILL_ORDER_LOWEST_BIT_FIRST = 2;
+
+  /**
+   * Bit in {@link FieldDescriptionFactory#T4_OPTIONS} for two-dimensional coding.
+   */
+  public static final int T4_OPTION_TWO_DIMENSIONAL = 1;
+
+  /**
+   * Bit in {@link FieldDescriptionFactory#T4_OPTIONS} and {@link FieldDescriptionFactory#T6_OPTIONS} for uncompressed
+   * mode.
+   */
+  public static final int CCITT_OPTION_UNCOMPRESSED = 2;
+
   /**
    * Maximum size of field data outside of an image file directory to be allocated at once.
    */
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import ufxcoder.formats.FileDescription;
+import ufxcoder.formats.jpeg.JpegFileDescription;
+import ufxcoder.formats.jpeg.JpegFrame;
+import ufxcoder.formats.jpeg.JpegFrameComponent;
+import ufxcoder.formats.jpeg.JpegProcessor;
+
+/**
+ * Validator for the raw image of a CR2 file. It is a lossless JPEG stream stored as the strip of the fourth image file
+ * directory. The camera wrote the sensor lines as vertical slices,
+ * {@link FieldDescriptionFactory#CR2_SLICE_INFORMATION} holds the number of slices of regular width, that width and the
+ * width of the last slice. Together the slices must cover one line of the frame.
+ */
+public class Cr2RawValidator
+{
+  private static final int SLICE_COUNT = 0;
+  private static final int SLICE_WIDTH = 1;
+  private static final int LAST_SLICE_WIDTH = 2;
+  private final TiffProcessor proc;
+
+  public Cr2RawValidator(final TiffProcessor proc)
+  {
+    this.proc = proc;
+  }
+
+  /**
+   * Decode the raw image of a CR2 file and report errors.
+   *
+   * @param desc
+   *          description of a file for which {@link TiffFileDescription#isCr2()} is true
+   */
+  public void validate(final TiffFileDescription desc)
+  {
+    final ImageFileDirectory ifd = desc.getDirectory(Constants.CR2_IMAGE_FILE_DIRECTORIES - 1);
+    final Field offsets = ifd.findByTag(FieldDescriptionFactory.STRIP_OFFSETS);
+    final Field byteCounts = ifd.findByTag(FieldDescriptionFactory.STRIP_BYTE_COUNTS);
+    if (offsets == null || offsets.getNumValues() < 1 || byteCounts == null || byteCounts.getNumValues() < 1)
+    {
+      proc.error(Msg.CR2_RAW_DATA_MISSING, ifd.getOffset());
+    }
+    else
+    {
+      final long offset = offsets.getAsLong(0);
+      final JpegProcessor jpeg = new JpegProcessor();
+      try
+      {
+        final FileDescription jpegDesc = proc.processEmbedded(jpeg, offset, byteCounts.getAsLong(0));
+        if (jpegDesc != null)
+        {
+          checkDescription(ifd, offset, jpeg.getJpegFileDescription());
+        }
+      }
+      catch (IOException e)
+      {
+        proc.error(Msg.CR2_RAW_DATA_INVALID, offset, e.getMessage());
+      }
+    }
+  }
+
+  private void checkDescription(final ImageFileDirectory ifd, final long offset, final JpegFileDescription jpegDesc)
+  {
+    if (jpegDesc.isSuccess())
+    {
+      checkFrame(ifd, offset, jpegDesc.getFrame());
+    }
+    else
+    {
+      proc.error(Msg.CR2_RAW_DATA_INVALID, offset, jpegDesc.formatEvents());
+    }
+  }
+
+  private void checkFrame(final ImageFileDirectory ifd, final long offset, final JpegFrame frame)
+  {
+    if (frame == null || !frame.isLossless())
+    {
+      proc.error(Msg.CR2_RAW_DATA_NOT_LOSSLESS, offset);
+    }
+    else if (hasUnitSamplingFactors(frame))
+    {
+      // with subsampled components (sRaw, mRaw) slice widths are not counted in samples of the frame
+      final Field slices = ifd.findByTag(FieldDescriptionFactory.CR2_SLICE_INFORMATION);
+      final long lineSamples = (long) frame.getWidth() * frame.getNumComponents();
+      final long sliceSamples = slices.getAsLong(SLICE_COUNT) * slices.getAsLong(SLICE_WIDTH)
+          + slices.getAsLong(LAST_SLICE_WIDTH);
+      if (lineSamples != sliceSamples)
+      {
+        proc.error(Msg.CR2_SLICES_INCONSISTENT, slices.getAsLong(SLICE_COUNT), slices.getAsLong(SLICE_WIDTH),
+            slices.getAsLong(LAST_SLICE_WIDTH), frame.getWidth(), frame.getNumComponents());
+      }
+    }
+  }
+
+  private boolean hasUnitSamplingFactors(final JpegFrame frame)
+  {
+    boolean result = true;
+    for (final JpegFrameComponent comp : frame.getComponents())
+    {
+      result = result && comp.getHorizontalSamplingFactor() == 1 && comp.getVerticalSamplingFactor() == 1;
+    }
+    return result;
+  }
+}
@@ -16,16 +16,24 @@
 package ufxcoder.formats.tiff;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
 import ufxcoder.conversion.Array;
+import ufxcoder.conversion.ByteOrder;
 
 /**
  * A single entry of an image file directory, describing one property of one image in a TIFF file.
+ *
+ * <p>
+ * Values are kept as raw data and decoded on first access into a primitive array, a long array for integer and rational
+ * types and a double array for floating point types. Values only become available once a byte order has been assigned.
+ * Use {@link FieldValueReader} to iterate over the values of fields whose data was too large to be loaded.
+ * </p>
  */
 public class Field
 {
   private static final int MAX_PRINT_ELEMENTS = 48;
+  private static final BigInteger TWO_TO_THE_POWER_OF_64 = BigInteger.ONE.shiftLeft(64);
+  private static final long[] NO_INTEGERS = new long[0];
+  private static final double[] NO_REALS = new double[0];
   private int id;
   /**
    * Number representing one of the predefined types.
@@ -38,9 +46,23 @@ public class Field
    * File offset from which this value was read.
    */
   private long offset;
-  private BigInteger additionalOffset;
+  /**
+   * File offset of data stored outside of the image file directory entry, -1 if there is no such data.
+   */
+  private long additionalOffset = -1;
   private byte[] data;
-  private final List<Object> values = new ArrayList<Object>();
+  /**
+   * Byte order of {@link #data}, null as long as the data is not to be interpreted as values.
+   */
+  private ByteOrder byteOrder;
+  /**
+   * Decoded values of integer and rational types, null until first access.
+   */
+  private long[] integers;
+  /**
+   * Decoded values of floating point types, null until first access.
+   */
+  private double[] reals;
 
   public int getId()
   {
@@ -60,6 +82,7 @@ public class Field
   public void setType(final int type)
   {
     this.type = type;
+    resetValues();
   }
 
   public long getNumValues()
@@ -70,6 +93,7 @@ public class Field
   public void setNumValues(final long numValues)
   {
     this.numValues = numValues;
+    resetValues();
   }
 
   public long getOffset()
@@ -90,11 +114,177 @@ public class Field
   public void setData(final byte[] data)
   {
     this.data = Array.clone(data);
+    resetValues();
+  }
+
+  /**
+   * Assign a copy of a section of an array as data.
+   *
+   * @param source
+   *          array containing the data
+   * @param offset
+   *          index of first byte in source
+   * @param numBytes
+   *          number of bytes to copy
+   */
+  public void setData(final byte[] source, final int offset, final int numBytes)
+  {
+    this.data = Array.clone(source, offset, numBytes, 0);
+    resetValues();
+  }
+
+  public ByteOrder getByteOrder()
+  {
+    return byteOrder;
+  }
+
+  /**
+   * Assign the byte order of the data, which makes its values available.
+   *
+   * @param byteOrder
+   *          byte order of the data
+   */
+  public void setByteOrder(final ByteOrder byteOrder)
+  {
+    this.byteOrder = byteOrder;
+    resetValues();
+  }
+
+  /**
+   * Assign integer values directly instead of decoding them from data.
+   *
+   * @param values
+   *          integer values
+   */
+  public void setValues(final long... values)
+  {
+    integers = values == null ? NO_INTEGERS : values.clone();
+    reals = NO_REALS;
+    numValues = integers.length;
+  }
+
+  private void resetValues()
+  {
+    integers = null;
+    reals = null;
+  }
+
+  /**
+   * Decode all values from data unless that has already happened.
+   */
+  private void decode()
+  {
+    if (integers == null)
+    {
+      integers = NO_INTEGERS;
+      reals = NO_REALS;
+      final FieldType fieldType = FieldType.findById(type);
+      if (fieldType != null && byteOrder != null && data != null)
+      {
+        final int size = fieldType.getSize();
+        final int num = (int) Math.min(numValues, data.length / size);
+        if (fieldType == FieldType.Float || fieldType == FieldType.Double)
+        {
+          reals = new double[num];
+          for (int index = 0; index < num; index++)
+          {
+            reals[index] = decodeReal(fieldType, data, index * size, byteOrder);
+          }
+        }
+        if (hasIntegerValues(fieldType))
+        {
+          integers = new long[num];
+          for (int index = 0; index < num; index++)
+          {
+            integers[index] = decodeInteger(fieldType, data, index * size, byteOrder);
+          }
+        }
+      }
+    }
   }
 
-  public void add(final Object obj)
+  /**
+   * Check whether values of a type are decoded by {@link #decodeInteger(FieldType, byte[], int, ByteOrder)}.
+   *
+   * @param fieldType
+   *          type to check
+   * @return true for integer and rational types, false for floating point types, characters and undefined bytes
+   */
+  static boolean hasIntegerValues(final FieldType fieldType)
   {
-    values.add(obj);
+    return fieldType != FieldType.Float && fieldType != FieldType.Double && fieldType != FieldType.Char
+        && fieldType != FieldType.Undefined;
+  }
+
+  /**
+   * Decode a single value of an integer or rational type. Unsigned 64 bit values larger than {@link Long#MAX_VALUE} are
+   * returned as negative numbers. Rationals are returned as the integer part of the fraction, undefined fractions
+   * 0/0 as 0 and fractions with a zero denominator as their numerator.
+   *
+   * @param fieldType
+   *          type of the value, one for which {@link #hasIntegerValues(FieldType)} is true
+   * @param buffer
+   *          array with the value
+   * @param index
+   *          index of first byte of the value in buffer
+   * @param order
+   *          byte order of the value
+   * @return decoded value
+   */
+  static long decodeInteger(final FieldType fieldType, final byte[] buffer, final int index, final ByteOrder order)
+  {
+    long result;
+    switch (fieldType)
+    {
+    case Byte:
+      result = buffer[index] & 0xff;
+      break;
+    case SignedByte:
+      result = buffer[index];
+      break;
+    case Short:
+      result = Array.from16(buffer, index, order);
+      break;
+    case SignedShort:
+      result = (short) Array.from16(buffer, index, order);
+      break;
+    case Long:
+    case IfdOffset:
+      result = Array.from32(buffer, index, order) & 0xffffffffL;
+      break;
+    case SignedLong:
+      result = Array.from32(buffer, index, order);
+      break;
+    case Rational:
+      result = divide(Array.from32(buffer, index, order) & 0xffffffffL,
+          Array.from32(buffer, index + FieldType.Long.getSize(), order) & 0xffffffffL);
+      break;
+    case SignedRational:
+      result = divide(Array.from32(buffer, index, order),
+          Array.from32(buffer, index + FieldType.SignedLong.getSize(), order));
+      break;
+    default:
+      result = Array.from64(buffer, index, order);
+      break;
+    }
+    return result;
+  }
+
+  private static long divide(final long numerator, final long denominator)
+  {
+    return denominator == 0 ? numerator : numerator / denominator;
+  }
+
+  private static double decodeReal(final FieldType fieldType, final byte[] buffer, final int index,
+      final ByteOrder order)
+  {
+    return fieldType == FieldType.Float ? Float.intBitsToFloat(Array.from32(buffer, index, order))
+        : Double.longBitsToDouble(Array.from64(buffer, index, order));
+  }
+
+  private boolean isUnsigned64()
+  {
+    return type == FieldType.Long8.getId() || type == FieldType.IfdOffset8.getId();
   }
 
   public Number getAsNumber()
@@ -104,13 +294,21 @@ public class Field
 
   public Number getAsNumber(final int index)
   {
+    decode();
     Number result = null;
-    if (index >= 0 && index < values.size())
+    if (index >= 0)
     {
-      final Object object = values.get(index);
-      if (object instanceof Number)
+      if (index < integers.length)
       {
-        result = (Number) object;
+        final long value = integers[index];
+        result = value < 0 && isUnsigned64() ? getAsBigInteger(index) : Long.valueOf(value);
+      }
+      else
+      {
+        if (index < reals.length)
+        {
+          result = Double.valueOf(reals[index]);
+        }
       }
     }
     return result;
@@ -123,20 +321,23 @@ public class Field
 
   public BigInteger getAsBigInteger(final int index)
   {
+    decode();
     BigInteger result = null;
-    if (index >= 0 && index < values.size())
+    if (index >= 0)
     {
-      final Object object = values.get(index);
-      if (object instanceof BigInteger)
+      if (index < integers.length)
       {
-        result = (BigInteger) object;
+        result = BigInteger.valueOf(integers[index]);
+        if (result.signum() < 0 && isUnsigned64())
+        {
+          result = result.add(TWO_TO_THE_POWER_OF_64);
+        }
       }
       else
       {
-        if (object instanceof Number)
+        if (index < reals.length)
         {
-          final Number number = (Number) object;
-          result = BigInteger.valueOf(number.longValue());
+          result = BigInteger.valueOf((long) reals[index]);
         }
       }
     }
@@ -150,8 +351,7 @@ public class Field
 
   public int getAsInt(final int index)
   {
-    final Number result = getAsNumber(index);
-    return result == null ? 0 : result.intValue();
+    return (int) getAsLong(index);
   }
 
   public long getAsLong()
@@ -161,31 +361,53 @@ public class Field
 
   public long getAsLong(final int index)
   {
-    final Number result = getAsNumber(index);
-    return result == null ? 0 : result.longValue();
+    decode();
+    long result = 0;
+    if (index >= 0)
+    {
+      if (index < integers.length)
+      {
+        result = integers[index];
+      }
+      else
+      {
+        if (index < reals.length)
+        {
+          result = (long) reals[index];
+        }
+      }
+    }
+    return result;
   }
 
   public String getAsString()
   {
+    decode();
     final StringBuilder result = new StringBuilder();
     final boolean isChar = type == FieldType.Char.getId();
-    int counter = 0;
-    for (final Object obj : values)
+    int num = Math.max(integers.length, reals.length);
+    final FieldType fieldType = FieldType.findById(type);
+    if (num == 0 && fieldType != null && byteOrder != null && data != null)
     {
-      if (!isChar && result.length() > 0)
-      {
-        result.append(' ');
-      }
-      if (obj == null)
+      // characters and undefined bytes
+      num = (int) Math.min(numValues, data.length / fieldType.getSize());
+    }
+    for (int index = 0; index < num; index++)
+    {
+      if (isChar)
       {
-        result.append('?');
+        result.append((char) data[index]);
       }
       else
       {
-        result.append(obj.toString());
+        if (result.length() > 0)
+        {
+          result.append(' ');
+        }
+        final Number number = getAsNumber(index);
+        result.append(number == null ? "?" : number.toString());
       }
-      counter++;
-      if (counter == MAX_PRINT_ELEMENTS)
+      if (index + 1 == MAX_PRINT_ELEMENTS)
       {
         result.append(" ...");
         break;
@@ -194,12 +416,12 @@ public class Field
     return result.toString();
   }
 
-  public BigInteger getAdditionalOffset()
+  public long getAdditionalOffset()
   {
     return additionalOffset;
   }
 
-  public void setAdditionalOffset(final BigInteger additionalOffset)
+  public void setAdditionalOffset(final long additionalOffset)
   {
     this.additionalOffset = additionalOffset;
   }
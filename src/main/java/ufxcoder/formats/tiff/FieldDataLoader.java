@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import ufxcoder.io.SeekableSource;
+
+/**
+ * Read the values of fields stored outside of their image file directory. Instead of a seek and a read per field the
+ * data ranges of all fields of a directory are sorted by offset, ranges separated by at most {@link #MAX_GAP} bytes are
+ * merged and each merged range is read at once, so that the number of reads per directory is usually one or two no
+ * matter how many fields it has.
+ */
+public class FieldDataLoader
+{
+  /**
+   * Ranges separated by at most this many unused bytes are read together.
+   */
+  public static final int MAX_GAP = 4 * 1024;
+  /**
+   * A range is only extended by further fields while it is not larger than this.
+   */
+  public static final int MAX_READ_SIZE = 256 * 1024;
+
+  /**
+   * Order fields by the offset of their additional data.
+   */
+  private static final class OffsetComparator implements Comparator<Field>, Serializable
+  {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int compare(final Field field1, final Field field2)
+    {
+      return Long.compare(getStart(field1), getStart(field2));
+    }
+  }
+
+  private final List<Field> fields = new ArrayList<>();
+  private byte[] buffer = new byte[0];
+
+  /**
+   * Read the data of fields and assign it to them. The additional offset of each field must point to a valid section
+   * of at most {@link Constants#MAX_FIELD_DATA_ALLOCATION_SIZE} bytes.
+   *
+   * @param source
+   *          source containing the data
+   * @param toBeLoaded
+   *          fields with additional offset and known type, in any order
+   * @return number of reads performed
+   * @throws IOException
+   *           if reading fails
+   */
+  public int load(final SeekableSource source, final List<Field> toBeLoaded) throws IOException
+  {
+    fields.clear();
+    fields.addAll(toBeLoaded);
+    Collections.sort(fields, new OffsetComparator());
+    int numReads = 0;
+    int first = 0;
+    while (first < fields.size())
+    {
+      final long start = getStart(fields.get(first));
+      long end = getEnd(fields.get(first));
+      int last = first + 1;
+      while (last < fields.size() && getStart(fields.get(last)) - end <= MAX_GAP
+          && Math.max(end, getEnd(fields.get(last))) - start <= MAX_READ_SIZE)
+      {
+        end = Math.max(end, getEnd(fields.get(last)));
+        last++;
+      }
+      read(source, start, (int) (end - start));
+      numReads++;
+      for (int index = first; index < last; index++)
+      {
+        final Field field = fields.get(index);
+        field.setData(buffer, (int) (getStart(field) - start), (int) (getEnd(field) - getStart(field)));
+      }
+      first = last;
+    }
+    return numReads;
+  }
+
+  private void read(final SeekableSource source, final long start, final int numBytes) throws IOException
+  {
+    if (buffer.length < numBytes)
+    {
+      buffer = new byte[numBytes];
+    }
+    source.seek(start);
+    source.readFully(buffer, 0, numBytes);
+  }
+
+  private static long getStart(final Field field)
+  {
+    return field.getAdditionalOffset();
+  }
+
+  private static long getEnd(final Field field)
+  {
+    return getStart(field) + field.getNumValues() * FieldType.findById(field.getType()).getSize();
+  }
+}
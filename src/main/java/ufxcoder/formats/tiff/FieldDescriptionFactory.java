@@ -300,6 +300,22 @@ public final class FieldDescriptionFactory
       {
           FieldType.Char
       })), null, null, 1, Integer.MAX_VALUE, null, false);
+  /**
+   * Options of CCITT Group 3 compression.
+   */
+  public static final FieldDescription T4_OPTIONS = new FieldDescription(292,
+      new HashSet<FieldType>(Arrays.asList(new FieldType[]
+      {
+          FieldType.Long
+      })), null, null, 1, 1, 0, false);
+  /**
+   * Options of CCITT Group 4 compression.
+   */
+  public static final FieldDescription T6_OPTIONS = new FieldDescription(293,
+      new HashSet<FieldType>(Arrays.asList(new FieldType[]
+      {
+          FieldType.Long
+      })), null, null, 1, 1, 0, false);
   /**
    * Function to be applied to image data before compression.
    */
@@ -365,6 +381,14 @@ public final class FieldDescriptionFactory
       {
           FieldType.Short
       })), 0, 2, 0, Integer.MAX_VALUE, null, false);
+  /**
+   * Horizontal and vertical subsampling factors of the chroma components of YCbCr images.
+   */
+  public static final FieldDescription Y_CB_CR_SUB_SAMPLING = new FieldDescription(530,
+      new HashSet<FieldType>(Arrays.asList(new FieldType[]
+      {
+          FieldType.Short
+      })), 1, 4, 2, 2, null, false);
   /**
    * Offset to JPEG stream.
    */
@@ -457,9 +481,9 @@ public final class FieldDescriptionFactory
       PHOTOMETRIC_INTERPRETATION, THRESHHOLDING, CELL_WIDTH, CELL_LENGTH, FILL_ORDER, DOCUMENT_NAME, IMAGE_DESCRIPTION,
       MAKE, MODEL, STRIP_OFFSETS, ORIENTATION, ROWS_PER_STRIP, STRIP_BYTE_COUNTS, MIN_SAMPLE_VALUE, MAX_SAMPLE_VALUE,
       X_RESOLUTION, Y_RESOLUTION, PLANAR_CONFIGURATION, FREE_OFFSETS, FREE_BYTE_COUNTS, RESOLUTION_UNIT, SOFTWARE,
-      DATE_TIME, ARTIST, HOST_COMPUTER, PREDICTOR, COLOR_MAP, TILE_WIDTH, TILE_LENGTH, TILE_OFFSETS, TILE_BYTE_COUNTS,
-      SUB_IMAGE_FILE_DIRECTORIES, COPYRIGHT, GPS, DATE_TIME_ORIGINAL, DATE_TIME_DIGITIZED, DNG_VERSION, LENS_INFO,
-      CR2_SLICE_INFORMATION
+      DATE_TIME, ARTIST, HOST_COMPUTER, T4_OPTIONS, T6_OPTIONS, PREDICTOR, COLOR_MAP, TILE_WIDTH, TILE_LENGTH,
+      TILE_OFFSETS, TILE_BYTE_COUNTS, SUB_IMAGE_FILE_DIRECTORIES, Y_CB_CR_SUB_SAMPLING, COPYRIGHT, GPS,
+      DATE_TIME_ORIGINAL, DATE_TIME_DIGITIZED, DNG_VERSION, LENS_INFO, CR2_SLICE_INFORMATION
   };
   /**
    * TIFF field descriptions for baseline files.
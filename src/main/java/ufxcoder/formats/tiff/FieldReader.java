@@ -17,6 +17,8 @@ package ufxcoder.formats.tiff;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ufxcoder.conversion.Array;
@@ -25,12 +27,22 @@ import ufxcoder.io.SeekableSource;
 import ufxcoder.io.Segment;
 
 /**
- * Parse TIFF fields, the entries of an image file directory.
+ * Parse TIFF fields, the entries of an image file directory. Data stored outside of the directory is not read while
+ * parsing the entries but collected and read at once by {@link #loadAdditionalData(ByteOrder)}.
  */
 public class FieldReader
 {
   private static final Logger LOGGER = LoggerFactory.getLogger(FieldReader.class);
   private final TiffProcessor processor;
+  private final FieldDataLoader loader = new FieldDataLoader();
+  /**
+   * Fields parsed since the last call to {@link #loadAdditionalData(ByteOrder)}.
+   */
+  private final List<Field> parsed = new ArrayList<>();
+  /**
+   * Fields among {@link #parsed} whose data is yet to be read.
+   */
+  private final List<Field> pending = new ArrayList<>();
 
   public FieldReader(final TiffProcessor proc)
   {
@@ -59,30 +71,54 @@ public class FieldReader
     byte[] data;
     if (big)
     {
-      count = rawIfd.int64();
+      count = rawIfd.uint(8);
       data = rawIfd.getData(8);
     }
     else
     {
-      count = rawIfd.int32();
+      count = rawIfd.uint(4);
       data = rawIfd.getData(4);
     }
     field.setNumValues(count);
     field.setData(data);
 
-    // if data did not fit into IFD entry load it (unless in mode "identify")
+    // if data did not fit into IFD entry register it for loading (unless in mode "identify")
     if (!processor.isIdentify())
     {
-      if (loadAdditionalData(field))
+      if (checkAdditionalData(field))
       {
         parseFieldData(field, rawIfd.getByteOrder());
       }
-      log(field);
+      parsed.add(field);
     }
 
     return field;
   }
 
+  /**
+   * Read the data of all fields parsed so far that did not fit into their directory entries and parse it.
+   *
+   * @param byteOrder
+   *          byte order of the data
+   * @throws IOException
+   *           if reading the data fails
+   */
+  public void loadAdditionalData(final ByteOrder byteOrder) throws IOException
+  {
+    final int numReads = loader.load(processor.getSource(), pending);
+    for (final Field field : pending)
+    {
+      parseFieldData(field, byteOrder);
+    }
+    for (final Field field : parsed)
+    {
+      log(field);
+    }
+    LOGGER.debug(String.format("Loaded data of %d field(s) with %d read(s).", pending.size(), numReads));
+    pending.clear();
+    parsed.clear();
+  }
+
   private void log(final Field field)
   {
     if (LOGGER.isDebugEnabled())
@@ -107,15 +143,16 @@ public class FieldReader
   }
 
   /**
-   * Check if data fits into offset value and if it does not load data from another section of the file.
+   * Check if data fits into offset value and if it does not register the field for loading its data from another
+   * section of the file.
    *
    * @param field
    *          the TIFF field to check
-   * @return whether loading was successful
+   * @return whether the data is available and can be parsed right away
    * @throws IOException
-   *           if loading data failed
+   *           if the source length cannot be determined
    */
-  private boolean loadAdditionalData(final Field field) throws IOException
+  private boolean checkAdditionalData(final Field field) throws IOException
   {
     boolean result;
     final FieldType valueType = FieldType.findById(field.getType());
@@ -126,37 +163,45 @@ public class FieldReader
     }
     else
     {
-      final long dataSize = field.getNumValues() * valueType.getSize();
+      final long dataSize = computeDataSize(field.getNumValues(), valueType.getSize());
       final TiffFileDescription desc = processor.getTiffFileDescription();
       final boolean big = desc.isBig();
-      final boolean fits = dataSize <= (big ? Constants.OFFSET_SIZE_BIG : Constants.OFFSET_SIZE_REGULAR);
+      final boolean fits = dataSize >= 0
+          && dataSize <= (big ? Constants.OFFSET_SIZE_BIG : Constants.OFFSET_SIZE_REGULAR);
       final byte[] data = field.getData();
+      final ByteOrder byteOrder = desc.getByteOrder();
+      final long offset = big ? Array.from64(data, 0, byteOrder) : Array.from32(data, 0, byteOrder) & 0xffffffffL;
       if (fits)
       {
         result = true;
       }
+      else if (offset < 0 || dataSize < 0)
+      {
+        // BigTIFF offset or data size larger than 2^63 - 1
+        final String value = offset < 0 ? Long.toUnsignedString(offset)
+            : BigInteger.valueOf(valueType.getSize()).multiply(toUnsigned(field.getNumValues())).toString();
+        processor.error(Msg.OFFSET_OUT_OF_RANGE, value, field.getOffset());
+        result = false;
+      }
       else
       {
-        final ByteOrder byteOrder = desc.getByteOrder();
-        final BigInteger offset = Array.toBigInteger(data, byteOrder);
         processor.checkImageFileDirectoryOffset(offset);
         final SeekableSource source = processor.getSource();
-        if (source.isValidSection(offset, BigInteger.valueOf(dataSize)))
+        if (source.isValidSection(offset, dataSize))
         {
           field.setAdditionalOffset(offset);
+          desc.getCoverage().add(Msg.RANGE_FIELD_DATA, offset, dataSize, field.getOffset(), field.getId());
           if (dataSize <= Constants.MAX_FIELD_DATA_ALLOCATION_SIZE)
           {
-            source.seek(offset);
-            final byte[] buffer = new byte[(int) dataSize];
-            source.readFully(buffer, 0, buffer.length);
-            field.setData(buffer);
-            result = true;
+            pending.add(field);
           }
           else
           {
+            // too large to be loaded, values can only be read with a FieldValueReader
             field.setData(null);
-            result = false;
+            field.setByteOrder(byteOrder);
           }
+          result = false;
         }
         else
         {
@@ -168,6 +213,34 @@ public class FieldReader
     return result;
   }
 
+  /**
+   * Compute the number of bytes required by a field's values.
+   *
+   * @param numValues
+   *          number of values, negative if larger than {@link Long#MAX_VALUE}
+   * @param size
+   *          size of a single value in bytes
+   * @return number of bytes or -1 if that number does not fit into a long
+   */
+  private static long computeDataSize(final long numValues, final int size)
+  {
+    return numValues < 0 || numValues > Long.MAX_VALUE / size ? -1 : numValues * size;
+  }
+
+  private static BigInteger toUnsigned(final long value)
+  {
+    return new BigInteger(Long.toUnsignedString(value));
+  }
+
+  /**
+   * Make the values of a field available. They are decoded lazily by the field itself, only fractions are checked here
+   * for zero denominators.
+   *
+   * @param field
+   *          field whose data has been assigned
+   * @param byteOrder
+   *          byte order of the data
+   */
   private void parseFieldData(final Field field, final ByteOrder byteOrder)
   {
     final FieldType type = FieldType.findById(field.getType());
@@ -177,71 +250,27 @@ public class FieldReader
     }
     else
     {
-      final byte[] data = field.getData();
-      int offset = 0;
-      for (long i = 0; i < field.getNumValues(); i++)
+      field.setByteOrder(byteOrder);
+      if (type == FieldType.Rational || type == FieldType.SignedRational)
       {
-        final Object value = parse(data, offset, type, byteOrder);
-        field.add(value);
-        offset += type.getSize();
+        checkDenominators(field.getData(), field.getNumValues(), byteOrder);
       }
     }
   }
 
-  private Object parse(final byte[] data, final int offset, final FieldType type, final ByteOrder byteOrder)
+  private void checkDenominators(final byte[] data, final long numValues, final ByteOrder byteOrder)
   {
-    Object result;
-    switch (type)
-    {
-    case Byte:
+    final int size = FieldType.Rational.getSize();
+    final int numChecked = data == null ? 0 : (int) Math.min(numValues, data.length / size);
+    for (int index = 0; index < numChecked; index++)
     {
-      result = Integer.valueOf(data[offset] & 0xff);
-      break;
-    }
-    case Char:
-    {
-      result = Character.valueOf((char) data[offset]);
-      break;
-    }
-    case Short:
-    {
-      result = Integer.valueOf(Array.from16(data, offset, byteOrder));
-      break;
-    }
-    case Long:
-    {
-      result = Array.toBigInteger(data, offset, 4, byteOrder);
-      break;
-    }
-    case Rational:
-    {
-      final Integer numerator = Integer.valueOf(Array.from32(data, offset, byteOrder));
-      final Integer denominator = Integer.valueOf(Array.from32(data, offset + FieldType.Long.getSize(), byteOrder));
-      if (denominator.equals(0))
+      final int offset = index * size;
+      // 0/0 means "undefined"
+      if (Array.from32(data, offset + FieldType.Long.getSize(), byteOrder) == 0 && Array.from32(data, offset,
+          byteOrder) != 0)
       {
-        if (numerator.equals(0))
-        {
-          // 0/0 means "undefined"
-          result = 0;
-        }
-        else
-        {
-          processor.error("tiff.error.validation.denominator_zero");
-          result = numerator;
-        }
+        processor.error("tiff.error.validation.denominator_zero");
       }
-      else
-      {
-        result = numerator / denominator;
-      }
-      break;
-    }
-    default:
-    {
-      result = null;
-      break;
-    }
     }
-    return result;
   }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import ufxcoder.conversion.ByteOrder;
+import ufxcoder.io.SeekableSource;
+
+/**
+ * Iterate over the integer values of a {@link Field}. Values are decoded from the field's data if it was loaded and
+ * otherwise read chunk by chunk from the source, so that fields with more values than can be loaded at once (like the
+ * offsets of hundreds of thousands of tiles) are processed without holding all of them in memory.
+ */
+public class FieldValueReader
+{
+  /**
+   * Number of bytes read from the source at once for fields whose data was not loaded.
+   */
+  public static final int CHUNK_SIZE = 16 * 1024;
+  private final SeekableSource source;
+  private final FieldType type;
+  private final ByteOrder byteOrder;
+  private final long numValues;
+  private byte[] buffer;
+  private int bufferIndex;
+  private int bufferLength;
+  /**
+   * Source offset of the next chunk to be read.
+   */
+  private long chunkOffset;
+  private long index;
+
+  /**
+   * Create a reader for the values of a field.
+   *
+   * @param source
+   *          source to read values from if the field's data was not loaded
+   * @param field
+   *          field whose values are to be read; without type of integer or rational values or without byte order the
+   *          reader has no values
+   */
+  public FieldValueReader(final SeekableSource source, final Field field)
+  {
+    this.source = source;
+    type = FieldType.findById(field.getType());
+    byteOrder = field.getByteOrder();
+    final byte[] data = field.getData();
+    if (type == null || byteOrder == null || !Field.hasIntegerValues(type))
+    {
+      numValues = 0;
+    }
+    else
+    {
+      if (data == null)
+      {
+        numValues = field.getAdditionalOffset() < 0 ? 0 : field.getNumValues();
+        chunkOffset = numValues == 0 ? 0 : field.getAdditionalOffset();
+      }
+      else
+      {
+        numValues = Math.min(field.getNumValues(), data.length / type.getSize());
+        buffer = data;
+        bufferLength = data.length;
+      }
+    }
+  }
+
+  public boolean hasNext()
+  {
+    return index < numValues;
+  }
+
+  /**
+   * Return the next value.
+   *
+   * @return value as decoded by {@link Field#decodeInteger(FieldType, byte[], int, ByteOrder)}
+   * @throws IOException
+   *           if reading the next chunk from the source failed
+   * @throws NoSuchElementException
+   *           if there are no more values
+   */
+  public long next() throws IOException
+  {
+    if (!hasNext())
+    {
+      throw new NoSuchElementException();
+    }
+    final int size = type.getSize();
+    if (bufferIndex + size > bufferLength)
+    {
+      readChunk(size);
+    }
+    final long result = Field.decodeInteger(type, buffer, bufferIndex, byteOrder);
+    bufferIndex += size;
+    index++;
+    return result;
+  }
+
+  private void readChunk(final int size) throws IOException
+  {
+    final long numBytes = Math.min(CHUNK_SIZE / size, numValues - index) * size;
+    if (buffer == null)
+    {
+      buffer = new byte[CHUNK_SIZE];
+    }
+    source.seek(chunkOffset);
+    source.readFully(buffer, 0, (int) numBytes);
+    chunkOffset += numBytes;
+    bufferIndex = 0;
+    bufferLength = (int) numBytes;
+  }
+}
@@ -15,7 +15,6 @@
  */
 package ufxcoder.formats.tiff;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -29,12 +28,12 @@ public class ImageFileDirectory
   private long numTags;
   private final List<Field> fields = new ArrayList<Field>();
   private final Map<Integer, Field> mapTagToFields = new HashMap<Integer, Field>();
-  private BigInteger nextImageFileDirectoryOffset;
-  private final BigInteger offset;
+  private long nextImageFileDirectoryOffset;
+  private final long offset;
   private final List<ImageFileDirectory> subs = new ArrayList<ImageFileDirectory>();
   private ImageFileDirectory gpsInfo;
 
-  public ImageFileDirectory(final BigInteger offset)
+  public ImageFileDirectory(final long offset)
   {
     this.offset = offset;
   }
@@ -95,12 +94,12 @@ public class ImageFileDirectory
     return result;
   }
 
-  public BigInteger getNextImageFileDirectoryOffset()
+  public long getNextImageFileDirectoryOffset()
   {
     return nextImageFileDirectoryOffset;
   }
 
-  public void setNextImageFileDirectoryOffset(final BigInteger nextImageFileDirectoryOffset)
+  public void setNextImageFileDirectoryOffset(final long nextImageFileDirectoryOffset)
   {
     this.nextImageFileDirectoryOffset = nextImageFileDirectoryOffset;
   }
@@ -110,7 +109,7 @@ public class ImageFileDirectory
     return fields;
   }
 
-  public BigInteger getOffset()
+  public long getOffset()
   {
     return offset;
   }
@@ -16,7 +16,6 @@
 package ufxcoder.formats.tiff;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
@@ -30,6 +29,11 @@ import ufxcoder.io.Segment;
  */
 public class ImageFileDirectoryReader
 {
+  /**
+   * Number of bytes read at an image file directory's offset before its number of entries is known, enough for the
+   * entries of most directories so that a directory is read at once.
+   */
+  private static final int READ_AHEAD_SIZE = 512;
   private static final Logger LOGGER = LoggerFactory.getLogger(ImageFileDirectoryReader.class);
   private final TiffProcessor tiffProcessor;
 
@@ -38,7 +42,7 @@ public class ImageFileDirectoryReader
     this.tiffProcessor = tiffProcessor;
   }
 
-  public void readAllMetadata(final BigInteger initialOffset)
+  public void readAllMetadata(final long initialOffset)
   {
     try
     {
@@ -46,7 +50,7 @@ public class ImageFileDirectoryReader
       final TiffValidator validator = new TiffValidator(tiffProcessor);
       final TiffFileDescription desc = tiffProcessor.getTiffFileDescription();
       final ImageFileDirectoryReader reader = new ImageFileDirectoryReader(tiffProcessor);
-      BigInteger imageFileDirectoryOffset = initialOffset;
+      long imageFileDirectoryOffset = initialOffset;
       do
       {
         ifd = reader.readImageFileDirectory(tiffProcessor.getSource(), desc.isBig(), imageFileDirectoryOffset);
@@ -66,8 +70,7 @@ public class ImageFileDirectoryReader
 
         imageFileDirectoryOffset = handleContent(ifd, reader, desc);
       }
-      while (tiffProcessor.isSuccess() && imageFileDirectoryOffset != null
-          && !imageFileDirectoryOffset.equals(BigInteger.ZERO));
+      while (tiffProcessor.isSuccess() && imageFileDirectoryOffset != 0);
 
       checkCr2(desc);
     }
@@ -87,7 +90,7 @@ public class ImageFileDirectoryReader
     }
   }
 
-  private BigInteger handleContent(final ImageFileDirectory ifd, final ImageFileDirectoryReader reader,
+  private long handleContent(final ImageFileDirectory ifd, final ImageFileDirectoryReader reader,
       final TiffFileDescription desc)
   {
     List<ImageFileDirectory> ifdList = reader.readSubImageFileDirectories(ifd,
@@ -103,7 +106,7 @@ public class ImageFileDirectoryReader
     }
     reader.parseXmp(ifd.findByTag(FieldDescriptionFactory.XMP));
 
-    final BigInteger imageFileDirectoryOffset = ifd.getNextImageFileDirectoryOffset();
+    final long imageFileDirectoryOffset = ifd.getNextImageFileDirectoryOffset();
     if (desc.contains(imageFileDirectoryOffset))
     {
       LOGGER.error(tiffProcessor.msg("tiff.error.image_file_directory_repeated", imageFileDirectoryOffset,
@@ -128,18 +131,20 @@ public class ImageFileDirectoryReader
   }
 
   public ImageFileDirectory readImageFileDirectory(final SeekableSource source, final boolean big,
-      final BigInteger imageFileDirectoryOffset) throws IOException
+      final long imageFileDirectoryOffset) throws IOException
   {
-    source.seek(imageFileDirectoryOffset.longValue());
+    source.seek(imageFileDirectoryOffset);
 
     LOGGER.debug(String.format("%d IFD #%d", imageFileDirectoryOffset,
         tiffProcessor.getTiffFileDescription().getNumDirectories() + 1));
     final int countSize = big ? 8 : 2;
-    final Segment rawIfd = tiffProcessor.read(countSize);
+    final long available = source.getLength() - imageFileDirectoryOffset;
+    final Segment rawIfd = tiffProcessor.read((int) Math.max(countSize, Math.min(READ_AHEAD_SIZE, available)));
     final long numTags = big ? rawIfd.int64() : rawIfd.int16();
     final ImageFileDirectory ifd = new ImageFileDirectory(imageFileDirectoryOffset);
     ifd.setNumTags(numTags);
 
+    long size = countSize;
     if (numTags < Constants.MIN_NUMBER_OF_ENTRIES_PER_IFD)
     {
       tiffProcessor.error("tiff.error.too_few_tags", numTags);
@@ -147,7 +152,11 @@ public class ImageFileDirectoryReader
     else
     {
       parseImageFileDirectory(big, numTags, rawIfd, ifd);
+      size += numTags * (big ? Constants.TAG_SIZE_BIG : Constants.TAG_SIZE_REGULAR)
+          + (big ? Constants.OFFSET_SIZE_BIG : Constants.OFFSET_SIZE_REGULAR);
     }
+    tiffProcessor.getTiffFileDescription().getCoverage().add(Msg.RANGE_IMAGE_FILE_DIRECTORY,
+        imageFileDirectoryOffset, Math.min(size, available), imageFileDirectoryOffset, 0);
     return ifd;
   }
 
@@ -163,26 +172,47 @@ public class ImageFileDirectoryReader
     {
       tagDataSize = numTags * Constants.TAG_SIZE_REGULAR + Constants.OFFSET_SIZE_REGULAR;
     }
-    tiffProcessor.append(rawIfd, (int) tagDataSize);
+    final long missing = rawIfd.getIndex() + tagDataSize - rawIfd.getLength();
+    if (missing > 0)
+    {
+      tiffProcessor.append(rawIfd, (int) missing);
+    }
 
+    // parse all entries first so that data stored outside of the directory can be read at once
     final FieldReader reader = new FieldReader(tiffProcessor);
-    final TiffValidator val = new TiffValidator(tiffProcessor);
-    for (long i = 0; i < numTags; i++)
+    final List<Field> fields = new ArrayList<>();
+    for (long i = 0; i < numTags && tiffProcessor.isSuccess(); i++)
     {
       final Field field = reader.parseField(big, rawIfd);
       if (tiffProcessor.isSuccess())
       {
-        val.validate(field);
-        ifd.add(field);
+        fields.add(field);
       }
-      else
+    }
+    final boolean parsed = tiffProcessor.isSuccess();
+    reader.loadAdditionalData(rawIfd.getByteOrder());
+    final TiffValidator val = new TiffValidator(tiffProcessor);
+    for (final Field field : fields)
+    {
+      val.validate(field);
+      ifd.add(field);
+      if (parsed && !tiffProcessor.isSuccess())
       {
         break;
       }
     }
     if (tiffProcessor.isSuccess())
     {
-      ifd.setNextImageFileDirectoryOffset(rawIfd.bigInt(big ? 8 : 4));
+      final long position = rawIfd.getOffset() + rawIfd.getIndex();
+      final long next = rawIfd.uint(big ? Constants.OFFSET_SIZE_BIG : Constants.OFFSET_SIZE_REGULAR);
+      if (next < 0)
+      {
+        tiffProcessor.error(Msg.OFFSET_OUT_OF_RANGE, Long.toUnsignedString(next), position);
+      }
+      else
+      {
+        ifd.setNextImageFileDirectoryOffset(next);
+      }
     }
   }
 
@@ -209,7 +239,7 @@ public class ImageFileDirectoryReader
         final Number offset = field.getAsNumber(i);
         if (offset != null)
         {
-          final BigInteger numericOffset = BigInteger.valueOf(offset.longValue());
+          final long numericOffset = offset.longValue();
           if (tiffProcessor.isValidSourceOffset(numericOffset))
           {
             try
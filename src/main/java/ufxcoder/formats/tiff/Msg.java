@@ -57,6 +57,11 @@ public final class Msg
    */
   public static final String INVALID_OFFSET_AND_SIZE = "tiff.error.file_offset_and_size";
 
+  /**
+   * Big TIFF offset or size value larger than the largest supported file position (2^63 - 1).
+   */
+  public static final String OFFSET_OUT_OF_RANGE = "tiff.error.offset_out_of_range";
+
   /**
    * Big TIFF offsets must be eight bytes large.
    */
@@ -102,6 +107,131 @@ public final class Msg
    */
   public static final String BASELINE_INVALID_BITS_PER_SAMPLE = "tiff.error.baseline.invalid_bits_per_sample";
 
+  /**
+   * CR2 raw image directory has no strip offset.
+   */
+  public static final String CR2_RAW_DATA_MISSING = "tiff.error.cr2.raw_data_missing";
+
+  /**
+   * Decoding the lossless JPEG stream of a CR2 raw image failed.
+   */
+  public static final String CR2_RAW_DATA_INVALID = "tiff.error.cr2.raw_data_invalid";
+
+  /**
+   * CR2 raw image is not stored as a lossless JPEG frame.
+   */
+  public static final String CR2_RAW_DATA_NOT_LOSSLESS = "tiff.error.cr2.raw_data_not_lossless";
+
+  /**
+   * CR2 slices do not add up to the width of the lossless JPEG frame.
+   */
+  public static final String CR2_SLICES_INCONSISTENT = "tiff.error.cr2.slices_inconsistent";
+
+  /**
+   * Decompressing a strip or tile failed, reported after the error describing the reason.
+   */
+  public static final String SEGMENT_DECODING_FAILED = "tiff.error.segment.decoding_failed";
+
+  /**
+   * A strip or tile decompresses to fewer bytes than required by image size and layout.
+   */
+  public static final String SEGMENT_TOO_SHORT = "tiff.error.segment.too_short";
+
+  /**
+   * A strip or tile decompresses to more bytes than required by image size and layout.
+   */
+  public static final String SEGMENT_TOO_LONG = "tiff.warning.segment.too_long";
+
+  /**
+   * Reading the compressed data of strips or tiles failed.
+   */
+  public static final String SEGMENT_READING_ERROR = "tiff.error.segment.reading_error";
+
+  /**
+   * A PackBits run needs more bytes than there are left in the compressed data.
+   */
+  public static final String PACKBITS_TRUNCATED_RUN = "tiff.error.packbits.truncated_run";
+
+  /**
+   * LZW data contains a code which is not in the string table.
+   */
+  public static final String LZW_INVALID_CODE = "tiff.error.lzw.invalid_code";
+
+  /**
+   * Deflate data cannot be decompressed.
+   */
+  public static final String DEFLATE_INVALID_DATA = "tiff.error.deflate.invalid_data";
+
+  /**
+   * CCITT data contains a bit sequence which is neither a run length nor a mode code.
+   */
+  public static final String CCITT_INVALID_CODE = "tiff.error.ccitt.invalid_code";
+
+  /**
+   * Runs of a CCITT row do not end at the image width.
+   */
+  public static final String CCITT_INVALID_ROW_LENGTH = "tiff.error.ccitt.invalid_row_length";
+
+  /**
+   * CCITT compression is used for an image which is not bilevel.
+   */
+  public static final String CCITT_NOT_BILEVEL = "tiff.error.ccitt.not_bilevel";
+
+  /**
+   * Predictor cannot be used with the number of bits per sample of the image.
+   */
+  public static final String PREDICTOR_INVALID_BITS_PER_SAMPLE = "tiff.error.predictor.invalid_bits_per_sample";
+
+  /**
+   * Two byte ranges referenced by the file overlap.
+   */
+  public static final String COVERAGE_OVERLAP = "tiff.warning.coverage.overlap";
+
+  /**
+   * Further overlapping byte ranges beyond those reported individually.
+   */
+  public static final String COVERAGE_MORE_OVERLAPS = "tiff.warning.coverage.more_overlaps";
+
+  /**
+   * Bytes not referenced by any structure of the file.
+   */
+  public static final String COVERAGE_GAP = "tiff.info.coverage.gap";
+
+  /**
+   * Further unreferenced byte ranges beyond those reported individually.
+   */
+  public static final String COVERAGE_MORE_GAPS = "tiff.info.coverage.more_gaps";
+
+  /**
+   * Byte range kind: file header.
+   */
+  public static final String RANGE_HEADER = "tiff.range.header";
+
+  /**
+   * Byte range kind: entries of an image file directory.
+   */
+  public static final String RANGE_IMAGE_FILE_DIRECTORY = "tiff.range.image_file_directory";
+
+  /**
+   * Byte range kind: values of a field stored outside of its image file directory.
+   */
+  public static final String RANGE_FIELD_DATA = "tiff.range.field_data";
+
+  /**
+   * Byte range kind: image data strips.
+   */
+  public static final String RANGE_STRIPS = "tiff.range.strips";
+
+  /**
+   * Byte range kind: image data tiles.
+   */
+  public static final String RANGE_TILES = "tiff.range.tiles";
+
+  /**
+   * Byte range kind: JPEG stream referenced by JPEG interchange format fields.
+   */
+  public static final String RANGE_JPEG_STREAM = "tiff.range.jpeg_stream";
+
   private Msg()
   {
   }
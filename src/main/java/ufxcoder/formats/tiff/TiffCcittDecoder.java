@@ -0,0 +1,534 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+/**
+ * Decoder for the bilevel compression types of ITU-T T.4 and T.6: Modified Huffman
+ * ({@link Constants#COMPRESSION_MODIFIED_HUFFMAN_RLE}), T.4 one- and two-dimensional coding
+ * ({@link Constants#COMPRESSION_CCITT_T4}) and T.6 ({@link Constants#COMPRESSION_CCITT_T6}). Rows are decoded into
+ * lists of changing elements only, no pixels are written. Uncompressed mode and extensions are not supported.
+ */
+public class TiffCcittDecoder extends AbstractTiffSegmentDecoder
+{
+  private static final String[] WHITE_TERMINATING =
+  {
+      "00110101", "000111", "0111", "1000", "1011", "1100", "1110", "1111", "10011", "10100", "00111", "01000",
+      "001000", "000011", "110100", "110101", "101010", "101011", "0100111", "0001100", "0001000", "0010111",
+      "0000011", "0000100", "0101000", "0101011", "0010011", "0100100", "0011000", "00000010", "00000011", "00011010",
+      "00011011", "00010010", "00010011", "00010100", "00010101", "00010110", "00010111", "00101000", "00101001",
+      "00101010", "00101011", "00101100", "00101101", "00000100", "00000101", "00001010", "00001011", "01010010",
+      "01010011", "01010100", "01010101", "00100100", "00100101", "01011000", "01011001", "01011010", "01011011",
+      "01001010", "01001011", "00110010", "00110011", "00110100"
+  };
+  private static final String[] WHITE_MAKEUP =
+  {
+      "11011", "10010", "010111", "0110111", "00110110", "00110111", "01100100", "01100101", "01101000", "01100111",
+      "011001100", "011001101", "011010010", "011010011", "011010100", "011010101", "011010110", "011010111",
+      "011011000", "011011001", "011011010", "011011011", "010011000", "010011001", "010011010", "011000", "010011011"
+  };
+  private static final String[] BLACK_TERMINATING =
+  {
+      "0000110111", "010", "11", "10", "011", "0011", "0010", "00011", "000101", "000100", "0000100", "0000101",
+      "0000111", "00000100", "00000111", "000011000", "0000010111", "0000011000", "0000001000", "00001100111",
+      "00001101000", "00001101100", "00000110111", "00000101000", "00000010111", "00000011000", "000011001010",
+      "000011001011", "000011001100", "000011001101", "000001101000", "000001101001", "000001101010", "000001101011",
+      "000011010010", "000011010011", "000011010100", "000011010101", "000011010110", "000011010111", "000001101100",
+      "000001101101", "000011011010", "000011011011", "000001010100", "000001010101", "000001010110", "000001010111",
+      "000001100100", "000001100101", "000001010010", "000001010011", "000000100100", "000000110111", "000000111000",
+      "000000100111", "000000101000", "000001011000", "000001011001", "000000101011", "000000101100", "000001011010",
+      "000001100110", "000001100111"
+  };
+  private static final String[] BLACK_MAKEUP =
+  {
+      "0000001111", "000011001000", "000011001001", "000001011011", "000000110011", "000000110100", "000000110101",
+      "0000001101100", "0000001101101", "0000001001010", "0000001001011", "0000001001100", "0000001001101",
+      "0000001110010", "0000001110011", "0000001110100", "0000001110101", "0000001110110", "0000001110111",
+      "0000001010010", "0000001010011", "0000001010100", "0000001010101", "0000001011010", "0000001011011",
+      "0000001100100", "0000001100101"
+  };
+  /**
+   * Makeup codes for runs of 1792 to 2560 pixels, shared by both colors.
+   */
+  private static final String[] EXTENDED_MAKEUP =
+  {
+      "00000001000", "00000001100", "00000001101", "000000010010", "000000010011", "000000010100", "000000010101",
+      "000000010110", "000000010111", "000000011100", "000000011101", "000000011110", "000000011111"
+  };
+  private static final int RUN_UNIT = 64;
+  private static final int FIRST_EXTENDED_RUN = 1792;
+  /**
+   * Length of the longest run length code, number of bits used to index the run tables.
+   */
+  private static final int RUN_BITS = 13;
+  /**
+   * Length of the longest mode code of two-dimensional coding (extension), number of bits used to index the mode table.
+   */
+  private static final int MODE_BITS = 7;
+  private static final int EOL_ZERO_BITS = 11;
+  private static final int MODE_PASS = 7;
+  private static final int MODE_HORIZONTAL = 8;
+  private static final int MODE_EXTENSION = 9;
+  /**
+   * Vertical modes are stored as offset of a1 to b1 plus this value.
+   */
+  private static final int MODE_VERTICAL_BIAS = 3;
+  private static final int WHITE = 0;
+  private static final int BLACK = 1;
+  private static final int INVALID_RUN = -1;
+  private static final int END_OF_DATA = -2;
+  private static final int ROW_DECODED = 0;
+  private static final int ROW_FAILED = 1;
+  private static final int ROW_TRUNCATED = 2;
+  private static final int ROW_UNSUPPORTED = 3;
+  /**
+   * Entries of run tables: code length in bits shifted left by 16 plus run length, 0 for invalid codes.
+   */
+  private static final int[][] RUNS = new int[2][1 << RUN_BITS];
+  /**
+   * Entries of mode table: code length in bits shifted left by 8 plus mode plus one, 0 for invalid codes.
+   */
+  private static final int[] MODES = new int[1 << MODE_BITS];
+  private static final int[] REVERSED_BITS = new int[256];
+  private byte[] input;
+  private int byteIndex;
+  private int end;
+  private boolean reversed;
+  private long reservoir;
+  private int available;
+  private long consumed;
+  private long numBits;
+  private int width;
+  private int[] reference = new int[0];
+  private int numReference;
+  private int[] current = new int[0];
+  private int numCurrent;
+  /**
+   * Position of changing element a0 while decoding a two-dimensional row, -1 in front of the row.
+   */
+  private int a0;
+
+  static
+  {
+    for (int run = 0; run < RUN_UNIT; run++)
+    {
+      addCode(RUNS[WHITE], RUN_BITS, WHITE_TERMINATING[run], run);
+      addCode(RUNS[BLACK], RUN_BITS, BLACK_TERMINATING[run], run);
+    }
+    for (int index = 0; index < WHITE_MAKEUP.length; index++)
+    {
+      addCode(RUNS[WHITE], RUN_BITS, WHITE_MAKEUP[index], (index + 1) * RUN_UNIT);
+      addCode(RUNS[BLACK], RUN_BITS, BLACK_MAKEUP[index], (index + 1) * RUN_UNIT);
+    }
+    for (int index = 0; index < EXTENDED_MAKEUP.length; index++)
+    {
+      final int run = FIRST_EXTENDED_RUN + index * RUN_UNIT;
+      addCode(RUNS[WHITE], RUN_BITS, EXTENDED_MAKEUP[index], run);
+      addCode(RUNS[BLACK], RUN_BITS, EXTENDED_MAKEUP[index], run);
+    }
+    final String[] vertical =
+    {
+        "0000010", "000010", "010", "1", "011", "000011", "0000011"
+    };
+    for (int index = 0; index < vertical.length; index++)
+    {
+      addCode(MODES, MODE_BITS, vertical[index], index + 1);
+    }
+    addCode(MODES, MODE_BITS, "0001", MODE_PASS + 1);
+    addCode(MODES, MODE_BITS, "001", MODE_HORIZONTAL + 1);
+    addCode(MODES, MODE_BITS, "0000001", MODE_EXTENSION + 1);
+    for (int value = 0; value < REVERSED_BITS.length; value++)
+    {
+      REVERSED_BITS[value] = Integer.reverse(value) >>> 24;
+    }
+  }
+
+  /**
+   * Enter a code into a lookup table indexed by the next bits of input, for all combinations of bits following the
+   * code.
+   */
+  private static void addCode(final int[] table, final int tableBits, final String code, final int value)
+  {
+    final int length = code.length();
+    final int first = Integer.parseInt(code, 2) << (tableBits - length);
+    final int entry = length << (tableBits == RUN_BITS ? 16 : 8) | value;
+    for (int index = first; index < first + (1 << (tableBits - length)); index++)
+    {
+      table[index] = entry;
+    }
+  }
+
+  @Override
+  public long decode(final TiffSegmentLayout layout, final TiffSegment segment, final byte[] data)
+  {
+    final int compression = layout.getCompression();
+    final int options = compression == Constants.COMPRESSION_CCITT_T6 ? layout.getT6Options()
+        : layout.getT4Options();
+    long result = UNSUPPORTED;
+    if (compression == Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE
+        || (options & Constants.CCITT_OPTION_UNCOMPRESSED) == 0)
+    {
+      input = data;
+      byteIndex = segment.getDataIndex();
+      end = byteIndex + (int) segment.getByteCount();
+      reversed = layout.getFillOrder() == Constants.FILL_ORDER_LOWEST_BIT_FIRST;
+      reservoir = 0;
+      available = 0;
+      consumed = 0;
+      numBits = segment.getByteCount() * 8;
+      width = segment.getWidth();
+      if (current.length < width * 2 + 2)
+      {
+        reference = new int[width * 2 + 2];
+        current = new int[reference.length];
+      }
+      final boolean twoDimensional = compression == Constants.COMPRESSION_CCITT_T4
+          && (options & Constants.T4_OPTION_TWO_DIMENSIONAL) != 0;
+      result = decodeRows(compression, twoDimensional, segment.getRows());
+      input = null;
+    }
+    return result;
+  }
+
+  /**
+   * Decode rows until all rows are done or decoding must stop.
+   *
+   * @return number of bytes of the decoded rows or {@link #UNSUPPORTED}
+   */
+  private long decodeRows(final int compression, final boolean twoDimensional, final int numRows)
+  {
+    // the reference line of the first row is all white
+    numReference = 0;
+    int row = 0;
+    int status = ROW_DECODED;
+    while (row < numRows && status == ROW_DECODED)
+    {
+      if (compression == Constants.COMPRESSION_CCITT_T6)
+      {
+        status = decodeTwoDimensionalRow(row);
+      }
+      else if (compression == Constants.COMPRESSION_CCITT_T4)
+      {
+        status = skipEndOfLine();
+        if (status == ROW_DECODED)
+        {
+          boolean oneDimensional = true;
+          if (twoDimensional)
+          {
+            oneDimensional = peek(1) == 1;
+            skip(1);
+          }
+          status = oneDimensional ? decodeOneDimensionalRow(row) : decodeTwoDimensionalRow(row);
+        }
+      }
+      else
+      {
+        status = decodeOneDimensionalRow(row);
+        // Modified Huffman rows start at byte boundaries
+        skip(available % 8);
+      }
+      if (status == ROW_DECODED)
+      {
+        final int[] temp = reference;
+        reference = current;
+        current = temp;
+        numReference = numCurrent;
+        row++;
+      }
+    }
+    return status == ROW_UNSUPPORTED ? UNSUPPORTED : row * (((long) width + 7) / 8);
+  }
+
+  /**
+   * Decode a row consisting of alternating white and black runs, starting with white.
+   *
+   * @return {@link #ROW_DECODED} on success, another status if decoding must stop
+   */
+  private int decodeOneDimensionalRow(final int row)
+  {
+    numCurrent = 0;
+    int position = 0;
+    int color = WHITE;
+    int status = ROW_DECODED;
+    while (position < width && status == ROW_DECODED)
+    {
+      final int run = readRun(color);
+      if (run < 0)
+      {
+        status = reportRunError(run, row, position);
+      }
+      else
+      {
+        position += run;
+        if (position > width)
+        {
+          fail(Msg.CCITT_INVALID_ROW_LENGTH, row, position, width);
+          status = ROW_FAILED;
+        }
+        else if (!addChange(position))
+        {
+          fail(Msg.CCITT_INVALID_CODE, row, position);
+          status = ROW_FAILED;
+        }
+        color ^= 1;
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Decode a row coded relative to the previous row (reference line) with pass, horizontal and vertical modes.
+   *
+   * @return {@link #ROW_DECODED} on success, another status if decoding must stop
+   */
+  private int decodeTwoDimensionalRow(final int row)
+  {
+    numCurrent = 0;
+    // a0 starts as imaginary changing element in front of the row
+    a0 = -1;
+    int color = WHITE;
+    int index = 0;
+    int status = ROW_DECODED;
+    while (a0 < width && status == ROW_DECODED)
+    {
+      index = findReferenceChange(index, color);
+      final int b1 = index < numReference ? reference[index] : width;
+      final int b2 = index + 1 < numReference ? reference[index + 1] : width;
+      final int entry = MODES[peek(MODE_BITS)];
+      skip(entry >>> 8);
+      final int mode = (entry & 0xff) - 1;
+      if (entry == 0)
+      {
+        fail(Msg.CCITT_INVALID_CODE, row, Math.max(a0, 0));
+        status = ROW_FAILED;
+      }
+      else if (consumed > numBits)
+      {
+        status = ROW_TRUNCATED;
+      }
+      else if (mode == MODE_PASS)
+      {
+        a0 = b2;
+      }
+      else if (mode == MODE_HORIZONTAL)
+      {
+        status = decodeHorizontalMode(row, color);
+      }
+      else if (mode == MODE_EXTENSION)
+      {
+        status = ROW_UNSUPPORTED;
+      }
+      else
+      {
+        status = decodeVerticalMode(row, b1 + mode - MODE_VERTICAL_BIAS);
+        color ^= 1;
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Find b1, the first changing element of the reference line right of a0 changing to the opposite of the current
+   * color.
+   *
+   * @param start
+   *          index into the reference line where the previous search ended
+   * @param color
+   *          current color
+   * @return index of b1 in the reference line, {@link #numReference} or larger if there is no such element
+   */
+  private int findReferenceChange(final int start, final int color)
+  {
+    int index = start;
+    while (index > 0 && reference[index - 1] > a0)
+    {
+      index--;
+    }
+    while (index < numReference && reference[index] <= a0)
+    {
+      index++;
+    }
+    if (index < numReference && (index & 1) != color)
+    {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Decode the two runs of horizontal mode and advance a0 behind them.
+   *
+   * @return {@link #ROW_DECODED} on success, another status if decoding must stop
+   */
+  private int decodeHorizontalMode(final int row, final int color)
+  {
+    final int start = Math.max(a0, 0);
+    final int first = readRun(color);
+    final int second = first < 0 ? first : readRun(color ^ 1);
+    int status = ROW_DECODED;
+    if (second < 0)
+    {
+      status = reportRunError(second, row, start);
+    }
+    else
+    {
+      final int a1 = start + first;
+      a0 = a1 + second;
+      if (a0 > width)
+      {
+        fail(Msg.CCITT_INVALID_ROW_LENGTH, row, a0, width);
+        status = ROW_FAILED;
+      }
+      else if (!addChange(a1) || !addChange(a0))
+      {
+        fail(Msg.CCITT_INVALID_CODE, row, a0);
+        status = ROW_FAILED;
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Add changing element a1 of a vertical mode and advance a0 to it.
+   *
+   * @return {@link #ROW_DECODED} on success, {@link #ROW_FAILED} if a1 is not right of a0 or outside of the row
+   */
+  private int decodeVerticalMode(final int row, final int a1)
+  {
+    int status = ROW_DECODED;
+    if (a1 <= a0 || a1 > width || !addChange(a1))
+    {
+      fail(Msg.CCITT_INVALID_CODE, row, Math.max(a0, 0));
+      status = ROW_FAILED;
+    }
+    else
+    {
+      a0 = a1;
+    }
+    return status;
+  }
+
+  private int reportRunError(final int run, final int row, final int position)
+  {
+    int result = ROW_TRUNCATED;
+    if (run == INVALID_RUN)
+    {
+      fail(Msg.CCITT_INVALID_CODE, row, position);
+      result = ROW_FAILED;
+    }
+    return result;
+  }
+
+  /**
+   * Append a changing element to the current row, elements at the end of the row are not stored.
+   *
+   * @return false if there is no more room for changing elements
+   */
+  private boolean addChange(final int position)
+  {
+    boolean result = true;
+    if (position < width)
+    {
+      if (numCurrent < current.length)
+      {
+        current[numCurrent++] = position;
+      }
+      else
+      {
+        result = false;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Read makeup codes followed by a terminating code.
+   *
+   * @return run length, {@link #INVALID_RUN} or {@link #END_OF_DATA}
+   */
+  private int readRun(final int color)
+  {
+    final int[] table = RUNS[color];
+    int result = 0;
+    int run = RUN_UNIT;
+    while (run >= RUN_UNIT && result <= width)
+    {
+      final int entry = table[peek(RUN_BITS)];
+      skip(entry >>> 16);
+      run = entry & 0xffff;
+      if (entry == 0)
+      {
+        result = INVALID_RUN;
+      }
+      else if (consumed > numBits)
+      {
+        result = END_OF_DATA;
+        run = 0;
+      }
+      else
+      {
+        result += run;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Skip an optional end-of-line code including preceding fill bits.
+   *
+   * @return {@link #ROW_DECODED} or {@link #ROW_TRUNCATED}
+   */
+  private int skipEndOfLine()
+  {
+    if (peek(EOL_ZERO_BITS) == 0)
+    {
+      while (peek(1) == 0 && consumed < numBits)
+      {
+        skip(1);
+      }
+      skip(1);
+    }
+    return consumed > numBits ? ROW_TRUNCATED : ROW_DECODED;
+  }
+
+  /**
+   * Return the next bits of input without consuming them, input is padded with zero bits.
+   *
+   * @param count
+   *          number of bits, at most 32
+   * @return bits as int value
+   */
+  private int peek(final int count)
+  {
+    while (available < count)
+    {
+      int value = byteIndex < end ? input[byteIndex] & 0xff : 0;
+      byteIndex++;
+      if (reversed)
+      {
+        value = REVERSED_BITS[value];
+      }
+      reservoir = reservoir << 8 | value;
+      available += 8;
+    }
+    return (int) (reservoir >>> (available - count)) & ((1 << count) - 1);
+  }
+
+  private void skip(final int count)
+  {
+    available -= count;
+    consumed += count;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import java.util.List;
+import ufxcoder.formats.EventSeverity;
+import ufxcoder.formats.FileCoverage;
+import ufxcoder.formats.FileRange;
+
+/**
+ * Report overlapping byte ranges and larger unreferenced regions of a TIFF file. Overlaps are warnings, as they
+ * indicate a damaged or manipulated file, gaps are only informational because writers often leave unused space.
+ */
+public class TiffCoverageCheck
+{
+  /**
+   * Maximum number of overlaps and of gaps reported individually.
+   */
+  public static final int MAX_REPORTED = 10;
+  /**
+   * Gaps of fewer bytes are not reported, they are usually padding for word alignment.
+   */
+  public static final long MIN_GAP_SIZE = 8;
+  private final TiffProcessor processor;
+
+  public TiffCoverageCheck(final TiffProcessor proc)
+  {
+    processor = proc;
+  }
+
+  /**
+   * Analyze the ranges collected while reading a file and report overlaps and gaps.
+   *
+   * @param desc
+   *          description with coverage of all referenced ranges
+   */
+  public void check(final TiffFileDescription desc)
+  {
+    final FileCoverage coverage = desc.getCoverage();
+    try
+    {
+      coverage.analyze(processor.getSource().getLength());
+      reportOverlaps(coverage);
+      reportGaps(coverage);
+    }
+    catch (final IOException ioe)
+    {
+      processor.error("tiff.error.validation.unable_to_determine_source_size", processor.getSource().getName(),
+          ioe.getMessage());
+    }
+  }
+
+  private void reportOverlaps(final FileCoverage coverage)
+  {
+    final List<FileRange> overlaps = coverage.getOverlaps();
+    for (int index = 0; index < overlaps.size(); index += 2)
+    {
+      final FileRange first = overlaps.get(index);
+      final FileRange second = overlaps.get(index + 1);
+      processor.warn(Msg.COVERAGE_OVERLAP, first.getStart(), first.getEnd() - 1, describe(first), second.getStart(),
+          second.getEnd() - 1, describe(second));
+    }
+    final long numOverlaps = coverage.getNumOverlaps();
+    if (numOverlaps > overlaps.size() / 2)
+    {
+      processor.warn(Msg.COVERAGE_MORE_OVERLAPS, numOverlaps - overlaps.size() / 2);
+    }
+  }
+
+  private void reportGaps(final FileCoverage coverage)
+  {
+    final List<FileRange> gaps = coverage.getGaps();
+    for (final FileRange gap : gaps)
+    {
+      processor.addEvent(EventSeverity.Info, Msg.COVERAGE_GAP, gap.getLength(), gap.getStart());
+    }
+    if (coverage.getNumGaps() > gaps.size())
+    {
+      processor.addEvent(EventSeverity.Info, Msg.COVERAGE_MORE_GAPS, coverage.getNumGaps() - gaps.size(),
+          coverage.getNumGapBytes());
+    }
+  }
+
+  private String describe(final FileRange range)
+  {
+    return processor.msg(range.getKind(), range.getOwner(), range.getFirstIndex(), range.getLastIndex());
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decoder for Deflate compression (zlib streams, compression types {@link Constants#COMPRESSION_DEFLATE} and
+ * {@link Constants#COMPRESSION_ADOBE_DEFLATE}). Data is inflated into a scratch buffer which is overwritten again and
+ * again, the {@link Inflater} is reset and reused for each segment.
+ */
+public class TiffDeflateDecoder extends AbstractTiffSegmentDecoder
+{
+  /**
+   * Size of the buffer receiving inflated data.
+   */
+  public static final int SCRATCH_SIZE = 64 * 1024;
+  private final Inflater inflater = new Inflater();
+  private final byte[] scratch = new byte[SCRATCH_SIZE];
+
+  @Override
+  public long decode(final TiffSegmentLayout layout, final TiffSegment segment, final byte[] input)
+  {
+    final long limit = segment.getExpectedSize();
+    inflater.reset();
+    inflater.setInput(input, segment.getDataIndex(), (int) segment.getByteCount());
+    long result = 0;
+    try
+    {
+      while (result <= limit)
+      {
+        final int numBytes = inflater.inflate(scratch, 0, (int) Math.min(scratch.length, limit + 1 - result));
+        result += numBytes;
+        if (numBytes == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+        {
+          break;
+        }
+      }
+      if (inflater.needsDictionary())
+      {
+        fail(Msg.DEFLATE_INVALID_DATA, "preset dictionary");
+      }
+    }
+    catch (final DataFormatException dfe)
+    {
+      fail(Msg.DEFLATE_INVALID_DATA, dfe.getMessage());
+    }
+    return result;
+  }
+
+  @Override
+  public void close()
+  {
+    inflater.end();
+  }
+}
@@ -15,11 +15,11 @@
  */
 package ufxcoder.formats.tiff;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import ufxcoder.formats.FileCoverage;
 import ufxcoder.formats.FileDescription;
 
 /**
@@ -39,7 +39,12 @@ public class TiffFileDescription extends FileDescription
   private boolean dng;
   private boolean cr2;
   private final List<ImageFileDirectory> directories = new ArrayList<ImageFileDirectory>();
-  private final Set<BigInteger> offsets = new HashSet<BigInteger>();
+  private final Set<Long> offsets = new HashSet<Long>();
+  /**
+   * Byte ranges referenced by header, image file directories, field data, strips and tiles.
+   */
+  private final FileCoverage coverage = new FileCoverage(TiffCoverageCheck.MAX_REPORTED,
+      TiffCoverageCheck.MIN_GAP_SIZE);
 
   public boolean isBig()
   {
@@ -61,16 +66,21 @@ public class TiffFileDescription extends FileDescription
     return directories.size();
   }
 
-  public void addOffset(final BigInteger offset)
+  public void addOffset(final long offset)
   {
     offsets.add(offset);
   }
 
-  public boolean contains(final BigInteger offset)
+  public boolean contains(final long offset)
   {
     return offsets.contains(offset);
   }
 
+  public FileCoverage getCoverage()
+  {
+    return coverage;
+  }
+
   public boolean isDng()
   {
     return dng;
@@ -105,5 +115,6 @@ public class TiffFileDescription extends FileDescription
     setDng(false);
     directories.clear();
     offsets.clear();
+    coverage.clear();
   }
 }
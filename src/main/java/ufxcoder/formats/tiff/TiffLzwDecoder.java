@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+/**
+ * Decoder for LZW compression (TIFF 6.0 specification section 13). Codes are read most significant bit first and the
+ * code width grows one code early. Data written by old libtiff versions (least significant bit first, code width
+ * growing without the early change) is recognized by its first two bytes and decoded as well.
+ *
+ * <p>
+ * The string table only keeps the length and first byte of each string, which is all that is needed to count decoded
+ * bytes and to extend the table.
+ * </p>
+ */
+public class TiffLzwDecoder extends AbstractTiffSegmentDecoder
+{
+  private static final int CLEAR_CODE = 256;
+  private static final int END_OF_INFORMATION = 257;
+  private static final int FIRST_FREE_CODE = 258;
+  private static final int MIN_CODE_WIDTH = 9;
+  private static final int MAX_CODE_WIDTH = 12;
+  private static final int TABLE_SIZE = 1 << MAX_CODE_WIDTH;
+  private final int[] lengths = new int[TABLE_SIZE];
+  private final byte[] firstBytes = new byte[TABLE_SIZE];
+  private byte[] input;
+  private int byteIndex;
+  private long bitIndex;
+  private long numBits;
+  private boolean lowestBitFirst;
+  /**
+   * Bits read from input but not yet consumed, the lowest {@link #available} ones if most significant bit first, else
+   * starting at bit 0.
+   */
+  private long reservoir;
+  private int available;
+
+  public TiffLzwDecoder()
+  {
+    super();
+    for (int code = 0; code < CLEAR_CODE; code++)
+    {
+      lengths[code] = 1;
+      firstBytes[code] = (byte) code;
+    }
+  }
+
+  @Override
+  public long decode(final TiffSegmentLayout layout, final TiffSegment segment, final byte[] data)
+  {
+    input = data;
+    final int start = segment.getDataIndex();
+    byteIndex = start;
+    bitIndex = 0;
+    numBits = segment.getByteCount() * 8;
+    reservoir = 0;
+    available = 0;
+    lowestBitFirst = segment.getByteCount() >= 2 && data[start] == 0 && (data[start + 1] & 1) != 0;
+    final int earlyChange = lowestBitFirst ? 0 : 1;
+    final long limit = segment.getExpectedSize();
+    long result = 0;
+    int width = MIN_CODE_WIDTH;
+    int next = FIRST_FREE_CODE;
+    int previous = -1;
+    while (result <= limit && bitIndex + width <= numBits)
+    {
+      final long position = bitIndex / 8;
+      final int code = readCode(width);
+      if (code == END_OF_INFORMATION)
+      {
+        break;
+      }
+      else if (code == CLEAR_CODE)
+      {
+        width = MIN_CODE_WIDTH;
+        next = FIRST_FREE_CODE;
+        previous = -1;
+      }
+      else if (code > (previous < 0 ? CLEAR_CODE : next))
+      {
+        // first code after a clear code must be a single byte, others at most the next free code
+        fail(Msg.LZW_INVALID_CODE, code, position, next);
+        break;
+      }
+      else if (previous < 0)
+      {
+        result++;
+        previous = code;
+      }
+      else
+      {
+        // new string is previous string plus first byte of current one, which is the previous one's if not yet known
+        final int length = lengths[previous] + 1;
+        result += code == next ? length : lengths[code];
+        if (next < TABLE_SIZE)
+        {
+          lengths[next] = length;
+          firstBytes[next] = firstBytes[previous];
+          next++;
+          if (next + earlyChange >= 1 << width && width < MAX_CODE_WIDTH)
+          {
+            width++;
+          }
+        }
+        previous = code;
+      }
+    }
+    input = null;
+    return result;
+  }
+
+  /**
+   * Read the next code, the caller makes sure that there are enough bits left.
+   *
+   * @param width
+   *          number of bits of the code
+   * @return code
+   */
+  private int readCode(final int width)
+  {
+    while (available < width)
+    {
+      final long value = input[byteIndex++] & 0xff;
+      if (lowestBitFirst)
+      {
+        reservoir |= value << available;
+      }
+      else
+      {
+        reservoir = reservoir << 8 | value;
+      }
+      available += 8;
+    }
+    int result;
+    final int mask = (1 << width) - 1;
+    if (lowestBitFirst)
+    {
+      result = (int) reservoir & mask;
+      reservoir >>>= width;
+    }
+    else
+    {
+      result = (int) (reservoir >>> (available - width)) & mask;
+    }
+    available -= width;
+    bitIndex += width;
+    return result;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+/**
+ * Decoder for PackBits compression (TIFF 6.0 specification section 9). Literal and replicate runs are only counted.
+ */
+public class TiffPackBitsDecoder extends AbstractTiffSegmentDecoder
+{
+  private static final int NO_OPERATION = -128;
+
+  @Override
+  public long decode(final TiffSegmentLayout layout, final TiffSegment segment, final byte[] input)
+  {
+    final int start = segment.getDataIndex();
+    final int end = start + (int) segment.getByteCount();
+    final long limit = segment.getExpectedSize();
+    long result = 0;
+    int index = start;
+    while (index < end && result <= limit)
+    {
+      final int header = input[index];
+      final int runStart = index;
+      index++;
+      if (header >= 0)
+      {
+        // copy the next header + 1 bytes literally
+        index += header + 1;
+        result += header + 1;
+      }
+      else
+      {
+        if (header != NO_OPERATION)
+        {
+          // repeat the next byte 1 - header times
+          index++;
+          result += 1 - header;
+        }
+      }
+      if (index > end)
+      {
+        fail(Msg.PACKBITS_TRUNCATED_RUN, runStart - start);
+        break;
+      }
+    }
+    return result;
+  }
+}
@@ -16,7 +16,6 @@
 package ufxcoder.formats.tiff;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import ufxcoder.formats.AbstractFormatProcessor;
 import ufxcoder.formats.EventSeverity;
 import ufxcoder.formats.FileDescription;
@@ -27,7 +26,12 @@ import ufxcoder.io.Segment;
  */
 public class TiffProcessor extends AbstractFormatProcessor
 {
-  private BigInteger imageFileDirectoryOffset;
+  private long imageFileDirectoryOffset;
+  /**
+   * Buffer for compressed strip and tile data of {@link TiffSegmentVerifier}. Processors are reused for all files of a
+   * thread, so the buffer is allocated once per thread and kept across image file directories and files.
+   */
+  private byte[] segmentBuffer = new byte[0];
 
   @Override
   public void process()
@@ -52,6 +56,8 @@ public class TiffProcessor extends AbstractFormatProcessor
       {
         final ImageFileDirectoryReader ifdReader = new ImageFileDirectoryReader(this);
         ifdReader.readAllMetadata(imageFileDirectoryOffset);
+        checkCoverage(desc);
+        checkRawImage(desc);
         checkBaseline(desc);
       }
     }
@@ -59,6 +65,23 @@ public class TiffProcessor extends AbstractFormatProcessor
     closeSource();
   }
 
+  private void checkCoverage(final TiffFileDescription desc)
+  {
+    if (!isIdentify())
+    {
+      new TiffCoverageCheck(this).check(desc);
+    }
+  }
+
+  private void checkRawImage(final TiffFileDescription desc)
+  {
+    if (desc.isSuccess() && desc.isCr2())
+    {
+      final Cr2RawValidator raw = new Cr2RawValidator(this);
+      raw.validate(desc);
+    }
+  }
+
   private void checkBaseline(final TiffFileDescription desc)
   {
     if (desc.isSuccess() && getConfig().isTiffBaseline())
@@ -90,9 +113,27 @@ public class TiffProcessor extends AbstractFormatProcessor
     return new TiffFileDescription();
   }
 
-  public void checkImageFileDirectoryOffset(final BigInteger imageFileDirectoryOffset)
+  /**
+   * Return the buffer for compressed strip and tile data, grown to the requested size if necessary.
+   *
+   * @param minLength
+   *          minimum number of bytes, at most {@link TiffSegmentVerifier#MAX_BATCH_BYTES}
+   * @return buffer with at least minLength bytes, only valid until the next call
+   */
+  public byte[] getSegmentBuffer(final int minLength)
   {
-    if (imageFileDirectoryOffset.testBit(0))
+    if (segmentBuffer.length < minLength)
+    {
+      // grow geometrically so that a sequence of slightly larger batches does not allocate each time
+      segmentBuffer = new byte[Math.max(minLength,
+          Math.min(segmentBuffer.length * 2, TiffSegmentVerifier.MAX_BATCH_BYTES))];
+    }
+    return segmentBuffer;
+  }
+
+  public void checkImageFileDirectoryOffset(final long imageFileDirectoryOffset)
+  {
+    if ((imageFileDirectoryOffset & 1) != 0)
     {
       warn(Msg.ODD_FILE_OFFSET, imageFileDirectoryOffset);
     }
@@ -107,6 +148,26 @@ public class TiffProcessor extends AbstractFormatProcessor
     };
   }
 
+  @Override
+  public byte[][] getSignatures()
+  {
+    return new byte[][]
+    {
+        {
+            0x49, 0x49, Constants.MAGIC_TIFF, 0x00
+        },
+        {
+            0x4d, 0x4d, 0x00, Constants.MAGIC_TIFF
+        },
+        {
+            0x49, 0x49, Constants.MAGIC_BIG_TIFF, 0x00
+        },
+        {
+            0x4d, 0x4d, 0x00, Constants.MAGIC_BIG_TIFF
+        }
+    };
+  }
+
   @Override
   public String getShortName()
   {
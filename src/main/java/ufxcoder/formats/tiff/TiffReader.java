@@ -16,7 +16,6 @@
 package ufxcoder.formats.tiff;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import ufxcoder.conversion.ByteOrder;
 import ufxcoder.io.Segment;
 
@@ -79,9 +78,9 @@ public class TiffReader
     return proc.isSuccess();
   }
 
-  public BigInteger extractFirstOffset(final TiffFileDescription desc, final Segment globalHeader) throws IOException
+  public long extractFirstOffset(final TiffFileDescription desc, final Segment globalHeader) throws IOException
   {
-    BigInteger imageFileDirectoryOffset = null;
+    long imageFileDirectoryOffset = 0;
     if (desc.isSuccess())
     {
       long offsetPosition = 0;
@@ -108,9 +107,14 @@ public class TiffReader
       }
       if (proc.isSuccess())
       {
-        imageFileDirectoryOffset = globalHeader.bigInt(offsetByteSize);
+        imageFileDirectoryOffset = globalHeader.uint(offsetByteSize);
         desc.addOffset(imageFileDirectoryOffset);
-        if (!proc.isValidSourceOffset(imageFileDirectoryOffset))
+        desc.getCoverage().add(Msg.RANGE_HEADER, globalHeader.getOffset(), globalHeader.getLength(), 0, 0);
+        if (imageFileDirectoryOffset < 0)
+        {
+          proc.error(Msg.OFFSET_OUT_OF_RANGE, Long.toUnsignedString(imageFileDirectoryOffset), offsetPosition);
+        }
+        else if (!proc.isValidSourceOffset(imageFileDirectoryOffset))
         {
           proc.error("tiff.error.invalid_file_offset", imageFileDirectoryOffset, offsetPosition);
         }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+/**
+ * A strip or tile of an image: where its compressed data is stored, how large it is once decompressed and the result of
+ * decompressing it in {@link TiffSegmentVerifier}.
+ */
+public class TiffSegment
+{
+  private int index;
+  private long offset;
+  private long byteCount;
+  private int width;
+  private int rows;
+  private long expectedSize;
+  /**
+   * Index of first byte of compressed data in the batch buffer of {@link TiffSegmentVerifier}.
+   */
+  private int dataIndex;
+  private long decodedSize;
+  private TiffSegmentError error;
+
+  public int getIndex()
+  {
+    return index;
+  }
+
+  public void setIndex(final int index)
+  {
+    this.index = index;
+  }
+
+  public long getOffset()
+  {
+    return offset;
+  }
+
+  public void setOffset(final long offset)
+  {
+    this.offset = offset;
+  }
+
+  public long getByteCount()
+  {
+    return byteCount;
+  }
+
+  public void setByteCount(final long byteCount)
+  {
+    this.byteCount = byteCount;
+  }
+
+  /**
+   * Return the number of pixels per row.
+   *
+   * @return width in pixels
+   */
+  public int getWidth()
+  {
+    return width;
+  }
+
+  public void setWidth(final int width)
+  {
+    this.width = width;
+  }
+
+  public int getRows()
+  {
+    return rows;
+  }
+
+  public void setRows(final int rows)
+  {
+    this.rows = rows;
+  }
+
+  /**
+   * Return the number of bytes this segment must decompress to.
+   *
+   * @return expected size in bytes
+   */
+  public long getExpectedSize()
+  {
+    return expectedSize;
+  }
+
+  public void setExpectedSize(final long expectedSize)
+  {
+    this.expectedSize = expectedSize;
+  }
+
+  public int getDataIndex()
+  {
+    return dataIndex;
+  }
+
+  public void setDataIndex(final int dataIndex)
+  {
+    this.dataIndex = dataIndex;
+  }
+
+  /**
+   * Return the number of bytes the data decompressed to. Decompression stops after the first byte beyond
+   * {@link #getExpectedSize()}, so the result is at most one larger than that.
+   *
+   * @return decoded size in bytes or {@link AbstractTiffSegmentDecoder#UNSUPPORTED}
+   */
+  public long getDecodedSize()
+  {
+    return decodedSize;
+  }
+
+  public void setDecodedSize(final long decodedSize)
+  {
+    this.decodedSize = decodedSize;
+  }
+
+  public TiffSegmentError getError()
+  {
+    return error;
+  }
+
+  public void setError(final TiffSegmentError error)
+  {
+    this.error = error;
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+/**
+ * Properties of an image file directory needed to determine how many bytes each strip or tile must decompress to.
+ */
+public class TiffSegmentLayout
+{
+  /**
+   * Strips and tiles of images with more bits per sample are not verified.
+   */
+  private static final int MAX_BITS_PER_SAMPLE = 64;
+  private final int compression;
+  private final int predictor;
+  private final int fillOrder;
+  private final int t4Options;
+  private final int t6Options;
+  private final long imageWidth;
+  private final long imageHeight;
+  private final boolean tiled;
+  /**
+   * Width of a tile or of the image.
+   */
+  private final long segmentWidth;
+  /**
+   * Height of a tile or number of rows per strip.
+   */
+  private final long segmentHeight;
+  private final boolean planar;
+  private final int[] bitsPerSample;
+  private boolean validBitsPerSample = true;
+  private int horizontalSubsampling = 1;
+  private int verticalSubsampling = 1;
+  private long segmentsPerPlane;
+
+  /**
+   * Create a layout from the fields of an image file directory.
+   *
+   * @param ifd
+   *          image file directory with strip or tile fields
+   * @param rowsPerStrip
+   *          field with the number of rows per strip, possibly derived from the image height, null for tiled images
+   */
+  public TiffSegmentLayout(final ImageFileDirectory ifd, final Field rowsPerStrip)
+  {
+    compression = (int) getValue(ifd, FieldDescriptionFactory.COMPRESSION, Constants.COMPRESSION_NONE);
+    predictor = (int) getValue(ifd, FieldDescriptionFactory.PREDICTOR, 1);
+    fillOrder = (int) getValue(ifd, FieldDescriptionFactory.FILL_ORDER, 1);
+    t4Options = (int) getValue(ifd, FieldDescriptionFactory.T4_OPTIONS, 0);
+    t6Options = (int) getValue(ifd, FieldDescriptionFactory.T6_OPTIONS, 0);
+    imageWidth = getValue(ifd, FieldDescriptionFactory.IMAGE_WIDTH, 0);
+    imageHeight = getValue(ifd, FieldDescriptionFactory.IMAGE_LENGTH, 0);
+    tiled = rowsPerStrip == null;
+    if (tiled)
+    {
+      segmentWidth = getValue(ifd, FieldDescriptionFactory.TILE_WIDTH, 0);
+      segmentHeight = getValue(ifd, FieldDescriptionFactory.TILE_LENGTH, 0);
+      if (segmentWidth > 0 && segmentHeight > 0)
+      {
+        segmentsPerPlane = ((imageWidth + segmentWidth - 1) / segmentWidth)
+            * ((imageHeight + segmentHeight - 1) / segmentHeight);
+      }
+    }
+    else
+    {
+      segmentWidth = imageWidth;
+      segmentHeight = rowsPerStrip.getNumValues() == 1 ? Math.min(rowsPerStrip.getAsLong(), imageHeight) : 0;
+      if (segmentHeight > 0)
+      {
+        segmentsPerPlane = (imageHeight + segmentHeight - 1) / segmentHeight;
+      }
+    }
+    final int samplesPerPixel = (int) getValue(ifd, FieldDescriptionFactory.SAMPLES_PER_PIXEL, 1);
+    planar = getValue(ifd, FieldDescriptionFactory.PLANAR_CONFIGURATION,
+        Constants.PLANAR_CONFIGURATION_CHUNKY) == Constants.PLANAR_CONFIGURATION_PLANAR && samplesPerPixel > 1;
+    bitsPerSample = new int[Math.max(samplesPerPixel, 1)];
+    final Field bits = ifd.findByTag(FieldDescriptionFactory.BITS_PER_SAMPLE);
+    for (int index = 0; index < bitsPerSample.length; index++)
+    {
+      if (bits == null)
+      {
+        bitsPerSample[index] = 1;
+      }
+      else if (bits.getNumValues() == bitsPerSample.length || bits.getNumValues() == 1)
+      {
+        bitsPerSample[index] = bits.getAsInt(bits.getNumValues() == 1 ? 0 : index);
+      }
+      else
+      {
+        validBitsPerSample = false;
+      }
+    }
+    final Field subsampling = ifd.findByTag(FieldDescriptionFactory.Y_CB_CR_SUB_SAMPLING);
+    if (getValue(ifd, FieldDescriptionFactory.PHOTOMETRIC_INTERPRETATION,
+        -1) == Constants.PHOTOMETRIC_INTERPRETATION_Y_CB_CR && samplesPerPixel == 3 && !planar)
+    {
+      horizontalSubsampling = 2;
+      verticalSubsampling = 2;
+      if (subsampling != null && subsampling.getNumValues() == 2)
+      {
+        horizontalSubsampling = Math.max(1, subsampling.getAsInt(0));
+        verticalSubsampling = Math.max(1, subsampling.getAsInt(1));
+      }
+    }
+  }
+
+  private static long getValue(final ImageFileDirectory ifd, final FieldDescription desc, final long defaultValue)
+  {
+    final Field field = ifd.findByTag(desc);
+    return field == null || field.getNumValues() != 1 ? defaultValue : field.getAsLong();
+  }
+
+  /**
+   * Return whether strips or tiles of this layout can be verified: a supported compression type and valid dimensions.
+   *
+   * @return true if {@link #describe(TiffSegment)} can be used
+   */
+  public boolean isSupported()
+  {
+    final boolean knownCompression = compression == Constants.COMPRESSION_NONE
+        || compression == Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE || compression == Constants.COMPRESSION_CCITT_T4
+        || compression == Constants.COMPRESSION_CCITT_T6 || compression == Constants.COMPRESSION_LZW
+        || compression == Constants.COMPRESSION_DEFLATE || compression == Constants.COMPRESSION_ADOBE_DEFLATE
+        || compression == Constants.COMPRESSION_PACKBITS;
+    boolean validBits = validBitsPerSample;
+    for (final int bits : bitsPerSample)
+    {
+      validBits &= bits > 0 && bits <= MAX_BITS_PER_SAMPLE;
+    }
+    return knownCompression && validBits && segmentsPerPlane > 0 && segmentWidth <= Integer.MAX_VALUE
+        && segmentHeight <= Integer.MAX_VALUE;
+  }
+
+  /**
+   * Return whether a compression type is one of the CCITT bilevel ones.
+   *
+   * @return true for Modified Huffman, T.4 and T.6
+   */
+  public boolean isBilevelCompression()
+  {
+    return compression == Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE || compression == Constants.COMPRESSION_CCITT_T4
+        || compression == Constants.COMPRESSION_CCITT_T6;
+  }
+
+  /**
+   * Determine width, number of rows and expected decompressed size of a strip or tile from its index.
+   *
+   * @param segment
+   *          strip or tile with {@link TiffSegment#getIndex()} set
+   * @return false if the image needs no segment with that index, e.g. for superfluous strips
+   */
+  public boolean describe(final TiffSegment segment)
+  {
+    final long index = segment.getIndex();
+    final long plane = index / segmentsPerPlane;
+    final long local = index % segmentsPerPlane;
+    long rows = segmentHeight;
+    if (!tiled)
+    {
+      rows = Math.min(segmentHeight, imageHeight - local * segmentHeight);
+    }
+    final boolean result = plane < (planar ? bitsPerSample.length : 1) && rows > 0;
+    if (result)
+    {
+      segment.setWidth((int) segmentWidth);
+      segment.setRows((int) rows);
+      segment.setExpectedSize(computeSize(segmentWidth, rows, (int) plane));
+    }
+    return result;
+  }
+
+  private long computeSize(final long width, final long rows, final int plane)
+  {
+    long result;
+    if (horizontalSubsampling * verticalSubsampling > 1)
+    {
+      // each block holds luma samples of h x v pixels and one sample of each chroma component
+      final long blocks = (width + horizontalSubsampling - 1) / horizontalSubsampling;
+      final long bitsPerBlock = (horizontalSubsampling * verticalSubsampling + 2L) * bitsPerSample[0];
+      result = multiply((rows + verticalSubsampling - 1) / verticalSubsampling, (blocks * bitsPerBlock + 7) / 8);
+    }
+    else
+    {
+      result = multiply(rows, (width * getBitsPerPixel(plane) + 7) / 8);
+    }
+    return result;
+  }
+
+  private static long multiply(final long rows, final long rowBytes)
+  {
+    return rowBytes > Long.MAX_VALUE / rows ? Long.MAX_VALUE : rows * rowBytes;
+  }
+
+  /**
+   * Return the number of bits of a pixel of a plane.
+   *
+   * @param plane
+   *          zero-based plane index, only relevant for planar images
+   * @return bits per sample of the plane or bits of all samples of a pixel
+   */
+  public int getBitsPerPixel(final int plane)
+  {
+    int result = 0;
+    if (planar)
+    {
+      result = bitsPerSample[plane];
+    }
+    else
+    {
+      for (final int bits : bitsPerSample)
+      {
+        result += bits;
+      }
+    }
+    return result;
+  }
+
+  public int[] getBitsPerSample()
+  {
+    return bitsPerSample.clone();
+  }
+
+  public int getCompression()
+  {
+    return compression;
+  }
+
+  public int getPredictor()
+  {
+    return predictor;
+  }
+
+  public int getFillOrder()
+  {
+    return fillOrder;
+  }
+
+  public int getT4Options()
+  {
+    return t4Options;
+  }
+
+  public int getT6Options()
+  {
+    return t6Options;
+  }
+
+  public boolean isPlanar()
+  {
+    return planar;
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import ufxcoder.formats.SplittableRange;
+import ufxcoder.formats.SplittableRangeTask;
+import ufxcoder.io.SeekableSource;
+
+/**
+ * Decompress all strips or tiles of an image and compare their decoded sizes to the sizes required by image
+ * dimensions, samples and compression. Compressed data is read in batches of up to {@link #MAX_BATCH_BYTES} into the
+ * processor's segment buffer, adjacent strips or tiles with a single read. Strips or tiles with more compressed data
+ * than fits into a batch are not verified. Large batches are decoded on the common fork-join pool, each task with a
+ * pooled {@link TiffSegmentWorker}. Results are reported in strip or tile order, so the outcome does not
+ * depend on whether a batch was decoded in parallel.
+ */
+public class TiffSegmentVerifier implements SplittableRange
+{
+  /**
+   * Maximum number of bytes of compressed data read per batch, strips or tiles with more compressed data are not
+   * verified.
+   */
+  public static final int MAX_BATCH_BYTES = 16 * 1024 * 1024;
+  /**
+   * Batches with less compressed data are decoded sequentially.
+   */
+  public static final int MIN_PARALLEL_BYTES = 1024 * 1024;
+  private final TiffProcessor proc;
+  private final TiffSegmentLayout layout;
+  private final List<TiffSegment> segments = new ArrayList<>();
+  private int numSegments;
+  private int numBatchBytes;
+  /**
+   * Compressed data of the current batch, borrowed from the processor.
+   */
+  private byte[] buffer;
+  private boolean failed;
+  private boolean reportedTooLong;
+
+  public TiffSegmentVerifier(final TiffProcessor proc, final TiffSegmentLayout layout)
+  {
+    this.proc = proc;
+    this.layout = layout;
+  }
+
+  /**
+   * Verify all strips or tiles, stop at the first one which cannot be decoded or decodes to too few bytes. Offsets and
+   * byte counts must already have been checked to lie within the file.
+   *
+   * @param offsets
+   *          integer file offsets for all strips/tiles
+   * @param byteCounts
+   *          integer number of bytes for all strips/tiles
+   * @throws IOException
+   *           if reading data fails
+   */
+  public void verify(final Field offsets, final Field byteCounts) throws IOException
+  {
+    if (layout.isSupported() && checkSamples())
+    {
+      final SeekableSource source = proc.getSource();
+      final FieldValueReader offsetReader = new FieldValueReader(source, offsets);
+      final FieldValueReader countReader = new FieldValueReader(source, byteCounts);
+      int index = 0;
+      while (!failed && offsetReader.hasNext() && countReader.hasNext())
+      {
+        final TiffSegment segment = getSegment(numSegments);
+        segment.setIndex(index++);
+        segment.setOffset(offsetReader.next());
+        segment.setByteCount(countReader.next());
+        segment.setError(null);
+        if (layout.describe(segment) && segment.getByteCount() <= MAX_BATCH_BYTES)
+        {
+          add(source, segment);
+        }
+      }
+      if (!failed && numSegments > 0)
+      {
+        processBatch(source);
+      }
+    }
+  }
+
+  /**
+   * Report an uncompressed segment right away, add a compressed one to the current batch, which is processed first if
+   * the segment does not fit into it.
+   *
+   * @param source
+   *          file to read compressed data from
+   * @param segment
+   *          described segment at index {@link #numSegments} of {@link #segments}
+   */
+  private void add(final SeekableSource source, final TiffSegment segment) throws IOException
+  {
+    if (layout.getCompression() == Constants.COMPRESSION_NONE)
+    {
+      segment.setDecodedSize(Math.min(segment.getByteCount(), segment.getExpectedSize()));
+      report(segment);
+    }
+    else
+    {
+      if (numSegments > 0 && (long) numBatchBytes + segment.getByteCount() > MAX_BATCH_BYTES)
+      {
+        final int position = numSegments;
+        processBatch(source);
+        // the segment just described becomes the first one of the next batch
+        segments.set(position, segments.get(0));
+        segments.set(0, segment);
+      }
+      segment.setDataIndex(numBatchBytes);
+      numBatchBytes += (int) segment.getByteCount();
+      numSegments++;
+    }
+  }
+
+  private TiffSegment getSegment(final int index)
+  {
+    if (index == segments.size())
+    {
+      segments.add(new TiffSegment());
+    }
+    return segments.get(index);
+  }
+
+  /**
+   * Check whether predictor and compression can be used with the image's bits per sample.
+   *
+   * @return true if strips or tiles can be decoded
+   */
+  private boolean checkSamples()
+  {
+    boolean result = true;
+    final int predictor = layout.getPredictor();
+    if (predictor == Constants.PREDICTOR_HORIZONTAL || predictor == Constants.PREDICTOR_FLOATING_POINT)
+    {
+      for (final int bits : layout.getBitsPerSample())
+      {
+        final boolean valid = predictor == Constants.PREDICTOR_HORIZONTAL
+            ? bits == 8 || bits == 16 || bits == 32 || bits == 64
+            : bits == 16 || bits == 24 || bits == 32 || bits == 64;
+        if (!valid)
+        {
+          proc.error(Msg.PREDICTOR_INVALID_BITS_PER_SAMPLE, predictor, bits);
+          result = false;
+          break;
+        }
+      }
+    }
+    if (result && layout.isBilevelCompression() && layout.getBitsPerPixel(0) != 1)
+    {
+      proc.error(Msg.CCITT_NOT_BILEVEL, layout.getBitsPerPixel(0));
+      result = false;
+    }
+    return result;
+  }
+
+  /**
+   * Read, decode and report the segments of the current batch, then start a new batch.
+   *
+   * @param source
+   *          file to read compressed data from
+   */
+  private void processBatch(final SeekableSource source) throws IOException
+  {
+    final int numProcessed = numSegments;
+    final int numBytes = numBatchBytes;
+    buffer = proc.getSegmentBuffer(numBytes);
+    int first = 0;
+    while (first < numProcessed)
+    {
+      final TiffSegment start = segments.get(first);
+      long end = start.getOffset() + start.getByteCount();
+      int next = first + 1;
+      while (next < numProcessed && segments.get(next).getOffset() == end)
+      {
+        end += segments.get(next).getByteCount();
+        next++;
+      }
+      source.seek(start.getOffset());
+      source.readFully(buffer, start.getDataIndex(), (int) (end - start.getOffset()));
+      first = next;
+    }
+    if (numBytes >= MIN_PARALLEL_BYTES && numProcessed > 1 && Runtime.getRuntime().availableProcessors() > 1)
+    {
+      ForkJoinPool.commonPool().invoke(new SplittableRangeTask(this, 0, numProcessed));
+    }
+    else
+    {
+      processRange(0, numProcessed);
+    }
+    for (int index = 0; index < numProcessed && !failed; index++)
+    {
+      report(segments.get(index));
+    }
+    numSegments = 0;
+    numBatchBytes = 0;
+    buffer = null;
+  }
+
+  private void report(final TiffSegment segment)
+  {
+    final long decoded = segment.getDecodedSize();
+    final long expected = segment.getExpectedSize();
+    if (segment.getError() != null)
+    {
+      segment.getError().report(proc);
+      proc.error(Msg.SEGMENT_DECODING_FAILED, segment.getIndex(), segment.getOffset(), segment.getByteCount(),
+          layout.getCompression());
+      failed = true;
+    }
+    else if (decoded != AbstractTiffSegmentDecoder.UNSUPPORTED && decoded < expected)
+    {
+      proc.error(Msg.SEGMENT_TOO_SHORT, segment.getIndex(), segment.getOffset(), decoded, expected);
+      failed = true;
+    }
+    else if (decoded > expected && !reportedTooLong)
+    {
+      proc.warn(Msg.SEGMENT_TOO_LONG, segment.getIndex(), segment.getOffset(), expected);
+      reportedTooLong = true;
+    }
+  }
+
+  /**
+   * Return the number of bytes of compressed data of a range of segments of the current batch.
+   *
+   * @param from
+   *          index of first segment within batch
+   * @param to
+   *          index of segment following the last one within batch
+   * @return number of bytes
+   */
+  @Override
+  public long getNumBytes(final int from, final int to)
+  {
+    final TiffSegment last = segments.get(to - 1);
+    return last.getDataIndex() + last.getByteCount() - segments.get(from).getDataIndex();
+  }
+
+  /**
+   * Decode a range of segments of the current batch, may be called concurrently for disjoint ranges.
+   *
+   * @param from
+   *          index of first segment within batch
+   * @param to
+   *          index of segment following the last one within batch
+   */
+  @Override
+  public void processRange(final int from, final int to)
+  {
+    final TiffSegmentWorker worker = TiffSegmentWorker.borrow();
+    try
+    {
+      for (int index = from; index < to; index++)
+      {
+        worker.decode(layout, segments.get(index), buffer);
+      }
+    }
+    finally
+    {
+      TiffSegmentWorker.release(worker);
+    }
+  }
+}
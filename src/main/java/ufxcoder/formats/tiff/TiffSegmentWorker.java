@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Set of segment decoders used by one thread at a time. Workers are pooled so that decoder state like the
+ * {@link java.util.zip.Inflater} and scratch buffer of {@link TiffDeflateDecoder} or the string table of
+ * {@link TiffLzwDecoder} is created once and reused for all strips and tiles of all files.
+ */
+public final class TiffSegmentWorker
+{
+  /**
+   * Maximum number of idle workers kept in the pool, further ones are closed when released.
+   */
+  public static final int MAX_POOLED = 2 * Runtime.getRuntime().availableProcessors();
+  private static final Queue<TiffSegmentWorker> POOL = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger NUM_POOLED = new AtomicInteger();
+  private TiffPackBitsDecoder packBits;
+  private TiffLzwDecoder lzw;
+  private TiffDeflateDecoder deflate;
+  private TiffCcittDecoder ccitt;
+
+  private TiffSegmentWorker()
+  {
+    // use borrow
+  }
+
+  /**
+   * Take a worker from the pool or create a new one if the pool is empty.
+   *
+   * @return worker to be passed to {@link #release(TiffSegmentWorker)} when done
+   */
+  public static TiffSegmentWorker borrow()
+  {
+    TiffSegmentWorker result = POOL.poll();
+    if (result == null)
+    {
+      result = new TiffSegmentWorker();
+    }
+    else
+    {
+      NUM_POOLED.decrementAndGet();
+    }
+    return result;
+  }
+
+  /**
+   * Return a worker to the pool.
+   *
+   * @param worker
+   *          worker obtained from {@link #borrow()}, must not be used afterwards
+   */
+  public static void release(final TiffSegmentWorker worker)
+  {
+    if (NUM_POOLED.incrementAndGet() <= MAX_POOLED)
+    {
+      POOL.offer(worker);
+    }
+    else
+    {
+      NUM_POOLED.decrementAndGet();
+      worker.close();
+    }
+  }
+
+  /**
+   * Decode a segment and store decoded size and error in it.
+   *
+   * @param layout
+   *          layout with compression type
+   * @param segment
+   *          segment to be decoded
+   * @param input
+   *          buffer holding the compressed data of the segment
+   */
+  public void decode(final TiffSegmentLayout layout, final TiffSegment segment, final byte[] input)
+  {
+    final AbstractTiffSegmentDecoder decoder = getDecoder(layout.getCompression());
+    segment.setDecodedSize(decoder.decode(layout, segment, input));
+    segment.setError(decoder.takeError());
+  }
+
+  private AbstractTiffSegmentDecoder getDecoder(final int compression)
+  {
+    AbstractTiffSegmentDecoder result;
+    switch (compression)
+    {
+    case Constants.COMPRESSION_PACKBITS:
+      if (packBits == null)
+      {
+        packBits = new TiffPackBitsDecoder();
+      }
+      result = packBits;
+      break;
+    case Constants.COMPRESSION_LZW:
+      if (lzw == null)
+      {
+        lzw = new TiffLzwDecoder();
+      }
+      result = lzw;
+      break;
+    case Constants.COMPRESSION_DEFLATE:
+    case Constants.COMPRESSION_ADOBE_DEFLATE:
+      if (deflate == null)
+      {
+        deflate = new TiffDeflateDecoder();
+      }
+      result = deflate;
+      break;
+    default:
+      if (ccitt == null)
+      {
+        ccitt = new TiffCcittDecoder();
+      }
+      result = ccitt;
+      break;
+    }
+    return result;
+  }
+
+  private void close()
+  {
+    if (deflate != null)
+    {
+      deflate.close();
+    }
+  }
+}
@@ -16,7 +16,7 @@
 package ufxcoder.formats.tiff;
 
 import java.io.IOException;
-import java.math.BigInteger;
+import ufxcoder.formats.FileCoverage;
 import ufxcoder.io.SeekableSource;
 
 /**
@@ -68,8 +68,8 @@ public class TiffStripTileValidator
       if (height != null)
       {
         rowsPerStrip = new Field();
-        rowsPerStrip.setNumValues(1);
-        rowsPerStrip.add(height.getAsNumber());
+        rowsPerStrip.setType(FieldType.Long.getId());
+        rowsPerStrip.setValues(height.getAsLong());
       }
     }
     final Field[] stripFields = new Field[]
@@ -165,7 +165,7 @@ public class TiffStripTileValidator
       }
     }
 
-    checkImageDataSegments(ifd, stripOffsets, stripByteCounts);
+    checkImageDataSegments(ifd, rowsPerStrip, stripOffsets, stripByteCounts);
   }
 
   private void checkTiles(final ImageFileDirectory ifd, final Field tileWidth, final Field tileHeight,
@@ -204,39 +204,63 @@ public class TiffStripTileValidator
           offsets);
     }
 
-    checkImageDataSegments(ifd, tileOffsets, tileByteCounts);
+    checkImageDataSegments(ifd, null, tileOffsets, tileByteCounts);
   }
 
   /**
-   * Checks validity of offsets and byte counts, can be used for both strips and tiles.
+   * Checks validity of offsets and byte counts, can be used for both strips and tiles. If all of them are valid the
+   * strips or tiles are decompressed with {@link TiffSegmentVerifier}.
    *
    * @param ifd
    *          image file directory to be checked
+   * @param rowsPerStrip
+   *          number of rows per strip, null for tiles
    * @param offsets
    *          integer file offsets for all strips/tiles
    * @param byteCounts
    *          integer number of bytes for all strips/tiles
    */
-  public void checkImageDataSegments(final ImageFileDirectory ifd, final Field offsets, final Field byteCounts)
+  public void checkImageDataSegments(final ImageFileDirectory ifd, final Field rowsPerStrip, final Field offsets,
+      final Field byteCounts)
   {
     final SeekableSource source = proc.getSource();
+    boolean valid = true;
     try
     {
-      final long numValues = offsets.getNumValues();
-      for (int index = 0; index < numValues; index++)
+      final FileCoverage coverage = proc.getTiffFileDescription().getCoverage();
+      final String kind = rowsPerStrip == null ? Msg.RANGE_TILES : Msg.RANGE_STRIPS;
+      final long owner = ifd.getOffset();
+      final FieldValueReader offsetReader = new FieldValueReader(source, offsets);
+      final FieldValueReader countReader = new FieldValueReader(source, byteCounts);
+      long index = 0;
+      while (offsetReader.hasNext())
       {
-        final BigInteger offset = offsets.getAsBigInteger(index);
-        final BigInteger count = byteCounts.getAsBigInteger(index);
+        final long offset = offsetReader.next();
+        final long count = countReader.hasNext() ? countReader.next() : -1;
         if (!source.isValidSection(offset, count))
         {
-          proc.error(Msg.INVALID_OFFSET_AND_SIZE, offset, count);
+          proc.error(Msg.INVALID_OFFSET_AND_SIZE, offset, count < 0 ? null : count);
+          valid = false;
           break;
         }
+        coverage.add(kind, offset, count, owner, index++);
       }
     }
     catch (IOException e)
     {
       proc.error("tiff.error.validation.unable_to_determine_source_size", source.getName(), e.getMessage());
+      valid = false;
+    }
+    if (valid)
+    {
+      try
+      {
+        new TiffSegmentVerifier(proc, new TiffSegmentLayout(ifd, rowsPerStrip)).verify(offsets, byteCounts);
+      }
+      catch (IOException e)
+      {
+        proc.error(Msg.SEGMENT_READING_ERROR, e.getMessage());
+      }
     }
   }
 
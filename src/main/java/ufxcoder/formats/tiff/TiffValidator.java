@@ -196,6 +196,24 @@ public class TiffValidator
     return result;
   }
 
+  /**
+   * Record the range of a JPEG stream referenced by an image file directory, if it lies within the file.
+   *
+   * @param ifd
+   *          image file directory possibly containing JPEG interchange format fields
+   */
+  private void addJpegStream(final ImageFileDirectory ifd)
+  {
+    final long offset = ifd.findSingleNumberByTag(FieldDescriptionFactory.JPEG_INTERCHANGE_FORMAT);
+    final long length = ifd.findSingleNumberByTag(FieldDescriptionFactory.JPEG_INTERCHANGE_FORMAT_LENGTH);
+    if (offset >= 0 && length > 0 && offset <= Long.MAX_VALUE - length && proc.isValidSourceOffset(offset + length))
+    {
+      // old-style JPEG streams usually contain the strip data
+      proc.getTiffFileDescription().getCoverage().addContainer(Msg.RANGE_JPEG_STREAM, offset, length, ifd.getOffset(),
+          0);
+    }
+  }
+
   public void validate(final ImageFileDirectory ifd)
   {
     proc.checkImageFileDirectoryOffset(ifd.getOffset());
@@ -211,6 +229,7 @@ public class TiffValidator
       final TiffStripTileValidator stVal = new TiffStripTileValidator(proc);
       stVal.checkStripsAndTiles(ifd);
     }
+    addJpegStream(ifd);
     final TiffColorValidator colorValidator = new TiffColorValidator(proc);
     colorValidator.checkSamples(ifd);
   }
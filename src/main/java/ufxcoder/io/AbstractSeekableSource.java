@@ -16,45 +16,26 @@
 package ufxcoder.io;
 
 import java.io.IOException;
-import java.math.BigInteger;
 
 /**
  * Abstract partial implementation of {@link SeekableSource}.
  */
 public abstract class AbstractSeekableSource implements SeekableSource
 {
-  private static final BigInteger MAX_LONG = BigInteger.valueOf(Long.MAX_VALUE);
-
-  @Override
-  public void seek(final BigInteger offset) throws IOException
-  {
-    if (offset == null)
-    {
-      throw new IllegalArgumentException("Argument offset must not be null.");
-    }
-    if (offset.compareTo(MAX_LONG) > 0)
-    {
-      throw new IOException(String.format("Unable to seek to position %s, it is larger than the maximum long %d.",
-          offset.toString(), Long.MAX_VALUE));
-    }
-    seek(offset.longValue());
-  }
-
   @Override
-  public boolean isValidSection(final BigInteger offset, final BigInteger numBytes)
+  public boolean isValidSection(final long offset, final long numBytes)
   {
     boolean result;
-    if (offset == null || offset.signum() < 0 || numBytes == null || numBytes.signum() < 0)
+    if (offset < 0 || numBytes < 0)
     {
       result = false;
     }
     else
     {
-      final BigInteger lastByteOffset = offset.add(numBytes);
       try
       {
-        final BigInteger sourceSize = BigInteger.valueOf(getLength());
-        result = sourceSize.compareTo(lastByteOffset) >= 0;
+        // compare against the remaining length so that offset + numBytes cannot overflow
+        result = offset <= getLength() - numBytes;
       }
       catch (IOException ioe)
       {
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Helper class releasing memory-mapped buffers right away instead of when they are garbage-collected.
+ *
+ * Java 9 and higher offer Unsafe.invokeCleaner, which is looked up once via reflection. On Java 8 nothing happens and a
+ * mapping stays until its buffer is collected. A buffer must not be accessed after it has been unmapped.
+ */
+public final class BufferUnmapper
+{
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static
+  {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try
+    {
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      final Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+    }
+    catch (ReflectiveOperationException | SecurityException e)
+    {
+      // Java 8 or a runtime without sun.misc.Unsafe: mappings are released by the garbage collector
+      invokeCleaner = null;
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  private BufferUnmapper()
+  {
+    // to avoid instantiation
+  }
+
+  /**
+   * Release a direct or mapped buffer if supported by the runtime.
+   *
+   * @param buffer
+   *          buffer to be released, may be null
+   * @return whether the buffer was released
+   */
+  public static boolean unmap(final ByteBuffer buffer)
+  {
+    boolean result = false;
+    if (buffer != null && buffer.isDirect() && INVOKE_CLEANER != null)
+    {
+      try
+      {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        result = true;
+      }
+      catch (IllegalAccessException | InvocationTargetException e)
+      {
+        // slices and duplicates cannot be cleaned, they are left to the garbage collector
+        result = false;
+      }
+    }
+    return result;
+  }
+}
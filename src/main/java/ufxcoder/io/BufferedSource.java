@@ -16,6 +16,7 @@
 package ufxcoder.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Wrapper around {@link SeekableSource} to provide buffered input.
@@ -24,6 +25,10 @@ public class BufferedSource
 {
   private final SeekableSource input;
   private final byte[] buffer;
+  /**
+   * Big-endian view of {@link #buffer}.
+   */
+  private final ByteBuffer words;
   private int index;
   private int length;
 
@@ -31,6 +36,7 @@ public class BufferedSource
   {
     input = in;
     buffer = new byte[bufferSize];
+    words = ByteBuffer.wrap(buffer);
     index = buffer.length;
     length = index;
   }
@@ -58,6 +64,37 @@ public class BufferedSource
     return result;
   }
 
+  /**
+   * Return the number of bytes which can be returned without reading from the underlying source.
+   *
+   * @return number of buffered bytes
+   */
+  public int getNumBuffered()
+  {
+    return Math.max(0, length - index);
+  }
+
+  /**
+   * Return the next eight bytes without consuming them, {@link #getNumBuffered()} must be at least eight.
+   *
+   * @return bytes as big-endian value
+   */
+  public long peekLong()
+  {
+    return words.getLong(index);
+  }
+
+  /**
+   * Consume buffered bytes.
+   *
+   * @param numBytes
+   *          number of bytes, at most {@link #getNumBuffered()}
+   */
+  public void skip(final int numBytes)
+  {
+    index += numBytes;
+  }
+
   /**
    * Position underlying {@link SeekableSource} so that it's at the offset a number of bytes before the current
    * position.
@@ -76,4 +113,21 @@ public class BufferedSource
     position -= numBytes; // seek back argument number of bytes
     input.seek(position);
   }
+
+  /**
+   * Position underlying {@link SeekableSource} at the first byte not yet returned by {@link #next()} and empty the
+   * buffer, so that the input can be read directly. Later calls to {@link #next()} continue at that position.
+   *
+   * @throws IOException
+   *           if underlying input throws that exception when seeking
+   */
+  public void release() throws IOException
+  {
+    if (length > 0)
+    {
+      seekBack(0);
+    }
+    index = 0;
+    length = 0;
+  }
 }
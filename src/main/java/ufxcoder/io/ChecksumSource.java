@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import ufxcoder.checksums.ChecksumAlgorithm;
+import ufxcoder.checksums.ContentHash;
+import ufxcoder.conversion.StrUtil;
+
+/**
+ * A {@link SeekableSource} that wraps another source and computes checksums of its content from the bytes read by the
+ * format processors, so that a file is not read a second time for checksums.
+ *
+ * Hash functions need their input in order. The checksums cover a prefix of the source which grows whenever a read
+ * operation continues at its end. Before a read operation behind the end of that prefix, the skipped bytes are read
+ * and added first. Reading data before the end of the prefix again, e.g. after a backward seek, does not change the
+ * checksums. {@link #complete()} reads what remains after the last byte processed. That way each byte is added exactly
+ * once and bytes are read from the wrapped source in sequential order as far as the format allows it.
+ */
+public class ChecksumSource extends AbstractSeekableSource
+{
+  private static final int SWEEP_BUFFER_SIZE = 64 * 1024;
+  private final SeekableSource source;
+  private final List<ChecksumAlgorithm> algorithms;
+  private final List<ContentHash> hashes;
+  private final long length;
+  private long position;
+  private long hashedLength;
+  private byte[] sweepBuffer;
+  private final byte[] singleByte = new byte[1];
+
+  public ChecksumSource(final SeekableSource source, final List<ChecksumAlgorithm> algorithms) throws IOException
+  {
+    super();
+    this.source = source;
+    this.algorithms = new ArrayList<>(algorithms);
+    hashes = ChecksumAlgorithm.createHashes(algorithms);
+    length = source.getLength();
+    position = source.getPosition();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    source.close();
+  }
+
+  @Override
+  public long getLength() throws IOException
+  {
+    return length;
+  }
+
+  @Override
+  public String getName()
+  {
+    return source.getName();
+  }
+
+  @Override
+  public long getPosition() throws IOException
+  {
+    return position;
+  }
+
+  @Override
+  public int read() throws IOException
+  {
+    catchUp(position);
+    final int result = source.read();
+    if (result >= 0)
+    {
+      if (position == hashedLength)
+      {
+        singleByte[0] = (byte) result;
+        update(singleByte, 0, 1);
+      }
+      position++;
+    }
+    return result;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int offset, final int num) throws IOException
+  {
+    catchUp(position);
+    final int result = source.read(buffer, offset, num);
+    if (result > 0)
+    {
+      added(buffer, offset, result);
+    }
+    return result;
+  }
+
+  @Override
+  public void readFully(final byte[] buffer, final int offset, final int num) throws IOException
+  {
+    catchUp(position);
+    source.readFully(buffer, offset, num);
+    added(buffer, offset, num);
+  }
+
+  @Override
+  public void seek(final long pos) throws IOException
+  {
+    source.seek(pos);
+    position = pos;
+  }
+
+  /**
+   * Hash those bytes just read that extend the checksummed prefix, then move the position behind them.
+   */
+  private void added(final byte[] buffer, final int offset, final int num)
+  {
+    final long end = position + num;
+    if (position <= hashedLength && end > hashedLength)
+    {
+      final int skip = (int) (hashedLength - position);
+      update(buffer, offset + skip, num - skip);
+    }
+    position = end;
+  }
+
+  private void update(final byte[] buffer, final int offset, final int num)
+  {
+    for (final ContentHash hash : hashes)
+    {
+      hash.update(buffer, offset, num);
+    }
+    hashedLength += num;
+  }
+
+  /**
+   * Add the bytes between the end of the checksummed prefix and a target position, leaving the wrapped source at the
+   * target position.
+   */
+  private void catchUp(final long target) throws IOException
+  {
+    final long end = Math.min(target, length);
+    if (end > hashedLength)
+    {
+      if (sweepBuffer == null)
+      {
+        sweepBuffer = new byte[SWEEP_BUFFER_SIZE];
+      }
+      source.seek(hashedLength);
+      while (hashedLength < end)
+      {
+        final int num = (int) Math.min(sweepBuffer.length, end - hashedLength);
+        source.readFully(sweepBuffer, 0, num);
+        update(sweepBuffer, 0, num);
+      }
+      if (end != target)
+      {
+        source.seek(target);
+      }
+    }
+  }
+
+  /**
+   * Add all bytes not read so far and compute the checksums.
+   *
+   * @return map from algorithm name to hexadecimal checksum, in the order of algorithms given to the constructor
+   * @throws IOException
+   *           on read errors
+   */
+  public Map<String, String> complete() throws IOException
+  {
+    catchUp(length);
+    source.seek(position);
+    final Map<String, String> result = new LinkedHashMap<>();
+    for (int index = 0; index < hashes.size(); index++)
+    {
+      result.put(algorithms.get(index).getName(), StrUtil.toHex(hashes.get(index).digest()));
+    }
+    return result;
+  }
+}
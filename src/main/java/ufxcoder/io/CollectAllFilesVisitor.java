@@ -20,25 +20,37 @@ import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
-import ufxcoder.app.AppConfig;
 
 /**
- * Add all files encountered to the configuration file list using {@link AppConfig#addFileName(String)}.
+ * Pass all files encountered to a {@link FileNameConsumer}. The walk is terminated if the consumer gets interrupted,
+ * the interrupt status of the thread is kept so that callers can check it afterwards.
  */
 public class CollectAllFilesVisitor extends SimpleFileVisitor<Path>
 {
-  private final AppConfig config;
+  private final FileNameConsumer consumer;
 
-  public CollectAllFilesVisitor(final AppConfig config)
+  public CollectAllFilesVisitor(final FileNameConsumer consumer)
   {
     super();
-    this.config = config;
+    this.consumer = consumer;
   }
 
   @Override
   public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException
   {
-    config.addFileName(file == null ? null : file.toString());
-    return FileVisitResult.CONTINUE;
+    FileVisitResult result = FileVisitResult.CONTINUE;
+    if (file != null)
+    {
+      try
+      {
+        consumer.accept(file.toString());
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        result = FileVisitResult.TERMINATE;
+      }
+    }
+    return result;
   }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+/**
+ * Receives the names of files found while scanning directories.
+ */
+public interface FileNameConsumer
+{
+  /**
+   * Accept the name of a file.
+   *
+   * @param fileName
+   *          name of a file
+   * @throws InterruptedException
+   *           if the calling thread was interrupted while waiting to hand over the file name
+   */
+  void accept(String fileName) throws InterruptedException;
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link SeekableSource} reading from a memory-mapped file.
+ *
+ * A single {@link MappedByteBuffer} can address at most 2 GB, so the file is mapped in windows of a fixed size. Only
+ * one window is mapped at a time, a new one is mapped whenever the position leaves the current one. Seek operations
+ * therefore do not require a system call, which speeds up the random access patterns of formats like TIFF.
+ *
+ * The previous window is released via {@link BufferUnmapper} when a new one is mapped, the last one on
+ * {@link #close()}. On Java 8 windows stay mapped until garbage-collected.
+ */
+public class MappedFileSource extends AbstractSeekableSource
+{
+  /**
+   * Default number of bytes in a mapped window.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+  private FileChannel channel;
+  private final String name;
+  private final long length;
+  private final int windowSize;
+  private MappedByteBuffer window;
+  private long windowStart;
+  private long windowEnd;
+  private long position;
+
+  public MappedFileSource(final File file) throws IOException
+  {
+    this(file, DEFAULT_WINDOW_SIZE);
+  }
+
+  public MappedFileSource(final File file, final int windowSize) throws IOException
+  {
+    super();
+    if (windowSize < 1)
+    {
+      throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+    }
+    this.windowSize = windowSize;
+    name = file.getPath();
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    length = channel.size();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    unmapWindow();
+    if (channel != null)
+    {
+      try
+      {
+        channel.close();
+      }
+      finally
+      {
+        channel = null;
+      }
+    }
+  }
+
+  @Override
+  public long getLength() throws IOException
+  {
+    return length;
+  }
+
+  @Override
+  public String getName()
+  {
+    return name;
+  }
+
+  @Override
+  public long getPosition() throws IOException
+  {
+    return position;
+  }
+
+  @Override
+  public int read() throws IOException
+  {
+    int result;
+    if (position >= length)
+    {
+      result = -1;
+    }
+    else
+    {
+      mapWindow();
+      result = window.get((int) (position - windowStart)) & 0xff;
+      position++;
+    }
+    return result;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int offset, final int length) throws IOException
+  {
+    int result;
+    if (length == 0)
+    {
+      result = 0;
+    }
+    else
+    {
+      if (position >= this.length)
+      {
+        result = -1;
+      }
+      else
+      {
+        result = 0;
+        while (result < length && position < this.length)
+        {
+          mapWindow();
+          final int num = (int) Math.min(length - result, windowEnd - position);
+          window.position((int) (position - windowStart));
+          window.get(buffer, offset + result, num);
+          position += num;
+          result += num;
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void readFully(final byte[] buffer, final int offset, final int length) throws IOException
+  {
+    final int numRead = read(buffer, offset, length);
+    if (numRead != length)
+    {
+      throw new IOException("Unable to complete read operation.");
+    }
+  }
+
+  @Override
+  public void seek(final long pos) throws IOException
+  {
+    if (pos < 0)
+    {
+      throw new IOException("Negative seek offset " + pos + ".");
+    }
+    position = pos;
+  }
+
+  /**
+   * Make sure that the current position is covered by the mapped window.
+   *
+   * @throws IOException
+   *           if the source was closed or mapping failed
+   */
+  private void mapWindow() throws IOException
+  {
+    if (window == null || position < windowStart || position >= windowEnd)
+    {
+      if (channel == null)
+      {
+        throw new IOException("Source " + name + " was closed.");
+      }
+      final long start = position - position % windowSize;
+      final long size = Math.min(windowSize, length - start);
+      unmapWindow();
+      window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+      windowStart = start;
+      windowEnd = start + size;
+    }
+  }
+
+  private void unmapWindow()
+  {
+    if (window != null)
+    {
+      BufferUnmapper.unmap(window);
+      window = null;
+    }
+  }
+}
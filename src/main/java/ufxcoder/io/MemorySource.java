@@ -38,6 +38,27 @@ public class MemorySource extends AbstractSeekableSource
     index = 0;
   }
 
+  /**
+   * Create a source from a copy of a section of a buffer.
+   *
+   * @param buffer
+   *          array with data
+   * @param offset
+   *          index of first byte to be copied
+   * @param length
+   *          number of bytes to be copied
+   */
+  public MemorySource(final byte[] buffer, final int offset, final int length)
+  {
+    super();
+    if (buffer == null || offset < 0 || length < 0 || offset + length > buffer.length)
+    {
+      throw new IllegalArgumentException("Must have non-null buffer argument and valid section.");
+    }
+    data = Array.clone(buffer, offset, length, 0);
+    index = 0;
+  }
+
   @Override
   public void close() throws IOException
   {
@@ -113,7 +134,7 @@ public class MemorySource extends AbstractSeekableSource
     }
     else
     {
-      result = data[index++];
+      result = data[index++] & 0xff;
     }
     return result;
   }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ufxcoder.app.AppConfig;
+
+/**
+ * Scan directory trees with a {@link ForkJoinPool}, listing several directories at the same time. On network file
+ * systems the latency of listing a directory rather than the processing of files often limits throughput, concurrent
+ * listing hides that latency.
+ *
+ * Like {@link java.nio.file.Files#walkFileTree(Path, java.nio.file.FileVisitor)} symbolic links are not followed and
+ * passed to the consumer like files. A directory that cannot be listed or an entry whose attributes cannot be read is
+ * reported and skipped, the rest of the tree is still scanned.
+ */
+public class ParallelDirectoryWalker
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelDirectoryWalker.class);
+  private final AppConfig config;
+  private final FileNameConsumer consumer;
+  private final int parallelism;
+  private final AtomicBoolean cancelled = new AtomicBoolean();
+
+  /**
+   * Create new walker.
+   *
+   * @param config
+   *          configuration used to look up messages
+   * @param consumer
+   *          receives all file names, must be thread-safe
+   * @param parallelism
+   *          number of directories to be listed at the same time
+   */
+  public ParallelDirectoryWalker(final AppConfig config, final FileNameConsumer consumer, final int parallelism)
+  {
+    this.config = config;
+    this.consumer = consumer;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Scan all argument directories and pass the files found to the consumer. Returns when all directories are done.
+   *
+   * @param dirNames
+   *          names of root directories
+   * @throws InterruptedException
+   *           if the calling thread or the consumer was interrupted
+   */
+  public void walk(final List<String> dirNames) throws InterruptedException
+  {
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try
+    {
+      final List<ForkJoinTask<Void>> tasks = new ArrayList<>();
+      for (final String dirName : dirNames)
+      {
+        LOGGER.debug(config.msg("args.debug.scanning_directory", dirName));
+        tasks.add(pool.submit(new DirectoryTask(this, Paths.get(dirName))));
+      }
+      for (final ForkJoinTask<Void> task : tasks)
+      {
+        task.get();
+      }
+    }
+    catch (ExecutionException e)
+    {
+      LOGGER.error(config.msg("args.error.scanning_directory", dirNames), e.getCause());
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+    if (cancelled.get())
+    {
+      throw new InterruptedException();
+    }
+  }
+
+  public FileNameConsumer getConsumer()
+  {
+    return consumer;
+  }
+
+  public boolean isCancelled()
+  {
+    return cancelled.get();
+  }
+
+  /**
+   * Stop scanning, {@link #walk(List)} will throw an {@link InterruptedException}.
+   */
+  public void cancel()
+  {
+    cancelled.set(true);
+  }
+
+  /**
+   * Log that a directory could not be listed or a directory entry could not be examined.
+   *
+   * @param dir
+   *          directory or entry
+   * @param exception
+   *          reason
+   */
+  public void reportError(final Path dir, final IOException exception)
+  {
+    LOGGER.error(config.msg("args.error.scanning_directory", dir), exception);
+  }
+
+  /**
+   * Task listing a single directory and forking a new task for each of its subdirectories.
+   */
+  private static final class DirectoryTask extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+    private final transient ParallelDirectoryWalker walker;
+    private final transient Path dir;
+
+    DirectoryTask(final ParallelDirectoryWalker walker, final Path dir)
+    {
+      super();
+      this.walker = walker;
+      this.dir = dir;
+    }
+
+    @Override
+    protected void compute()
+    {
+      final List<DirectoryTask> subDirs = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir))
+      {
+        for (final Path entry : stream)
+        {
+          if (walker.isCancelled())
+          {
+            break;
+          }
+          visit(entry, subDirs);
+        }
+      }
+      catch (IOException e)
+      {
+        walker.reportError(dir, e);
+      }
+      catch (DirectoryIteratorException e)
+      {
+        walker.reportError(dir, e.getCause());
+      }
+      catch (InterruptedException e)
+      {
+        walker.cancel();
+      }
+      invokeAll(subDirs);
+    }
+
+    /**
+     * Pass a file to the consumer or add a task for a subdirectory. An entry whose attributes cannot be read is
+     * reported and skipped, so the remaining entries of the directory are still visited.
+     *
+     * @param entry
+     *          directory entry
+     * @param subDirs
+     *          receives the task for a subdirectory
+     * @throws InterruptedException
+     *           if the consumer was interrupted
+     */
+    private void visit(final Path entry, final List<DirectoryTask> subDirs) throws InterruptedException
+    {
+      try
+      {
+        final BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class,
+            LinkOption.NOFOLLOW_LINKS);
+        if (attrs.isDirectory())
+        {
+          subDirs.add(new DirectoryTask(walker, entry));
+        }
+        else
+        {
+          walker.getConsumer().accept(entry.toString());
+        }
+      }
+      catch (IOException e)
+      {
+        walker.reportError(entry, e);
+      }
+    }
+  }
+}
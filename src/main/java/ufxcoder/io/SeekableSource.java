@@ -17,7 +17,6 @@ package ufxcoder.io;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.math.BigInteger;
 
 /**
  * <p>
@@ -75,8 +74,6 @@ public interface SeekableSource extends Closeable
 
   void seek(long pos) throws IOException;
 
-  void seek(BigInteger offset) throws IOException;
-
   /**
    * Does the underlying source hold a number of bytes at a certain offset?
    *
@@ -84,9 +81,9 @@ public interface SeekableSource extends Closeable
    *          position in the source
    * @param numBytes
    *          number of bytes
-   * @return if offset + numBytes &lt;= {@link #getLength()}
+   * @return if both arguments are non-negative and offset + numBytes &lt;= {@link #getLength()}
    * @throws IOException
    *           if querying current file size fails
    */
-  boolean isValidSection(BigInteger offset, BigInteger numBytes) throws IOException;
+  boolean isValidSection(long offset, long numBytes) throws IOException;
 }
@@ -15,13 +15,15 @@
  */
 package ufxcoder.io;
 
-import java.math.BigInteger;
+import java.io.IOException;
 import ufxcoder.conversion.Array;
 import ufxcoder.conversion.ByteOrder;
 
 /**
  * A chunk of raw data and the offset into a source from which it was read, plus several helper methods to interpret
- * that raw data.
+ * that raw data. The data is the first {@link #getLength()} bytes of a buffer that can be reused for the next chunk via
+ * {@link #reset(long)}, so that reading a sequence of chunks does not allocate once the buffer is large enough. Methods
+ * returning byte arrays copy the data; readers that keep data beyond the next chunk must use them.
  */
 public class Segment
 {
@@ -51,26 +53,107 @@ public class Segment
     this.offset = offset;
   }
 
+  /**
+   * Start a new, empty chunk at an offset, keeping the buffer for reuse.
+   *
+   * @param newOffset
+   *          offset of the chunk in its source
+   */
+  public void reset(final long newOffset)
+  {
+    offset = newOffset;
+    length = 0;
+    index = 0;
+  }
+
+  /**
+   * Read bytes from a source and add them to the end of the chunk. The buffer is only replaced if it is too small, its
+   * capacity at least doubles then so that growing a chunk step by step copies each byte only a few times.
+   *
+   * @param source
+   *          source positioned at the byte following the chunk
+   * @param numBytes
+   *          number of bytes to be read
+   * @throws IOException
+   *           if reading fails or the source ends before numBytes have been read
+   */
+  public void append(final SeekableSource source, final int numBytes) throws IOException
+  {
+    final long newLength = (long) length + numBytes;
+    if (newLength > Integer.MAX_VALUE)
+    {
+      throw new IllegalArgumentException(String.format(
+          "Combined size of existing segment length %d and additional bytes %d goes beyond maximum array size %d.",
+          length, numBytes, Integer.MAX_VALUE));
+    }
+    if (data == null || newLength > data.length)
+    {
+      final byte[] larger = new byte[(int) Math.min(Integer.MAX_VALUE,
+          Math.max(newLength, data == null ? 0 : 2L * data.length))];
+      if (data != null)
+      {
+        System.arraycopy(data, 0, larger, 0, length);
+      }
+      data = larger;
+    }
+    source.readFully(data, length, numBytes);
+    length = (int) newLength;
+  }
+
+  /**
+   * Return a copy of the chunk's data.
+   *
+   * @return new array with {@link #getLength()} bytes
+   */
   public byte[] getData()
   {
-    return Array.clone(data);
+    byte[] result = null;
+    if (data != null)
+    {
+      result = Array.clone(data, 0, length, 0);
+    }
+    return result;
   }
 
+  /**
+   * Return a copy of bytes at the current index and advance the index.
+   *
+   * @param numBytes
+   *          number of bytes
+   * @return new array
+   */
   public byte[] getData(final int numBytes)
   {
-    final byte[] result = Array.clone(data, index, numBytes, 0);
+    final byte[] result = getData(index, numBytes);
     index += numBytes;
     return result;
   }
 
-  public byte[] getData(final int offset, final int numBytes)
+  /**
+   * Return a copy of bytes at a position within the chunk.
+   *
+   * @param internalOffset
+   *          position relative to the start of the chunk
+   * @param numBytes
+   *          number of bytes
+   * @return new array
+   */
+  public byte[] getData(final int internalOffset, final int numBytes)
   {
-    return Array.clone(data, offset, numBytes, 0);
+    checkRange(internalOffset, numBytes);
+    return Array.clone(data, internalOffset, numBytes, 0);
   }
 
+  /**
+   * Replace the chunk's data with a copy of an array.
+   *
+   * @param data
+   *          new data, its length becomes the chunk's length
+   */
   public void setData(final byte[] data)
   {
     this.data = Array.clone(data);
+    length = data == null ? 0 : data.length;
   }
 
   public boolean equals(final int internalOffset, final byte[] array, final int arrayOffset, final int numBytes)
@@ -81,7 +164,7 @@ public class Segment
   public boolean equalsAt(final int index, final byte[] pattern)
   {
     boolean result = false;
-    if (pattern != null && data != null && index + pattern.length <= data.length)
+    if (pattern != null && data != null && index >= 0 && index + pattern.length <= length)
     {
       result = true;
       int sourceIndex = index;
@@ -100,7 +183,7 @@ public class Segment
   public int int8()
   {
     int result;
-    if (data != null && index >= 0 && index < data.length)
+    if (data != null && index >= 0 && index < length)
     {
       result = data[index++] & 0xff;
     }
@@ -113,6 +196,7 @@ public class Segment
 
   public int int16()
   {
+    checkRange(index, 2);
     final int result = Array.from16(data, index, byteOrder);
     index += 2;
     return result;
@@ -120,6 +204,7 @@ public class Segment
 
   public int int32()
   {
+    checkRange(index, 4);
     final int result = Array.from32(data, index, byteOrder);
     index += 4;
     return result;
@@ -127,14 +212,52 @@ public class Segment
 
   public long int64()
   {
+    checkRange(index, 8);
     final long result = Array.from64(data, index, byteOrder);
     index += 8;
     return result;
   }
 
-  public BigInteger bigInt(final int numBytes)
+  /**
+   * Make sure that bytes requested are within the chunk: the buffer may contain stale data of an earlier chunk beyond
+   * its length.
+   */
+  private void checkRange(final int internalOffset, final int numBytes)
   {
-    return Array.toBigInteger(getData(numBytes), byteOrder);
+    if (internalOffset < 0 || numBytes < 0 || internalOffset + numBytes > length)
+    {
+      throw new ArrayIndexOutOfBoundsException(internalOffset + numBytes);
+    }
+  }
+
+  /**
+   * Read an unsigned integer value of two, four or eight bytes, as used for counts and file offsets. Eight-byte values
+   * larger than {@link Long#MAX_VALUE} are returned as negative numbers, callers must treat them as out of range.
+   *
+   * @param numBytes
+   *          size of the value in bytes, 2, 4 or 8
+   * @return value read
+   */
+  public long uint(final int numBytes)
+  {
+    long result;
+    if (numBytes == 2)
+    {
+      result = int16();
+    }
+    else if (numBytes == 4)
+    {
+      result = int32() & 0xffffffffL;
+    }
+    else if (numBytes == 8)
+    {
+      result = int64();
+    }
+    else
+    {
+      throw new IllegalArgumentException("Unsupported number of bytes: " + numBytes);
+    }
+    return result;
   }
 
   public int getIndex()
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.IOException;
+
+/**
+ * A {@link SeekableSource} giving access to a section of another source without copying it, for example to a stream
+ * embedded in a file. Positions are relative to the beginning of the section, reading ends with the section. The slice
+ * keeps its own position and moves the parent's position before each access, so the parent may be used in between.
+ * Closing the slice does not close the parent.
+ */
+public class SliceSource extends AbstractSeekableSource
+{
+  private final SeekableSource parent;
+  private final long offset;
+  private final long length;
+  private long position;
+  private boolean closed;
+
+  /**
+   * Create a slice of a source.
+   *
+   * @param parent
+   *          source containing the section
+   * @param offset
+   *          position of the section's first byte in parent
+   * @param length
+   *          number of bytes in the section
+   * @throws IOException
+   *           if the section does not lie within parent
+   */
+  public SliceSource(final SeekableSource parent, final long offset, final long length) throws IOException
+  {
+    super();
+    if (parent == null)
+    {
+      throw new IllegalArgumentException("Must have non-null parent argument.");
+    }
+    if (offset < 0 || length < 0 || offset > parent.getLength() - length)
+    {
+      throw new IOException(String.format("Invalid section of %d byte(s) at offset %d in source of %d byte(s).", length,
+          offset, parent.getLength()));
+    }
+    this.parent = parent;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Return the position of the slice in its parent.
+   *
+   * @return offset of first byte
+   */
+  public long getOffset()
+  {
+    return offset;
+  }
+
+  private void checkOpen() throws IOException
+  {
+    if (closed)
+    {
+      throw new IOException("Cannot access closed input.");
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    closed = true;
+  }
+
+  @Override
+  public long getLength() throws IOException
+  {
+    return length;
+  }
+
+  @Override
+  public String getName()
+  {
+    return parent.getName();
+  }
+
+  @Override
+  public long getPosition() throws IOException
+  {
+    return position;
+  }
+
+  @Override
+  public int read() throws IOException
+  {
+    checkOpen();
+    int result = -1;
+    if (position < length)
+    {
+      parent.seek(offset + position);
+      result = parent.read();
+      if (result >= 0)
+      {
+        position++;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int bufferOffset, final int num) throws IOException
+  {
+    checkOpen();
+    int result = -1;
+    final int numLeft = (int) Math.min(num, length - position);
+    if (numLeft > 0 || num == 0)
+    {
+      parent.seek(offset + position);
+      result = parent.read(buffer, bufferOffset, numLeft);
+      if (result > 0)
+      {
+        position += result;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void readFully(final byte[] buffer, final int bufferOffset, final int num) throws IOException
+  {
+    checkOpen();
+    if (num < 0 || num > length - position)
+    {
+      throw new IOException("Cannot read required number of bytes.");
+    }
+    parent.seek(offset + position);
+    parent.readFully(buffer, bufferOffset, num);
+    position += num;
+  }
+
+  @Override
+  public void seek(final long pos) throws IOException
+  {
+    checkOpen();
+    if (pos < 0 || pos > length)
+    {
+      throw new IOException(String.format("Invalid seek position %d, must be from 0 to %d.", pos, length));
+    }
+    position = pos;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Convert {@link ProcessorResult} objects to bytes in a specific output format.
+ */
+public abstract class AbstractResultEncoder
+{
+  /**
+   * Write data that precedes all results.
+   *
+   * @param stream
+   *          destination
+   * @throws IOException
+   *           on write errors
+   */
+  public abstract void writeHeader(OutputStream stream) throws IOException;
+
+  /**
+   * Write a single result.
+   *
+   * @param result
+   *          result to be encoded
+   * @param stream
+   *          destination
+   * @throws IOException
+   *           on write errors
+   */
+  public abstract void encode(ProcessorResult result, OutputStream stream) throws IOException;
+
+  /**
+   * Write a string in UTF-8.
+   *
+   * @param stream
+   *          destination
+   * @param text
+   *          string to be written
+   * @throws IOException
+   *           on write errors
+   */
+  protected static void write(final OutputStream stream, final String text) throws IOException
+  {
+    stream.write(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ResultSink} handing results over to a single writer thread. The writer takes all results waiting in the queue
+ * at once, encodes them and writes them with a single write call, so worker threads never wait for output and do not
+ * compete for a lock. The queue is bounded, workers block if the output cannot keep up.
+ *
+ * If the writer thread stops because of an error, the queue is emptied and {@link #accept(ProcessorResult)} and
+ * {@link #close()} report the error instead of waiting for space in the queue.
+ */
+public class AsyncResultWriter implements ResultSink, Runnable
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncResultWriter.class);
+  private static final int QUEUE_CAPACITY = 8192;
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final long OFFER_TIMEOUT_MILLIS = 100L;
+  private static final ProcessorResult END_OF_STREAM = new ProcessorResult("", null, ResultStatus.Unknown, null, null);
+  private final BlockingQueue<ProcessorResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final AtomicBoolean failed = new AtomicBoolean();
+  private final AbstractResultEncoder encoder;
+  private final OutputStream output;
+  private final boolean closeOutput;
+  private final Thread thread;
+  private volatile IOException failure;
+
+  /**
+   * Create new writer, call {@link #start()} before handing over results.
+   *
+   * @param encoder
+   *          converts results to bytes
+   * @param output
+   *          destination of encoded results
+   * @param closeOutput
+   *          close output in {@link #close()}, should be false for {@link System#out}
+   */
+  public AsyncResultWriter(final AbstractResultEncoder encoder, final OutputStream output, final boolean closeOutput)
+  {
+    this.encoder = encoder;
+    this.output = output;
+    this.closeOutput = closeOutput;
+    thread = new Thread(this, "results");
+  }
+
+  /**
+   * Start the writer thread.
+   */
+  public void start()
+  {
+    thread.start();
+  }
+
+  /**
+   * Queue a result for writing, waiting while the queue is full.
+   *
+   * @param result
+   *          result to be written
+   * @throws UncheckedIOException
+   *           if the writer thread has stopped because of an error
+   */
+  @Override
+  public void accept(final ProcessorResult result)
+  {
+    try
+    {
+      boolean queued = false;
+      while (!queued)
+      {
+        if (failed.get())
+        {
+          throw new UncheckedIOException(failure);
+        }
+        queued = queue.offer(result, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run()
+  {
+    final List<ProcessorResult> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    boolean done = false;
+    try
+    {
+      encoder.writeHeader(buffer);
+      while (!done)
+      {
+        batch.add(queue.take());
+        queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        for (final ProcessorResult result : batch)
+        {
+          if (END_OF_STREAM.equals(result))
+          {
+            done = true;
+          }
+          else
+          {
+            encoder.encode(result, buffer);
+          }
+        }
+        batch.clear();
+        buffer.writeTo(output);
+        output.flush();
+        buffer.reset();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (IOException e)
+    {
+      LOGGER.error(e.getMessage(), e);
+      failure = e;
+    }
+    finally
+    {
+      if (!done)
+      {
+        // stopped by an error, including runtime exceptions of the encoder
+        if (failure == null)
+        {
+          failure = new IOException("Writing results stopped before all results were written.");
+        }
+        failed.set(true);
+        // make sure no worker waits for space in the queue forever
+        queue.clear();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    try
+    {
+      boolean queued = failed.get();
+      while (!queued)
+      {
+        queued = queue.offer(END_OF_STREAM, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) || failed.get();
+      }
+      thread.join();
+    }
+    catch (InterruptedException e)
+    {
+      thread.interrupt();
+      Thread.currentThread().interrupt();
+    }
+    finally
+    {
+      if (closeOutput)
+      {
+        output.close();
+      }
+    }
+    if (failure != null)
+    {
+      throw failure;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of results, meant to be read by programs.
+ *
+ * The stream starts with the four ASCII bytes <code>UFXR</code> and a version byte of value 2. Each result consists of
+ * the status ordinal as a single byte, then path, format (empty string if unknown), number of event keys and the event
+ * keys themselves, number of checksums and pairs of algorithm name and hexadecimal checksum. Messages are not written,
+ * they can be looked up from the keys. All integers are unsigned variable length integers with seven bits per byte,
+ * least significant group first, the top bit set in all but the last byte.
+ *
+ * Format names, event keys and algorithm names repeat a lot, they are written as a reference into a table of strings
+ * seen before. A string is encoded as an integer value n. If n is odd, it refers to table entry n / 2. If n is even,
+ * n / 2 is the length of the UTF-8 bytes which follow; the string is then added to the table unless it is a path or a
+ * checksum.
+ */
+public class BinaryResultEncoder extends AbstractResultEncoder
+{
+  private static final byte[] SIGNATURE =
+  {
+      'U', 'F', 'X', 'R', 2
+  };
+  private static final int SEVEN_BITS = 0x7f;
+  private static final int CONTINUATION_BIT = 0x80;
+  private final Map<String, Integer> table = new HashMap<>();
+
+  @Override
+  public void writeHeader(final OutputStream stream) throws IOException
+  {
+    stream.write(SIGNATURE);
+  }
+
+  @Override
+  public void encode(final ProcessorResult result, final OutputStream stream) throws IOException
+  {
+    stream.write(result.getStatus().ordinal());
+    writeString(stream, result.getPath(), false);
+    final String format = result.getFormat();
+    writeString(stream, format == null ? "" : format, true);
+    final List<String> keys = result.getEventKeys();
+    writeNumber(stream, keys.size());
+    for (final String key : keys)
+    {
+      writeString(stream, key, true);
+    }
+    final Map<String, String> checksums = result.getChecksums();
+    writeNumber(stream, checksums.size());
+    for (final Map.Entry<String, String> entry : checksums.entrySet())
+    {
+      writeString(stream, entry.getKey(), true);
+      writeString(stream, entry.getValue(), false);
+    }
+  }
+
+  private void writeString(final OutputStream stream, final String text, final boolean useTable) throws IOException
+  {
+    final Integer index = useTable ? table.get(text) : null;
+    if (index == null)
+    {
+      final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+      writeNumber(stream, (long) data.length << 1);
+      stream.write(data);
+      if (useTable)
+      {
+        table.put(text, table.size());
+      }
+    }
+    else
+    {
+      writeNumber(stream, ((long) index << 1) | 1);
+    }
+  }
+
+  /**
+   * Write a non-negative number as variable length integer.
+   *
+   * @param stream
+   *          destination
+   * @param number
+   *          value to be written
+   * @throws IOException
+   *           on write errors
+   */
+  public static void writeNumber(final OutputStream stream, final long number) throws IOException
+  {
+    long value = number;
+    while ((value & ~SEVEN_BITS) != 0)
+    {
+      stream.write((int) (value & SEVEN_BITS) | CONTINUATION_BIT);
+      value >>>= 7;
+    }
+    stream.write((int) value);
+  }
+}
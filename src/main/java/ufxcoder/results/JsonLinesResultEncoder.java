@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Write one JSON object per line and result, see <a href="https://jsonlines.org/">JSON Lines</a>. Example:
+ *
+ * <pre>
+ * {"path":"a.jpg","format":"JPEG","status":"warning","events":["jpeg.warning.extraneous_data"],"messages":"..."}
+ * </pre>
+ *
+ * If checksums were computed, an object <code>"checksums"</code> maps algorithm names to hexadecimal values.
+ */
+public class JsonLinesResultEncoder extends AbstractResultEncoder
+{
+  private static final int FIRST_PRINTABLE = 0x20;
+  private static final int INITIAL_LINE_CAPACITY = 256;
+
+  @Override
+  public void writeHeader(final OutputStream stream)
+  {
+    // JSON Lines output has no header
+  }
+
+  @Override
+  public void encode(final ProcessorResult result, final OutputStream stream) throws IOException
+  {
+    final StringBuilder sb = new StringBuilder(INITIAL_LINE_CAPACITY);
+    sb.append("{\"path\":");
+    appendString(sb, result.getPath());
+    sb.append(",\"format\":");
+    if (result.getFormat() == null)
+    {
+      sb.append("null");
+    }
+    else
+    {
+      appendString(sb, result.getFormat());
+    }
+    sb.append(",\"status\":");
+    appendString(sb, result.getStatus().name().toLowerCase(Locale.ENGLISH));
+    sb.append(",\"events\":[");
+    boolean first = true;
+    for (final String key : result.getEventKeys())
+    {
+      if (!first)
+      {
+        sb.append(',');
+      }
+      appendString(sb, key);
+      first = false;
+    }
+    sb.append("],\"messages\":");
+    appendString(sb, result.getEventText());
+    final Map<String, String> checksums = result.getChecksums();
+    if (!checksums.isEmpty())
+    {
+      sb.append(",\"checksums\":{");
+      boolean firstChecksum = true;
+      for (final Map.Entry<String, String> entry : checksums.entrySet())
+      {
+        if (!firstChecksum)
+        {
+          sb.append(',');
+        }
+        appendString(sb, entry.getKey());
+        sb.append(':');
+        appendString(sb, entry.getValue());
+        firstChecksum = false;
+      }
+      sb.append('}');
+    }
+    sb.append("}\n");
+    write(stream, sb.toString());
+  }
+
+  /**
+   * Append a JSON string literal, escaping quotes, backslashes and control characters.
+   *
+   * @param sb
+   *          destination
+   * @param text
+   *          string value
+   */
+  public static void appendString(final StringBuilder sb, final String text)
+  {
+    sb.append('"');
+    for (int index = 0; index < text.length(); index++)
+    {
+      final char ch = text.charAt(index);
+      if (ch == '"' || ch == '\\')
+      {
+        sb.append('\\').append(ch);
+      }
+      else
+      {
+        if (ch < FIRST_PRINTABLE)
+        {
+          sb.append(String.format("\\u%04x", (int) ch));
+        }
+        else
+        {
+          sb.append(ch);
+        }
+      }
+    }
+    sb.append('"');
+  }
+}
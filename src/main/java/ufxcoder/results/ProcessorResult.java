@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable result of processing a single file, handed from the worker threads to a {@link ResultSink}.
+ */
+public final class ProcessorResult
+{
+  private final String path;
+  private final String format;
+  private final ResultStatus status;
+  private final List<String> eventKeys;
+  private final String eventText;
+  private final Map<String, String> checksums;
+
+  /**
+   * Create new result.
+   *
+   * @param path
+   *          name of the file
+   * @param format
+   *          short name of the format or null if the file was not identified
+   * @param status
+   *          overall outcome
+   * @param eventKeys
+   *          message keys of warnings and errors, may be null if there are none
+   * @param eventText
+   *          formatted warning and error messages, may be null if there are none
+   */
+  public ProcessorResult(final String path, final String format, final ResultStatus status,
+      final List<String> eventKeys, final String eventText)
+  {
+    this(path, format, status, eventKeys, eventText, null);
+  }
+
+  /**
+   * Create new result with checksums.
+   *
+   * @param path
+   *          name of the file
+   * @param format
+   *          short name of the format or null if the file was not identified
+   * @param status
+   *          overall outcome
+   * @param eventKeys
+   *          message keys of warnings and errors, may be null if there are none
+   * @param eventText
+   *          formatted warning and error messages, may be null if there are none
+   * @param checksums
+   *          map from checksum algorithm name to hexadecimal checksum of the file content, may be null
+   */
+  public ProcessorResult(final String path, final String format, final ResultStatus status,
+      final List<String> eventKeys, final String eventText, final Map<String, String> checksums)
+  {
+    this.path = path;
+    this.format = format;
+    this.status = status;
+    if (eventKeys == null)
+    {
+      this.eventKeys = Collections.emptyList();
+    }
+    else
+    {
+      this.eventKeys = Collections.unmodifiableList(new ArrayList<>(eventKeys));
+    }
+    this.eventText = eventText == null ? "" : eventText;
+    if (checksums == null)
+    {
+      this.checksums = Collections.emptyMap();
+    }
+    else
+    {
+      this.checksums = Collections.unmodifiableMap(new LinkedHashMap<>(checksums));
+    }
+  }
+
+  /**
+   * Create a copy of this result with another path and other checksums.
+   *
+   * @param newPath
+   *          name of the file
+   * @param newChecksums
+   *          map from checksum algorithm name to hexadecimal checksum, may be null
+   * @return new result
+   */
+  public ProcessorResult with(final String newPath, final Map<String, String> newChecksums)
+  {
+    return new ProcessorResult(newPath, format, status, eventKeys, eventText, newChecksums);
+  }
+
+  public String getPath()
+  {
+    return path;
+  }
+
+  public String getFormat()
+  {
+    return format;
+  }
+
+  public ResultStatus getStatus()
+  {
+    return status;
+  }
+
+  public List<String> getEventKeys()
+  {
+    return eventKeys;
+  }
+
+  public String getEventText()
+  {
+    return eventText;
+  }
+
+  /**
+   * Checksums of the file content.
+   *
+   * @return unmodifiable map from algorithm name to hexadecimal checksum, empty if none were computed
+   */
+  public Map<String, String> getChecksums()
+  {
+    return checksums;
+  }
+}
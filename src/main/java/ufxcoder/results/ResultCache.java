@@ -0,0 +1,461 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import ufxcoder.checksums.ChecksumAlgorithm;
+import ufxcoder.io.ChecksumSource;
+import ufxcoder.io.FileSource;
+
+/**
+ * Results of earlier runs, keyed by absolute path, file size and modification time, optionally a checksum of the file
+ * content. Files with an unchanged key do not have to be processed again, their stored result can be reused.
+ *
+ * The content checksum is the {@link #HASH_ALGORITHM} hash. It is only computed before processing if there is an entry
+ * with the same size and modification time to compare with. Otherwise the file is processed anyway and the caller
+ * takes the hash from the {@link ChecksumSource} the file was processed with, see {@link Key#withHash(long)}.
+ *
+ * All entries belong to a fingerprint describing the program version and the enabled checks. A cache file with a
+ * different fingerprint is ignored on {@link #load(File)}, so changing the version or e.g. enabling the TIFF baseline
+ * check leads to all files being processed again.
+ *
+ * Lookups and updates may happen concurrently from all worker threads; loading and saving are done by a single thread
+ * before and after processing. Loaded entries which are neither looked up nor stored during a run are only saved again
+ * if their file still exists, so entries of deleted or moved files do not accumulate.
+ */
+public class ResultCache
+{
+  /**
+   * Algorithm of the content checksum stored in keys of caches with hashing.
+   */
+  public static final ChecksumAlgorithm HASH_ALGORITHM = ChecksumAlgorithm.XxHash64;
+  private static final int SIGNATURE = 0x55465843;
+  private static final int FORMAT_VERSION = 3;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String TEMP_SUFFIX = ".tmp";
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+  /**
+   * Paths looked up or stored since this cache was created.
+   */
+  private final Set<String> usedPaths = ConcurrentHashMap.newKeySet();
+  private final String fingerprint;
+  private final boolean hashing;
+  private final AtomicLong numHits = new AtomicLong();
+
+  /**
+   * Identification of a file at the time it was examined.
+   */
+  public static final class Key
+  {
+    private final String name;
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final long hash;
+
+    public Key(final String name, final String path, final long size, final long lastModified, final long hash)
+    {
+      this.name = name;
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+
+    /**
+     * Name of the file as given by the caller, used in reused results.
+     *
+     * @return file name
+     */
+    public String getName()
+    {
+      return name;
+    }
+
+    /**
+     * Absolute path of the file, used as key in the cache.
+     *
+     * @return path
+     */
+    public String getPath()
+    {
+      return path;
+    }
+
+    public long getSize()
+    {
+      return size;
+    }
+
+    public long getLastModified()
+    {
+      return lastModified;
+    }
+
+    public long getHash()
+    {
+      return hash;
+    }
+
+    /**
+     * Create a copy of this key with a content checksum.
+     *
+     * @param newHash
+     *          {@link ResultCache#HASH_ALGORITHM} hash of the file content
+     * @return new key
+     */
+    public Key withHash(final long newHash)
+    {
+      return new Key(name, path, size, lastModified, newHash);
+    }
+
+    public boolean matches(final Key other)
+    {
+      return size == other.size && lastModified == other.lastModified && hash == other.hash;
+    }
+  }
+
+  /**
+   * Stored result of a file, without the file name.
+   */
+  private static final class Entry
+  {
+    private final Key key;
+    private final ProcessorResult result;
+
+    Entry(final Key key, final ProcessorResult result)
+    {
+      this.key = key;
+      this.result = result;
+    }
+
+    public Key getKey()
+    {
+      return key;
+    }
+
+    public ProcessorResult getResult()
+    {
+      return result;
+    }
+  }
+
+  /**
+   * Create an empty cache.
+   *
+   * @param fingerprint
+   *          description of program version and enabled checks that influence results
+   * @param hashing
+   *          whether keys include a checksum of the file content
+   */
+  public ResultCache(final String fingerprint, final boolean hashing)
+  {
+    this.fingerprint = fingerprint;
+    this.hashing = hashing;
+  }
+
+  public String getFingerprint()
+  {
+    return fingerprint;
+  }
+
+  public boolean isHashing()
+  {
+    return hashing;
+  }
+
+  public int size()
+  {
+    return entries.size();
+  }
+
+  /**
+   * Number of successful {@link #lookup(Key)} calls.
+   *
+   * @return number of reused results
+   */
+  public long getNumHits()
+  {
+    return numHits.get();
+  }
+
+  /**
+   * Determine the key of a file in its current state. If this cache uses hashing, the complete file is only read if
+   * there is an entry with the same size and modification time; otherwise the key's hash is 0 and must be replaced via
+   * {@link Key#withHash(long)} before the key is stored.
+   *
+   * @param fileName
+   *          name of file
+   * @return key
+   * @throws IOException
+   *           if the file cannot be read for hashing
+   */
+  public Key createKey(final String fileName) throws IOException
+  {
+    final File file = new File(fileName);
+    final long size = file.length();
+    final long lastModified = file.lastModified();
+    final Key result = new Key(fileName, file.getAbsolutePath(), size, lastModified, 0);
+    final Entry entry = entries.get(result.getPath());
+    final boolean compare = hashing && entry != null && entry.getKey().getSize() == size
+        && entry.getKey().getLastModified() == lastModified;
+    return compare ? result.withHash(computeHash(file)) : result;
+  }
+
+  /**
+   * Compute the {@link #HASH_ALGORITHM} checksum of a file's content.
+   *
+   * @param file
+   *          file to be read
+   * @return checksum
+   * @throws IOException
+   *           on read errors
+   */
+  public static long computeHash(final File file) throws IOException
+  {
+    long result;
+    try (ChecksumSource source = new ChecksumSource(new FileSource(file), Collections.singletonList(HASH_ALGORITHM)))
+    {
+      result = getHash(source.complete());
+    }
+    return result;
+  }
+
+  /**
+   * Extract the {@link #HASH_ALGORITHM} checksum from the checksums of a file.
+   *
+   * @param checksums
+   *          map from algorithm name to hexadecimal checksum as returned by {@link ChecksumSource#complete()}
+   * @return checksum
+   * @throws IllegalArgumentException
+   *           if the map does not contain a valid checksum of the algorithm
+   */
+  public static long getHash(final Map<String, String> checksums)
+  {
+    final String hex = checksums.get(HASH_ALGORITHM.getName());
+    if (hex == null)
+    {
+      throw new IllegalArgumentException("No " + HASH_ALGORITHM.getName() + " checksum.");
+    }
+    return Long.parseUnsignedLong(hex, 16);
+  }
+
+  /**
+   * Find the stored result of a file if it has not changed since the result was stored.
+   *
+   * @param key
+   *          current key of the file
+   * @return result with the name from the argument key or null if there is no matching entry
+   */
+  public ProcessorResult lookup(final Key key)
+  {
+    ProcessorResult result = null;
+    usedPaths.add(key.getPath());
+    final Entry entry = entries.get(key.getPath());
+    if (entry != null && entry.getKey().matches(key))
+    {
+      final ProcessorResult stored = entry.getResult();
+      result = stored.with(key.getName(), stored.getChecksums());
+      numHits.incrementAndGet();
+    }
+    return result;
+  }
+
+  /**
+   * Store the result of a file, replacing an existing entry for the same path.
+   *
+   * @param key
+   *          key of the file determined before it was processed
+   * @param result
+   *          result to be stored
+   */
+  public void store(final Key key, final ProcessorResult result)
+  {
+    usedPaths.add(key.getPath());
+    entries.put(key.getPath(), new Entry(key, result));
+  }
+
+  /**
+   * Add the entries of a cache file.
+   *
+   * @param file
+   *          file written by {@link #save(File)}
+   * @return true if entries were loaded, false if the file does not exist or has a different fingerprint
+   * @throws IOException
+   *           if the file cannot be read or is damaged
+   */
+  public boolean load(final File file) throws IOException
+  {
+    boolean result = false;
+    if (file.isFile())
+    {
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file),
+          BUFFER_SIZE)))
+      {
+        if (input.readInt() == SIGNATURE && input.readInt() == FORMAT_VERSION
+            && fingerprint.equals(readString(input)))
+        {
+          final int numEntries = input.readInt();
+          for (int index = 0; index < numEntries; index++)
+          {
+            readEntry(input);
+          }
+          result = true;
+        }
+      }
+    }
+    return result;
+  }
+
+  private void readEntry(final DataInputStream input) throws IOException
+  {
+    final String path = readString(input);
+    final long size = input.readLong();
+    final long lastModified = input.readLong();
+    final long hash = input.readLong();
+    final ResultStatus status = readStatus(input);
+    final String format = readString(input);
+    final int numKeys = input.readInt();
+    final List<String> keys = new ArrayList<>();
+    for (int index = 0; index < numKeys; index++)
+    {
+      keys.add(readString(input));
+    }
+    final String eventText = readString(input);
+    final int numChecksums = input.readInt();
+    final Map<String, String> checksums = new LinkedHashMap<>();
+    for (int index = 0; index < numChecksums; index++)
+    {
+      checksums.put(readString(input), readString(input));
+    }
+    final ProcessorResult result = new ProcessorResult(path, format.isEmpty() ? null : format, status, keys,
+        eventText, checksums);
+    entries.put(path, new Entry(new Key(path, path, size, lastModified, hash), result));
+  }
+
+  private static ResultStatus readStatus(final DataInputStream input) throws IOException
+  {
+    final int index = input.readUnsignedByte();
+    final ResultStatus[] values = ResultStatus.values();
+    if (index >= values.length)
+    {
+      throw new IOException("Invalid result status " + index + ".");
+    }
+    return values[index];
+  }
+
+  /**
+   * Write entries to a file: those used during this run and those of existing files. The data is first written to a
+   * temporary file which then replaces the argument file, so an interrupted save does not leave a damaged cache file.
+   *
+   * @param file
+   *          destination file
+   * @throws IOException
+   *           on write errors
+   */
+  public void save(final File file) throws IOException
+  {
+    final File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile),
+        BUFFER_SIZE)))
+    {
+      output.writeInt(SIGNATURE);
+      output.writeInt(FORMAT_VERSION);
+      writeString(output, fingerprint);
+      final List<Entry> list = new ArrayList<>(entries.size());
+      for (final Entry entry : entries.values())
+      {
+        final String path = entry.getKey().getPath();
+        if (usedPaths.contains(path) || new File(path).isFile())
+        {
+          list.add(entry);
+        }
+      }
+      output.writeInt(list.size());
+      for (final Entry entry : list)
+      {
+        writeEntry(output, entry);
+      }
+    }
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static void writeEntry(final DataOutputStream output, final Entry entry) throws IOException
+  {
+    final Key key = entry.getKey();
+    final ProcessorResult result = entry.getResult();
+    writeString(output, key.getPath());
+    output.writeLong(key.getSize());
+    output.writeLong(key.getLastModified());
+    output.writeLong(key.getHash());
+    output.writeByte(result.getStatus().ordinal());
+    final String format = result.getFormat();
+    writeString(output, format == null ? "" : format);
+    final List<String> keys = result.getEventKeys();
+    output.writeInt(keys.size());
+    for (final String eventKey : keys)
+    {
+      writeString(output, eventKey);
+    }
+    writeString(output, result.getEventText());
+    final Map<String, String> checksums = result.getChecksums();
+    output.writeInt(checksums.size());
+    for (final Map.Entry<String, String> checksum : checksums.entrySet())
+    {
+      writeString(output, checksum.getKey());
+      writeString(output, checksum.getValue());
+    }
+  }
+
+  private static String readString(final DataInputStream input) throws IOException
+  {
+    final int length = input.readInt();
+    if (length < 0)
+    {
+      throw new IOException("Invalid string length " + length + ".");
+    }
+    final byte[] data = new byte[length];
+    input.readFully(data);
+    return new String(data, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(final DataOutputStream output, final String text) throws IOException
+  {
+    final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(data.length);
+    output.write(data);
+  }
+
+}
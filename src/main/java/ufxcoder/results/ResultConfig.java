@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.util.ArrayList;
+import java.util.List;
+import ufxcoder.checksums.ChecksumAlgorithm;
+
+/**
+ * Settings for the output of per-file results: format, optional destination file and the sink receiving results while
+ * files are processed, checksums to be computed, plus the optional cache of results from earlier runs.
+ */
+public class ResultConfig
+{
+  /**
+   * Name under which the hash of decoded pixels appears among the checksums of a result.
+   */
+  public static final String PIXEL_HASH_NAME = "pixels-xxh64";
+  private ResultFormat format = ResultFormat.Tsv;
+  private String fileName;
+  private ResultSink sink;
+  private String cacheFileName;
+  private boolean cacheHashing;
+  private ResultCache cache;
+  private final List<ChecksumAlgorithm> checksumAlgorithms = new ArrayList<>();
+  private boolean pixelHashing;
+
+  public ResultFormat getFormat()
+  {
+    return format;
+  }
+
+  public void setFormat(final ResultFormat format)
+  {
+    this.format = format;
+  }
+
+  /**
+   * Name of file to write results to.
+   *
+   * @return file name or null if results go to standard output
+   */
+  public String getFileName()
+  {
+    return fileName;
+  }
+
+  public void setFileName(final String fileName)
+  {
+    this.fileName = fileName;
+  }
+
+  public ResultSink getSink()
+  {
+    return sink;
+  }
+
+  public void setSink(final ResultSink sink)
+  {
+    this.sink = sink;
+  }
+
+  /**
+   * Name of file storing results between runs.
+   *
+   * @return file name or null if no cache is used
+   */
+  public String getCacheFileName()
+  {
+    return cacheFileName;
+  }
+
+  public void setCacheFileName(final String cacheFileName)
+  {
+    this.cacheFileName = cacheFileName;
+  }
+
+  public boolean isCacheHashing()
+  {
+    return cacheHashing;
+  }
+
+  public void setCacheHashing(final boolean cacheHashing)
+  {
+    this.cacheHashing = cacheHashing;
+  }
+
+  public ResultCache getCache()
+  {
+    return cache;
+  }
+
+  public void setCache(final ResultCache cache)
+  {
+    this.cache = cache;
+  }
+
+  /**
+   * Checksum algorithms to be computed for each file, in output order.
+   *
+   * @return modifiable list, empty if no checksums are computed
+   */
+  public List<ChecksumAlgorithm> getChecksumAlgorithms()
+  {
+    return checksumAlgorithms;
+  }
+
+  /**
+   * Whether images are to be decoded to compute a hash of their pixels, stored as checksum {@link #PIXEL_HASH_NAME}.
+   *
+   * @return true if pixel hashes are computed
+   */
+  public boolean isPixelHashing()
+  {
+    return pixelHashing;
+  }
+
+  public void setPixelHashing(final boolean pixelHashing)
+  {
+    this.pixelHashing = pixelHashing;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.util.Locale;
+import ufxcoder.app.AppConfig;
+
+/**
+ * Output formats for results.
+ */
+public enum ResultFormat
+{
+  /**
+   * Tab-separated values, see {@link TsvResultEncoder}.
+   */
+  Tsv("tsv"),
+
+  /**
+   * JSON Lines, see {@link JsonLinesResultEncoder}.
+   */
+  JsonLines("jsonl"),
+
+  /**
+   * Compact binary format, see {@link BinaryResultEncoder}.
+   */
+  Binary("binary");
+
+  private final String name;
+
+  ResultFormat(final String name)
+  {
+    this.name = name;
+  }
+
+  /**
+   * Name used on the command line.
+   *
+   * @return lower-case name
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Find format for a name used on the command line.
+   *
+   * @param name
+   *          format name, case is ignored
+   * @return format or null if there is no format of that name
+   */
+  public static ResultFormat fromName(final String name)
+  {
+    ResultFormat result = null;
+    for (final ResultFormat format : values())
+    {
+      if (format.getName().equals(name.toLowerCase(Locale.ENGLISH)))
+      {
+        result = format;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Create an encoder for this format.
+   *
+   * @param config
+   *          configuration used to look up messages
+   * @return new encoder
+   */
+  public AbstractResultEncoder createEncoder(final AppConfig config)
+  {
+    AbstractResultEncoder result;
+    switch (this)
+    {
+    case JsonLines:
+      result = new JsonLinesResultEncoder();
+      break;
+    case Binary:
+      result = new BinaryResultEncoder();
+      break;
+    default:
+      result = new TsvResultEncoder(config);
+      break;
+    }
+    return result;
+  }
+}
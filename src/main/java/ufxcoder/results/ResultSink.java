@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the results of all processed files. Implementations must be thread-safe because all worker threads hand
+ * over their results to the same sink.
+ */
+public interface ResultSink extends Closeable
+{
+  /**
+   * Hand over a single result.
+   *
+   * @param result
+   *          result of processing a file
+   */
+  void accept(ProcessorResult result);
+
+  /**
+   * Write all pending results and release resources. No more results may be handed over afterwards.
+   */
+  @Override
+  void close() throws IOException;
+}
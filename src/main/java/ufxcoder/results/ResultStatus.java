@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+/**
+ * Overall outcome of processing a single file.
+ */
+public enum ResultStatus
+{
+  /**
+   * The file was identified, no warnings or errors were found.
+   */
+  Ok("processor.result.ok"),
+
+  /**
+   * The file was identified, at least one warning but no error was found.
+   */
+  Warning("processor.result.warning"),
+
+  /**
+   * The file was identified, at least one error was found.
+   */
+  Error("processor.result.error"),
+
+  /**
+   * No processor identified the file.
+   */
+  Unknown("processor.result.unknown");
+
+  private final String messageKey;
+
+  ResultStatus(final String messageKey)
+  {
+    this.messageKey = messageKey;
+  }
+
+  /**
+   * Key of the message describing this status.
+   *
+   * @return message key
+   */
+  public String getMessageKey()
+  {
+    return messageKey;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import ufxcoder.app.AppConfig;
+import ufxcoder.checksums.ChecksumAlgorithm;
+import ufxcoder.conversion.StrUtil;
+
+/**
+ * Write one line per result with tab-separated columns path, format, status and messages, followed by one column per
+ * configured checksum algorithm and a column with the pixel hash if that is computed. Status and messages are
+ * localized, control characters in all columns are replaced with spaces.
+ */
+public class TsvResultEncoder extends AbstractResultEncoder
+{
+  private static final char SEPARATOR = '\t';
+  private static final char NEW_LINE = '\n';
+  private final AppConfig config;
+
+  public TsvResultEncoder(final AppConfig config)
+  {
+    super();
+    this.config = config;
+  }
+
+  @Override
+  public void writeHeader(final OutputStream stream)
+  {
+    // TSV output has no header
+  }
+
+  @Override
+  public void encode(final ProcessorResult result, final OutputStream stream) throws IOException
+  {
+    final String format = result.getFormat();
+    final StringBuilder sb = new StringBuilder();
+    sb.append(StrUtil.escapeControl(result.getPath())).append(SEPARATOR).append(format == null ? "" : format)
+        .append(SEPARATOR).append(config.msg(result.getStatus().getMessageKey())).append(SEPARATOR)
+        .append(StrUtil.escapeControl(result.getEventText()));
+    final Map<String, String> checksums = result.getChecksums();
+    for (final ChecksumAlgorithm algorithm : config.getResultConfig().getChecksumAlgorithms())
+    {
+      final String checksum = checksums.get(algorithm.getName());
+      sb.append(SEPARATOR).append(checksum == null ? "" : checksum);
+    }
+    if (config.getResultConfig().isPixelHashing())
+    {
+      final String pixelHash = checksums.get(ResultConfig.PIXEL_HASH_NAME);
+      sb.append(SEPARATOR).append(pixelHash == null ? "" : pixelHash);
+    }
+    sb.append(NEW_LINE);
+    write(stream, sb.toString());
+  }
+}
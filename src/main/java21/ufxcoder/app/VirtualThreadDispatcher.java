@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import ufxcoder.formats.FormatSignatureTable;
+
+/**
+ * Dispatcher running each job in its own virtual thread, the Java 21 version of this class.
+ *
+ * Opening a file and reading its header happen without limit other than {@link AppConfig#MAX_VIRTUAL_THREADS}, so many
+ * slow network reads can be waiting at the same time. Running the format processors is CPU-heavy, it requires one of
+ * the {@link FileProcessor} objects from a pool with one object per CPU, so the pool acts as a semaphore for parsing.
+ * Header buffers are pooled as well, as headers are read before a processor is borrowed; at most one buffer per running
+ * virtual thread is ever allocated.
+ */
+public class VirtualThreadDispatcher implements JobDispatcher
+{
+  private final AppConfig config;
+  private final Semaphore pending = new Semaphore(AppConfig.MAX_VIRTUAL_THREADS);
+  private final BlockingQueue<FileProcessor> processors;
+  private final ConcurrentLinkedQueue<byte[]> headers = new ConcurrentLinkedQueue<>();
+  private final FileProcessor.Lender lender = new FileProcessor.Lender()
+  {
+    @Override
+    public FileProcessor borrow() throws InterruptedException
+    {
+      return processors.take();
+    }
+
+    @Override
+    public void giveBack(final FileProcessor processor)
+    {
+      processors.add(processor);
+    }
+  };
+  private final ExecutorService executor;
+
+  public VirtualThreadDispatcher(final AppConfig config)
+  {
+    this.config = config;
+    final int numProcessors = Runtime.getRuntime().availableProcessors();
+    processors = new ArrayBlockingQueue<>(numProcessors);
+    for (int i = 0; i < numProcessors; i++)
+    {
+      processors.add(new FileProcessor(config));
+    }
+    executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("V", 1).factory());
+  }
+
+  /**
+   * Can virtual threads be used with the current Java version?
+   *
+   * @return true for this version of the class
+   */
+  public static boolean isSupported()
+  {
+    return true;
+  }
+
+  @Override
+  public void submit(final ProcessorJob job) throws InterruptedException
+  {
+    pending.acquire();
+    executor.execute(() -> run(job));
+  }
+
+  private void run(final ProcessorJob job)
+  {
+    byte[] header = headers.poll();
+    if (header == null)
+    {
+      header = new byte[FormatSignatureTable.HEADER_SIZE];
+    }
+    try
+    {
+      FileProcessor.process(config, job.getFileName(), header, lender);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    finally
+    {
+      headers.add(header);
+      pending.release();
+    }
+  }
+
+  @Override
+  public void finish() throws InterruptedException
+  {
+    executor.shutdown();
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void cancel()
+  {
+    executor.shutdownNow();
+  }
+}
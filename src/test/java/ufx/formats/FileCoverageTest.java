@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufx.formats;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.formats.FileCoverage;
+import ufxcoder.formats.FileRange;
+
+/**
+ * Test {@link FileCoverage} with overlapping, adjacent and separated ranges.
+ */
+public class FileCoverageTest
+{
+  private static final String KIND = "kind";
+  private static final String OTHER_KIND = "other";
+
+  @Test
+  public void testAdjacentRangesMerged()
+  {
+    final FileCoverage coverage = new FileCoverage(10, 1);
+    for (int index = 0; index < 1000; index++)
+    {
+      coverage.add(KIND, 100 + index * 10, 10, 8, index);
+    }
+    coverage.add(KIND, 0, 100, 0, 0);
+    Assert.assertEquals("Adjacent ranges of the same owner form a single range.", 2, coverage.getNumRanges());
+    coverage.analyze(10_100);
+    Assert.assertEquals("No overlaps.", 0, coverage.getNumOverlaps());
+    Assert.assertEquals("No gaps.", 0, coverage.getNumGaps());
+  }
+
+  @Test
+  public void testOverlaps()
+  {
+    final FileCoverage coverage = new FileCoverage(1, 1);
+    coverage.add(KIND, 50, 50, 0, 0);
+    coverage.add(OTHER_KIND, 0, 60, 0, 0);
+    coverage.add(OTHER_KIND, 95, 10, 1, 0);
+    // identical ranges are shared data
+    coverage.add(KIND, 0, 60, 2, 0);
+    coverage.analyze(105);
+    Assert.assertEquals("Two overlaps.", 2, coverage.getNumOverlaps());
+    Assert.assertEquals("Only first overlap kept.", 2, coverage.getOverlaps().size());
+    final FileRange first = coverage.getOverlaps().get(0);
+    final FileRange second = coverage.getOverlaps().get(1);
+    Assert.assertEquals("Earlier range first.", 0, first.getStart());
+    Assert.assertEquals("Overlapping range second.", 50, second.getStart());
+    Assert.assertEquals("Overlapping range kind.", KIND, second.getKind());
+  }
+
+  @Test
+  public void testRangesInsideContainer()
+  {
+    final FileCoverage coverage = new FileCoverage(10, 1);
+    coverage.addContainer(OTHER_KIND, 10, 90, 0, 0);
+    coverage.add(KIND, 20, 30, 1, 0);
+    coverage.add(KIND, 60, 40, 1, 1);
+    coverage.analyze(100);
+    Assert.assertEquals("Ranges inside a container do not overlap it.", 0, coverage.getNumOverlaps());
+    coverage.add(KIND, 90, 20, 2, 0);
+    coverage.analyze(110);
+    Assert.assertEquals("Range sticking out of container overlaps.", 1, coverage.getNumOverlaps());
+  }
+
+  @Test
+  public void testGaps()
+  {
+    final FileCoverage coverage = new FileCoverage(10, 4);
+    coverage.add(KIND, 0, 8, 0, 0);
+    coverage.add(KIND, 10, 10, 1, 0);
+    coverage.add(KIND, 40, 10, 2, 0);
+    coverage.analyze(100);
+    Assert.assertEquals("Small gap ignored.", 2, coverage.getNumGaps());
+    Assert.assertEquals("Gap bytes.", 70, coverage.getNumGapBytes());
+    final FileRange gap = coverage.getGaps().get(0);
+    Assert.assertEquals("Gap start.", 20, gap.getStart());
+    Assert.assertEquals("Gap length.", 20, gap.getLength());
+    Assert.assertEquals("Gap up to end of file.", 50, coverage.getGaps().get(1).getLength());
+  }
+}
@@ -15,10 +15,14 @@
  */
 package ufx.formats;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import org.junit.Assert;
 import org.junit.Test;
+import ufxcoder.formats.AbstractFormatProcessor;
 import ufxcoder.formats.FormatProcessorRegistry;
+import ufxcoder.formats.FormatSignatureTable;
 import ufxcoder.formats.jpeg.JpegProcessor;
 import ufxcoder.formats.tiff.TiffProcessor;
 
@@ -36,4 +40,37 @@ public class FormatProcessorRegistryTest
     Assert.assertNotNull("Extension set must be non-null.", set);
     Assert.assertFalse("Extension set not empty.", set.isEmpty());
   }
+
+  @Test
+  public void testSignatureTable()
+  {
+    final List<AbstractFormatProcessor> processors = new ArrayList<>();
+    processors.add(new TiffProcessor());
+    processors.add(new JpegProcessor());
+    final FormatSignatureTable table = FormatProcessorRegistry.createSignatureTable(processors);
+    final byte[] tiff = new byte[]
+    {
+        0x4d, 0x4d, 0x00, 0x2a, 0x00, 0x00, 0x00, 0x08
+    };
+    List<AbstractFormatProcessor> candidates = table.findCandidates(tiff, tiff.length);
+    Assert.assertEquals("One candidate for TIFF header.", 1, candidates.size());
+    Assert.assertTrue("TIFF processor claims TIFF header.", candidates.get(0) instanceof TiffProcessor);
+    candidates = table.findCandidates(tiff, 3);
+    Assert.assertTrue("Truncated TIFF header is not claimed.", candidates.isEmpty());
+    final byte[] jpeg = new byte[]
+    {
+        (byte) 0xff, (byte) 0xff, (byte) 0xd8, (byte) 0xff
+    };
+    candidates = table.findCandidates(jpeg, jpeg.length);
+    Assert.assertEquals("One candidate for JPEG header.", 1, candidates.size());
+    Assert.assertTrue("JPEG processor claims JPEG header.", candidates.get(0) instanceof JpegProcessor);
+    final byte[] other = new byte[]
+    {
+        (byte) 0xff, 0x00, 0x49, 0x49
+    };
+    candidates = table.findCandidates(other, other.length);
+    Assert.assertTrue("Unknown header is not claimed.", candidates.isEmpty());
+    candidates = table.findCandidates(other, 0);
+    Assert.assertTrue("Empty header is not claimed.", candidates.isEmpty());
+  }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ufxcoder.formats.FormatProcessorRegistry;
+import ufxcoder.formats.jpeg.JpegProcessor;
+import ufxcoder.formats.tiff.TiffProcessor;
+
+public class JobProducerTest
+{
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Dispatcher remembering the names of all files submitted.
+   */
+  private static final class RecordingDispatcher implements JobDispatcher
+  {
+    private final List<String> fileNames = Collections.synchronizedList(new ArrayList<String>());
+
+    public List<String> getFileNames()
+    {
+      return fileNames;
+    }
+
+    @Override
+    public void submit(final ProcessorJob job)
+    {
+      fileNames.add(new File(job.getFileName()).getName());
+    }
+
+    @Override
+    public void finish()
+    {
+      // nothing to wait for
+    }
+
+    @Override
+    public void cancel()
+    {
+      fileNames.clear();
+    }
+  }
+
+  private AppConfig createConfig() throws IOException
+  {
+    final File dir = folder.newFolder("images");
+    new File(dir, "sub").mkdir();
+    new File(dir, "a.tif").createNewFile();
+    new File(dir, "sub/b.JPG").createNewFile();
+    new File(dir, "sub/c.txt").createNewFile();
+    final File single = folder.newFile("d.bin");
+    final AppConfig config = new AppConfig();
+    config.addFileName(single.getPath());
+    config.addDirectory(dir.getPath());
+    return config;
+  }
+
+  @Test
+  public void testProduceAll() throws IOException, InterruptedException
+  {
+    final AppConfig config = createConfig();
+    final RecordingDispatcher dispatcher = new RecordingDispatcher();
+    final JobProducer producer = new JobProducer(config, dispatcher);
+    producer.produce();
+    Assert.assertEquals("All files are submitted.", 4L, producer.getNumFiles());
+    Assert.assertEquals("Explicit files come first.", "d.bin", dispatcher.getFileNames().get(0));
+    Assert.assertTrue("File from subdirectory is submitted.", dispatcher.getFileNames().contains("c.txt"));
+  }
+
+  @Test
+  public void testProduceKnownExtensions() throws IOException, InterruptedException
+  {
+    FormatProcessorRegistry.register(TiffProcessor.class);
+    FormatProcessorRegistry.register(JpegProcessor.class);
+    final AppConfig config = createConfig();
+    config.setKnownFileExtensionsOnly(true);
+    final RecordingDispatcher dispatcher = new RecordingDispatcher();
+    final JobProducer producer = new JobProducer(config, dispatcher);
+    producer.produce();
+    Assert.assertEquals("Only files with known extensions are submitted.", 2L, producer.getNumFiles());
+    Assert.assertTrue("TIFF file is submitted.", dispatcher.getFileNames().contains("a.tif"));
+    Assert.assertTrue("Upper-case extension is known.", dispatcher.getFileNames().contains("b.JPG"));
+  }
+}
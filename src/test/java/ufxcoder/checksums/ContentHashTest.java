@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.checksums;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.conversion.StrUtil;
+
+public class ContentHashTest
+{
+  private static final byte[] DIGITS = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+  private static String hash(final ChecksumAlgorithm algorithm, final byte[] data, final int chunkSize)
+  {
+    final ContentHash hash = algorithm.createHash();
+    int offset = 0;
+    while (offset < data.length)
+    {
+      final int num = Math.min(chunkSize, data.length - offset);
+      hash.update(data, offset, num);
+      offset += num;
+    }
+    return StrUtil.toHex(hash.digest());
+  }
+
+  private static byte[] createData(final int size)
+  {
+    final byte[] result = new byte[size];
+    for (int index = 0; index < size; index++)
+    {
+      result[index] = (byte) (index * 31 + 7);
+    }
+    return result;
+  }
+
+  @Test
+  public void testCrc32c()
+  {
+    Assert.assertEquals("CRC-32C check value", "e3069283", hash(ChecksumAlgorithm.Crc32c, DIGITS, DIGITS.length));
+    Assert.assertEquals("CRC-32C empty", "00000000", hash(ChecksumAlgorithm.Crc32c, new byte[0], 1));
+  }
+
+  @Test
+  public void testSha256()
+  {
+    Assert.assertEquals("SHA-256 abc", "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        hash(ChecksumAlgorithm.Sha256, "abc".getBytes(StandardCharsets.US_ASCII), 1));
+  }
+
+  @Test
+  public void testXxHash64()
+  {
+    Assert.assertEquals("XXH64 empty", "ef46db3751d8e999", hash(ChecksumAlgorithm.XxHash64, new byte[0], 1));
+    Assert.assertEquals("XXH64 abc", "44bc2cf5ad770999",
+        hash(ChecksumAlgorithm.XxHash64, "abc".getBytes(StandardCharsets.US_ASCII), 3));
+    // 43 bytes: one 32-byte stripe, then an 8-byte lane and three single bytes
+    final byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+    Assert.assertEquals("XXH64 quick brown fox", "0b242d361fda71bc", hash(ChecksumAlgorithm.XxHash64, fox, fox.length));
+    Assert.assertEquals("XXH64 quick brown fox in chunks", "0b242d361fda71bc",
+        hash(ChecksumAlgorithm.XxHash64, fox, 5));
+  }
+
+  @Test
+  public void testChunkSizeIrrelevant()
+  {
+    final byte[] data = createData(1000);
+    for (final ChecksumAlgorithm algorithm : ChecksumAlgorithm.values())
+    {
+      final String expected = hash(algorithm, data, data.length);
+      for (final int chunkSize : new int[]
+      {
+          1, 3, 7, 8, 31, 32, 33, 100
+      })
+      {
+        Assert.assertEquals(algorithm.getName() + " chunk size " + chunkSize, expected,
+            hash(algorithm, data, chunkSize));
+      }
+    }
+  }
+
+  @Test
+  public void testFromName()
+  {
+    Assert.assertEquals("Name", ChecksumAlgorithm.Sha256, ChecksumAlgorithm.fromName("SHA256"));
+    Assert.assertNull("Unknown", ChecksumAlgorithm.fromName("md5"));
+  }
+}
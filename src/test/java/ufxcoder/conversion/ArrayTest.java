@@ -116,6 +116,14 @@ public class ArrayTest
         Array.from64(ZERO_ONE_TO_SEVEN, 0, ByteOrder.BigEndian));
     Assert.assertEquals("Big endian of zero-to-seven must be 506097522914230528L.", 506097522914230528L,
         Array.from64(ZERO_ONE_TO_SEVEN, 0, ByteOrder.LittleEndian));
+    final byte[] highBitsAroundHalf = new byte[]
+    {
+        0, 0, 0, (byte) 0x80, (byte) 0x80, 0, 0, 0
+    };
+    Assert.assertEquals("Big endian with high bits set around the middle must be 551903297536L.", 551903297536L,
+        Array.from64(highBitsAroundHalf, 0, ByteOrder.BigEndian));
+    Assert.assertEquals("Little endian with high bits set around the middle must be 551903297536L.", 551903297536L,
+        Array.from64(highBitsAroundHalf, 0, ByteOrder.LittleEndian));
   }
 
   @Test
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.ByteArrayOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link JpegHuffmanDecoder} and the bit reservoir of {@link JpegScanReader} with hand-built scan data.
+ */
+public class JpegHuffmanDecoderTest
+{
+  /**
+   * Number of codes for each bit length 1 to 16, including codes longer than the decoder's lookahead.
+   */
+  private static final int[] NUM_CODES =
+  {
+      0, 2, 1, 0, 0, 0, 0, 0, 0, 3, 0, 2, 0, 0, 0, 1
+  };
+
+  /**
+   * DC magnitude categories, assigned in this order to the codes defined by {@link #NUM_CODES}.
+   */
+  private static final int[] DC_VALUES =
+  {
+      0, 1, 5, 3, 11, 2, 7, 4, 9
+  };
+
+  /**
+   * Run/size values: EOB, ZRL and a few run/size combinations.
+   */
+  private static final int[] AC_VALUES =
+  {
+      0x00, 0x01, 0x12, 0xf0, 0x23, 0x05, 0x31, 0x02, 0x14
+  };
+
+  /**
+   * Writes bits most significant bit first and stuffs a zero byte after each 0xff byte.
+   */
+  private static final class BitWriter
+  {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private int current;
+    private int numBits;
+
+    public void write(final int value, final int num)
+    {
+      for (int index = num - 1; index >= 0; index--)
+      {
+        current = (current << 1) | ((value >> index) & 1);
+        numBits++;
+        if (numBits == 8)
+        {
+          flushByte();
+        }
+      }
+    }
+
+    private void flushByte()
+    {
+      bytes.write(current);
+      if (current == 0xff)
+      {
+        bytes.write(0);
+      }
+      current = 0;
+      numBits = 0;
+    }
+
+    public byte[] finish()
+    {
+      while (numBits != 0)
+      {
+        write(1, 1);
+      }
+      bytes.write(0xff);
+      bytes.write(0xd9);
+      return bytes.toByteArray();
+    }
+  }
+
+  private static JpegHuffmanTable createTable(final int... values)
+  {
+    final JpegHuffmanTable table = new JpegHuffmanTable();
+    int valueIndex = 0;
+    for (int length = 0; length < NUM_CODES.length; length++)
+    {
+      table.setNumCodes(length, NUM_CODES[length]);
+      for (int index = 0; index < NUM_CODES[length]; index++)
+      {
+        table.setCode(length, index, values[valueIndex++]);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Write the canonical Huffman code for a value as defined by {@link #NUM_CODES}.
+   */
+  private static void writeCode(final BitWriter writer, final int[] values, final int value)
+  {
+    int code = 0;
+    int valueIndex = 0;
+    for (int length = 1; length <= NUM_CODES.length; length++)
+    {
+      for (int index = 0; index < NUM_CODES[length - 1]; index++)
+      {
+        if (values[valueIndex] == value)
+        {
+          writer.write(code, length);
+        }
+        code++;
+        valueIndex++;
+      }
+      code <<= 1;
+    }
+  }
+
+  private static void writeCoefficient(final BitWriter writer, final int category, final int coefficient)
+  {
+    final int bits = coefficient < 0 ? coefficient + (1 << category) - 1 : coefficient;
+    writer.write(bits, category);
+  }
+
+  private static JpegProcessor createProcessor(final byte[] data)
+  {
+    final JpegProcessor proc = (JpegProcessor) new JpegProcessorTest().create(data);
+    proc.setFileDescription(proc.createDescription());
+    return proc;
+  }
+
+  @Test
+  public void testDecodeDc()
+  {
+    final int[] categories =
+    {
+        0, 1, 5, 3, 11, 2, 7, 4, 9, 11, 1, 9
+    };
+    final int[] differences =
+    {
+        0, -1, 17, -7, 2047, 2, -100, 15, -511, -1024, 1, 256
+    };
+    final BitWriter writer = new BitWriter();
+    for (int index = 0; index < categories.length; index++)
+    {
+      writeCode(writer, DC_VALUES, categories[index]);
+      writeCoefficient(writer, categories[index], differences[index]);
+    }
+    final JpegProcessor proc = createProcessor(writer.finish());
+    final JpegHuffmanDecoder decoder = new JpegHuffmanDecoder(createTable(DC_VALUES), new JpegScanReader(proc));
+    for (int index = 0; index < differences.length; index++)
+    {
+      Assert.assertEquals("DC difference " + index + " decoded.", differences[index], decoder.decodeDc());
+    }
+    Assert.assertTrue("Valid scan data decodes without errors.", proc.isSuccess());
+  }
+
+  @Test
+  public void testDecodeDifference()
+  {
+    // lossless difference categories go up to 16, which stands for 32768 without additional bits
+    final int[] values =
+    {
+        0, 1, 5, 3, 16, 2, 15, 4, 9
+    };
+    final int[] categories =
+    {
+        16, 15, 0, 9, 15, 1, 16, 5
+    };
+    final int[] differences =
+    {
+        32768, -32767, 0, -511, 16384, 1, 32768, 17
+    };
+    final BitWriter writer = new BitWriter();
+    for (int index = 0; index < categories.length; index++)
+    {
+      writeCode(writer, values, categories[index]);
+      if (categories[index] < 16)
+      {
+        writeCoefficient(writer, categories[index], differences[index]);
+      }
+    }
+    final JpegProcessor proc = createProcessor(writer.finish());
+    final JpegHuffmanDecoder decoder = new JpegHuffmanDecoder(createTable(values), new JpegScanReader(proc));
+    for (int index = 0; index < differences.length; index++)
+    {
+      Assert.assertEquals("Difference " + index + " decoded.", differences[index], decoder.decodeDifference());
+    }
+    Assert.assertTrue("Valid scan data decodes without errors.", proc.isSuccess());
+  }
+
+  @Test
+  public void testDecodeAc()
+  {
+    final BitWriter writer = new BitWriter();
+    // first block: coefficient 1 = -1, ZRL, run 1 and size 2 => coefficient 19 = 3, EOB
+    writeCode(writer, AC_VALUES, 0x01);
+    writeCoefficient(writer, 1, -1);
+    writeCode(writer, AC_VALUES, 0xf0);
+    writeCode(writer, AC_VALUES, 0x12);
+    writeCoefficient(writer, 2, 3);
+    writeCode(writer, AC_VALUES, 0x00);
+    // second block: run 3 and size 1 => coefficient 4 = 1, then 59 times size 2 without run up to coefficient 63
+    writeCode(writer, AC_VALUES, 0x31);
+    writeCoefficient(writer, 1, 1);
+    for (int index = 5; index < Constants.MINIMUM_CODED_UNIT_ELEMENTS; index++)
+    {
+      writeCode(writer, AC_VALUES, 0x02);
+      writeCoefficient(writer, 2, -2);
+    }
+    final JpegProcessor proc = createProcessor(writer.finish());
+    final JpegHuffmanDecoder decoder = new JpegHuffmanDecoder(createTable(AC_VALUES), new JpegScanReader(proc));
+    final int[] zz = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    decoder.decodeAc(zz);
+    final int[] expected = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    expected[1] = -1;
+    expected[19] = 3;
+    Assert.assertArrayEquals("First block decoded.", expected, zz);
+    decoder.decodeAc(zz);
+    for (int index = 1; index < Constants.MINIMUM_CODED_UNIT_ELEMENTS; index++)
+    {
+      final int value = index < 4 ? 0 : index == 4 ? 1 : -2;
+      Assert.assertEquals("Coefficient " + index + " of second block decoded.", value, zz[index]);
+    }
+    Assert.assertTrue("Valid scan data decodes without errors.", proc.isSuccess());
+  }
+
+  @Test
+  public void testInvalidCode()
+  {
+    final BitWriter writer = new BitWriter();
+    writer.write(0xffff, 16);
+    final JpegProcessor proc = createProcessor(writer.finish());
+    final JpegHuffmanDecoder decoder = new JpegHuffmanDecoder(createTable(DC_VALUES), new JpegScanReader(proc));
+    decoder.decodeDc();
+    Assert.assertTrue("Sixteen one bits are not a code of the table.",
+        proc.getJpegFileDescription().containsEvent(Msg.INVALID_HUFFMAN_CODE));
+  }
+
+  @Test
+  public void testBitsAfterEndOfScanAreZero()
+  {
+    final JpegProcessor proc = createProcessor(new byte[]
+    {
+        (byte) 0xa5, (byte) 0xff, 0x00, (byte) 0xff, (byte) 0xd9
+    });
+    final JpegScanReader reader = new JpegScanReader(proc);
+    Assert.assertEquals("First nibble.", 0x0a, reader.getBits(4));
+    Assert.assertEquals("Second nibble and stuffed 0xff byte.", 0x5ff, reader.getBits(12));
+    Assert.assertEquals("Bits after end of scan data.", 0, reader.getBits(16));
+    Assert.assertTrue("Reaching a marker is not an error.", proc.isSuccess());
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.io.MemorySource;
+
+/**
+ * Test {@link JpegMarkerScanner}.
+ */
+public class JpegMarkerScannerTest
+{
+  /**
+   * Create scan data with many 0xff bytes: stuffed zero bytes, fill bytes before markers and restart markers in
+   * sequence.
+   *
+   * @param size
+   *          approximate number of bytes
+   * @param seed
+   *          random seed
+   * @return scan data followed by an end of image marker
+   */
+  public static byte[] createScanData(final int size, final long seed)
+  {
+    final Random random = new Random(seed);
+    final byte[] result = new byte[size + 16];
+    int index = 0;
+    int restart = Constants.MARKER_MIN_RESTART_INTERVAL;
+    while (index < size)
+    {
+      final int value = random.nextInt(256);
+      if (value == 0xff)
+      {
+        result[index++] = (byte) 0xff;
+        final int kind = random.nextInt(8);
+        if (kind == 0)
+        {
+          // fill byte followed by restart marker
+          result[index++] = (byte) 0xff;
+          result[index++] = (byte) restart;
+          restart = JpegScanReader.nextRestart(restart);
+        }
+        else
+        {
+          result[index++] = 0;
+        }
+      }
+      else
+      {
+        result[index++] = (byte) value;
+      }
+    }
+    result[index++] = (byte) 0xff;
+    result[index++] = (byte) Constants.MARKER_END_OF_IMAGE;
+    return Arrays.copyOf(result, index);
+  }
+
+  @Test
+  public void testContainsFf()
+  {
+    Assert.assertFalse("No 0xff byte.", JpegMarkerScanner.containsFf(0x0123456789abcdefL));
+    Assert.assertFalse("Only 0xfe and 0x7f bytes.", JpegMarkerScanner.containsFf(0xfefe7f7ffefe7f7fL));
+    Assert.assertFalse("Zero.", JpegMarkerScanner.containsFf(0));
+    for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE)
+    {
+      Assert.assertTrue("0xff at bit " + shift + ".", JpegMarkerScanner.containsFf(0xffL << shift));
+      Assert.assertTrue("0xff at bit " + shift + " among others.",
+          JpegMarkerScanner.containsFf(0xfefefefefefefefeL | 0xffL << shift));
+    }
+    Assert.assertTrue("All bytes 0xff.", JpegMarkerScanner.containsFf(-1L));
+  }
+
+  @Test
+  public void testSkipLargeInput() throws IOException
+  {
+    // larger than the buffer, so markers cross buffer boundaries
+    for (long seed = 0; seed < 4; seed++)
+    {
+      final byte[] data = createScanData(JpegMarkerScanner.MAX_BUFFER_SIZE * 2 + 12_345, seed);
+      final MemorySource source = new MemorySource(data);
+      final JpegMarkerScanner scanner = new JpegMarkerScanner(Constants.MARKER_MIN_RESTART_INTERVAL, false);
+      final long marker = scanner.skip(source);
+      Assert.assertEquals("Marker found at end.", data.length - 2, marker);
+      Assert.assertEquals("Input positioned at marker.", data.length - 2, source.getPosition());
+      Assert.assertTrue("Restart markers in sequence.", scanner.getErrors().isEmpty());
+    }
+  }
+
+  @Test
+  public void testReuse() throws IOException
+  {
+    // a large scan makes the buffer grow, a small scan afterwards must not see its errors or leftover bytes
+    final JpegMarkerScanner scanner = new JpegMarkerScanner(Constants.MARKER_MIN_RESTART_INTERVAL, true);
+    final byte[] large = createScanData(JpegMarkerScanner.INITIAL_BUFFER_SIZE * 5 + 17, 1);
+    Assert.assertEquals("Marker found in large scan.", large.length - 2, scanner.skip(new MemorySource(large)));
+    final byte[] small =
+    {
+        0x12, (byte) 0xff, 0x00, 0x34, (byte) 0xff, (byte) 0xd0, 0x56, (byte) 0xff, (byte) 0xd9
+    };
+    scanner.reset(Constants.MARKER_MIN_RESTART_INTERVAL, false);
+    Assert.assertEquals("Marker found in small scan.", small.length - 2, scanner.skip(new MemorySource(small)));
+    Assert.assertTrue("No errors.", scanner.getErrors().isEmpty());
+    Assert.assertEquals("Next restart.", Constants.MARKER_MIN_RESTART_INTERVAL + 1, scanner.getExpectedRestart());
+  }
+
+  @Test
+  public void testUnexpectedRestart() throws IOException
+  {
+    final byte[] data =
+    {
+        0x12, (byte) 0xff, 0x00, 0x34, (byte) 0xff, (byte) 0xd0, 0x56, (byte) 0xff, (byte) 0xd2, 0x78, (byte) 0xff,
+        (byte) 0xd4, (byte) 0xff, (byte) 0xd9
+    };
+    final JpegMarkerScanner scanner = new JpegMarkerScanner(Constants.MARKER_MIN_RESTART_INTERVAL, false);
+    Assert.assertEquals("Marker found.", data.length - 2, scanner.skip(new MemorySource(data)));
+    Assert.assertEquals("One error only.", 1, scanner.getErrors().size());
+    Assert.assertEquals("Restart error.", Msg.UNEXPECTED_RESTART_MARKER, scanner.getErrors().get(0).getMessageKey());
+  }
+
+  @Test
+  public void testEndOfInput() throws IOException
+  {
+    final byte[] data =
+    {
+        0x12, (byte) 0xff, 0x00, 0x34, 0x56, 0x78, (byte) 0x9a, (byte) 0xbc, (byte) 0xde, (byte) 0xff
+    };
+    final JpegMarkerScanner scanner = new JpegMarkerScanner(Constants.MARKER_MIN_RESTART_INTERVAL, false);
+    Assert.assertEquals("No marker.", -1, scanner.skip(new MemorySource(data)));
+  }
+}
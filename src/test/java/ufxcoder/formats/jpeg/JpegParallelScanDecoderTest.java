@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import org.junit.Assert;
+import org.junit.Test;
+import ufx.formats.AbstractSampleFileTest;
+import ufxcoder.app.AppConfig;
+import ufxcoder.formats.AbstractFormatProcessor;
+import ufxcoder.formats.EventSeverity;
+import ufxcoder.io.MemorySource;
+
+/**
+ * Test {@link JpegParallelScanDecoder} by comparing its messages with those of sequential decoding, for a valid file
+ * with restart intervals and for variations of it.
+ */
+public class JpegParallelScanDecoderTest
+{
+  private static final String RESTART_FILE = "c40x24hr.jpg";
+
+  /**
+   * Records the messages of all events.
+   */
+  private static final class RecordingProcessor extends JpegProcessor
+  {
+    private final List<String> messages = new ArrayList<>();
+
+    @Override
+    public void addEvent(final EventSeverity severity, final String messageKey, final Object... arguments)
+    {
+      super.addEvent(severity, messageKey, arguments);
+      messages.add(msg(messageKey, arguments));
+    }
+
+    public List<String> getMessages()
+    {
+      return messages;
+    }
+  }
+
+  private static byte[] read(final String name) throws IOException
+  {
+    return new AbstractSampleFileTest()
+    {
+      @Override
+      public InputStream open(final String fileName)
+      {
+        return JpegParallelScanDecoderTest.class.getResourceAsStream(fileName);
+      }
+
+      @Override
+      public AbstractFormatProcessor create(final byte[] data)
+      {
+        return null;
+      }
+    }.read(name);
+  }
+
+  private static AppConfig createConfig()
+  {
+    final AppConfig config = new AppConfig();
+    config.setBundle(ResourceBundle.getBundle("Messages", Locale.ENGLISH));
+    config.setLocale(Locale.ENGLISH);
+    return config;
+  }
+
+  private static int findScanData(final byte[] data)
+  {
+    int index = 2;
+    while ((data[index + 1] & 0xff) != (Constants.MARKER_START_OF_SCAN & 0xff))
+    {
+      index += 2 + ((data[index + 2] & 0xff) << 8 | data[index + 3] & 0xff);
+    }
+    return index + 2 + ((data[index + 2] & 0xff) << 8 | data[index + 3] & 0xff);
+  }
+
+  private static int findMarker(final byte[] data, final int from, final int id)
+  {
+    int index = from;
+    while (!(data[index] == (byte) 0xff && (data[index + 1] & 0xff) == (id & 0xff)))
+    {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Decode the only scan of a file with a decoder and return its messages.
+   *
+   * @param proc
+   *          processor which has read the file
+   * @param data
+   *          file content
+   * @param parallel
+   *          whether to use {@link JpegParallelScanDecoder} or {@link JpegBaselineHuffmanDecoder}
+   * @return messages followed by the position of the input after decoding
+   * @throws IOException
+   *           if positioning fails
+   */
+  public static List<String> decodeScan(final RecordingProcessor proc, final byte[] data, final boolean parallel)
+      throws IOException
+  {
+    proc.getMessages().clear();
+    final MemorySource source = new MemorySource(data);
+    source.seek(findScanData(data));
+    proc.setSource(source);
+    final JpegFrame frame = proc.getJpegFileDescription().getFrame();
+    final JpegScanReader reader = new JpegScanReader(proc);
+    if (parallel)
+    {
+      new JpegParallelScanDecoder(proc, reader).decode(frame, frame.getLastScan());
+    }
+    else
+    {
+      new JpegBaselineHuffmanDecoder(proc, reader).decode(frame, frame.getLastScan());
+    }
+    final List<String> result = new ArrayList<>(proc.getMessages());
+    result.add(Long.toString(source.getPosition()));
+    return result;
+  }
+
+  /**
+   * Decode the only scan of a file sequentially, then once more in parallel, and compare messages and final position.
+   *
+   * @param data
+   *          JPEG file with a restart interval
+   * @return messages of parallel decoding followed by the position of the input
+   * @throws IOException
+   *           if positioning fails
+   */
+  public static List<String> assertSameMessages(final byte[] data) throws IOException
+  {
+    final RecordingProcessor proc = new RecordingProcessor();
+    proc.setConfig(createConfig());
+    proc.open(data);
+    proc.process();
+    final List<String> sequential = decodeScan(proc, data, false);
+    final List<String> parallel = decodeScan(proc, data, true);
+    Assert.assertEquals("Same result as sequential decoding.", sequential, parallel);
+    return parallel;
+  }
+
+  @Test
+  public void testValidFile() throws IOException
+  {
+    final byte[] data = read(RESTART_FILE);
+    final List<String> result = assertSameMessages(data);
+    Assert.assertEquals("No errors, input positioned at end of image marker.",
+        Arrays.asList(Integer.toString(data.length - 2)), result);
+  }
+
+  @Test
+  public void testUnexpectedRestartMarker() throws IOException
+  {
+    final List<String> result = assertSameMessages(read("c40x24hr-jpeg.error.unexpected_restart_marker.bin"));
+    Assert.assertEquals("Restart error and position of failure.", 3, result.size());
+  }
+
+  @Test
+  public void testMissingRestartMarker() throws IOException
+  {
+    final byte[] data = read(RESTART_FILE);
+    final int scanData = findScanData(data);
+    final int restart = findMarker(data, scanData, Constants.MARKER_MIN_RESTART_INTERVAL + 1);
+    // scan ends after the second interval
+    final byte[] truncated = Arrays.copyOf(data, restart + 2);
+    truncated[restart + 1] = (byte) (Constants.MARKER_END_OF_IMAGE & 0xff);
+    final List<String> result = assertSameMessages(truncated);
+    Assert.assertEquals("Missing marker and position of failure.", 3, result.size());
+  }
+
+  @Test
+  public void testTruncatedInterval() throws IOException
+  {
+    final byte[] data = read(RESTART_FILE);
+    final int scanData = findScanData(data);
+    final int restart = findMarker(data, scanData, Constants.MARKER_MIN_RESTART_INTERVAL);
+    // first interval loses its second half
+    final int cut = scanData + (restart - scanData) / 2;
+    final byte[] truncated = new byte[data.length - (restart - cut)];
+    System.arraycopy(data, 0, truncated, 0, cut);
+    System.arraycopy(data, restart, truncated, cut, data.length - restart);
+    final List<String> result = assertSameMessages(truncated);
+    Assert.assertTrue("Errors reported.", result.size() > 1);
+  }
+
+  @Test
+  public void testTruncatedFile() throws IOException
+  {
+    final byte[] data = read(RESTART_FILE);
+    final int scanData = findScanData(data);
+    final int restart = findMarker(data, scanData, Constants.MARKER_MIN_RESTART_INTERVAL + 1);
+    // input ends in the middle of the third interval
+    final List<String> result = assertSameMessages(Arrays.copyOf(data, restart + (data.length - restart) / 2));
+    Assert.assertEquals("End of input, missing data and position of failure.", 4, result.size());
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import org.junit.Assert;
+import org.junit.Test;
+import ufx.formats.AbstractSampleFileTest;
+import ufxcoder.app.AppConfig;
+import ufxcoder.formats.AbstractFormatProcessor;
+import ufxcoder.results.ResultConfig;
+
+/**
+ * Test {@link JpegPixelPipeline} and {@link JpegIdct}.
+ */
+public class JpegPixelPipelineTest
+{
+  private static final String BASELINE_FILE = "c40x24h.jpg";
+
+  private static byte[] read(final String name) throws IOException
+  {
+    return new AbstractSampleFileTest()
+    {
+      @Override
+      public InputStream open(final String fileName)
+      {
+        return JpegPixelPipelineTest.class.getResourceAsStream(fileName);
+      }
+
+      @Override
+      public AbstractFormatProcessor create(final byte[] data)
+      {
+        return null;
+      }
+    }.read(name);
+  }
+
+  /**
+   * Process a file and return its pixel hash.
+   *
+   * @param proc
+   *          processor, possibly used before
+   * @param name
+   *          file name of test resource
+   * @param hashing
+   *          whether pixel hashing is requested
+   * @return hash or null if none was computed
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  public static String hashPixels(final JpegProcessor proc, final String name, final boolean hashing)
+      throws IOException
+  {
+    final AppConfig config = new AppConfig();
+    config.setBundle(ResourceBundle.getBundle("Messages", Locale.ENGLISH));
+    config.setLocale(Locale.ENGLISH);
+    config.getResultConfig().setPixelHashing(hashing);
+    proc.setConfig(config);
+    proc.open(read(name));
+    proc.process();
+    Assert.assertTrue("File is valid.", proc.isSuccess());
+    return proc.getFileDescription().getChecksums().get(ResultConfig.PIXEL_HASH_NAME);
+  }
+
+  @Test
+  public void testSameHashForAllEncodings() throws IOException
+  {
+    final JpegProcessor proc = new JpegProcessor();
+    final String baseline = hashPixels(proc, BASELINE_FILE, true);
+    Assert.assertNotNull("Hash computed.", baseline);
+    Assert.assertEquals("Progressive encoding has same pixels.", baseline, hashPixels(proc, "c40x24hp.jpg", true));
+    Assert.assertEquals("Restart intervals do not change pixels.", baseline, hashPixels(proc, "c40x24hr.jpg", true));
+    Assert.assertEquals("Reused pipeline yields same hash.", baseline, hashPixels(proc, BASELINE_FILE, true));
+  }
+
+  @Test
+  public void testArithmeticCodingHasSamePixels() throws IOException
+  {
+    final JpegProcessor proc = new JpegProcessor();
+    final String baseline = hashPixels(proc, BASELINE_FILE, true);
+    Assert.assertEquals("Sequential arithmetic coding.", baseline, hashPixels(proc, "c40x24a.jpg", true));
+    Assert.assertEquals("Progressive arithmetic coding.", baseline, hashPixels(proc, "c40x24ap.jpg", true));
+    Assert.assertEquals("Conditioning values and restart intervals.", baseline, hashPixels(proc, "c40x24ar.jpg", true));
+  }
+
+  @Test
+  public void testNoHashUnlessRequested() throws IOException
+  {
+    Assert.assertNull("No hash without option.", hashPixels(new JpegProcessor(), BASELINE_FILE, false));
+  }
+
+  @Test
+  public void testGrayAndColorHashesDiffer() throws IOException
+  {
+    final JpegProcessor proc = new JpegProcessor();
+    Assert.assertNotEquals("Different images.", hashPixels(proc, "g8x8h.jpg", true),
+        hashPixels(proc, BASELINE_FILE, true));
+  }
+
+  @Test
+  public void testDcOnlyBlock()
+  {
+    final int[] quantization = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    Arrays.fill(quantization, 1);
+    final JpegIdct idct = new JpegIdct();
+    idct.setQuantizationTable(quantization);
+    final int[] coefficients = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    // DC is eight times the mean sample value minus the level shift of 128
+    coefficients[0] = 80;
+    final byte[] samples = new byte[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    idct.transform(coefficients, samples, 0, Constants.BLOCK_SIZE);
+    final byte[] expected = new byte[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    Arrays.fill(expected, (byte) 138);
+    Assert.assertArrayEquals("Uniform block.", expected, samples);
+  }
+
+  @Test
+  public void testClampedSamples()
+  {
+    final int[] quantization = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    Arrays.fill(quantization, 16);
+    final JpegIdct idct = new JpegIdct();
+    idct.setQuantizationTable(quantization);
+    final int[] coefficients = new int[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    coefficients[0] = 1000;
+    final byte[] samples = new byte[Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+    idct.transform(coefficients, samples, 0, Constants.BLOCK_SIZE);
+    Assert.assertEquals("Clamped to maximum.", (byte) 255, samples[Constants.MINIMUM_CODED_UNIT_ELEMENTS - 1]);
+  }
+}
@@ -15,11 +15,14 @@
  */
 package ufxcoder.formats.jpeg;
 
+import java.io.IOException;
+import java.math.BigInteger;
 import org.junit.Assert;
 import org.junit.Test;
 import ufx.formats.AbstractFormatProcessorTest;
 import ufxcoder.app.ProcessMode;
 import ufxcoder.formats.AbstractFormatProcessor;
+import ufxcoder.formats.FileDescription;
 
 /**
  * Test {@link JpegProcessor} with various input streams.
@@ -109,4 +112,36 @@ public class JpegProcessorTest extends AbstractFormatProcessorTest
   {
     return new JpegProcessor();
   }
+
+  @Test
+  public void testProcessEmbedded() throws IOException
+  {
+    final JpegProcessor proc = (JpegProcessor) create(new byte[]
+    {
+        0x00, 0x00, (byte) 0xff, (byte) 0xd8
+    });
+    proc.getConfig().setMode(ProcessMode.Identify);
+    proc.setFileDescription(proc.createDescription());
+    final JpegProcessor child = new JpegProcessor();
+    final FileDescription desc = proc.processEmbedded(child, 2, 2);
+    Assert.assertNotNull("Embedded stream is processed.", desc);
+    Assert.assertTrue("Embedded stream is identified.", child.isFormatIdentified());
+    Assert.assertTrue("Description is marked as embedded.", desc.isEmbedded());
+    Assert.assertEquals("Offset of embedded stream.", BigInteger.valueOf(2), desc.getInitialOffset());
+    Assert.assertSame("Description is attached to container.", desc, proc.getFileDescription().getEmbedded().get(0));
+    Assert.assertEquals("Container position is restored.", 0, proc.getSource().getPosition());
+  }
+
+  @Test
+  public void testProcessEmbeddedOutsideContainer() throws IOException
+  {
+    final JpegProcessor proc = (JpegProcessor) create(new byte[]
+    {
+        0x00, 0x00, (byte) 0xff, (byte) 0xd8
+    });
+    proc.setFileDescription(proc.createDescription());
+    Assert.assertNull("Section beyond end is not processed.", proc.processEmbedded(new JpegProcessor(), 2, 3));
+    Assert.assertTrue("Invalid section is reported.",
+        proc.getFileDescription().containsEvent(AbstractFormatProcessor.MSG_EMBEDDED_SECTION_INVALID));
+  }
 }
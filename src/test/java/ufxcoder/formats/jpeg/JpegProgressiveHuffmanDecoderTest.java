@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.jpeg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ShortBuffer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import org.junit.Assert;
+import org.junit.Test;
+import ufx.formats.AbstractSampleFileTest;
+import ufxcoder.app.AppConfig;
+import ufxcoder.formats.AbstractFormatProcessor;
+import ufxcoder.io.MemorySource;
+
+/**
+ * Test {@link JpegProgressiveHuffmanDecoder} by comparing the coefficients of a progressive file with those of the
+ * baseline file it was created from.
+ */
+public class JpegProgressiveHuffmanDecoderTest
+{
+  /**
+   * Keeps a copy of the coefficients of a progressive frame before the processor releases them.
+   */
+  private static final class CapturingProcessor extends JpegProcessor
+  {
+    private final Map<Integer, int[]> planes = new HashMap<>();
+    private final Map<Integer, JpegCoefficientPlane> layouts = new HashMap<>();
+
+    @Override
+    protected void finishCoefficients()
+    {
+      final JpegFrame frame = getJpegFileDescription().getFrame();
+      for (final JpegFrameComponent comp : frame.getComponents())
+      {
+        final JpegCoefficientPlane plane = frame.getCoefficients().find(comp.getId());
+        final int[] values = new int[plane.getBlocksPerLine() * plane.getBlockLines()
+            * Constants.MINIMUM_CODED_UNIT_ELEMENTS];
+        int index = 0;
+        for (int blockY = 0; blockY < plane.getBlockLines(); blockY++)
+        {
+          final ShortBuffer chunk = plane.getChunk(blockY);
+          for (int blockX = 0; blockX < plane.getBlocksPerLine(); blockX++)
+          {
+            final int offset = plane.getOffset(blockX, blockY);
+            for (int coefficient = 0; coefficient < Constants.MINIMUM_CODED_UNIT_ELEMENTS; coefficient++)
+            {
+              values[index++] = chunk.get(offset + coefficient);
+            }
+          }
+        }
+        planes.put(comp.getId(), values);
+        layouts.put(comp.getId(), plane);
+      }
+      super.finishCoefficients();
+    }
+
+    public int[] getPlane(final int componentId)
+    {
+      return planes.get(componentId);
+    }
+
+    public int getBlocksPerLine(final int componentId)
+    {
+      return layouts.get(componentId).getBlocksPerLine();
+    }
+  }
+
+  /**
+   * Records the blocks of a baseline scan by component and position.
+   */
+  private static final class RecordingDecoder extends JpegBaselineHuffmanDecoder
+  {
+    private final Map<String, int[]> blocks = new HashMap<>();
+
+    RecordingDecoder(final JpegProcessor proc, final JpegScanReader reader)
+    {
+      super(proc, reader);
+    }
+
+    @Override
+    protected void blockDecoded(final JpegFrameComponent comp, final int blockX, final int blockY,
+        final int... coefficients)
+    {
+      blocks.put(key(comp.getId(), blockX, blockY), coefficients.clone());
+    }
+
+    public int[] find(final int componentId, final int blockX, final int blockY)
+    {
+      return blocks.get(key(componentId, blockX, blockY));
+    }
+
+    private static String key(final int componentId, final int blockX, final int blockY)
+    {
+      return componentId + "/" + blockX + "/" + blockY;
+    }
+  }
+
+  private static byte[] read(final String name) throws IOException
+  {
+    return new AbstractSampleFileTest()
+    {
+      @Override
+      public InputStream open(final String fileName)
+      {
+        return JpegProgressiveHuffmanDecoderTest.class.getResourceAsStream(fileName);
+      }
+
+      @Override
+      public AbstractFormatProcessor create(final byte[] data)
+      {
+        return null;
+      }
+    }.read(name);
+  }
+
+  private static AppConfig createConfig()
+  {
+    final AppConfig config = new AppConfig();
+    config.setBundle(ResourceBundle.getBundle("Messages", Locale.ENGLISH));
+    config.setLocale(Locale.ENGLISH);
+    return config;
+  }
+
+  @Test
+  public void testProgressiveMatchesBaseline() throws IOException
+  {
+    final CapturingProcessor progressive = new CapturingProcessor();
+    progressive.setConfig(createConfig());
+    progressive.open(read("c40x24hp.jpg"));
+    progressive.process();
+    Assert.assertTrue("Progressive file is valid.", progressive.isSuccess());
+
+    // decode each component of the baseline file in a non-interleaved pass over its own blocks
+    final byte[] baseline = read("c40x24h.jpg");
+    final JpegProcessor proc = new JpegProcessor();
+    proc.setConfig(createConfig());
+    proc.open(baseline);
+    proc.process();
+    Assert.assertTrue("Baseline file is valid.", proc.isSuccess());
+    final JpegFileDescription desc = proc.getJpegFileDescription();
+    final JpegFrame frame = desc.getFrame();
+    final JpegScan interleaved = frame.getLastScan();
+    long scanOffset = 0;
+    for (final Marker marker : desc.getMarkers())
+    {
+      if (marker.getId() == Constants.MARKER_START_OF_SCAN)
+      {
+        scanOffset = marker.getOffset() + 2 + marker.getLength();
+      }
+    }
+    final MemorySource source = new MemorySource(baseline);
+    source.seek(scanOffset);
+    proc.setSource(source);
+    final RecordingDecoder decoder = new RecordingDecoder(proc, new JpegScanReader(proc));
+    decoder.decode(frame, interleaved);
+    Assert.assertTrue("Baseline scan decoded.", proc.isSuccess());
+
+    int compared = 0;
+    for (final JpegFrameComponent comp : frame.getComponents())
+    {
+      final int[] plane = progressive.getPlane(comp.getId());
+      final int blocksPerLine = progressive.getBlocksPerLine(comp.getId());
+      // blocks covered by the component itself, without padding to whole MCUs
+      final int width = (frame.getWidth() * comp.getHorizontalSamplingFactor() + 1) / 2;
+      final int height = (frame.getHeight() * comp.getVerticalSamplingFactor() + 1) / 2;
+      for (int blockY = 0; blockY < (height + 7) / 8; blockY++)
+      {
+        for (int blockX = 0; blockX < (width + 7) / 8; blockX++)
+        {
+          final int[] expected = decoder.find(comp.getId(), blockX, blockY);
+          final int offset = (blockY * blocksPerLine + blockX) * Constants.MINIMUM_CODED_UNIT_ELEMENTS;
+          for (int index = 0; index < Constants.MINIMUM_CODED_UNIT_ELEMENTS; index++)
+          {
+            Assert.assertEquals("Coefficient " + index + " of block " + blockX + "/" + blockY + " of component "
+                + comp.getId(), expected[index], plane[offset + index]);
+          }
+          compared++;
+        }
+      }
+    }
+    Assert.assertEquals("All blocks of 4:2:0 image compared (luminance 5x3, chrominance 3x2).", 15 + 6 + 6, compared);
+  }
+
+  @Test
+  public void testOffHeapStorage() throws IOException
+  {
+    final JpegFrame frame = new JpegFrame();
+    frame.setWidth(100);
+    frame.setHeight(20);
+    final JpegFrameComponent comp = new JpegFrameComponent();
+    comp.setId(7);
+    comp.setHorizontalSamplingFactor(1);
+    comp.setVerticalSamplingFactor(1);
+    frame.add(comp);
+    try (JpegCoefficients coefficients = JpegCoefficients.create(frame, true))
+    {
+      Assert.assertTrue("Storage requested off-heap.", coefficients.isOffHeap());
+      final JpegCoefficientPlane plane = coefficients.find(7);
+      Assert.assertEquals("Blocks per line.", 13, plane.getBlocksPerLine());
+      Assert.assertEquals("Block lines.", 3, plane.getBlockLines());
+      final int offset = plane.getOffset(12, 2);
+      plane.getChunk(2).put(offset + 63, (short) -1234);
+      Assert.assertEquals("Value stored off-heap.", -1234, plane.getChunk(2).get(offset + 63));
+      Assert.assertEquals("Heap limit not reached by small frame.", false,
+          JpegCoefficients.getNumBytes(frame) > JpegCoefficients.MAX_HEAP_BYTES);
+    }
+  }
+
+  @Test
+  public void testHeapLimitShared() throws IOException
+  {
+    // 525 x 525 blocks of 128 bytes, about 35 MB: one such frame fits into the heap limit, two do not
+    final JpegFrame frame = new JpegFrame();
+    frame.setWidth(4200);
+    frame.setHeight(4200);
+    final JpegFrameComponent comp = new JpegFrameComponent();
+    comp.setId(1);
+    comp.setHorizontalSamplingFactor(1);
+    comp.setVerticalSamplingFactor(1);
+    frame.add(comp);
+    final long before = JpegCoefficients.getHeapBytes();
+    try (JpegCoefficients first = JpegCoefficients.create(frame);
+        JpegCoefficients second = JpegCoefficients.create(frame))
+    {
+      Assert.assertFalse("First frame on the heap.", first.isOffHeap());
+      Assert.assertTrue("Second frame off-heap.", second.isOffHeap());
+      Assert.assertEquals("Heap bytes of first frame counted.", before + JpegCoefficients.getNumBytes(frame),
+          JpegCoefficients.getHeapBytes());
+    }
+    Assert.assertEquals("Heap bytes given back on close.", before, JpegCoefficients.getHeapBytes());
+  }
+
+  @Test
+  public void testMarkCoded()
+  {
+    final JpegCoefficientPlane plane = new JpegCoefficientPlane(1, 1, 1);
+    Assert.assertFalse("AC before DC.", plane.markCoded(1, 5, 0, 1));
+    Assert.assertTrue("DC first scan.", plane.markCoded(0, 0, 0, 1));
+    Assert.assertFalse("DC coded twice.", plane.markCoded(0, 0, 0, 1));
+    Assert.assertTrue("AC first scan.", plane.markCoded(1, 63, 0, 2));
+    Assert.assertFalse("Refinement skips a bit.", plane.markCoded(1, 63, 2, 0));
+    Assert.assertTrue("AC refinement.", plane.markCoded(1, 63, 2, 1));
+    Assert.assertTrue("AC refinement.", plane.markCoded(1, 63, 1, 0));
+    Assert.assertEquals("DC still incomplete.", 0, plane.findIncomplete());
+    Assert.assertTrue("DC refinement.", plane.markCoded(0, 0, 1, 0));
+    Assert.assertEquals("All complete.", -1, plane.findIncomplete());
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.io.MemorySource;
+
+/**
+ * Test {@link FieldDataLoader} merging the data ranges of fields into few reads.
+ */
+public class FieldDataLoaderTest
+{
+  private static final int DATA_SIZE = 3 * FieldDataLoader.MAX_GAP;
+
+  private static MemorySource createSource()
+  {
+    final byte[] data = new byte[DATA_SIZE];
+    for (int i = 0; i < data.length; i++)
+    {
+      data[i] = (byte) i;
+    }
+    return new MemorySource(data);
+  }
+
+  private static Field createField(final long offset, final int numValues)
+  {
+    final Field field = new Field();
+    field.setType(FieldType.Short.getId());
+    field.setNumValues(numValues);
+    field.setAdditionalOffset(offset);
+    return field;
+  }
+
+  @Test
+  public void testNearbyRangesAreMerged() throws IOException
+  {
+    final List<Field> fields = new ArrayList<>();
+    fields.add(createField(100, 8));
+    fields.add(createField(20, 4));
+    fields.add(createField(102, 2));
+    fields.add(createField(DATA_SIZE - 10, 5));
+    final int numReads = new FieldDataLoader().load(createSource(), fields);
+    Assert.assertEquals("Three close ranges and a distant one.", 2, numReads);
+    Assert.assertArrayEquals("Data of field at offset 20.", new byte[]
+    {
+        20, 21, 22, 23, 24, 25, 26, 27
+    }, fields.get(1).getData());
+    Assert.assertArrayEquals("Data of overlapping field.", new byte[]
+    {
+        102, 103, 104, 105
+    }, fields.get(2).getData());
+    Assert.assertEquals("Data of last field.", 10, fields.get(3).getData().length);
+    Assert.assertEquals("Last byte of last field.", (byte) (DATA_SIZE - 1), fields.get(3).getData()[9]);
+  }
+
+  @Test
+  public void testNoFields() throws IOException
+  {
+    Assert.assertEquals("Nothing to read.", 0, new FieldDataLoader().load(createSource(), new ArrayList<Field>()));
+  }
+}
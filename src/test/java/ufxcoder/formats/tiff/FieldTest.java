@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.math.BigInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.conversion.ByteOrder;
+
+/**
+ * Test lazy decoding of {@link Field} values.
+ */
+public class FieldTest
+{
+  private static Field createField(final FieldType type, final long numValues, final byte... data)
+  {
+    final Field field = new Field();
+    field.setType(type.getId());
+    field.setNumValues(numValues);
+    field.setData(data);
+    field.setByteOrder(ByteOrder.BigEndian);
+    return field;
+  }
+
+  @Test
+  public void testNoValuesWithoutByteOrder()
+  {
+    final Field field = createField(FieldType.Short, 1, (byte) 0, (byte) 5);
+    field.setByteOrder(null);
+    Assert.assertNull("No values without byte order.", field.getAsNumber());
+    Assert.assertEquals("Empty string without byte order.", "", field.getAsString());
+  }
+
+  @Test
+  public void testSignedValues()
+  {
+    final Field field = createField(FieldType.SignedShort, 2, (byte) 0xff, (byte) 0xfe, (byte) 0, (byte) 3);
+    Assert.assertEquals("First value is negative.", -2, field.getAsLong(0));
+    Assert.assertEquals("Second value is positive.", 3, field.getAsLong(1));
+    Assert.assertEquals("Values separated by space.", "-2 3", field.getAsString());
+  }
+
+  @Test
+  public void testUnsignedLong8()
+  {
+    final Field field = createField(FieldType.Long8, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+        (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xfe);
+    final BigInteger expected = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.valueOf(2));
+    Assert.assertEquals("Value larger than Long.MAX_VALUE.", expected, field.getAsBigInteger());
+  }
+
+  @Test
+  public void testFloatAndRational()
+  {
+    final Field floatField = createField(FieldType.Float, 1, (byte) 0x3f, (byte) 0xc0, (byte) 0, (byte) 0);
+    Assert.assertEquals("Float 1.5.", 1.5, floatField.getAsNumber().doubleValue(), 0.0);
+    Assert.assertEquals("Integer part of float.", 1, floatField.getAsLong());
+    final Field rational = createField(FieldType.Rational, 1, (byte) 0, (byte) 0, (byte) 0, (byte) 72, (byte) 0,
+        (byte) 0, (byte) 0, (byte) 1);
+    Assert.assertEquals("Rational 72/1.", 72, rational.getAsInt());
+  }
+
+  @Test
+  public void testDirectValues()
+  {
+    final Field field = new Field();
+    field.setType(FieldType.Long.getId());
+    field.setValues(7, 8);
+    Assert.assertEquals("Number of values assigned.", 2, field.getNumValues());
+    Assert.assertEquals("Second value.", 8, field.getAsLong(1));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.conversion.ByteOrder;
+import ufxcoder.io.MemorySource;
+
+/**
+ * Test {@link FieldValueReader} with loaded data and with values read from the source in chunks.
+ */
+public class FieldValueReaderTest
+{
+  @Test
+  public void testValuesFromSource() throws IOException
+  {
+    final int numValues = FieldValueReader.CHUNK_SIZE;
+    final int offset = 6;
+    final byte[] data = new byte[offset + numValues * 2];
+    for (int index = 0; index < numValues; index++)
+    {
+      data[offset + index * 2] = (byte) (index >> 8);
+      data[offset + index * 2 + 1] = (byte) index;
+    }
+    final Field field = new Field();
+    field.setType(FieldType.Short.getId());
+    field.setNumValues(numValues);
+    field.setAdditionalOffset(offset);
+    field.setByteOrder(ByteOrder.BigEndian);
+    final FieldValueReader reader = new FieldValueReader(new MemorySource(data), field);
+    for (int index = 0; index < numValues; index++)
+    {
+      Assert.assertTrue("Value available.", reader.hasNext());
+      Assert.assertEquals("Value equal to index.", index & 0xffff, reader.next());
+    }
+    Assert.assertFalse("All values read.", reader.hasNext());
+  }
+
+  @Test
+  public void testValuesFromData() throws IOException
+  {
+    final Field field = new Field();
+    field.setType(FieldType.Long.getId());
+    field.setNumValues(1);
+    field.setData(new byte[]
+    {
+        (byte) 0xff, 0, 0, 0
+    });
+    field.setByteOrder(ByteOrder.LittleEndian);
+    final FieldValueReader reader = new FieldValueReader(null, field);
+    Assert.assertEquals("Single value.", 255, reader.next());
+    Assert.assertFalse("No more values.", reader.hasNext());
+  }
+}
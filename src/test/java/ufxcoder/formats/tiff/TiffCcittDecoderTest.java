@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link TiffCcittDecoder} with hand-coded rows of eight pixels.
+ */
+public class TiffCcittDecoderTest
+{
+  private static final int WIDTH = 8;
+
+  private static TiffSegment decode(final int compression, final int fillOrder, final int rows, final int... data)
+  {
+    final TiffSegmentLayout layout = TiffSegmentLayoutTest.createLayout(rows, FieldDescriptionFactory.IMAGE_WIDTH,
+        new long[]
+        {
+            WIDTH
+        }, FieldDescriptionFactory.IMAGE_LENGTH, new long[]
+        {
+            rows
+        }, FieldDescriptionFactory.COMPRESSION, new long[]
+        {
+            compression
+        }, FieldDescriptionFactory.FILL_ORDER, new long[]
+        {
+            fillOrder
+        });
+    final byte[] input = new byte[data.length];
+    for (int index = 0; index < data.length; index++)
+    {
+      input[index] = (byte) data[index];
+    }
+    final TiffSegment segment = TiffSegmentLayoutTest.describe(layout, 0);
+    segment.setByteCount(input.length);
+    final TiffCcittDecoder decoder = new TiffCcittDecoder();
+    segment.setDecodedSize(decoder.decode(layout, segment, input));
+    segment.setError(decoder.takeError());
+    return segment;
+  }
+
+  private static void assertRows(final String message, final TiffSegment segment, final int rows)
+  {
+    Assert.assertNull(message + " Valid data.", segment.getError());
+    Assert.assertEquals(message + " One byte per row.", rows, segment.getDecodedSize());
+  }
+
+  @Test
+  public void testModifiedHuffman()
+  {
+    // white 8, filled to a byte boundary
+    assertRows("White rows.", decode(Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE, 1, 2, 0x98, 0x98), 2);
+    // white 2, black 4, white 2
+    assertRows("Black run.", decode(Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE, 1, 1, 0x76, 0xe0), 1);
+    assertRows("Reversed bits.", decode(Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE,
+        Constants.FILL_ORDER_LOWEST_BIT_FIRST, 1, 0x6e, 0x07), 1);
+  }
+
+  @Test
+  public void testT4EndOfLine()
+  {
+    // end-of-line code before each row
+    assertRows("Rows with EOL.", decode(Constants.COMPRESSION_CCITT_T4, 1, 2, 0x00, 0x19, 0x80, 0x06, 0x60), 2);
+  }
+
+  @Test
+  public void testT6()
+  {
+    // horizontal mode with white 2 and black 4, vertical 0 to the row end, three times vertical 0
+    assertRows("Two rows.", decode(Constants.COMPRESSION_CCITT_T6, 1, 2, 0x2e, 0xfc), 2);
+    assertRows("Vertical 0 per row.", decode(Constants.COMPRESSION_CCITT_T6, 1, 8, 0xff), 8);
+  }
+
+  @Test
+  public void testInvalidCode()
+  {
+    TiffSegment segment = decode(Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE, 1, 1, 0, 0);
+    Assert.assertEquals("No run length code.", Msg.CCITT_INVALID_CODE, segment.getError().getMessageKey());
+    segment = decode(Constants.COMPRESSION_CCITT_T6, 1, 1, 0);
+    Assert.assertEquals("No mode code.", Msg.CCITT_INVALID_CODE, segment.getError().getMessageKey());
+  }
+
+  @Test
+  public void testRowTooLong()
+  {
+    // white 9
+    final TiffSegment segment = decode(Constants.COMPRESSION_MODIFIED_HUFFMAN_RLE, 1, 1, 0xa0);
+    Assert.assertEquals("Row too long.", Msg.CCITT_INVALID_ROW_LENGTH, segment.getError().getMessageKey());
+  }
+}
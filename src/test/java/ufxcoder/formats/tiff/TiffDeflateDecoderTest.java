@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.util.zip.Deflater;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link TiffDeflateDecoder} with data compressed by {@link Deflater}.
+ */
+public class TiffDeflateDecoderTest
+{
+  private static final int WIDTH = 1000;
+  private static final int HEIGHT = 100;
+
+  private static byte[] compress(final int numBytes)
+  {
+    final byte[] data = new byte[numBytes];
+    for (int index = 0; index < data.length; index++)
+    {
+      data[index] = (byte) (index * index >> 5);
+    }
+    final Deflater deflater = new Deflater();
+    deflater.setInput(data);
+    deflater.finish();
+    final byte[] buffer = new byte[numBytes * 2 + 64];
+    final int length = deflater.deflate(buffer);
+    deflater.end();
+    final byte[] result = new byte[length];
+    System.arraycopy(buffer, 0, result, 0, length);
+    return result;
+  }
+
+  private static TiffSegment decode(final TiffDeflateDecoder decoder, final byte[] input)
+  {
+    final TiffSegmentLayout layout = TiffSegmentLayoutTest.createLayout(HEIGHT, FieldDescriptionFactory.IMAGE_WIDTH,
+        new long[]
+        {
+            WIDTH
+        }, FieldDescriptionFactory.IMAGE_LENGTH, new long[]
+        {
+            HEIGHT
+        }, FieldDescriptionFactory.BITS_PER_SAMPLE, new long[]
+        {
+            8
+        }, FieldDescriptionFactory.COMPRESSION, new long[]
+        {
+            Constants.COMPRESSION_DEFLATE
+        });
+    final TiffSegment segment = TiffSegmentLayoutTest.describe(layout, 0);
+    segment.setByteCount(input.length);
+    segment.setDecodedSize(decoder.decode(layout, segment, input));
+    segment.setError(decoder.takeError());
+    return segment;
+  }
+
+  @Test
+  public void testSizes()
+  {
+    final TiffDeflateDecoder decoder = new TiffDeflateDecoder();
+    final int expected = WIDTH * HEIGHT;
+    Assert.assertTrue("Test data is larger than scratch buffer.", expected > TiffDeflateDecoder.SCRATCH_SIZE);
+    TiffSegment segment = decode(decoder, compress(expected));
+    Assert.assertNull("Valid data.", segment.getError());
+    Assert.assertEquals("Decoded size is expected size.", expected, segment.getDecodedSize());
+    segment = decode(decoder, compress(expected - 1));
+    Assert.assertEquals("Decoded size is one less than expected.", expected - 1, segment.getDecodedSize());
+    segment = decode(decoder, compress(expected * 2));
+    Assert.assertEquals("Decoding stops after expected size.", expected + 1, segment.getDecodedSize());
+    decoder.close();
+  }
+
+  @Test
+  public void testInvalidData()
+  {
+    final TiffDeflateDecoder decoder = new TiffDeflateDecoder();
+    final byte[] input = compress(WIDTH);
+    input[0] = 0;
+    final TiffSegment segment = decode(decoder, input);
+    Assert.assertNotNull("Invalid header.", segment.getError());
+    Assert.assertEquals("Error type.", Msg.DEFLATE_INVALID_DATA, segment.getError().getMessageKey());
+    Assert.assertNull("Error is reset.", decoder.takeError());
+    decoder.close();
+  }
+}
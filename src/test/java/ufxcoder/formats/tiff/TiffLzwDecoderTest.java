@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import java.io.ByteArrayOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link TiffLzwDecoder} with code sequences written by a minimal encoder.
+ */
+public class TiffLzwDecoderTest
+{
+  private static final int CLEAR = 256;
+  private static final int END = 257;
+  private static final int WIDTH = 100;
+  private static final int HEIGHT = 20;
+
+  /**
+   * Write codes to bytes.
+   */
+  private static final class CodeWriter
+  {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final boolean lowestBitFirst;
+    private long bits;
+    private int numBits;
+
+    CodeWriter(final boolean lowestBitFirst)
+    {
+      this.lowestBitFirst = lowestBitFirst;
+    }
+
+    void write(final int code, final int width)
+    {
+      if (lowestBitFirst)
+      {
+        bits |= (long) code << numBits;
+        numBits += width;
+        while (numBits >= 8)
+        {
+          out.write((int) bits);
+          bits >>>= 8;
+          numBits -= 8;
+        }
+      }
+      else
+      {
+        bits = bits << width | code;
+        numBits += width;
+        while (numBits >= 8)
+        {
+          out.write((int) (bits >>> (numBits - 8)));
+          numBits -= 8;
+        }
+      }
+    }
+
+    byte[] toByteArray()
+    {
+      if (numBits > 0)
+      {
+        out.write((int) (lowestBitFirst ? bits : bits << (8 - numBits)));
+        numBits = 0;
+      }
+      return out.toByteArray();
+    }
+  }
+
+  /**
+   * Encode a number of bytes with one code per byte, growing the code width one code early like TIFF encoders do.
+   */
+  private static byte[] encodeLiterals(final int numBytes)
+  {
+    final CodeWriter writer = new CodeWriter(false);
+    int width = 9;
+    int next = 258;
+    writer.write(CLEAR, width);
+    for (int index = 0; index < numBytes; index++)
+    {
+      writer.write(index & 0xff, width);
+      next++;
+      if (next > (1 << width) - 1)
+      {
+        width++;
+      }
+    }
+    writer.write(END, width);
+    return writer.toByteArray();
+  }
+
+  private static byte[] encode(final boolean lowestBitFirst, final int... codes)
+  {
+    final CodeWriter writer = new CodeWriter(lowestBitFirst);
+    for (final int code : codes)
+    {
+      writer.write(code, 9);
+    }
+    return writer.toByteArray();
+  }
+
+  private static TiffSegment decode(final byte[] input)
+  {
+    final TiffSegmentLayout layout = TiffSegmentLayoutTest.createLayout(HEIGHT, FieldDescriptionFactory.IMAGE_WIDTH,
+        new long[]
+        {
+            WIDTH
+        }, FieldDescriptionFactory.IMAGE_LENGTH, new long[]
+        {
+            HEIGHT
+        }, FieldDescriptionFactory.BITS_PER_SAMPLE, new long[]
+        {
+            8
+        }, FieldDescriptionFactory.COMPRESSION, new long[]
+        {
+            Constants.COMPRESSION_LZW
+        });
+    final TiffSegment segment = TiffSegmentLayoutTest.describe(layout, 0);
+    segment.setByteCount(input.length);
+    final TiffLzwDecoder decoder = new TiffLzwDecoder();
+    segment.setDecodedSize(decoder.decode(layout, segment, input));
+    segment.setError(decoder.takeError());
+    return segment;
+  }
+
+  @Test
+  public void testAllCodeWidths()
+  {
+    final TiffSegment segment = decode(encodeLiterals(WIDTH * HEIGHT));
+    Assert.assertNull("Valid data.", segment.getError());
+    Assert.assertEquals("Codes of 9 to 12 bits decoded.", WIDTH * HEIGHT, segment.getDecodedSize());
+  }
+
+  @Test
+  public void testStrings()
+  {
+    // a, aa, aaa where each string code is the next free one
+    final TiffSegment segment = decode(encode(false, CLEAR, 'a', 258, 259, END));
+    Assert.assertNull("Valid data.", segment.getError());
+    Assert.assertEquals("Lengths of strings added.", 6, segment.getDecodedSize());
+  }
+
+  @Test
+  public void testOldStyle()
+  {
+    final TiffSegment segment = decode(encode(true, CLEAR, 'a', 258, 259, END));
+    Assert.assertNull("Valid data.", segment.getError());
+    Assert.assertEquals("Codes with lowest bit first.", 6, segment.getDecodedSize());
+  }
+
+  @Test
+  public void testInvalidCode()
+  {
+    final TiffSegment segment = decode(encode(false, CLEAR, 'a', 300, END));
+    Assert.assertNotNull("Code beyond next free code.", segment.getError());
+    Assert.assertEquals("Error type.", Msg.LZW_INVALID_CODE, segment.getError().getMessageKey());
+  }
+}
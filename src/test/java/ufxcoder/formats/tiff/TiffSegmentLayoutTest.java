@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.formats.tiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link TiffSegmentLayout} with strip and tile layouts.
+ */
+public class TiffSegmentLayoutTest
+{
+  /**
+   * Create a layout from pairs of field description and values.
+   *
+   * @param rowsPerStrip
+   *          number of rows per strip or 0 for tiles
+   * @param descriptionsAndValues
+   *          alternating {@link FieldDescription} and long[] objects
+   * @return new layout
+   */
+  public static TiffSegmentLayout createLayout(final long rowsPerStrip, final Object... descriptionsAndValues)
+  {
+    final ImageFileDirectory ifd = new ImageFileDirectory(0);
+    for (int index = 0; index < descriptionsAndValues.length; index += 2)
+    {
+      final FieldDescription desc = (FieldDescription) descriptionsAndValues[index];
+      ifd.add(createField(desc.getTag(), (long[]) descriptionsAndValues[index + 1]));
+    }
+    return new TiffSegmentLayout(ifd, rowsPerStrip > 0 ? createField(0, rowsPerStrip) : null);
+  }
+
+  private static Field createField(final int tag, final long... values)
+  {
+    final Field result = new Field();
+    result.setId(tag);
+    result.setType(FieldType.Long.getId());
+    result.setValues(values);
+    return result;
+  }
+
+  /**
+   * Describe the segment with a given index.
+   *
+   * @param layout
+   *          layout of image
+   * @param index
+   *          strip or tile index
+   * @return segment or null if the image has no such segment
+   */
+  public static TiffSegment describe(final TiffSegmentLayout layout, final int index)
+  {
+    final TiffSegment segment = new TiffSegment();
+    segment.setIndex(index);
+    return layout.describe(segment) ? segment : null;
+  }
+
+  @Test
+  public void testStrips()
+  {
+    final TiffSegmentLayout layout = createLayout(4, FieldDescriptionFactory.IMAGE_WIDTH, new long[]
+    {
+        10
+    }, FieldDescriptionFactory.IMAGE_LENGTH, new long[]
+    {
+        10
+    }, FieldDescriptionFactory.SAMPLES_PER_PIXEL, new long[]
+    {
+        3
+    }, FieldDescriptionFactory.BITS_PER_SAMPLE, new long[]
+    {
+        8, 8, 8
+    });
+    Assert.assertTrue("Uncompressed strips can be verified.", layout.isSupported());
+    Assert.assertEquals("First strip has four rows of ten RGB pixels.", 120, describe(layout, 0).getExpectedSize());
+    final TiffSegment last = describe(layout, 2);
+    Assert.assertEquals("Last strip has the remaining two rows.", 2, last.getRows());
+    Assert.assertEquals("Last strip has two rows of ten RGB pixels.", 60, last.getExpectedSize());
+    Assert.assertNull("Image needs only three strips.", describe(layout, 3));
+  }
+
+  @Test
+  public void testPlanarBilevelRowsPadded()
+  {
+    final TiffSegmentLayout layout = createLayout(3, FieldDescriptionFactory.IMAGE_WIDTH, new long[]
+    {
+        9
+    }, FieldDescriptionFactory.IMAGE_LENGTH, new long[]
+    {
+        3
+    }, FieldDescriptionFactory.SAMPLES_PER_PIXEL, new long[]
+    {
+        2
+    }, FieldDescriptionFactory.BITS_PER_SAMPLE, new long[]
+    {
+        1, 16
+    }, FieldDescriptionFactory.PLANAR_CONFIGURATION, new long[]
+    {
+        Constants.PLANAR_CONFIGURATION_PLANAR
+    });
+    Assert.assertEquals("Rows of one bit samples are padded to full bytes.", 6, describe(layout, 0).getExpectedSize());
+    Assert.assertEquals("Second plane has 16 bit samples.", 54, describe(layout, 1).getExpectedSize());
+    Assert.assertNull("Image has only two planes.", describe(layout, 2));
+  }
+
+  @Test
+  public void testSubsampledTiles()
+  {
+    final TiffSegmentLayout layout = createLayout(0, FieldDescriptionFactory.IMAGE_WIDTH, new long[]
+    {
+        20
+    }, FieldDescriptionFactory.IMAGE_LENGTH, new long[]
+    {
+        20
+    }, FieldDescriptionFactory.TILE_WIDTH, new long[]
+    {
+        16
+    }, FieldDescriptionFactory.TILE_LENGTH, new long[]
+    {
+        16
+    }, FieldDescriptionFactory.SAMPLES_PER_PIXEL, new long[]
+    {
+        3
+    }, FieldDescriptionFactory.BITS_PER_SAMPLE, new long[]
+    {
+        8
+    }, FieldDescriptionFactory.PHOTOMETRIC_INTERPRETATION, new long[]
+    {
+        Constants.PHOTOMETRIC_INTERPRETATION_Y_CB_CR
+    }, FieldDescriptionFactory.COMPRESSION, new long[]
+    {
+        Constants.COMPRESSION_LZW
+    });
+    // 8 x 8 blocks of four luma and two chroma samples
+    Assert.assertEquals("Tiles are stored in subsampled blocks.", 384, describe(layout, 3).getExpectedSize());
+    Assert.assertNull("Image has four tiles.", describe(layout, 4));
+  }
+
+  @Test
+  public void testUnsupportedCompression()
+  {
+    final TiffSegmentLayout layout = createLayout(1, FieldDescriptionFactory.IMAGE_WIDTH, new long[]
+    {
+        1
+    }, FieldDescriptionFactory.IMAGE_LENGTH, new long[]
+    {
+        1
+    }, FieldDescriptionFactory.COMPRESSION, new long[]
+    {
+        Constants.COMPRESSION_CCITT_T6 + 2
+    });
+    Assert.assertFalse("JPEG compressed strips are not verified.", layout.isSupported());
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.checksums.ChecksumAlgorithm;
+import ufxcoder.checksums.ContentHash;
+import ufxcoder.conversion.StrUtil;
+
+public class ChecksumSourceTest
+{
+  private static final List<ChecksumAlgorithm> ALGORITHMS = Arrays.asList(ChecksumAlgorithm.Crc32c,
+      ChecksumAlgorithm.Sha256, ChecksumAlgorithm.XxHash64);
+
+  private static byte[] createData(final int size)
+  {
+    final byte[] result = new byte[size];
+    for (int index = 0; index < size; index++)
+    {
+      result[index] = (byte) (index * 13 + 5);
+    }
+    return result;
+  }
+
+  private static String expected(final ChecksumAlgorithm algorithm, final byte[] data)
+  {
+    final ContentHash hash = algorithm.createHash();
+    hash.update(data, 0, data.length);
+    return StrUtil.toHex(hash.digest());
+  }
+
+  private static void assertChecksums(final byte[] data, final Map<String, String> checksums)
+  {
+    Assert.assertEquals("Number of checksums", ALGORITHMS.size(), checksums.size());
+    for (final ChecksumAlgorithm algorithm : ALGORITHMS)
+    {
+      Assert.assertEquals(algorithm.getName(), expected(algorithm, data), checksums.get(algorithm.getName()));
+    }
+  }
+
+  @Test
+  public void testNothingRead() throws IOException
+  {
+    final byte[] data = createData(200_000);
+    try (ChecksumSource source = new ChecksumSource(new MemorySource(data), ALGORITHMS))
+    {
+      assertChecksums(data, source.complete());
+    }
+  }
+
+  @Test
+  public void testRandomAccess() throws IOException
+  {
+    final byte[] data = createData(100_000);
+    final byte[] buffer = new byte[100];
+    try (ChecksumSource source = new ChecksumSource(new MemorySource(data), ALGORITHMS))
+    {
+      source.readFully(buffer, 0, 8);
+      source.seek(90_000);
+      source.readFully(buffer, 0, 100);
+      Assert.assertEquals("Data after skip", data[90_000], buffer[0]);
+      source.seek(50);
+      Assert.assertEquals("Single byte after backward seek", data[50] & 0xff, source.read());
+      Assert.assertEquals("Position", 51, source.getPosition());
+      source.seek(99_990);
+      Assert.assertEquals("Read at end", 10, source.read(buffer, 0, 100));
+      source.seek(3);
+      assertChecksums(data, source.complete());
+      Assert.assertEquals("Position kept", 3, source.getPosition());
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileSourceTest
+{
+  private static final int WINDOW_SIZE = 16;
+  private static final int FILE_SIZE = 100;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File createFile() throws IOException
+  {
+    final byte[] data = new byte[FILE_SIZE];
+    for (int i = 0; i < data.length; i++)
+    {
+      data[i] = (byte) (i + 200);
+    }
+    final File file = folder.newFile("mapped.bin");
+    Files.write(file.toPath(), data);
+    return file;
+  }
+
+  @Test
+  public void testReadAcrossWindows() throws IOException
+  {
+    try (MappedFileSource source = new MappedFileSource(createFile(), WINDOW_SIZE))
+    {
+      Assert.assertEquals("Length is file size.", FILE_SIZE, source.getLength());
+      Assert.assertEquals("First byte is unsigned.", 200, source.read());
+      source.seek(10);
+      final byte[] buffer = new byte[40];
+      source.readFully(buffer, 0, buffer.length);
+      Assert.assertEquals("Position after read.", 50, source.getPosition());
+      for (int i = 0; i < buffer.length; i++)
+      {
+        Assert.assertEquals("Byte read across windows.", (byte) (i + 210), buffer[i]);
+      }
+      source.seek(FILE_SIZE - 1);
+      Assert.assertEquals("Last byte.", (FILE_SIZE - 1 + 200) & 0xff, source.read());
+      Assert.assertEquals("End of input.", -1, source.read());
+      Assert.assertEquals("End of input for array read.", -1, source.read(buffer, 0, 1));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadFullyBeyondEnd() throws IOException
+  {
+    try (MappedFileSource source = new MappedFileSource(createFile(), WINDOW_SIZE))
+    {
+      source.seek(FILE_SIZE - 2);
+      source.readFully(new byte[4], 0, 4);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadAfterClose() throws IOException
+  {
+    final MappedFileSource source = new MappedFileSource(createFile(), WINDOW_SIZE);
+    Assert.assertEquals("First byte is unsigned.", 200, source.read());
+    source.close();
+    // the window was unmapped, reading must fail instead of accessing released memory
+    source.read();
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ufxcoder.app.AppConfig;
+
+public class ParallelDirectoryWalkerTest
+{
+  private static final int NUM_DIRS = 5;
+  private static final int NUM_FILES_PER_DIR = 3;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File createTree(final String name) throws IOException
+  {
+    final File root = folder.newFolder(name);
+    File dir = root;
+    for (int dirIndex = 0; dirIndex < NUM_DIRS; dirIndex++)
+    {
+      dir = new File(dir, "d" + dirIndex);
+      Assert.assertTrue("Creating directory succeeds.", dir.mkdir());
+      for (int fileIndex = 0; fileIndex < NUM_FILES_PER_DIR; fileIndex++)
+      {
+        Assert.assertTrue("Creating file succeeds.", new File(dir, name + dirIndex + "-" + fileIndex).createNewFile());
+      }
+    }
+    return root;
+  }
+
+  @Test
+  public void testWalkMultipleRoots() throws IOException, InterruptedException
+  {
+    final File root1 = createTree("a");
+    final File root2 = createTree("b");
+    final Set<String> names = Collections.synchronizedSet(new HashSet<String>());
+    final ParallelDirectoryWalker walker = new ParallelDirectoryWalker(new AppConfig(), new FileNameConsumer()
+    {
+      @Override
+      public void accept(final String fileName)
+      {
+        names.add(new File(fileName).getName());
+      }
+    }, 4);
+    walker.walk(Arrays.asList(root1.getPath(), new File(folder.getRoot(), "missing").getPath(), root2.getPath()));
+    Assert.assertEquals("All files of both trees are found.", 2 * NUM_DIRS * NUM_FILES_PER_DIR, names.size());
+    Assert.assertTrue("File in deepest directory is found.", names.contains("b4-2"));
+  }
+
+  @Test(expected = InterruptedException.class)
+  public void testWalkInterrupted() throws IOException, InterruptedException
+  {
+    final File root = createTree("c");
+    final ParallelDirectoryWalker walker = new ParallelDirectoryWalker(new AppConfig(), new FileNameConsumer()
+    {
+      @Override
+      public void accept(final String fileName) throws InterruptedException
+      {
+        throw new InterruptedException();
+      }
+    }, 2);
+    walker.walk(Arrays.asList(root.getPath()));
+  }
+}
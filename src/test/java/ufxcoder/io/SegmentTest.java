@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.conversion.ByteOrder;
+
+/**
+ * Test {@link Segment} as a reusable view of data read from a source.
+ */
+public class SegmentTest
+{
+  private static final int DATA_SIZE = 64;
+
+  private static MemorySource createSource()
+  {
+    final byte[] data = new byte[DATA_SIZE];
+    for (int i = 0; i < data.length; i++)
+    {
+      data[i] = (byte) i;
+    }
+    return new MemorySource(data);
+  }
+
+  @Test
+  public void testAppendGrowsView() throws IOException
+  {
+    final MemorySource source = createSource();
+    final Segment segment = new Segment();
+    segment.setByteOrder(ByteOrder.BigEndian);
+    segment.reset(source.getPosition());
+    segment.append(source, 2);
+    segment.append(source, 1);
+    segment.append(source, 5);
+    Assert.assertEquals("Length is sum of appended bytes.", 8, segment.getLength());
+    Assert.assertEquals("First two bytes.", 0x0001, segment.int16());
+    Assert.assertEquals("Next four bytes.", 0x02030405, segment.int32());
+    Assert.assertArrayEquals("Copy of all data.", new byte[]
+    {
+        0, 1, 2, 3, 4, 5, 6, 7
+    }, segment.getData());
+  }
+
+  @Test
+  public void testResetReusesBuffer() throws IOException
+  {
+    final MemorySource source = createSource();
+    final Segment segment = new Segment();
+    segment.setByteOrder(ByteOrder.LittleEndian);
+    segment.reset(source.getPosition());
+    segment.append(source, 16);
+    segment.reset(source.getPosition());
+    segment.append(source, 2);
+    Assert.assertEquals("Offset of second chunk.", 16, segment.getOffset());
+    Assert.assertEquals("Only the second chunk is visible.", 2, segment.getNumBytesLeft());
+    Assert.assertEquals("Little-endian value of second chunk.", 0x1110, segment.int16());
+    Assert.assertEquals("No byte after end of view.", -1, segment.int8());
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testNoStaleDataAfterView() throws IOException
+  {
+    final MemorySource source = createSource();
+    final Segment segment = new Segment();
+    segment.setByteOrder(ByteOrder.BigEndian);
+    segment.reset(source.getPosition());
+    segment.append(source, 16);
+    segment.reset(source.getPosition());
+    segment.append(source, 2);
+    segment.int32();
+  }
+
+  @Test
+  public void testUnsignedValues() throws IOException
+  {
+    final byte[] data = new byte[]
+    {
+        (byte) 0xff, (byte) 0xfe, (byte) 0x80, 0, 0, 1, (byte) 0x80, 0, 0, 0, 0, 0, 0, 2
+    };
+    final Segment segment = new Segment();
+    segment.setByteOrder(ByteOrder.BigEndian);
+    segment.reset(0);
+    segment.append(new MemorySource(data), data.length);
+    Assert.assertEquals("Two bytes are unsigned.", 0xfffe, segment.uint(2));
+    Assert.assertEquals("Four bytes with high bit set are unsigned.", 0x80000001L, segment.uint(4));
+    Assert.assertTrue("Eight bytes above Long.MAX_VALUE are negative.", segment.uint(8) < 0);
+  }
+
+  @Test
+  public void testIsValidSection()
+  {
+    final MemorySource source = createSource();
+    Assert.assertTrue("Whole source is valid.", source.isValidSection(0, DATA_SIZE));
+    Assert.assertTrue("Empty section at end is valid.", source.isValidSection(DATA_SIZE, 0));
+    Assert.assertFalse("Section beyond end is invalid.", source.isValidSection(1, DATA_SIZE));
+    Assert.assertFalse("Negative offset is invalid.", source.isValidSection(-1, 1));
+    Assert.assertFalse("Negative size is invalid.", source.isValidSection(0, -1));
+    Assert.assertFalse("Overflowing sum is invalid.", source.isValidSection(Long.MAX_VALUE, Long.MAX_VALUE));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.io;
+
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link SliceSource} as a view of a section of another source.
+ */
+public class SliceSourceTest
+{
+  private static final int DATA_SIZE = 32;
+
+  private static MemorySource createSource()
+  {
+    final byte[] data = new byte[DATA_SIZE];
+    for (int i = 0; i < data.length; i++)
+    {
+      data[i] = (byte) i;
+    }
+    return new MemorySource(data);
+  }
+
+  @Test
+  public void testReadRelativeToSection() throws IOException
+  {
+    final SliceSource slice = new SliceSource(createSource(), 10, 4);
+    Assert.assertEquals("Length of section.", 4, slice.getLength());
+    Assert.assertEquals("First byte of section.", 10, slice.read());
+    final byte[] buffer = new byte[8];
+    Assert.assertEquals("Reading stops at end of section.", 3, slice.read(buffer, 0, buffer.length));
+    Assert.assertEquals("Last byte of section.", 13, buffer[2]);
+    Assert.assertEquals("End of section reached.", -1, slice.read());
+    slice.seek(1);
+    slice.readFully(buffer, 0, 3);
+    Assert.assertEquals("Seek is relative to section.", 11, buffer[0]);
+  }
+
+  @Test
+  public void testParentPositionIndependent() throws IOException
+  {
+    final MemorySource parent = createSource();
+    final SliceSource slice = new SliceSource(parent, 20, 8);
+    Assert.assertEquals("Slice reads its first byte.", 20, slice.read());
+    parent.seek(2);
+    Assert.assertEquals("Parent reads at its own position.", 2, parent.read());
+    Assert.assertEquals("Slice continues at its own position.", 21, slice.read());
+    Assert.assertEquals("Slice position.", 2, slice.getPosition());
+    slice.close();
+    parent.seek(3);
+    Assert.assertEquals("Closing slice leaves parent open.", 3, parent.read());
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadFullyBeyondSection() throws IOException
+  {
+    final SliceSource slice = new SliceSource(createSource(), 0, 4);
+    slice.readFully(new byte[5], 0, 5);
+  }
+
+  @Test(expected = IOException.class)
+  public void testSeekBeyondSection() throws IOException
+  {
+    final SliceSource slice = new SliceSource(createSource(), 0, 4);
+    slice.seek(5);
+  }
+
+  @Test(expected = IOException.class)
+  public void testSectionOutsideParent() throws IOException
+  {
+    new SliceSource(createSource(), DATA_SIZE - 2, 3).close();
+  }
+}
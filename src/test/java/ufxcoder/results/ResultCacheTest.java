@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResultCacheTest
+{
+  private static final String FINGERPRINT = "version=1";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File createFile(final String name, final String content) throws IOException
+  {
+    final File file = folder.newFile(name);
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+    return file;
+  }
+
+  @Test
+  public void testLookup() throws IOException
+  {
+    final File file = createFile("a.tif", "content");
+    final ResultCache cache = new ResultCache(FINGERPRINT, false);
+    final ResultCache.Key key = cache.createKey(file.getPath());
+    Assert.assertNull("Empty cache", cache.lookup(key));
+    cache.store(key, new ProcessorResult(file.getPath(), "TIFF", ResultStatus.Warning,
+        Arrays.asList("tiff.warning.order"), "Order."));
+    final ProcessorResult result = cache.lookup(key);
+    Assert.assertNotNull("Stored result", result);
+    Assert.assertEquals("Format", "TIFF", result.getFormat());
+    Assert.assertEquals("Number of hits", 1, cache.getNumHits());
+    final ResultCache.Key changed = new ResultCache.Key(key.getName(), key.getPath(), key.getSize() + 1,
+        key.getLastModified(), key.getHash());
+    Assert.assertNull("Changed size", cache.lookup(changed));
+  }
+
+  @Test
+  public void testSaveLoad() throws IOException
+  {
+    final File file = createFile("b.jpg", "content");
+    final File cacheFile = new File(folder.getRoot(), "cache.bin");
+    final ResultCache cache = new ResultCache(FINGERPRINT, true);
+    // no entry to compare with yet, the hash is taken from the checksums computed during processing
+    final ResultCache.Key key = cache.createKey(file.getPath()).withHash(ResultCache.computeHash(file));
+    cache.store(key, new ProcessorResult(file.getPath(), null, ResultStatus.Unknown, null, null));
+    cache.save(cacheFile);
+
+    final ResultCache loaded = new ResultCache(FINGERPRINT, true);
+    Assert.assertTrue("Loaded", loaded.load(cacheFile));
+    final ProcessorResult result = loaded.lookup(loaded.createKey(file.getPath()));
+    Assert.assertNotNull("Result from file", result);
+    Assert.assertNull("Unknown format", result.getFormat());
+    Assert.assertEquals("Status", ResultStatus.Unknown, result.getStatus());
+
+    final ResultCache other = new ResultCache("version=2", true);
+    Assert.assertFalse("Other fingerprint", other.load(cacheFile));
+    Assert.assertEquals("No entries", 0, other.size());
+  }
+
+  @Test
+  public void testHashDetectsChange() throws IOException
+  {
+    final File file = createFile("c.jpg", "content1");
+    final ResultCache cache = new ResultCache(FINGERPRINT, true);
+    // no entry to compare with yet, the hash is taken from the checksums computed during processing
+    final ResultCache.Key key = cache.createKey(file.getPath()).withHash(ResultCache.computeHash(file));
+    cache.store(key, new ProcessorResult(file.getPath(), "JPEG", ResultStatus.Ok, null, null));
+    final long lastModified = file.lastModified();
+    Files.write(file.toPath(), "content2".getBytes(StandardCharsets.US_ASCII));
+    Assert.assertTrue("Keep modification time", file.setLastModified(lastModified));
+    Assert.assertNull("Changed content", cache.lookup(cache.createKey(file.getPath())));
+  }
+
+  @Test
+  public void testSaveDropsMissingFiles() throws IOException
+  {
+    final File kept = createFile("d.tif", "content");
+    final File deleted = createFile("e.tif", "content");
+    final File cacheFile = new File(folder.getRoot(), "cache.bin");
+    final ResultCache cache = new ResultCache(FINGERPRINT, false);
+    cache.store(cache.createKey(kept.getPath()), new ProcessorResult(kept.getPath(), null, ResultStatus.Unknown, null,
+        null));
+    cache.store(cache.createKey(deleted.getPath()), new ProcessorResult(deleted.getPath(), null, ResultStatus.Unknown,
+        null, null));
+    cache.save(cacheFile);
+
+    // a later run not examining the files
+    Assert.assertTrue("Deleted", deleted.delete());
+    final ResultCache next = new ResultCache(FINGERPRINT, false);
+    Assert.assertTrue("Loaded", next.load(cacheFile));
+    Assert.assertEquals("Both entries loaded", 2, next.size());
+    next.save(cacheFile);
+
+    final ResultCache last = new ResultCache(FINGERPRINT, false);
+    Assert.assertTrue("Loaded again", last.load(cacheFile));
+    Assert.assertEquals("Entry of deleted file dropped", 1, last.size());
+    Assert.assertNotNull("Entry of existing file kept", last.lookup(last.createKey(kept.getPath())));
+  }
+
+  @Test
+  public void testHashOnlyComputedForComparison() throws IOException
+  {
+    final File file = createFile("f.jpg", "content");
+    final ResultCache cache = new ResultCache(FINGERPRINT, true);
+    Assert.assertEquals("No hash without entry", 0, cache.createKey(file.getPath()).getHash());
+    final long hash = ResultCache.computeHash(file);
+    cache.store(cache.createKey(file.getPath()).withHash(hash), new ProcessorResult(file.getPath(), "JPEG",
+        ResultStatus.Ok, null, null));
+    Assert.assertEquals("Hash computed to compare with entry", hash, cache.createKey(file.getPath()).getHash());
+    // XXH64 of "content" differs from 0, the placeholder of keys without hash
+    Assert.assertNotEquals("Hash of content", 0, hash);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017, 2018, 2019, 2020, 2021, 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ufxcoder.results;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import org.junit.Assert;
+import org.junit.Test;
+import ufxcoder.app.AppConfig;
+
+public class ResultEncoderTest
+{
+  private static final String KEY_TRUNCATED = "tiff.error.truncated";
+  private static final String KEY_ORDER = "tiff.warning.order";
+
+  private static AppConfig createConfig()
+  {
+    final AppConfig config = new AppConfig();
+    config.setBundle(ResourceBundle.getBundle("Messages", Locale.ENGLISH));
+    return config;
+  }
+
+  private static ProcessorResult createResult()
+  {
+    return new ProcessorResult("dir/a\"b.tif", "TIFF", ResultStatus.Error, Arrays.asList(KEY_TRUNCATED, KEY_ORDER),
+        "Truncated.");
+  }
+
+  private static String encode(final AbstractResultEncoder encoder, final ProcessorResult result) throws IOException
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    encoder.encode(result, out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testTsv() throws IOException
+  {
+    final AbstractResultEncoder encoder = new TsvResultEncoder(createConfig());
+    Assert.assertEquals("TSV line", "dir/a\"b.tif\tTIFF\tError\tTruncated.\n", encode(encoder, createResult()));
+    Assert.assertEquals("TSV unknown", "x \t\tUnknown\t\n",
+        encode(encoder, new ProcessorResult("x\n", null, ResultStatus.Unknown, null, null)));
+  }
+
+  @Test
+  public void testJsonLines() throws IOException
+  {
+    final AbstractResultEncoder encoder = new JsonLinesResultEncoder();
+    final String line = encode(encoder, createResult());
+    Assert.assertTrue("Escaped path", line.startsWith("{\"path\":\"dir/a\\\"b.tif\",\"format\":\"TIFF\""));
+    Assert.assertTrue("Status", line.contains("\"status\":\"error\""));
+    Assert.assertTrue("Events", line.contains("\"events\":[\"" + KEY_TRUNCATED + "\",\"" + KEY_ORDER + "\"]"));
+    Assert.assertTrue("Line end", line.endsWith("}\n"));
+    final String unknown = encode(encoder, new ProcessorResult("\u0001", null, ResultStatus.Unknown, null, null));
+    Assert.assertTrue("Control character", unknown.contains("\"path\":\"\\u0001\""));
+    Assert.assertTrue("Null format", unknown.contains("\"format\":null"));
+  }
+
+  @Test
+  public void testBinaryStringTable() throws IOException
+  {
+    final AbstractResultEncoder encoder = new BinaryResultEncoder();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    encoder.writeHeader(out);
+    final int headerSize = out.size();
+    encoder.encode(createResult(), out);
+    final int firstSize = out.size() - headerSize;
+    encoder.encode(createResult(), out);
+    final int secondSize = out.size() - headerSize - firstSize;
+    Assert.assertTrue("Repeated strings are table references", secondSize < firstSize);
+  }
+
+  @Test
+  public void testWriteNumber() throws IOException
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryResultEncoder.writeNumber(out, 300);
+    Assert.assertArrayEquals("Varint", new byte[]
+    {
+        (byte) 0xac, 0x02
+    }, out.toByteArray());
+  }
+
+  @Test
+  public void testAsyncWriter() throws IOException
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final AsyncResultWriter writer = new AsyncResultWriter(new TsvResultEncoder(createConfig()), out, false);
+    writer.start();
+    final int numResults = 5000;
+    for (int index = 0; index < numResults; index++)
+    {
+      writer.accept(new ProcessorResult("f" + index, "JPEG", ResultStatus.Ok, null, null));
+    }
+    writer.close();
+    final String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    Assert.assertEquals("Number of lines", numResults, lines.length);
+    Assert.assertEquals("Order kept", "f" + (numResults - 1) + "\tJPEG\tOK\t", lines[numResults - 1]);
+  }
+
+  @Test(timeout = 10_000L)
+  public void testAsyncWriterEncoderFailure()
+  {
+    final AbstractResultEncoder failing = new TsvResultEncoder(createConfig())
+    {
+      @Override
+      public void encode(final ProcessorResult result, final OutputStream stream)
+      {
+        throw new IllegalStateException("Encoder failure.");
+      }
+    };
+    final AsyncResultWriter writer = new AsyncResultWriter(failing, new ByteArrayOutputStream(), false);
+    writer.start();
+    // more results than fit into the queue, workers must not block once the writer has stopped
+    boolean reported = false;
+    for (int index = 0; index < 20_000 && !reported; index++)
+    {
+      try
+      {
+        writer.accept(new ProcessorResult("f" + index, "JPEG", ResultStatus.Ok, null, null));
+      }
+      catch (UncheckedIOException e)
+      {
+        reported = true;
+      }
+    }
+    Assert.assertTrue("Failure reported to worker", reported);
+    try
+    {
+      writer.close();
+      Assert.fail("Failure reported on close");
+    }
+    catch (IOException e)
+    {
+      Assert.assertNotNull("Failure message", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testFromName()
+  {
+    Assert.assertEquals("jsonl", ResultFormat.JsonLines, ResultFormat.fromName("jsonl"));
+    Assert.assertEquals("Case", ResultFormat.Tsv, ResultFormat.fromName("TSV"));
+    Assert.assertNull("Unknown", ResultFormat.fromName("xml"));
+  }
+}